@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.circuitbreaker;
+
+import java.time.Duration;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Microbenchmarks of the {@link EventCounter}s used by a {@link CircuitBreaker}, counting events from
+ * multiple threads. Run with {@code -Pjmh.profilers=gc} to see the allocation rate as well.
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+public class SlidingWindowCounterBenchmark {
+
+    public enum CounterType {
+        RING_BUFFER,
+        QUEUE_BASED
+    }
+
+    @Param
+    private CounterType counterType;
+
+    // The window slides very often with 1 millisecond. 1 second is the default of CircuitBreakerBuilder.
+    @Param({ "1", "1000" })
+    private long updateIntervalMillis;
+
+    private EventCounter counter;
+
+    @Setup
+    public void setUp() {
+        final Duration slidingWindow = Duration.ofSeconds(20);
+        final Duration updateInterval = Duration.ofMillis(updateIntervalMillis);
+        switch (counterType) {
+            case RING_BUFFER:
+                counter = new SlidingWindowCounter(Ticker.systemTicker(), slidingWindow, updateInterval);
+                break;
+            case QUEUE_BASED:
+                counter = new QueueBasedSlidingWindowCounter(Ticker.systemTicker(),
+                                                             slidingWindow, updateInterval);
+                break;
+        }
+    }
+
+    @Benchmark
+    public EventCount onSuccess() {
+        return counter.onSuccess();
+    }
+
+    @Benchmark
+    public EventCount onFailure() {
+        return counter.onFailure();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.logging;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.linecorp.armeria.client.ClientOptions;
+import com.linecorp.armeria.client.DefaultClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.common.metric.NoopMeterRegistry;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+
+/**
+ * Microbenchmarks of the registration and notification of {@link RequestLogListener}s.
+ *
+ * <p>Each benchmark operation creates a new {@link RequestLog}, adds the listeners of 6 decorators to it,
+ * e.g. logging, metric collection, tracing and access logging, and then completes the request.
+ */
+@State(Scope.Benchmark)
+public class RequestLogListenerBenchmark {
+
+    private static final EventLoop eventLoop = new DefaultEventLoop();
+    private static final HttpRequest request = HttpRequest.of(HttpMethod.GET, "/");
+    private static final HttpHeaders requestHeaders = HttpHeaders.of(HttpMethod.GET, "/");
+    private static final HttpHeaders responseHeaders = HttpHeaders.of(HttpStatus.OK);
+
+    @Benchmark
+    public void sixDecorators(Blackhole bh) {
+        final DefaultClientRequestContext ctx = new DefaultClientRequestContext(
+                eventLoop, NoopMeterRegistry.get(), SessionProtocol.HTTP, Endpoint.ofGroup("benchmark"),
+                HttpMethod.GET, "/", null, null, ClientOptions.DEFAULT, request);
+        final RequestLog log = ctx.log();
+        final RequestLogListener listener = bh::consume;
+
+        // Metric collection
+        log.addListener(listener, RequestLogAvailability.REQUEST_HEADERS);
+        log.addListener(listener, RequestLogAvailability.COMPLETE);
+        // Tracing
+        log.addListener(listener, RequestLogAvailability.REQUEST_START);
+        log.addListener(listener, RequestLogAvailability.RESPONSE_HEADERS, RequestLogAvailability.REQUEST_END);
+        // Logging, access logging and others
+        log.addListener(listener, RequestLogAvailability.COMPLETE);
+        log.addListener(listener, RequestLogAvailability.COMPLETE);
+
+        final RequestLogBuilder logBuilder = ctx.logBuilder();
+        logBuilder.requestHeaders(requestHeaders);
+        logBuilder.endRequest();
+        logBuilder.startResponse();
+        logBuilder.responseHeaders(responseHeaders);
+        logBuilder.endResponse();
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.core.client.endpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.linecorp.armeria.client.ClientOptions;
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.DefaultClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.EndpointSelectionStrategy;
+import com.linecorp.armeria.client.endpoint.EndpointSelector;
+import com.linecorp.armeria.client.endpoint.StaticEndpointGroup;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.SessionProtocol;
+import com.linecorp.armeria.common.metric.NoopMeterRegistry;
+
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+
+/**
+ * Microbenchmarks of the {@link EndpointSelectionStrategy}s when some endpoints are much slower than others.
+ *
+ * <p>Each benchmark operation sends a request to the selected endpoint. A request to a slow endpoint
+ * completes after {@value #SLOW_DELAY} more operations of the same thread and a request to the other
+ * endpoints after {@value #FAST_DELAY}, so that the slow endpoints have more in-flight requests and higher
+ * latency. {@code slowSelections} counts the requests sent to the slow endpoints, which should be much less
+ * than {@value #SLOW_PERCENTAGE}% of all requests with {@link EndpointSelectionStrategy#LEAST_LOADED}.
+ */
+@State(Scope.Benchmark)
+@Threads(4)
+public class LeastLoadedStrategyBenchmark {
+
+    private static final int NUM_ENDPOINTS = 100;
+    private static final int SLOW_PERCENTAGE = 10;
+    private static final int FAST_DELAY = 1;
+    private static final int SLOW_DELAY = 20;
+
+    private static final EventLoop eventLoop = new DefaultEventLoop();
+    private static final HttpRequest request = HttpRequest.of(HttpMethod.GET, "/");
+
+    public enum StrategyType {
+        ROUND_ROBIN(EndpointSelectionStrategy.ROUND_ROBIN),
+        WEIGHTED_ROUND_ROBIN(EndpointSelectionStrategy.WEIGHTED_ROUND_ROBIN),
+        LEAST_LOADED(EndpointSelectionStrategy.LEAST_LOADED);
+
+        private final EndpointSelectionStrategy strategy;
+
+        StrategyType(EndpointSelectionStrategy strategy) {
+            this.strategy = strategy;
+        }
+    }
+
+    @Param
+    private StrategyType strategyType;
+
+    private EndpointSelector selector;
+
+    @Setup
+    public void setUp() {
+        final List<Endpoint> endpoints = new ArrayList<>(NUM_ENDPOINTS);
+        for (int i = 0; i < NUM_ENDPOINTS; i++) {
+            endpoints.add(Endpoint.of("127.0.0.1", i + 1));
+        }
+        selector = strategyType.strategy.newSelector(new StaticEndpointGroup(endpoints));
+    }
+
+    private static boolean isSlow(Endpoint endpoint) {
+        return endpoint.port() <= NUM_ENDPOINTS * SLOW_PERCENTAGE / 100;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters
+    public static class Counters {
+
+        public long slowSelections;
+
+        // The requests to complete after N more operations are in pending[(current + N) % pending.length].
+        @SuppressWarnings("unchecked")
+        private final List<ClientRequestContext>[] pending = new List[SLOW_DELAY + 1];
+        private int current;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            slowSelections = 0;
+            for (int i = 0; i < pending.length; i++) {
+                if (pending[i] == null) {
+                    pending[i] = new ArrayList<>();
+                }
+            }
+        }
+
+        void send(ClientRequestContext ctx, boolean slow) {
+            pending[(current + (slow ? SLOW_DELAY : FAST_DELAY)) % pending.length].add(ctx);
+        }
+
+        void completeCurrent() {
+            final List<ClientRequestContext> completed = pending[current];
+            for (ClientRequestContext ctx : completed) {
+                ctx.logBuilder().endRequest();
+                ctx.logBuilder().endResponse();
+            }
+            completed.clear();
+            current = (current + 1) % pending.length;
+        }
+    }
+
+    @Benchmark
+    public Endpoint select(Counters counters) {
+        final ClientRequestContext ctx = new DefaultClientRequestContext(
+                eventLoop, NoopMeterRegistry.get(), SessionProtocol.HTTP, Endpoint.ofGroup("benchmark"),
+                HttpMethod.GET, "/", null, null, ClientOptions.DEFAULT, request);
+
+        final Endpoint endpoint = selector.select(ctx);
+        final boolean slow = isSlow(endpoint);
+        if (slow) {
+            counters.slowSelections++;
+        }
+        counters.send(ctx, slow);
+        counters.completeCurrent();
+        return endpoint;
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.grpc.downstream;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.google.protobuf.ByteString;
+
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpObject;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.grpc.BinaryProxyGrpc.BinaryProxyImplBase;
+import com.linecorp.armeria.grpc.BinaryProxyGrpc.BinaryProxyStub;
+import com.linecorp.armeria.grpc.BinaryProxyOuterClass.BinaryPayload;
+import com.linecorp.armeria.server.Server;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServerPort;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.grpc.GrpcServiceBuilder;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+
+/**
+ * A {@link Benchmark} which measures the number of messages per second of a server-streaming call whose
+ * handler respects {@link ServerCallStreamObserver#isReady()}, over a link with the round-trip time of
+ * {@link #rttMillis}. The link is emulated by a decorator which lets at most {@link #LINK_WINDOW_BYTES} of
+ * the response be in flight and acknowledges each chunk one round trip after it was sent, like the flow
+ * control window of an HTTP/2 stream.
+ *
+ * <p>{@code highWatermarkBytes = 0} allows only one message in flight, which was the behavior before the
+ * write watermarks were introduced.
+ */
+@State(Scope.Benchmark)
+public class StreamingFlowControlBenchmark {
+
+    private static final int NUM_MESSAGES = 1000;
+
+    private static final int LINK_WINDOW_BYTES = 65535;
+
+    private static final BinaryPayload PAYLOAD =
+            BinaryPayload.newBuilder()
+                         .setPayload(ByteString.copyFrom(new byte[1024]))
+                         .build();
+
+    @Param({ "10", "50", "100" })
+    private long rttMillis;
+
+    @Param({ "0", "65536" })
+    private int highWatermarkBytes;
+
+    private Server server;
+    private BinaryProxyStub binaryProxyClient;
+
+    @Setup
+    public void setUp() {
+        server = new ServerBuilder()
+                .serviceUnder("/", new GrpcServiceBuilder()
+                        .addService(new StreamingService())
+                        .setWriteWatermarkBytes(highWatermarkBytes / 2, highWatermarkBytes)
+                        .build()
+                        .decorate((delegate, ctx, req) -> emulateLink(ctx, delegate.serve(ctx, req))))
+                .build();
+        server.start().join();
+        final ServerPort httpPort = server.activePorts().values().stream()
+                                          .filter(ServerPort::hasHttp).findAny()
+                                          .get();
+        final String url = "gproto+http://127.0.0.1:" + httpPort.localAddress().getPort() + '/';
+        binaryProxyClient = Clients.newClient(url, BinaryProxyStub.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop().join();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NUM_MESSAGES)
+    public boolean serverStreaming() throws Exception {
+        final CountingObserver responseObserver = new CountingObserver();
+        final StreamObserver<BinaryPayload> requestObserver = binaryProxyClient.echo(responseObserver);
+        requestObserver.onNext(PAYLOAD);
+        requestObserver.onCompleted();
+        return responseObserver.finish(NUM_MESSAGES);
+    }
+
+    private HttpResponse emulateLink(ServiceRequestContext ctx, HttpResponse res) {
+        final HttpResponseWriter delayed = HttpResponse.streaming();
+        res.subscribe(new Subscriber<HttpObject>() {
+
+            private Subscription subscription;
+            private long inFlightBytes;
+            private boolean requested;
+
+            @Override
+            public void onSubscribe(Subscription subscription) {
+                this.subscription = subscription;
+                requestIfWindowAvailable();
+            }
+
+            @Override
+            public void onNext(HttpObject obj) {
+                requested = false;
+                final int size = obj instanceof HttpData ? ((HttpData) obj).length() : 0;
+                inFlightBytes += size;
+                ctx.eventLoop().schedule(() -> delayed.write(obj), rttMillis / 2, TimeUnit.MILLISECONDS);
+                ctx.eventLoop().schedule(() -> {
+                    inFlightBytes -= size;
+                    requestIfWindowAvailable();
+                }, rttMillis, TimeUnit.MILLISECONDS);
+                requestIfWindowAvailable();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                delayed.close(t);
+            }
+
+            @Override
+            public void onComplete() {
+                ctx.eventLoop().schedule(() -> delayed.close(), rttMillis / 2, TimeUnit.MILLISECONDS);
+            }
+
+            private void requestIfWindowAvailable() {
+                if (!requested && inFlightBytes < LINK_WINDOW_BYTES) {
+                    requested = true;
+                    subscription.request(1);
+                }
+            }
+        }, ctx.eventLoop());
+        return delayed;
+    }
+
+    /**
+     * Streams {@link #NUM_MESSAGES} copies of the first request message, sending only while the call
+     * is ready.
+     */
+    private static final class StreamingService extends BinaryProxyImplBase {
+        @Override
+        public StreamObserver<BinaryPayload> echo(StreamObserver<BinaryPayload> responseObserver) {
+            final ServerCallStreamObserver<BinaryPayload> observer =
+                    (ServerCallStreamObserver<BinaryPayload>) responseObserver;
+            return new StreamObserver<BinaryPayload>() {
+
+                private BinaryPayload payload;
+                private int numSent;
+
+                @Override
+                public void onNext(BinaryPayload value) {
+                    if (payload == null) {
+                        payload = value;
+                        observer.setOnReadyHandler(this::send);
+                        send();
+                    }
+                }
+
+                private void send() {
+                    while (numSent < NUM_MESSAGES && observer.isReady()) {
+                        observer.onNext(payload);
+                        if (++numSent == NUM_MESSAGES) {
+                            observer.onCompleted();
+                        }
+                    }
+                }
+
+                @Override
+                public void onError(Throwable t) {}
+
+                @Override
+                public void onCompleted() {}
+            };
+        }
+    }
+
+    private static final class CountingObserver implements StreamObserver<BinaryPayload> {
+
+        private final CountDownLatch latch = new CountDownLatch(1);
+
+        private volatile Throwable error;
+        private volatile int num;
+
+        boolean finish(int expected) throws Exception {
+            latch.await();
+            if (error != null) {
+                throw new RuntimeException(error);
+            }
+            if (num != expected) {
+                throw new IllegalStateException("Unexpected num: " + num);
+            }
+            return true;
+        }
+
+        @Override
+        public void onNext(BinaryPayload value) {
+            num++;
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            latch.countDown();
+        }
+
+        @Override
+        public void onCompleted() {
+            latch.countDown();
+        }
+    }
+}
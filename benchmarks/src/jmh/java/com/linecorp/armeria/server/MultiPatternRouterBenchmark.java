@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.server.Routers.SequentialRouter;
+
+/**
+ * Microbenchmarks of finding a glob or regular expression {@link PathMapping} without {@link RouteCache},
+ * comparing {@link MultiPatternRouter} with trying every mapping in turn.
+ */
+@State(Scope.Thread)
+public class MultiPatternRouterBenchmark {
+
+    public enum RouterType {
+        SEQUENTIAL,
+        MULTI_PATTERN
+    }
+
+    @Param({ "10", "100", "800" })
+    private int numMappings;
+
+    @Param
+    private RouterType routerType;
+
+    private Router<PathMapping> router;
+    private PathMappingContext hitCtx;
+    private PathMappingContext missCtx;
+
+    @Setup
+    public void setUp() {
+        final List<PathMapping> mappings = new ArrayList<>(numMappings);
+        for (int i = 0; i < numMappings; i++) {
+            if (i % 2 == 0) {
+                mappings.add(PathMapping.of("glob:/api/v1/service" + i + "/**/*.json"));
+            } else {
+                mappings.add(PathMapping.ofRegex("^/api/v2/service" + i + "/(?<id>[0-9]+)/items$"));
+            }
+        }
+        mappings.sort(Comparator.comparingInt(m -> -m.complexity()));
+
+        switch (routerType) {
+            case SEQUENTIAL:
+                router = new SequentialRouter<>(mappings, Function.identity());
+                break;
+            case MULTI_PATTERN:
+                router = new MultiPatternRouter<>(mappings, Function.identity());
+                break;
+        }
+
+        final VirtualHost virtualHost = new VirtualHostBuilder().build();
+        // Matches the last mapping, which is the worst case of the sequential lookup.
+        final int last = numMappings - 1;
+        final String hitPath = last % 2 == 0 ? "/api/v1/service" + last + "/foo/bar.json"
+                                             : "/api/v2/service" + last + "/12345/items";
+        hitCtx = new DefaultPathMappingContext(virtualHost, "localhost", HttpMethod.GET,
+                                               hitPath, null, null, null);
+        missCtx = new DefaultPathMappingContext(virtualHost, "localhost", HttpMethod.GET,
+                                                "/api/v3/unknown/12345/items", null, null, null);
+    }
+
+    @Benchmark
+    public PathMapped<PathMapping> hit() {
+        return router.find(hitCtx);
+    }
+
+    @Benchmark
+    public PathMapped<PathMapping> miss() {
+        return router.find(missCtx);
+    }
+}
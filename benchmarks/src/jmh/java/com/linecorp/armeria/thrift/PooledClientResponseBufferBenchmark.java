@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.thrift;
+
+import java.util.Arrays;
+
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.protocol.TMessage;
+import org.apache.thrift.protocol.TMessageType;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.transport.TMemoryBuffer;
+import org.apache.thrift.transport.TMemoryInputTransport;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.linecorp.armeria.client.Clients;
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.thrift.ThriftSerializationFormats;
+import com.linecorp.armeria.server.Server;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServerPort;
+import com.linecorp.armeria.server.thrift.THttpService;
+import com.linecorp.armeria.thrift.services.HelloService;
+import com.linecorp.armeria.thrift.services.HelloService.AsyncIface;
+
+import joptsimple.internal.Strings;
+
+/**
+ * Compare performance of the Thrift client, which decodes a response from a pooled buffer, vs decoding a
+ * response aggregated into an unpooled heap buffer. Run with {@code -prof gc} to compare the allocation
+ * rates.
+ */
+@State(Scope.Benchmark)
+public class PooledClientResponseBufferBenchmark {
+
+    private static final int RESPONSE_SIZE = 500 * 1024;
+    private static final String RESPONSE = Strings.repeat('a', RESPONSE_SIZE);
+
+    private Server server;
+    private HelloService.Iface pooledClient;
+    private HttpClient unpooledClient;
+    private byte[] encodedRequest;
+
+    @Setup
+    public void startServer() throws Exception {
+        final ServerBuilder sb = new ServerBuilder()
+                .service("/hello", THttpService.of((AsyncIface) (name, cb) -> cb.onComplete(RESPONSE)));
+        server = sb.build();
+        server.start().join();
+
+        final ServerPort httpPort = server.activePorts().values().stream()
+                                          .filter(ServerPort::hasHttp).findAny()
+                                          .get();
+        pooledClient = Clients.newClient(
+                "tbinary+http://127.0.0.1:" + httpPort.localAddress().getPort() + "/hello",
+                HelloService.Iface.class);
+        unpooledClient = HttpClient.of("http://127.0.0.1:" + httpPort.localAddress().getPort());
+
+        final TMemoryBuffer outTransport = new TMemoryBuffer(128);
+        final TProtocol outProto = new TBinaryProtocol(outTransport);
+        outProto.writeMessageBegin(new TMessage("hello", TMessageType.CALL, 0));
+        new HelloService.hello_args("hello").write(outProto);
+        outProto.writeMessageEnd();
+        encodedRequest = Arrays.copyOf(outTransport.getArray(), outTransport.length());
+    }
+
+    @TearDown
+    public void stopServer() throws Exception {
+        server.stop().join();
+    }
+
+    @Benchmark
+    public void pooled(Blackhole bh) throws Exception {
+        bh.consume(pooledClient.hello("hello"));
+    }
+
+    @Benchmark
+    public void unpooled(Blackhole bh) throws Exception {
+        final AggregatedHttpMessage res = unpooledClient.execute(
+                HttpRequest.of(HttpHeaders.of(HttpMethod.POST, "/hello")
+                                          .contentType(ThriftSerializationFormats.BINARY.mediaType()),
+                               HttpData.of(encodedRequest))).aggregate().join();
+        final HttpData content = res.content();
+        final TProtocol inProto = new TBinaryProtocol(
+                new TMemoryInputTransport(content.array(), content.offset(), content.length()));
+        inProto.readMessageBegin();
+        final HelloService.hello_result result = new HelloService.hello_result();
+        result.read(inProto);
+        inProto.readMessageEnd();
+        bh.consume(result.getSuccess());
+    }
+}
@@ -45,6 +45,7 @@ import com.linecorp.armeria.internal.TransportType;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Metrics;
 import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.EpollChannelOption;
 import io.netty.handler.codec.http2.Http2CodecUtil;
@@ -108,6 +109,9 @@ public final class ClientFactoryBuilder {
     private long idleTimeoutMillis = Flags.defaultClientIdleTimeoutMillis();
     private boolean useHttp2Preface = Flags.defaultUseHttp2Preface();
     private boolean useHttp1Pipelining = Flags.defaultUseHttp1Pipelining();
+    private int maxHttp1PipelineDepth = Flags.defaultMaxHttp1PipelineDepth();
+    private int maxNumConnectionsPerPoolKey = Flags.defaultMaxNumConnectionsPerPoolKey();
+    private int maxNumPendingAcquisitionsPerPoolKey = Flags.defaultMaxNumPendingAcquisitionsPerPoolKey();
     private KeyedChannelPoolHandler<? super PoolKey> connectionPoolListener = DEFAULT_CONNECTION_POOL_LISTENER;
     private MeterRegistry meterRegistry = Metrics.globalRegistry;
 
@@ -316,6 +320,50 @@ public final class ClientFactoryBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum number of requests which can be sent over an HTTP/1 connection before their responses
+     * are received, when {@linkplain #useHttp1Pipelining(boolean) HTTP pipelining} is enabled.
+     * A connection with this many unfinished responses is not used for a new request until one of its
+     * responses is complete.
+     */
+    public ClientFactoryBuilder maxHttp1PipelineDepth(int maxHttp1PipelineDepth) {
+        checkArgument(maxHttp1PipelineDepth > 0,
+                      "maxHttp1PipelineDepth: %s (expected: > 0)", maxHttp1PipelineDepth);
+        this.maxHttp1PipelineDepth = maxHttp1PipelineDepth;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of connections which can be opened for a {@link PoolKey} by the
+     * {@link ClientFactory}, regardless of which {@link EventLoop} they belong to. A request which needs
+     * a new connection beyond this limit waits rather than opening another connection. It takes a connection
+     * for the same {@link PoolKey} when one is returned to the pool of its {@link EventLoop}, or opens a new
+     * one when a connection for the same {@link PoolKey} is closed. A connection returned to the pool of
+     * another {@link EventLoop} is closed if no request waits for it in that pool, so that the waiting
+     * request can open a new one. The request fails with a {@link ResponseTimeoutException} if it cannot get
+     * a connection within its response timeout.
+     *
+     * @see #maxNumPendingAcquisitionsPerPoolKey(int)
+     */
+    public ClientFactoryBuilder maxNumConnectionsPerPoolKey(int maxNumConnectionsPerPoolKey) {
+        checkArgument(maxNumConnectionsPerPoolKey > 0,
+                      "maxNumConnectionsPerPoolKey: %s (expected: > 0)", maxNumConnectionsPerPoolKey);
+        this.maxNumConnectionsPerPoolKey = maxNumConnectionsPerPoolKey;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of requests which can wait for a connection of a {@link PoolKey} when
+     * {@link #maxNumConnectionsPerPoolKey(int)} is reached. A request beyond this limit fails immediately.
+     */
+    public ClientFactoryBuilder maxNumPendingAcquisitionsPerPoolKey(int maxNumPendingAcquisitionsPerPoolKey) {
+        checkArgument(maxNumPendingAcquisitionsPerPoolKey >= 0,
+                      "maxNumPendingAcquisitionsPerPoolKey: %s (expected: >= 0)",
+                      maxNumPendingAcquisitionsPerPoolKey);
+        this.maxNumPendingAcquisitionsPerPoolKey = maxNumPendingAcquisitionsPerPoolKey;
+        return this;
+    }
+
     /**
      * Sets the listener which is notified on a connection pool event.
      */
@@ -342,7 +390,8 @@ public final class ClientFactoryBuilder {
                 addressResolverGroupFactory, initialHttp2ConnectionWindowSize, initialHttp2StreamWindowSize,
                 http2MaxFrameSize, maxHttp1InitialLineLength, maxHttp1HeaderSize,
                 maxHttp1ChunkSize, idleTimeoutMillis, useHttp2Preface,
-                useHttp1Pipelining, connectionPoolListener, meterRegistry));
+                useHttp1Pipelining, maxHttp1PipelineDepth, maxNumConnectionsPerPoolKey,
+                maxNumPendingAcquisitionsPerPoolKey, connectionPoolListener, meterRegistry));
     }
 
     @Override
@@ -351,7 +400,9 @@ public final class ClientFactoryBuilder {
                         sslContextCustomizer, addressResolverGroupFactory, initialHttp2ConnectionWindowSize,
                         initialHttp2StreamWindowSize, http2MaxFrameSize, maxHttp1InitialLineLength,
                         maxHttp1HeaderSize, maxHttp1ChunkSize, idleTimeoutMillis,
-                        useHttp2Preface, useHttp1Pipelining, connectionPoolListener, meterRegistry);
+                        useHttp2Preface, useHttp1Pipelining, maxHttp1PipelineDepth,
+                        maxNumConnectionsPerPoolKey, maxNumPendingAcquisitionsPerPoolKey,
+                        connectionPoolListener, meterRegistry);
     }
 
     static String toString(
@@ -364,8 +415,9 @@ public final class ClientFactoryBuilder {
             int initialHttp2ConnectionWindowSize, int initialHttp2StreamWindowSize, int http2MaxFrameSize,
             int maxHttp1InitialLineLength, int maxHttp1HeaderSize, int maxHttp1ChunkSize,
             long idleTimeoutMillis, boolean useHttp2Preface,
-            boolean useHttp1Pipelining, KeyedChannelPoolHandler<? super PoolKey> connectionPoolListener,
-            MeterRegistry meterRegistry) {
+            boolean useHttp1Pipelining, int maxHttp1PipelineDepth, int maxNumConnectionsPerPoolKey,
+            int maxNumPendingAcquisitionsPerPoolKey,
+            KeyedChannelPoolHandler<? super PoolKey> connectionPoolListener, MeterRegistry meterRegistry) {
 
         final ToStringHelper helper = MoreObjects.toStringHelper(self).omitNullValues();
         helper.add("workerGroup", workerGroup + " (shutdownOnClose=" + shutdownWorkerGroupOnClose + ')')
@@ -378,7 +430,10 @@ public final class ClientFactoryBuilder {
               .add("maxHttp1ChunkSize", maxHttp1ChunkSize)
               .add("idleTimeoutMillis", idleTimeoutMillis)
               .add("useHttp2Preface", useHttp2Preface)
-              .add("useHttp1Pipelining", useHttp1Pipelining);
+              .add("useHttp1Pipelining", useHttp1Pipelining)
+              .add("maxHttp1PipelineDepth", maxHttp1PipelineDepth)
+              .add("maxNumConnectionsPerPoolKey", maxNumConnectionsPerPoolKey)
+              .add("maxNumPendingAcquisitionsPerPoolKey", maxNumPendingAcquisitionsPerPoolKey);
 
         if (connectionPoolListener != DEFAULT_CONNECTION_POOL_LISTENER) {
             helper.add("connectionPoolListener", connectionPoolListener);
@@ -78,6 +78,14 @@ final class Http1ResponseDecoder extends HttpResponseDecoder implements ChannelI
                 // This is needed in case the response is aborted by the client.
                 resWrapper.close(cause);
 
+                if (cause instanceof ResponseTimeoutException && channel().eventLoop().inEventLoop() &&
+                    id != resId && getResponse(id) == resWrapper) {
+                    // The response timed out while waiting behind the preceding responses in the pipeline.
+                    // Keep the connection because its response will be discarded when it arrives, so that
+                    // the other pipelined requests are not failed together.
+                    return;
+                }
+
                 // Disconnect when the response has been closed with an exception because there's no way
                 // to recover from it in HTTP/1.
                 channel().close();
@@ -153,7 +161,7 @@ final class Http1ResponseDecoder extends HttpResponseDecoder implements ChannelI
                         }
 
                         res.scheduleTimeout(ctx);
-                        res.write(ArmeriaHttpUtil.toArmeria(nettyRes));
+                        res.tryWrite(ArmeriaHttpUtil.toArmeria(nettyRes));
                     } else {
                         failWithUnexpectedMessageType(ctx, msg);
                     }
@@ -183,7 +191,7 @@ final class Http1ResponseDecoder extends HttpResponseDecoder implements ChannelI
                                 fail(ctx, ContentTooLargeException.get());
                                 return;
                             } else {
-                                res.write(HttpData.of(data));
+                                res.tryWrite(HttpData.of(data));
                             }
                         }
 
@@ -197,7 +205,7 @@ final class Http1ResponseDecoder extends HttpResponseDecoder implements ChannelI
 
                             final HttpHeaders trailingHeaders = ((LastHttpContent) msg).trailingHeaders();
                             if (!trailingHeaders.isEmpty()) {
-                                res.write(ArmeriaHttpUtil.toArmeria(trailingHeaders));
+                                res.tryWrite(ArmeriaHttpUtil.toArmeria(trailingHeaders));
                             }
 
                             res.close();
@@ -18,7 +18,7 @@ package com.linecorp.armeria.client;
 import static java.util.Objects.requireNonNull;
 
 import java.net.InetSocketAddress;
-import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Nullable;
 
@@ -41,6 +41,7 @@ import io.netty.channel.EventLoop;
 import io.netty.resolver.AddressResolverGroup;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ScheduledFuture;
 
 final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
 
@@ -107,9 +108,32 @@ final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
         if (channelFuture.isDone()) {
             finishExecute(ctx, poolKey, channelFuture, req, res);
         } else {
-            channelFuture.addListener(
-                    (Future<Channel> future) -> finishExecute(ctx, poolKey, future, req, res));
+            // Stop waiting for a connection when the response is aborted or when no connection is available
+            // within the response timeout, e.g. when the connections to a stuck server are all in use.
+            final ScheduledFuture<?> timeoutFuture = scheduleAcquisitionTimeout(ctx, req, res);
+            res.completionFuture().handle((unused1, unused2) -> channelFuture.cancel(false));
+            channelFuture.addListener((Future<Channel> future) -> {
+                if (timeoutFuture != null) {
+                    timeoutFuture.cancel(false);
+                }
+                finishExecute(ctx, poolKey, future, req, res);
+            });
+        }
+    }
+
+    @Nullable
+    private static ScheduledFuture<?> scheduleAcquisitionTimeout(ClientRequestContext ctx, HttpRequest req,
+                                                               DecodedHttpResponse res) {
+        final long responseTimeoutMillis = ctx.responseTimeoutMillis();
+        if (responseTimeoutMillis <= 0) {
+            return null;
         }
+
+        return ctx.eventLoop().schedule(() -> {
+            // Closing the response cancels the acquisition.
+            res.close(ResponseTimeoutException.get());
+            req.abort();
+        }, responseTimeoutMillis, TimeUnit.MILLISECONDS);
     }
 
     private void finishExecute(ClientRequestContext ctx, PoolKey poolKey, Future<Channel> channelFuture,
@@ -212,12 +236,16 @@ final class HttpClientDelegate implements Client<HttpRequest, HttpResponse> {
                 // Return the channel to the pool.
                 if (sessionProtocol.isMultiplex()) {
                     release(pool, poolKey, channel);
+                } else if (factory.useHttp1Pipelining()) {
+                    // If pipelining is enabled, return as soon as the request is fully sent and
+                    // the number of the in-flight requests is less than the maximum pipeline depth.
+                    final int maxPipelineDepth = factory.maxHttp1PipelineDepth();
+                    req.completionFuture().whenComplete(
+                            (ret, cause) -> session.whenUnfinishedResponsesBelow(
+                                    maxPipelineDepth, () -> release(pool, poolKey, channel)));
                 } else {
-                    // If pipelining is enabled, return as soon as the request is fully sent.
                     // If pipelining is disabled, return after the response is fully received.
-                    final CompletableFuture<Void> completionFuture =
-                            factory.useHttp1Pipelining() ? req.completionFuture() : res.completionFuture();
-                    completionFuture.whenComplete((ret, cause) -> release(pool, poolKey, channel));
+                    res.completionFuture().whenComplete((ret, cause) -> release(pool, poolKey, channel));
                 }
             }
         } finally {
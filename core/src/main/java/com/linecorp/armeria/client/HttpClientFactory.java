@@ -35,6 +35,7 @@ import java.util.function.Supplier;
 import com.google.common.collect.MapMaker;
 
 import com.linecorp.armeria.client.pool.DefaultKeyedChannelPool;
+import com.linecorp.armeria.client.pool.KeyedChannelLimiter;
 import com.linecorp.armeria.client.pool.KeyedChannelPool;
 import com.linecorp.armeria.client.pool.KeyedChannelPoolHandler;
 import com.linecorp.armeria.client.pool.PoolKey;
@@ -84,6 +85,8 @@ final class HttpClientFactory extends AbstractClientFactory {
     private final long idleTimeoutMillis;
     private final boolean useHttp2Preface;
     private final boolean useHttp1Pipelining;
+    private final int maxHttp1PipelineDepth;
+    private final KeyedChannelLimiter<PoolKey> channelLimiter;
     private final ConnectionPoolListenerImpl connectionPoolListener;
     private MeterRegistry meterRegistry;
 
@@ -104,6 +107,7 @@ final class HttpClientFactory extends AbstractClientFactory {
             int initialHttp2ConnectionWindowSize, int initialHttp2StreamWindowSize, int http2MaxFrameSize,
             int maxHttp1InitialLineLength, int maxHttp1HeaderSize, int maxHttp1ChunkSize,
             long idleTimeoutMillis, boolean useHttp2Preface, boolean useHttp1Pipelining,
+            int maxHttp1PipelineDepth, int maxNumConnectionsPerPoolKey, int maxNumPendingAcquisitionsPerPoolKey,
             KeyedChannelPoolHandler<? super PoolKey> connectionPoolListener, MeterRegistry meterRegistry) {
 
         @SuppressWarnings("unchecked")
@@ -133,6 +137,9 @@ final class HttpClientFactory extends AbstractClientFactory {
         this.idleTimeoutMillis = idleTimeoutMillis;
         this.useHttp2Preface = useHttp2Preface;
         this.useHttp1Pipelining = useHttp1Pipelining;
+        this.maxHttp1PipelineDepth = maxHttp1PipelineDepth;
+        channelLimiter = new KeyedChannelLimiter<>(maxNumConnectionsPerPoolKey,
+                                                   maxNumPendingAcquisitionsPerPoolKey);
         this.connectionPoolListener = new ConnectionPoolListenerImpl(connectionPoolListener);
         this.meterRegistry = meterRegistry;
 
@@ -188,6 +195,10 @@ final class HttpClientFactory extends AbstractClientFactory {
         return useHttp1Pipelining;
     }
 
+    int maxHttp1PipelineDepth() {
+        return maxHttp1PipelineDepth;
+    }
+
     KeyedChannelPoolHandler<? super PoolKey> connectionPoolListener() {
         return connectionPoolListener;
     }
@@ -300,7 +311,7 @@ final class HttpClientFactory extends AbstractClientFactory {
                     (KeyedChannelPoolHandler<PoolKey>) connectionPoolListener();
 
             return new DefaultKeyedChannelPool<>(
-                    eventLoop, channelFactory, POOL_HEALTH_CHECKER, handler, true);
+                    eventLoop, channelFactory, POOL_HEALTH_CHECKER, handler, true, channelLimiter);
         });
     }
 
@@ -51,6 +51,14 @@ abstract class HttpResponseDecoder {
     private final InboundTrafficController inboundTrafficController;
     private boolean disconnectWhenFinished;
 
+    /**
+     * The task to run when the number of the unfinished responses drops below
+     * {@link #maxUnfinishedResponses}. See {@link #whenUnfinishedResponsesBelow(int, Runnable)}.
+     */
+    @Nullable
+    private Runnable unfinishedResponsesBelowTask;
+    private int maxUnfinishedResponses;
+
     HttpResponseDecoder(Channel channel) {
         this.channel = channel;
         inboundTrafficController = new InboundTrafficController(channel);
@@ -90,7 +98,12 @@ abstract class HttpResponseDecoder {
 
     @Nullable
     final HttpResponseWrapper removeResponse(int id) {
-        return responses.remove(id);
+        final HttpResponseWrapper res = responses.remove(id);
+        if (res != null && unfinishedResponsesBelowTask != null &&
+            responses.size() < maxUnfinishedResponses) {
+            runUnfinishedResponsesBelowTask();
+        }
+        return res;
     }
 
     final boolean hasUnfinishedResponses() {
@@ -104,6 +117,38 @@ abstract class HttpResponseDecoder {
             }
         } finally {
             responses.clear();
+            if (unfinishedResponsesBelowTask != null) {
+                runUnfinishedResponsesBelowTask();
+            }
+        }
+    }
+
+    /**
+     * Runs the specified {@code task} as soon as the number of the unfinished responses is less than
+     * the specified {@code maxUnfinishedResponses}. The {@code task} is run immediately if the condition
+     * is met already. Only one task can be pending at a time, which is fine because a connection is
+     * held by only one acquirer until the task returns it to the pool.
+     */
+    final void whenUnfinishedResponsesBelow(int maxUnfinishedResponses, Runnable task) {
+        assert channel.eventLoop().inEventLoop();
+        assert unfinishedResponsesBelowTask == null;
+
+        if (responses.size() < maxUnfinishedResponses) {
+            task.run();
+        } else {
+            this.maxUnfinishedResponses = maxUnfinishedResponses;
+            unfinishedResponsesBelowTask = task;
+        }
+    }
+
+    private void runUnfinishedResponsesBelowTask() {
+        final Runnable task = unfinishedResponsesBelowTask;
+        assert task != null;
+        unfinishedResponsesBelowTask = null;
+        try {
+            task.run();
+        } catch (Throwable t) {
+            logger.warn("Unexpected exception from a task:", t);
         }
     }
 
@@ -187,6 +232,12 @@ abstract class HttpResponseDecoder {
 
         @Override
         public boolean tryWrite(HttpObject o) {
+            if (!delegate.isOpen()) {
+                // Do not update the log of the response which has been closed already, e.g. timed out
+                // while waiting for the preceding responses in an HTTP/1 pipeline.
+                return false;
+            }
+
             if (o instanceof HttpHeaders) {
                 // NB: It's safe to call logBuilder.start() multiple times.
                 //     See AbstractMessageLog.start() for more information.
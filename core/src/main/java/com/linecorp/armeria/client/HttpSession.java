@@ -93,6 +93,15 @@ interface HttpSession {
 
     boolean hasUnfinishedResponses();
 
+    /**
+     * Runs the specified {@code task} when the number of the unfinished responses is less than
+     * the specified {@code maxUnfinishedResponses}. The default implementation runs the {@code task}
+     * immediately.
+     */
+    default void whenUnfinishedResponsesBelow(int maxUnfinishedResponses, Runnable task) {
+        task.run();
+    }
+
     boolean invoke(ClientRequestContext ctx, HttpRequest req, DecodedHttpResponse res);
 
     void retryWithH1C();
@@ -118,6 +118,17 @@ final class HttpSessionHandler extends ChannelDuplexHandler implements HttpSessi
         return responseDecoder.hasUnfinishedResponses();
     }
 
+    @Override
+    public void whenUnfinishedResponsesBelow(int maxUnfinishedResponses, Runnable task) {
+        assert responseDecoder != null;
+        if (channel.eventLoop().inEventLoop()) {
+            responseDecoder.whenUnfinishedResponsesBelow(maxUnfinishedResponses, task);
+        } else {
+            channel.eventLoop().execute(
+                    () -> responseDecoder.whenUnfinishedResponsesBelow(maxUnfinishedResponses, task));
+        }
+    }
+
     @Override
     public boolean isActive() {
         return active;
@@ -19,141 +19,173 @@ package com.linecorp.armeria.client.circuitbreaker;
 import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
-import java.util.Iterator;
-import java.util.Optional;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.LongAdder;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.Ticker;
 
 /**
  * An {@link EventCounter} that accumulates the count of events within a time window.
+ *
+ * <p>The time is divided into slots of {@code updateInterval}, and the events in each slot are counted in
+ * a {@link Bucket} of a fixed-size ring, so that counting an event never allocates. When the first event of
+ * a new slot arrives, the bucket of the previous slot is added to the sum of the window, and the bucket which
+ * falls out of the window is subtracted from it and reused for the new slot. Only one thread rolls the ring at
+ * a time. The other threads never wait for it and count their events in the current bucket.
  */
 final class SlidingWindowCounter implements EventCounter {
 
+    /**
+     * The maximum number of {@link Bucket}s of a counter. {@code updateInterval} is stretched when
+     * the sliding window consists of more slots than this, to bound the memory footprint of a counter.
+     */
+    private static final int MAX_NUM_BUCKETS = 1024;
+
+    private static final AtomicIntegerFieldUpdater<SlidingWindowCounter> rollingUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(SlidingWindowCounter.class, "rolling");
+
     private final Ticker ticker;
 
-    private final long slidingWindowNanos;
+    private final long originNanos;
 
     private final long updateIntervalNanos;
 
     /**
-     * The reference to the latest {@link Bucket}.
+     * The ring of {@link Bucket}s. The {@link Bucket} of a slot is at {@code slot % buckets.length}, and
+     * {@code buckets.length - 1} slots before the current one are within the time window.
      */
-    private final AtomicReference<Bucket> current;
+    private final Bucket[] buckets;
 
     /**
-     * The reference to the latest accumulated {@link EventCount}.
+     * The current slot. Updated only by the thread which rolls the ring.
      */
-    private final AtomicReference<EventCount> snapshot = new AtomicReference<>(EventCount.ZERO);
+    private volatile long currentSlot;
 
     /**
-     * The queue that stores {@link Bucket}s within the time window.
+     * {@code 1} while a thread is rolling the ring.
      */
-    private final Queue<Bucket> reservoir = new ConcurrentLinkedQueue<>();
+    @SuppressWarnings("unused")
+    private volatile int rolling;
+
+    // Updated only by the thread which rolls the ring.
+    private long windowSuccess;
+    private long windowFailure;
+
+    /**
+     * The latest accumulated {@link EventCount}.
+     */
+    private volatile EventCount snapshot = EventCount.ZERO;
 
     SlidingWindowCounter(Ticker ticker, Duration slidingWindow, Duration updateInterval) {
         this.ticker = requireNonNull(ticker, "ticker");
-        slidingWindowNanos = requireNonNull(slidingWindow, "slidingWindow").toNanos();
-        updateIntervalNanos = requireNonNull(updateInterval, "updateInterval").toNanos();
-        current = new AtomicReference<>(new Bucket(ticker.read()));
+        final long slidingWindowNanos = requireNonNull(slidingWindow, "slidingWindow").toNanos();
+        final long updateIntervalNanos = requireNonNull(updateInterval, "updateInterval").toNanos();
+
+        final long numSlots = (slidingWindowNanos + updateIntervalNanos - 1) / updateIntervalNanos;
+        final int numBuckets = (int) Math.min(numSlots, MAX_NUM_BUCKETS) + 1;
+        this.updateIntervalNanos = Math.max(updateIntervalNanos,
+                                            (slidingWindowNanos + numBuckets - 2) / (numBuckets - 1));
+
+        buckets = new Bucket[numBuckets];
+        for (int i = 0; i < numBuckets; i++) {
+            buckets[i] = new Bucket();
+        }
+        originNanos = ticker.read();
     }
 
     @Override
     public EventCount count() {
-        return snapshot.get();
+        return snapshot;
     }
 
+    @Nullable
     @Override
-    public Optional<EventCount> onSuccess() {
-        return onEvent(Event.SUCCESS);
+    public EventCount onSuccess() {
+        return onEvent(true);
     }
 
+    @Nullable
     @Override
-    public Optional<EventCount> onFailure() {
-        return onEvent(Event.FAILURE);
+    public EventCount onFailure() {
+        return onEvent(false);
     }
 
-    private Optional<EventCount> onEvent(Event event) {
-        final long tickerNanos = ticker.read();
-
-        final Bucket currentBucket = current.get();
-
-        if (tickerNanos < currentBucket.timestamp()) {
-            // if current timestamp is older than bucket's timestamp (maybe race or GC pause?),
-            // then creates an instant bucket and puts it to the reservoir not to lose event.
-            final Bucket bucket = new Bucket(tickerNanos);
-            event.increment(bucket);
-            reservoir.offer(bucket);
-            return Optional.empty();
+    @Nullable
+    private EventCount onEvent(boolean success) {
+        final long slot = (ticker.read() - originNanos) / updateIntervalNanos;
+        final long currentSlot = this.currentSlot;
+
+        // Count in the current bucket if the slot has not changed or the ring is being rolled. An event whose
+        // timestamp is older than the current slot (maybe race or GC pause?) is also counted in the current
+        // bucket not to lose it.
+        if (slot <= currentSlot || !rollingUpdater.compareAndSet(this, 0, 1)) {
+            bucket(currentSlot).increment(success);
+            return null;
         }
 
-        if (tickerNanos < currentBucket.timestamp() + updateIntervalNanos) {
-            // increments the current bucket since it is exactly latest
-            event.increment(currentBucket);
-            return Optional.empty();
-        }
+        try {
+            final long slotToRoll = this.currentSlot;
+            if (slot <= slotToRoll) {
+                // Rolled by other thread already.
+                bucket(slotToRoll).increment(success);
+                return null;
+            }
 
-        // the current bucket is old
-        // it's time to create new one
-        final Bucket nextBucket = new Bucket(tickerNanos);
-        event.increment(nextBucket);
-
-        // replaces the bucket
-        if (current.compareAndSet(currentBucket, nextBucket)) {
-            // puts old one to the reservoir
-            reservoir.offer(currentBucket);
-            // and then updates count
-            final EventCount eventCount = trimAndSum(tickerNanos);
-            snapshot.set(eventCount);
-            return Optional.of(eventCount);
-        } else {
-            // the bucket has been replaced already
-            // puts new one as an instant bucket to the reservoir not to lose event
-            reservoir.offer(nextBucket);
-            return Optional.empty();
+            roll(slotToRoll, slot);
+            bucket(slot).increment(success);
+
+            final EventCount eventCount = new EventCount(windowSuccess, windowFailure);
+            snapshot = eventCount;
+            return eventCount;
+        } finally {
+            rolling = 0;
         }
     }
 
     /**
-     * Sums up buckets within the time window, and removes all the others.
+     * Moves the current slot from {@code from} to {@code to}, updating the sum of the window.
      */
-    private EventCount trimAndSum(long tickerNanos) {
-        final long oldLimit = tickerNanos - slidingWindowNanos;
-        final Iterator<Bucket> iterator = reservoir.iterator();
-        long success = 0;
-        long failure = 0;
-        while (iterator.hasNext()) {
-            final Bucket bucket = iterator.next();
-            if (bucket.timestamp < oldLimit) {
-                // removes old bucket
-                iterator.remove();
-            } else {
-                success += bucket.success();
-                failure += bucket.failure();
+    private void roll(long from, long to) {
+        if (to - from >= buckets.length) {
+            // All buckets are out of the window.
+            for (Bucket bucket : buckets) {
+                bucket.reset();
+            }
+            windowSuccess = 0;
+            windowFailure = 0;
+        } else {
+            // Add the events counted in the previous bucket after it was completed, e.g. by a thread which
+            // read the current slot just before the ring was rolled last time.
+            addToWindow(bucket(from - 1));
+
+            for (long slot = from; slot < to; slot++) {
+                // Add the completed bucket to the window.
+                addToWindow(bucket(slot));
+
+                // Remove the oldest bucket from the window and reuse it for the next slot.
+                final Bucket oldest = bucket(slot + 1);
+                windowSuccess -= oldest.completedSuccess;
+                windowFailure -= oldest.completedFailure;
+                oldest.reset();
             }
         }
 
-        return new EventCount(success, failure);
+        currentSlot = to;
     }
 
-    private enum Event {
-        SUCCESS {
-            @Override
-            void increment(Bucket bucket) {
-                bucket.success.increment();
-            }
-        },
-        FAILURE {
-            @Override
-            void increment(Bucket bucket) {
-                bucket.failure.increment();
-            }
-        };
+    private void addToWindow(Bucket bucket) {
+        final long success = bucket.success.sum();
+        final long failure = bucket.failure.sum();
+        windowSuccess += success - bucket.completedSuccess;
+        windowFailure += failure - bucket.completedFailure;
+        bucket.completedSuccess = success;
+        bucket.completedFailure = failure;
+    }
 
-        abstract void increment(Bucket bucket);
+    private Bucket bucket(long slot) {
+        return buckets[(int) Math.floorMod(slot, (long) buckets.length)];
     }
 
     /**
@@ -161,33 +193,37 @@ final class SlidingWindowCounter implements EventCounter {
      */
     private static final class Bucket {
 
-        private final long timestamp;
-
         private final LongAdder success = new LongAdder();
 
         private final LongAdder failure = new LongAdder();
 
-        private Bucket(long timestamp) {
-            this.timestamp = timestamp;
-        }
+        /**
+         * The counts added to the window so far, which are subtracted from the window as they are when this
+         * bucket falls out of the window.
+         */
+        private long completedSuccess;
 
-        private long timestamp() {
-            return timestamp;
-        }
+        private long completedFailure;
 
-        private long success() {
-            return success.sum();
+        private void increment(boolean success) {
+            if (success) {
+                this.success.increment();
+            } else {
+                failure.increment();
+            }
         }
 
-        private long failure() {
-            return failure.sum();
+        private void reset() {
+            success.reset();
+            failure.reset();
+            completedSuccess = 0;
+            completedFailure = 0;
         }
 
         @Override
         public String toString() {
             return "Bucket{" +
-                   "timestamp=" + timestamp +
-                   ", success=" + success +
+                   "success=" + success +
                    ", failure=" + failure +
                    '}';
         }
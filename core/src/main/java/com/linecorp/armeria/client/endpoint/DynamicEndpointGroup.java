@@ -122,7 +122,7 @@ public class DynamicEndpointGroup extends AbstractListenable<List<Endpoint>> imp
         final List<Endpoint> oldEndpoints = this.endpoints;
         final List<Endpoint> newEndpoints = ImmutableList.sortedCopyOf(endpoints);
 
-        if (oldEndpoints.equals(newEndpoints)) {
+        if (equalsWithWeights(oldEndpoints, newEndpoints)) {
             return;
         }
 
@@ -137,6 +137,23 @@ public class DynamicEndpointGroup extends AbstractListenable<List<Endpoint>> imp
         completeInitialEndpointsFuture(newEndpoints);
     }
 
+    /**
+     * Returns whether the two sorted {@link Endpoint} lists are equal, taking the weights into account
+     * because {@link Endpoint#equals(Object)} does not.
+     */
+    private static boolean equalsWithWeights(List<Endpoint> a, List<Endpoint> b) {
+        if (!a.equals(b)) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            final Endpoint e = a.get(i);
+            if (!e.isGroup() && e.weight() != b.get(i).weight()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private void completeInitialEndpointsFuture(List<Endpoint> endpoints) {
         if (!endpoints.isEmpty() && !initialEndpointsFuture.isDone()) {
             initialEndpointsFuture.complete(endpoints);
@@ -28,6 +28,7 @@ import com.google.common.base.Ascii;
 
 import com.linecorp.armeria.client.ClientRequestContext;
 import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.internal.SelectedEndpoints;
 
 /**
  * An in-memory registry of server groups.
@@ -117,7 +118,9 @@ public final class EndpointGroupRegistry {
             throw new EndpointGroupException("non-existent EndpointGroup: " + groupName);
         }
 
-        return endpointSelector.select(ctx);
+        final Endpoint selected = endpointSelector.select(ctx);
+        SelectedEndpoints.set(ctx, selected);
+        return selected;
     }
 
     private static String normalizeGroupName(String groupName) {
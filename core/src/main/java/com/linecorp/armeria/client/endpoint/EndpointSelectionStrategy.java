@@ -34,6 +34,13 @@ public interface EndpointSelectionStrategy {
      */
     EndpointSelectionStrategy WEIGHTED_ROUND_ROBIN = new WeightedRoundRobinStrategy();
 
+    /**
+     * Least-loaded strategy which selects the less busy one of two randomly chosen {@link Endpoint}s,
+     * a.k.a. power of two choices. The load of an {@link Endpoint} is estimated from the number of
+     * in-flight requests, the moving average of the latency and the weight of the {@link Endpoint}.
+     */
+    EndpointSelectionStrategy LEAST_LOADED = new LeastLoadedStrategy();
+
     /**
      * Creates a new {@link EndpointSelector} that selects an {@link Endpoint} from the specified
      * {@link EndpointGroup}.
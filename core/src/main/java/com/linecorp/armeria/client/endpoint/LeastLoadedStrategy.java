@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.endpoint;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+
+final class LeastLoadedStrategy implements EndpointSelectionStrategy {
+
+    @Override
+    public EndpointSelector newSelector(EndpointGroup endpointGroup) {
+        return new LeastLoadedSelector(endpointGroup);
+    }
+
+    /**
+     * A power of two choices select strategy.
+     *
+     * <p>Picks two {@link Endpoint}s at random and selects the one with the lower load, which is estimated
+     * as the number of in-flight requests multiplied by the moving average of the latency, divided by
+     * the weight. The latency and the number of in-flight requests are collected from the
+     * {@link RequestLog}s of the requests sent to each {@link Endpoint}.
+     */
+    static final class LeastLoadedSelector implements EndpointSelector {
+
+        private final EndpointGroup endpointGroup;
+
+        private final ConcurrentMap<Endpoint, EndpointStats> stats = new ConcurrentHashMap<>();
+
+        LeastLoadedSelector(EndpointGroup endpointGroup) {
+            this.endpointGroup = requireNonNull(endpointGroup, "endpointGroup");
+            // Forget the removed endpoints.
+            endpointGroup.addListener(endpoints -> stats.keySet().retainAll(new HashSet<>(endpoints)));
+        }
+
+        @Override
+        public EndpointGroup group() {
+            return endpointGroup;
+        }
+
+        @Override
+        public EndpointSelectionStrategy strategy() {
+            return LEAST_LOADED;
+        }
+
+        @Override
+        public Endpoint select(ClientRequestContext ctx) {
+            final List<Endpoint> endpoints = endpointGroup.endpoints();
+            final int size = endpoints.size();
+            if (size == 0) {
+                throw new EndpointGroupException(endpointGroup + " is empty");
+            }
+
+            final Endpoint selected;
+            final EndpointStats selectedStats;
+            if (size == 1) {
+                selected = endpoints.get(0);
+                selectedStats = stats(selected);
+            } else {
+                final ThreadLocalRandom random = ThreadLocalRandom.current();
+                final int i = random.nextInt(size);
+                int j = random.nextInt(size - 1);
+                if (j >= i) {
+                    j++;
+                }
+
+                final Endpoint a = endpoints.get(i);
+                final Endpoint b = endpoints.get(j);
+                final EndpointStats aStats = stats(a);
+                final EndpointStats bStats = stats(b);
+                if (EndpointStats.compare(a, aStats, b, bStats) <= 0) {
+                    selected = a;
+                    selectedStats = aStats;
+                } else {
+                    selected = b;
+                    selectedStats = bStats;
+                }
+            }
+
+            selectedStats.onRequest(ctx);
+            return selected;
+        }
+
+        EndpointStats stats(Endpoint endpoint) {
+            return stats.computeIfAbsent(endpoint, unused -> new EndpointStats());
+        }
+    }
+
+    /**
+     * The number of in-flight requests and the moving average of the latency of an {@link Endpoint}.
+     */
+    static final class EndpointStats {
+
+        /**
+         * The decay time of the moving average of the latency. A sample of this age has {@code 1/e} of
+         * the weight of a new sample.
+         */
+        private static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+        private final AtomicInteger inflight = new AtomicInteger();
+
+        // Updated while holding the lock of this object.
+        private volatile double latencyNanos;
+        private long lastUpdateNanos;
+
+        /**
+         * Compares the load of two {@link Endpoint}s.
+         */
+        static int compare(Endpoint a, EndpointStats aStats, Endpoint b, EndpointStats bStats) {
+            final double aLatency = aStats.latencyNanos;
+            final double bLatency = bStats.latencyNanos;
+            if (aLatency == 0 || bLatency == 0) {
+                // Compare only the number of in-flight requests until both endpoints have the latency, so that
+                // an endpoint without the latency does not attract all requests.
+                return Double.compare((aStats.inflight.get() + 1) / (double) a.weight(),
+                                      (bStats.inflight.get() + 1) / (double) b.weight());
+            }
+
+            return Double.compare((aStats.inflight.get() + 1) * aLatency / a.weight(),
+                                  (bStats.inflight.get() + 1) * bLatency / b.weight());
+        }
+
+        int inflight() {
+            return inflight.get();
+        }
+
+        double latencyNanos() {
+            return latencyNanos;
+        }
+
+        private void onRequest(ClientRequestContext ctx) {
+            inflight.incrementAndGet();
+            ctx.log().addListener(this::onResponse, RequestLogAvailability.COMPLETE);
+        }
+
+        private void onResponse(RequestLog log) {
+            inflight.decrementAndGet();
+            long sampleNanos = log.responseEndTimeNanos() - log.requestStartTimeNanos();
+            if (log.responseCause() != null) {
+                // Penalize a failure so that an endpoint which fails fast does not attract more requests.
+                sampleNanos = Math.max(sampleNanos, (long) (latencyNanos * 2));
+            }
+            if (sampleNanos > 0) {
+                update(sampleNanos, log.responseEndTimeNanos());
+            }
+        }
+
+        synchronized void update(long sampleNanos, long nowNanos) {
+            final double latencyNanos = this.latencyNanos;
+            if (latencyNanos == 0 || sampleNanos > latencyNanos) {
+                // Follow a latency peak immediately, and decay slowly.
+                this.latencyNanos = sampleNanos;
+            } else {
+                final long elapsedNanos = Math.max(0, nowNanos - lastUpdateNanos);
+                final double weight = Math.exp(-(double) elapsedNanos / DECAY_NANOS);
+                this.latencyNanos = latencyNanos * weight + sampleNanos * (1 - weight);
+            }
+            lastUpdateNanos = nowNanos;
+        }
+    }
+}
@@ -15,41 +15,89 @@
  */
 package com.linecorp.armeria.client.endpoint.healthcheck;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.linecorp.armeria.common.util.Functions.voidFunction;
 import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.spotify.futures.CompletableFutures;
 
+import com.linecorp.armeria.client.Client;
 import com.linecorp.armeria.client.ClientFactory;
 import com.linecorp.armeria.client.Endpoint;
 import com.linecorp.armeria.client.endpoint.DynamicEndpointGroup;
 import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.client.retry.RetryingClient;
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.common.Response;
 import com.linecorp.armeria.common.metric.MeterIdPrefix;
 
 import io.micrometer.core.instrument.binder.MeterBinder;
 
 /**
  * An {@link EndpointGroup} decorator that only provides healthy {@link Endpoint}s.
+ *
+ * <p>In addition to the periodic health checks, it can also:
+ * <ul>
+ *   <li>eject the {@link Endpoint}s which keep failing the real requests for a while, if
+ *       {@link OutlierDetection} is enabled and the clients are decorated with
+ *       {@link #newOutlierDetectingDecorator()}.</li>
+ *   <li>ramp up the weight of an {@link Endpoint} which became healthy or returned from an ejection
+ *       gradually during the slow start window, so that a cold server is not flooded with requests.</li>
+ * </ul>
  */
 public abstract class HealthCheckedEndpointGroup extends DynamicEndpointGroup {
     static final Duration DEFAULT_HEALTHCHECK_RETRY_INTERVAL = Duration.ofSeconds(3);
 
+    /**
+     * The number of steps a weight is ramped up in during the slow start window.
+     */
+    private static final int SLOW_START_NUM_STEPS = 10;
+
     private final ClientFactory clientFactory;
     private final EndpointGroup delegate;
     private final Duration retryInterval;
+    @Nullable
+    private final OutlierDetection outlierDetection;
+    private final long slowStartWindowNanos;
+    private final Ticker ticker;
 
     volatile List<ServerConnection> allServers = ImmutableList.of();
 
+    private final Map<Endpoint, EndpointState> states = new ConcurrentHashMap<>();
+
+    // Guarded by 'this'.
+    private List<Endpoint> healthyEndpoints = ImmutableList.of();
+    @Nullable
+    private ScheduledFuture<?> updateFuture;
+    private long updateDeadlineNanos;
+    private boolean closed;
+
+    /**
+     * The {@link Endpoint}s computed by the last {@link #computeEndpoints()}, which are published by
+     * {@link #publishEndpoints()} outside the lock, so that the listeners are not notified while holding it.
+     */
+    private volatile List<Endpoint> computedEndpoints = ImmutableList.of();
+
     /**
      * Creates a new instance.
      * A subclass being initialized with this constructor must call {@link #init()} before start being used.
@@ -57,9 +105,42 @@ public abstract class HealthCheckedEndpointGroup extends DynamicEndpointGroup {
     protected HealthCheckedEndpointGroup(ClientFactory clientFactory,
                                          EndpointGroup delegate,
                                          Duration retryInterval) {
+        this(clientFactory, delegate, retryInterval, null, Duration.ZERO);
+    }
+
+    /**
+     * Creates a new instance.
+     * A subclass being initialized with this constructor must call {@link #init()} before start being used.
+     *
+     * @param outlierDetection the {@link OutlierDetection} settings, or {@code null} to disable
+     *                         the outlier detection
+     * @param slowStartWindow the duration to ramp up the weight of an {@link Endpoint} which became
+     *                        healthy over. {@link Duration#ZERO} disables the slow start.
+     */
+    protected HealthCheckedEndpointGroup(ClientFactory clientFactory,
+                                         EndpointGroup delegate,
+                                         Duration retryInterval,
+                                         @Nullable OutlierDetection outlierDetection,
+                                         Duration slowStartWindow) {
+        this(clientFactory, delegate, retryInterval, outlierDetection, slowStartWindow,
+             Ticker.systemTicker());
+    }
+
+    HealthCheckedEndpointGroup(ClientFactory clientFactory,
+                               EndpointGroup delegate,
+                               Duration retryInterval,
+                               @Nullable OutlierDetection outlierDetection,
+                               Duration slowStartWindow,
+                               Ticker ticker) {
         this.clientFactory = requireNonNull(clientFactory, "clientFactory");
         this.delegate = requireNonNull(delegate, "delegate");
         this.retryInterval = requireNonNull(retryInterval, "retryInterval");
+        this.outlierDetection = outlierDetection;
+        requireNonNull(slowStartWindow, "slowStartWindow");
+        checkArgument(!slowStartWindow.isNegative(),
+                      "slowStartWindow: %s (expected: >= 0)", slowStartWindow);
+        slowStartWindowNanos = slowStartWindow.toNanos();
+        this.ticker = requireNonNull(ticker, "ticker");
     }
 
     /**
@@ -84,7 +165,7 @@ public abstract class HealthCheckedEndpointGroup extends DynamicEndpointGroup {
                 retryInterval.toMillis(), TimeUnit.MILLISECONDS);
     }
 
-    private CompletableFuture<Void> checkAndUpdateHealthyServers() {
+    CompletableFuture<Void> checkAndUpdateHealthyServers() {
         final List<ServerConnection> checkedServers = updateServerList();
 
         final CompletableFuture<List<Boolean>> healthCheckResults = CompletableFutures.successfulAsList(
@@ -99,10 +180,232 @@ public abstract class HealthCheckedEndpointGroup extends DynamicEndpointGroup {
                     newHealthyEndpoints.add(checkedServers.get(i).endpoint());
                 }
             }
-            setEndpoints(newHealthyEndpoints.build());
+            setHealthyEndpoints(checkedServers, newHealthyEndpoints.build());
         }));
     }
 
+    private void setHealthyEndpoints(List<ServerConnection> checkedServers,
+                                     List<Endpoint> newHealthyEndpoints) {
+        setHealthyEndpoints0(checkedServers, newHealthyEndpoints);
+        publishEndpoints();
+    }
+
+    private synchronized void setHealthyEndpoints0(List<ServerConnection> checkedServers,
+                                                   List<Endpoint> newHealthyEndpoints) {
+        final long now = ticker.read();
+        final Set<Endpoint> oldHealthyEndpoints = ImmutableSet.copyOf(healthyEndpoints);
+        for (Endpoint endpoint : newHealthyEndpoints) {
+            final EndpointState state = states.computeIfAbsent(endpoint, unused -> new EndpointState());
+            // Do not slow-start when there was no healthy endpoint, because no other endpoint can take
+            // the requests instead.
+            if (!oldHealthyEndpoints.isEmpty() && !oldHealthyEndpoints.contains(endpoint)) {
+                startSlowStart(state, now);
+            }
+        }
+        states.keySet().retainAll(checkedServers.stream()
+                                                .map(ServerConnection::endpoint)
+                                                .collect(toImmutableSet()));
+
+        healthyEndpoints = newHealthyEndpoints;
+        computeEndpoints();
+    }
+
+    /**
+     * Updates the {@link Endpoint}s of this group from the healthy {@link Endpoint}s, excluding the ejected
+     * ones and adjusting the weights of the slow-starting ones.
+     */
+    void updateEndpoints() {
+        computeEndpoints();
+        publishEndpoints();
+    }
+
+    /**
+     * Computes the {@link Endpoint}s of this group into {@link #computedEndpoints} and schedules the next
+     * update if an ejection ends or a slow-start weight grows later.
+     */
+    private synchronized void computeEndpoints() {
+        final long now = ticker.read();
+        final ImmutableList.Builder<Endpoint> newEndpoints = ImmutableList.builder();
+        long nextUpdateDelayNanos = Long.MAX_VALUE;
+        for (Endpoint endpoint : healthyEndpoints) {
+            final EndpointState state = states.get(endpoint);
+            assert state != null;
+
+            if (state.ejected) {
+                final long remainingNanos = state.ejectionEndNanos - now;
+                if (remainingNanos > 0) {
+                    nextUpdateDelayNanos = Math.min(nextUpdateDelayNanos, remainingNanos);
+                    continue;
+                }
+                state.ejected = false;
+                startSlowStart(state, state.ejectionEndNanos);
+            }
+
+            if (state.slowStarting) {
+                final long elapsedNanos = now - state.slowStartBeginNanos;
+                if (elapsedNanos < slowStartWindowNanos) {
+                    endpoint = endpoint.withWeight(slowStartWeight(endpoint.weight(), elapsedNanos));
+                    nextUpdateDelayNanos = Math.min(nextUpdateDelayNanos,
+                                                    Math.max(slowStartWindowNanos / SLOW_START_NUM_STEPS, 1));
+                } else {
+                    state.slowStarting = false;
+                }
+            }
+
+            newEndpoints.add(endpoint);
+        }
+
+        computedEndpoints = newEndpoints.build();
+
+        if (nextUpdateDelayNanos != Long.MAX_VALUE) {
+            scheduleUpdate(now, nextUpdateDelayNanos);
+        }
+    }
+
+    /**
+     * Sets the last computed {@link Endpoint}s, retrying if they are computed again in the meantime so that
+     * a stale list does not overwrite a newer one.
+     */
+    private void publishEndpoints() {
+        for (;;) {
+            final List<Endpoint> endpoints = computedEndpoints;
+            setEndpoints(endpoints);
+            if (computedEndpoints == endpoints) {
+                break;
+            }
+        }
+    }
+
+    private void startSlowStart(EndpointState state, long beginNanos) {
+        if (slowStartWindowNanos > 0) {
+            state.slowStarting = true;
+            state.slowStartBeginNanos = beginNanos;
+        }
+    }
+
+    private int slowStartWeight(int weight, long elapsedNanos) {
+        if (weight == 0) {
+            return 0;
+        }
+        return Math.max(1, (int) (weight * ((double) elapsedNanos / slowStartWindowNanos)));
+    }
+
+    /**
+     * Schedules {@link #updateEndpoints()} after the specified delay, unless an earlier update is scheduled
+     * already. Only one update is scheduled at a time, so that {@link #close()} can cancel it.
+     */
+    private void scheduleUpdate(long now, long delayNanos) {
+        assert Thread.holdsLock(this);
+        if (closed) {
+            return;
+        }
+
+        final long deadlineNanos = now + delayNanos;
+        final ScheduledFuture<?> updateFuture = this.updateFuture;
+        if (updateFuture != null) {
+            if (updateDeadlineNanos - deadlineNanos <= 0) {
+                return;
+            }
+            updateFuture.cancel(false);
+        }
+
+        updateDeadlineNanos = deadlineNanos;
+        this.updateFuture = clientFactory.eventLoopGroup().schedule(
+                this::runScheduledUpdate, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @VisibleForTesting
+    synchronized boolean hasScheduledUpdate() {
+        return updateFuture != null;
+    }
+
+    private void runScheduledUpdate() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            updateFuture = null;
+        }
+        updateEndpoints();
+    }
+
+    /**
+     * Invoked when a request to the specified {@link Endpoint} has failed with a {@code 5xx} status or
+     * a connection failure.
+     */
+    void onFailure(Endpoint endpoint) {
+        final OutlierDetection outlierDetection = this.outlierDetection;
+        if (outlierDetection == null) {
+            return;
+        }
+
+        final EndpointState state = states.get(endpoint);
+        if (state != null &&
+            state.consecutiveFailures.incrementAndGet() >= outlierDetection.consecutiveFailures()) {
+            eject(state, outlierDetection);
+        }
+    }
+
+    /**
+     * Invoked when a request to the specified {@link Endpoint} has succeeded.
+     */
+    void onSuccess(Endpoint endpoint) {
+        if (outlierDetection == null) {
+            return;
+        }
+
+        final EndpointState state = states.get(endpoint);
+        // Read before write to avoid the contention on the counter of a healthy endpoint.
+        if (state != null && state.consecutiveFailures.get() != 0) {
+            state.consecutiveFailures.set(0);
+        }
+    }
+
+    private void eject(EndpointState state, OutlierDetection outlierDetection) {
+        if (eject0(state, outlierDetection)) {
+            publishEndpoints();
+        }
+    }
+
+    private synchronized boolean eject0(EndpointState state, OutlierDetection outlierDetection) {
+        if (state.ejected || state.consecutiveFailures.get() < outlierDetection.consecutiveFailures()) {
+            // Ejected by another thread already.
+            return false;
+        }
+
+        final long now = ticker.read();
+        int numEjected = 0;
+        for (Endpoint endpoint : healthyEndpoints) {
+            final EndpointState s = states.get(endpoint);
+            if (s != null && s.ejected) {
+                numEjected++;
+            }
+        }
+        if (numEjected + 1 > healthyEndpoints.size() * outlierDetection.maxEjectionRatio()) {
+            // Too many endpoints are failing, which is likely not the problem of the endpoints.
+            return false;
+        }
+
+        final long baseEjectionNanos = outlierDetection.baseEjectionTime().toNanos();
+        final long maxEjectionNanos = outlierDetection.maxEjectionTime().toNanos();
+        if (state.numEjections > 0 && now - state.ejectionEndNanos >= maxEjectionNanos) {
+            // Has not been ejected for long enough; forgive the past ejections.
+            state.numEjections = 0;
+        }
+        state.numEjections++;
+        final long ejectionNanos = baseEjectionNanos > maxEjectionNanos / state.numEjections ?
+                                   maxEjectionNanos : baseEjectionNanos * state.numEjections;
+
+        state.ejected = true;
+        state.ejectionEndNanos = now + ejectionNanos;
+        state.slowStarting = false;
+        state.consecutiveFailures.set(0);
+
+        // Also schedules the update at the end of the ejection.
+        computeEndpoints();
+        return true;
+    }
+
     /**
      * Update the servers this health checker client talks to.
      */
@@ -129,6 +432,18 @@ public abstract class HealthCheckedEndpointGroup extends DynamicEndpointGroup {
      */
     protected abstract EndpointHealthChecker createEndpointHealthChecker(Endpoint endpoint);
 
+    /**
+     * Returns a new decorator which reports the result of each request to this group, so that the
+     * {@link Endpoint}s which fail the requests too often are ejected as specified in
+     * the {@link OutlierDetection}. When used with {@link RetryingClient}, add this decorator before
+     * {@link RetryingClient} so that every attempt is reported. The decorator does nothing if
+     * the outlier detection is disabled.
+     */
+    public <I extends Request, O extends Response>
+    Function<Client<I, O>, Client<I, O>> newOutlierDetectingDecorator() {
+        return delegate -> new OutlierDetectingClient<>(delegate, this);
+    }
+
     /**
      * Returns a newly-created {@link MeterBinder} which binds the stats about this
      * {@link HealthCheckedEndpointGroup} with the default meter names.
@@ -145,6 +460,21 @@ public abstract class HealthCheckedEndpointGroup extends DynamicEndpointGroup {
         return new HealthCheckedEndpointGroupMetrics(this, idPrefix);
     }
 
+    /**
+     * Cancels the scheduled update of the ejected and slow-starting {@link Endpoint}s.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            if (updateFuture != null) {
+                updateFuture.cancel(false);
+                updateFuture = null;
+            }
+        }
+        super.close();
+    }
+
     @Override
     public String toString() {
         final StringBuilder buf = new StringBuilder();
@@ -170,6 +500,17 @@ public abstract class HealthCheckedEndpointGroup extends DynamicEndpointGroup {
         CompletableFuture<Boolean> isHealthy(Endpoint endpoint);
     }
 
+    private static final class EndpointState {
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+
+        // Guarded by the HealthCheckedEndpointGroup.
+        boolean ejected;
+        int numEjections;
+        long ejectionEndNanos;
+        boolean slowStarting;
+        long slowStartBeginNanos;
+    }
+
     static final class ServerConnection {
         private final Endpoint endpoint;
         private final EndpointHealthChecker healthChecker;
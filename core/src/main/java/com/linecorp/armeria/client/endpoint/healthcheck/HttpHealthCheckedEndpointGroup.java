@@ -21,6 +21,8 @@ import java.net.StandardProtocolFamily;
 import java.time.Duration;
 import java.util.concurrent.CompletableFuture;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.client.ClientFactory;
 import com.linecorp.armeria.client.Endpoint;
 import com.linecorp.armeria.client.HttpClient;
@@ -81,8 +83,10 @@ public final class HttpHealthCheckedEndpointGroup extends HealthCheckedEndpointG
                                    EndpointGroup delegate,
                                    SessionProtocol protocol,
                                    String healthCheckPath,
-                                   Duration healthCheckRetryInterval) {
-        super(clientFactory, delegate, healthCheckRetryInterval);
+                                   Duration healthCheckRetryInterval,
+                                   @Nullable OutlierDetection outlierDetection,
+                                   Duration slowStartWindow) {
+        super(clientFactory, delegate, healthCheckRetryInterval, outlierDetection, slowStartWindow);
         this.protocol = requireNonNull(protocol, "protocol");
         this.healthCheckPath = requireNonNull(healthCheckPath, "healthCheckPath");
         init();
@@ -22,8 +22,11 @@ import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.client.Client;
 import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.Endpoint;
 import com.linecorp.armeria.client.endpoint.EndpointGroup;
 import com.linecorp.armeria.common.SessionProtocol;
 
@@ -38,6 +41,9 @@ public class HttpHealthCheckedEndpointGroupBuilder {
     private SessionProtocol protocol = SessionProtocol.HTTP;
     private Duration retryInterval = DEFAULT_HEALTHCHECK_RETRY_INTERVAL;
     private ClientFactory clientFactory = ClientFactory.DEFAULT;
+    @Nullable
+    private OutlierDetection outlierDetection;
+    private Duration slowStartWindow = Duration.ZERO;
 
     /**
      * Creates a new {@link HttpHealthCheckedEndpointGroupBuilder}. Health check requests for the delegate
@@ -77,12 +83,35 @@ public class HttpHealthCheckedEndpointGroupBuilder {
         return this;
     }
 
+    /**
+     * Enables the passive outlier detection with the specified {@link OutlierDetection}. The outlier
+     * detection is disabled by default. Note that the clients have to be decorated with
+     * {@link HealthCheckedEndpointGroup#newOutlierDetectingDecorator()} to report their requests.
+     */
+    public HttpHealthCheckedEndpointGroupBuilder outlierDetection(OutlierDetection outlierDetection) {
+        this.outlierDetection = requireNonNull(outlierDetection, "outlierDetection");
+        return this;
+    }
+
+    /**
+     * Sets the duration to ramp up the weight of an {@link Endpoint} over, after it became healthy or
+     * returned from an ejection. The weight starts from almost zero and grows linearly to the full weight
+     * at the end of the window. {@link Duration#ZERO} disables the slow start, which is the default.
+     */
+    public HttpHealthCheckedEndpointGroupBuilder slowStartWindow(Duration slowStartWindow) {
+        requireNonNull(slowStartWindow, "slowStartWindow");
+        checkArgument(!slowStartWindow.isNegative(),
+                      "slowStartWindow: %s (expected: >= 0)", slowStartWindow);
+        this.slowStartWindow = slowStartWindow;
+        return this;
+    }
+
     /**
      * Returns a newly created {@link HttpHealthCheckedEndpointGroup} based on the contents of the
      * {@link HttpHealthCheckedEndpointGroupBuilder}.
      */
     public HttpHealthCheckedEndpointGroup build() {
         return new HttpHealthCheckedEndpointGroup(clientFactory, delegate, protocol, healthCheckPath,
-                                                  retryInterval);
+                                                  retryInterval, outlierDetection, slowStartWindow);
     }
 }
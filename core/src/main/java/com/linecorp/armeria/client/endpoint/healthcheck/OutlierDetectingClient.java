@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.endpoint.healthcheck;
+
+import java.net.ConnectException;
+
+import com.linecorp.armeria.client.Client;
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.SimpleDecoratingClient;
+import com.linecorp.armeria.common.HttpStatusClass;
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.common.Response;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.common.util.Exceptions;
+import com.linecorp.armeria.internal.SelectedEndpoints;
+
+import io.netty.channel.ConnectTimeoutException;
+
+/**
+ * Reports the result of each request to the {@link Endpoint} selected from a
+ * {@link HealthCheckedEndpointGroup}, so that the group can eject the {@link Endpoint}s which keep failing.
+ */
+final class OutlierDetectingClient<I extends Request, O extends Response> extends SimpleDecoratingClient<I, O> {
+
+    private final HealthCheckedEndpointGroup endpointGroup;
+
+    OutlierDetectingClient(Client<I, O> delegate, HealthCheckedEndpointGroup endpointGroup) {
+        super(delegate);
+        this.endpointGroup = endpointGroup;
+    }
+
+    @Override
+    public O execute(ClientRequestContext ctx, I req) throws Exception {
+        ctx.log().addListener(log -> {
+            final Endpoint endpoint = SelectedEndpoints.get(ctx);
+            if (endpoint == null) {
+                // Not sent to an EndpointGroup.
+                return;
+            }
+
+            final Throwable cause = log.responseCause();
+            if (cause != null) {
+                final Throwable peeled = Exceptions.peel(cause);
+                if (peeled instanceof ConnectException || peeled instanceof ConnectTimeoutException) {
+                    endpointGroup.onFailure(endpoint);
+                }
+                // Other failures such as a response timeout or a cancellation do not tell much about
+                // whether the endpoint is an outlier.
+                return;
+            }
+
+            if (log.status().codeClass() == HttpStatusClass.SERVER_ERROR) {
+                endpointGroup.onFailure(endpoint);
+            } else {
+                endpointGroup.onSuccess(endpoint);
+            }
+        }, RequestLogAvailability.COMPLETE);
+        return delegate().execute(ctx, req);
+    }
+}
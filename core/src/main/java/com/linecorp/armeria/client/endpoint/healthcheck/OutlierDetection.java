@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.endpoint.healthcheck;
+
+import java.time.Duration;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.client.Endpoint;
+
+/**
+ * The settings of the passive outlier detection of a {@link HealthCheckedEndpointGroup}. An {@link Endpoint}
+ * which failed too many requests in a row is ejected from the group for a while, even if it passes the
+ * health checks. The ejection time grows with every repeated ejection of the same {@link Endpoint}.
+ *
+ * @see HealthCheckedEndpointGroup#newOutlierDetectingDecorator()
+ */
+public final class OutlierDetection {
+
+    /**
+     * Returns a new {@link OutlierDetectionBuilder}.
+     */
+    public static OutlierDetectionBuilder builder() {
+        return new OutlierDetectionBuilder();
+    }
+
+    private final int consecutiveFailures;
+    private final Duration baseEjectionTime;
+    private final Duration maxEjectionTime;
+    private final double maxEjectionRatio;
+
+    OutlierDetection(int consecutiveFailures, Duration baseEjectionTime, Duration maxEjectionTime,
+                     double maxEjectionRatio) {
+        this.consecutiveFailures = consecutiveFailures;
+        this.baseEjectionTime = baseEjectionTime;
+        this.maxEjectionTime = maxEjectionTime;
+        this.maxEjectionRatio = maxEjectionRatio;
+    }
+
+    /**
+     * Returns the number of consecutive failed requests which ejects an {@link Endpoint}.
+     */
+    public int consecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * Returns the ejection time of an {@link Endpoint} which has not been ejected recently. The N-th
+     * ejection in a row lasts N times as long, up to {@link #maxEjectionTime()}.
+     */
+    public Duration baseEjectionTime() {
+        return baseEjectionTime;
+    }
+
+    /**
+     * Returns the maximum ejection time. An {@link Endpoint} which has not been ejected again for this long
+     * since its last ejection is ejected for {@link #baseEjectionTime()} on its next ejection.
+     */
+    public Duration maxEjectionTime() {
+        return maxEjectionTime;
+    }
+
+    /**
+     * Returns the maximum ratio of the ejected {@link Endpoint}s to the healthy {@link Endpoint}s.
+     */
+    public double maxEjectionRatio() {
+        return maxEjectionRatio;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("consecutiveFailures", consecutiveFailures)
+                          .add("baseEjectionTime", baseEjectionTime)
+                          .add("maxEjectionTime", maxEjectionTime)
+                          .add("maxEjectionRatio", maxEjectionRatio)
+                          .toString();
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.endpoint.healthcheck;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.client.Endpoint;
+
+/**
+ * Builds a new {@link OutlierDetection}.
+ * <h2>Example</h2>
+ * <pre>{@code
+ * OutlierDetection outlierDetection = OutlierDetection.builder()
+ *                                                     .consecutiveFailures(5)
+ *                                                     .baseEjectionTime(Duration.ofSeconds(30))
+ *                                                     .build();
+ * }</pre>
+ */
+public final class OutlierDetectionBuilder {
+
+    private static final int DEFAULT_CONSECUTIVE_FAILURES = 5;
+    private static final Duration DEFAULT_BASE_EJECTION_TIME = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_MAX_EJECTION_TIME = Duration.ofMinutes(5);
+    private static final double DEFAULT_MAX_EJECTION_RATIO = 0.5;
+
+    private int consecutiveFailures = DEFAULT_CONSECUTIVE_FAILURES;
+    private Duration baseEjectionTime = DEFAULT_BASE_EJECTION_TIME;
+    private Duration maxEjectionTime = DEFAULT_MAX_EJECTION_TIME;
+    private double maxEjectionRatio = DEFAULT_MAX_EJECTION_RATIO;
+
+    OutlierDetectionBuilder() {}
+
+    /**
+     * Sets the number of consecutive failed requests which ejects an {@link Endpoint}. A request is
+     * considered failed if it was responded with a {@code 5xx} status or its connection attempt failed.
+     * The default value is {@value #DEFAULT_CONSECUTIVE_FAILURES}.
+     */
+    public OutlierDetectionBuilder consecutiveFailures(int consecutiveFailures) {
+        checkArgument(consecutiveFailures > 0,
+                      "consecutiveFailures: %s (expected: > 0)", consecutiveFailures);
+        this.consecutiveFailures = consecutiveFailures;
+        return this;
+    }
+
+    /**
+     * Sets the ejection time of an {@link Endpoint} which has not been ejected recently. The N-th ejection
+     * in a row lasts N times as long, up to {@link #maxEjectionTime(Duration)}.
+     * The default value is 30 seconds.
+     */
+    public OutlierDetectionBuilder baseEjectionTime(Duration baseEjectionTime) {
+        requireNonNull(baseEjectionTime, "baseEjectionTime");
+        checkArgument(!baseEjectionTime.isNegative() && !baseEjectionTime.isZero(),
+                      "baseEjectionTime: %s (expected: > 0)", baseEjectionTime);
+        this.baseEjectionTime = baseEjectionTime;
+        return this;
+    }
+
+    /**
+     * Sets the maximum ejection time. The default value is 5 minutes.
+     */
+    public OutlierDetectionBuilder maxEjectionTime(Duration maxEjectionTime) {
+        requireNonNull(maxEjectionTime, "maxEjectionTime");
+        checkArgument(!maxEjectionTime.isNegative() && !maxEjectionTime.isZero(),
+                      "maxEjectionTime: %s (expected: > 0)", maxEjectionTime);
+        this.maxEjectionTime = maxEjectionTime;
+        return this;
+    }
+
+    /**
+     * Sets the maximum ratio of the ejected {@link Endpoint}s to the healthy {@link Endpoint}s, so that
+     * a failure of the whole group does not eject all of them. The default value is
+     * {@value #DEFAULT_MAX_EJECTION_RATIO}.
+     */
+    public OutlierDetectionBuilder maxEjectionRatio(double maxEjectionRatio) {
+        checkArgument(maxEjectionRatio > 0 && maxEjectionRatio <= 1,
+                      "maxEjectionRatio: %s (expected: > 0 and <= 1)", maxEjectionRatio);
+        this.maxEjectionRatio = maxEjectionRatio;
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link OutlierDetection} based on the properties of this builder.
+     */
+    public OutlierDetection build() {
+        checkArgument(maxEjectionTime.compareTo(baseEjectionTime) >= 0,
+                      "maxEjectionTime: %s (expected: >= baseEjectionTime (%s))",
+                      maxEjectionTime, baseEjectionTime);
+        return new OutlierDetection(consecutiveFailures, baseEjectionTime, maxEjectionTime, maxEjectionRatio);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("consecutiveFailures", consecutiveFailures)
+                          .add("baseEjectionTime", baseEjectionTime)
+                          .add("maxEjectionTime", maxEjectionTime)
+                          .add("maxEjectionRatio", maxEjectionRatio)
+                          .toString();
+    }
+}
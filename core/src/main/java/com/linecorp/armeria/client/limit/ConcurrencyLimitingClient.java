@@ -21,16 +21,25 @@ import static java.util.Objects.requireNonNull;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.client.Client;
 import com.linecorp.armeria.client.ClientRequestContext;
 import com.linecorp.armeria.client.ResponseTimeoutException;
 import com.linecorp.armeria.client.SimpleDecoratingClient;
+import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.Response;
+import com.linecorp.armeria.common.limit.AdaptiveLimit;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
 import com.linecorp.armeria.common.util.SafeCloseable;
+import com.linecorp.armeria.internal.metric.ConcurrencyLimitMetrics;
 
 import io.netty.util.concurrent.ScheduledFuture;
 
@@ -43,6 +52,15 @@ import io.netty.util.concurrent.ScheduledFuture;
  * at the configured {@code maxConcurrency} the {@link Request}s are deferred until the currently active
  * {@link Request}s are completed.
  *
+ * <p>When an {@link AdaptiveLimit} is specified instead of a fixed {@code maxConcurrency}, the limit follows
+ * the round-trip time of the delegated {@link Request}s, which is measured from their {@link RequestLog}s.
+ * The {@link AdaptiveLimit} limits all the {@link Client}s sharing it together, i.e. their active
+ * {@link Request}s acquire the permits from the same {@link AdaptiveLimit#inflight()} counter, and a permit
+ * returned by one {@link Client} may be taken by a {@link Request} deferred by another. The current limit,
+ * the number of active requests of all such {@link Client}s and the time spent by the deferred requests are
+ * exported under the meter name {@code armeria.client.concurrencyLimit}, tagged with
+ * {@link AdaptiveLimit#name()}.
+ *
  * @param <I> the {@link Request} type
  * @param <O> the {@link Response} type
  */
@@ -52,9 +70,18 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
     private static final long DEFAULT_TIMEOUT_MILLIS = 10000L;
 
     private final int maxConcurrency;
+    @Nullable
+    private final AdaptiveLimit limit;
     private final long timeoutMillis;
     private final AtomicInteger numActiveRequests = new AtomicInteger();
     private final Queue<PendingTask> pendingRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean waitingForPermit = new AtomicBoolean();
+    private final Runnable permitWaiter = () -> {
+        waitingForPermit.set(false);
+        drain();
+    };
+    @Nullable
+    private volatile ConcurrencyLimitMetrics metrics;
 
     /**
      * Creates a new instance that decorates the specified {@code delegate} to limit the concurrent number of
@@ -84,11 +111,49 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
         validateAll(maxConcurrency, timeout, unit);
 
         this.maxConcurrency = maxConcurrency;
+        limit = null;
+        timeoutMillis = unit.toMillis(timeout);
+    }
+
+    /**
+     * Creates a new instance that decorates the specified {@code delegate} to limit the concurrent number of
+     * active requests to the current value of the specified {@link AdaptiveLimit}, with the default timeout
+     * of {@value #DEFAULT_TIMEOUT_MILLIS} milliseconds.
+     *
+     * @param delegate the delegate {@link Client}
+     * @param limit the {@link AdaptiveLimit} which determines the maximum number of concurrent active requests
+     */
+    protected ConcurrencyLimitingClient(Client<I, O> delegate, AdaptiveLimit limit) {
+        this(delegate, limit, DEFAULT_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance that decorates the specified {@code delegate} to limit the concurrent number of
+     * active requests to the current value of the specified {@link AdaptiveLimit}.
+     *
+     * @param delegate the delegate {@link Client}
+     * @param limit the {@link AdaptiveLimit} which determines the maximum number of concurrent active requests
+     * @param timeout the amount of time until this decorator fails the request if the request was not
+     *                delegated to the {@code delegate} before then
+     */
+    protected ConcurrencyLimitingClient(Client<I, O> delegate,
+                                        AdaptiveLimit limit, long timeout, TimeUnit unit) {
+        super(delegate);
+
+        requireNonNull(limit, "limit");
+        validateTimeout(timeout, unit);
+
+        maxConcurrency = 0;
+        this.limit = limit;
         timeoutMillis = unit.toMillis(timeout);
     }
 
     static void validateAll(int maxConcurrency, long timeout, TimeUnit unit) {
         validateMaxConcurrency(maxConcurrency);
+        validateTimeout(timeout, unit);
+    }
+
+    static void validateTimeout(long timeout, TimeUnit unit) {
         if (timeout < 0) {
             throw new IllegalArgumentException("timeout: " + timeout + " (expected: >= 0)");
         }
@@ -102,7 +167,7 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
     }
 
     /**
-     * Returns the number of the {@link Request}s that are being executed.
+     * Returns the number of the {@link Request}s that are being executed by this {@link Client}.
      */
     public int numActiveRequests() {
         return numActiveRequests.get();
@@ -110,13 +175,13 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
 
     @Override
     public O execute(ClientRequestContext ctx, I req) throws Exception {
-        return maxConcurrency == 0 ? unlimitedExecute(ctx, req)
-                                   : limitedExecute(ctx, req);
+        return maxConcurrency == 0 && limit == null ? unlimitedExecute(ctx, req)
+                                                    : limitedExecute(ctx, req);
     }
 
     private O limitedExecute(ClientRequestContext ctx, I req) throws Exception {
         final Deferred<O> deferred = defer(ctx, req);
-        final PendingTask currentTask = new PendingTask(ctx, req, deferred);
+        final PendingTask currentTask = new PendingTask(ctx, req, deferred, metrics(ctx));
 
         pendingRequests.add(currentTask);
         drain();
@@ -149,27 +214,87 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
 
     void drain() {
         while (!pendingRequests.isEmpty()) {
-            final int currentActiveRequests = numActiveRequests.get();
-            if (currentActiveRequests >= maxConcurrency) {
+            if (!tryAcquire()) {
+                final AdaptiveLimit limit = this.limit;
+                if (limit != null && waitingForPermit.compareAndSet(false, true)) {
+                    // A permit might be returned by another client sharing the limit.
+                    limit.awaitPermit(permitWaiter);
+                }
                 break;
             }
 
+            final PendingTask task = pendingRequests.poll();
+            if (task == null) {
+                // Another request might have been added to the queue while numActiveRequests reached
+                // at its limit.
+                release();
+                continue;
+            }
+
+            task.run();
+        }
+    }
+
+    private boolean tryAcquire() {
+        final AdaptiveLimit limit = this.limit;
+        if (limit != null) {
+            if (!limit.tryAcquire()) {
+                return false;
+            }
+            numActiveRequests.incrementAndGet();
+            return true;
+        }
+
+        for (;;) {
+            final int currentActiveRequests = numActiveRequests.get();
+            if (currentActiveRequests >= maxConcurrency) {
+                return false;
+            }
             if (numActiveRequests.compareAndSet(currentActiveRequests, currentActiveRequests + 1)) {
-                final PendingTask task = pendingRequests.poll();
-                if (task == null) {
-                    numActiveRequests.decrementAndGet();
-                    if (!pendingRequests.isEmpty()) {
-                        // Another request might have been added to the queue while numActiveRequests reached
-                        // at its limit.
-                        continue;
-                    } else {
-                        break;
-                    }
-                }
+                return true;
+            }
+        }
+    }
+
+    private void release() {
+        numActiveRequests.decrementAndGet();
+        final AdaptiveLimit limit = this.limit;
+        if (limit != null) {
+            limit.release();
+        }
+    }
+
+    @Nullable
+    private ConcurrencyLimitMetrics metrics(ClientRequestContext ctx) {
+        final AdaptiveLimit limit = this.limit;
+        if (limit == null) {
+            return null;
+        }
 
-                task.run();
+        ConcurrencyLimitMetrics metrics = this.metrics;
+        if (metrics == null) {
+            this.metrics = metrics = ConcurrencyLimitMetrics.of(
+                    ctx.meterRegistry(),
+                    new MeterIdPrefix("armeria.client.concurrencyLimit", "name", limit.name()), limit);
+        }
+        return metrics;
+    }
+
+    private void onComplete(RequestLog log, int inflight) {
+        assert limit != null;
+        final Throwable cause = log.responseCause();
+        if (cause != null) {
+            // Other failures such as a connection failure say nothing about the latency of the upstream.
+            if (cause instanceof ResponseTimeoutException) {
+                limit.onSample(0, inflight, true);
             }
+            return;
         }
+
+        final int statusCode = log.statusCode();
+        final boolean dropped = statusCode == HttpStatus.SERVICE_UNAVAILABLE.code() ||
+                                statusCode == HttpStatus.TOO_MANY_REQUESTS.code();
+        limit.onSample(log.responseEndTimeNanos() - log.requestStartTimeNanos(), inflight, dropped);
     }
 
     /**
@@ -211,12 +336,18 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
         private final ClientRequestContext ctx;
         private final I req;
         private final Deferred<O> deferred;
+        @Nullable
+        private final ConcurrencyLimitMetrics metrics;
+        private final long createdNanos;
         private boolean isRun;
 
-        PendingTask(ClientRequestContext ctx, I req, Deferred<O> deferred) {
+        PendingTask(ClientRequestContext ctx, I req, Deferred<O> deferred,
+                    @Nullable ConcurrencyLimitMetrics metrics) {
             this.ctx = ctx;
             this.req = req;
             this.deferred = deferred;
+            this.metrics = metrics;
+            createdNanos = metrics != null ? System.nanoTime() : 0;
         }
 
         boolean isRun() {
@@ -231,21 +362,27 @@ public abstract class ConcurrencyLimitingClient<I extends Request, O extends Res
             if (timeoutFuture != null) {
                 if (timeoutFuture.isDone() || !timeoutFuture.cancel(false)) {
                     // Timeout task ran already or is determined to run.
-                    numActiveRequests.decrementAndGet();
+                    release();
                     return;
                 }
             }
 
+            if (metrics != null) {
+                metrics.recordQueueWait(System.nanoTime() - createdNanos);
+                final int inflight = limit.inflight();
+                ctx.log().addListener(log -> onComplete(log, inflight), RequestLogAvailability.COMPLETE);
+            }
+
             try (SafeCloseable ignored = ctx.push()) {
                 try {
                     final O actualRes = delegate().execute(ctx, req);
                     actualRes.completionFuture().whenCompleteAsync((unused, cause) -> {
-                        numActiveRequests.decrementAndGet();
+                        release();
                         drain();
                     }, ctx.eventLoop());
                     deferred.delegate(actualRes);
                 } catch (Throwable t) {
-                    numActiveRequests.decrementAndGet();
+                    release();
                     deferred.close(t);
                 }
             }
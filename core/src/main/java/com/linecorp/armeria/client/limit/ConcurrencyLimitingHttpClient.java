@@ -16,6 +16,8 @@
 
 package com.linecorp.armeria.client.limit;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
@@ -24,6 +26,7 @@ import com.linecorp.armeria.client.Client;
 import com.linecorp.armeria.client.ClientRequestContext;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.limit.AdaptiveLimit;
 
 /**
  * A {@link Client} decorator that limits the concurrent number of active HTTP requests.
@@ -35,6 +38,11 @@ import com.linecorp.armeria.common.HttpResponse;
  * client = builder.build(...);
  * }</pre>
  *
+ * <p>To let the limit follow the latency of the upstream, specify an {@link AdaptiveLimit}:
+ * <pre>{@code
+ * AdaptiveLimit limit = AdaptiveLimit.vegas().maxLimit(200).build();
+ * builder.decorator(HttpRequest.class, HttpResponse.class, ConcurrencyLimitingHttpClient.newDecorator(limit));
+ * }</pre>
  */
 public final class ConcurrencyLimitingHttpClient extends ConcurrencyLimitingClient<HttpRequest, HttpResponse> {
 
@@ -56,6 +64,29 @@ public final class ConcurrencyLimitingHttpClient extends ConcurrencyLimitingClie
         return delegate -> new ConcurrencyLimitingHttpClient(delegate, maxConcurrency, timeout, unit);
     }
 
+    /**
+     * Creates a new {@link Client} decorator that limits the concurrent number of active HTTP requests
+     * to the current value of the specified {@link AdaptiveLimit}. Note that all {@link Client}s decorated
+     * by the returned decorator share the specified {@link AdaptiveLimit}.
+     */
+    public static Function<Client<HttpRequest, HttpResponse>, ConcurrencyLimitingHttpClient>
+    newDecorator(AdaptiveLimit limit) {
+        requireNonNull(limit, "limit");
+        return delegate -> new ConcurrencyLimitingHttpClient(delegate, limit);
+    }
+
+    /**
+     * Creates a new {@link Client} decorator that limits the concurrent number of active HTTP requests
+     * to the current value of the specified {@link AdaptiveLimit}. Note that all {@link Client}s decorated
+     * by the returned decorator share the specified {@link AdaptiveLimit}.
+     */
+    public static Function<Client<HttpRequest, HttpResponse>, ConcurrencyLimitingHttpClient> newDecorator(
+            AdaptiveLimit limit, long timeout, TimeUnit unit) {
+        requireNonNull(limit, "limit");
+        validateTimeout(timeout, unit);
+        return delegate -> new ConcurrencyLimitingHttpClient(delegate, limit, timeout, unit);
+    }
+
     private ConcurrencyLimitingHttpClient(Client<HttpRequest, HttpResponse> delegate, int maxConcurrency) {
         super(delegate, maxConcurrency);
     }
@@ -65,6 +96,15 @@ public final class ConcurrencyLimitingHttpClient extends ConcurrencyLimitingClie
         super(delegate, maxConcurrency, timeout, unit);
     }
 
+    private ConcurrencyLimitingHttpClient(Client<HttpRequest, HttpResponse> delegate, AdaptiveLimit limit) {
+        super(delegate, limit);
+    }
+
+    private ConcurrencyLimitingHttpClient(Client<HttpRequest, HttpResponse> delegate,
+                                          AdaptiveLimit limit, long timeout, TimeUnit unit) {
+        super(delegate, limit, timeout, unit);
+    }
+
     @Override
     protected Deferred<HttpResponse> defer(ClientRequestContext ctx, HttpRequest req) throws Exception {
         return new Deferred<HttpResponse>() {
@@ -17,6 +17,7 @@ package com.linecorp.armeria.client.pool;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
@@ -55,15 +56,26 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
             Exceptions.clearTrace(new IllegalStateException(
                     "Channel is unhealthy; not offering it back to pool"));
 
+    private static final IllegalStateException TOO_MANY_PENDING_ACQUISITIONS =
+            Exceptions.clearTrace(new IllegalStateException(
+                    "Too many acquisitions are waiting for a Channel"));
+
     private final EventLoop eventLoop;
     private final Function<K, Future<Channel>> channelFactory;
     private final Predicate<Channel> healthChecker;
     private final KeyedChannelPoolHandler<K> channelPoolHandler;
     private final boolean healthCheckOnRelease;
+    private final KeyedChannelLimiter<K> channelLimiter;
 
     private final Map<K, Deque<Channel>> pool;
     private final Map<K, Future<Channel>> pendingConnections;
 
+    /**
+     * The acquisitions which wait for a {@link Channel} because {@link KeyedChannelLimiter} did not allow
+     * opening a new one. They are also queued in {@link #channelLimiter}.
+     */
+    private final Map<K, Deque<PendingAcquisition>> pendingAcquisitions;
+
     private final Set<Channel> allChannels;
 
     private boolean closed;
@@ -75,15 +87,35 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
                                    Predicate<Channel> healthChecker,
                                    KeyedChannelPoolHandler<K> channelPoolHandler,
                                    boolean healthCheckOnRelease) {
+        this(eventLoop, channelFactory, healthChecker, channelPoolHandler, healthCheckOnRelease,
+             new KeyedChannelLimiter<>(Integer.MAX_VALUE, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param channelLimiter the {@link KeyedChannelLimiter} which limits the number of {@link Channel}s
+     *                       opened for a key. It may be shared by other {@link DefaultKeyedChannelPool}s
+     *                       to limit the total number of {@link Channel}s. {@link #acquire(Object)} waits
+     *                       until a {@link Channel} is released or closed when the limit is reached.
+     *                       A released {@link Channel} is closed when no acquisition of this pool waits
+     *                       for it but the ones of the other pools wait, so that they can open a new one.
+     */
+    public DefaultKeyedChannelPool(EventLoop eventLoop, Function<K, Future<Channel>> channelFactory,
+                                   Predicate<Channel> healthChecker,
+                                   KeyedChannelPoolHandler<K> channelPoolHandler,
+                                   boolean healthCheckOnRelease, KeyedChannelLimiter<K> channelLimiter) {
         this.eventLoop = requireNonNull(eventLoop, "eventLoop");
         this.channelFactory = requireNonNull(channelFactory, "channelFactory");
         this.healthChecker = requireNonNull(healthChecker, "healthChecker");
         this.channelPoolHandler = new SafeKeyedChannelPoolHandler<>(requireNonNull(channelPoolHandler,
                                                                                    "channelPoolHandler"));
         this.healthCheckOnRelease = healthCheckOnRelease;
+        this.channelLimiter = requireNonNull(channelLimiter, "channelLimiter");
 
         pool = new HashMap<>();
         pendingConnections = new HashMap<>();
+        pendingAcquisitions = new HashMap<>();
         allChannels = Collections.newSetFromMap(new IdentityHashMap<>());
     }
 
@@ -109,37 +141,102 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
     private Future<Channel> acquireHealthyFromPoolOrNew(final K key, final Promise<Channel> promise) {
         assert eventLoop.inEventLoop();
 
+        if (promise.isDone()) {
+            // Cancelled while waiting.
+            return promise;
+        }
+
         if (closed) {
-            promise.setFailure(ClosedSessionException.get());
+            promise.tryFailure(ClosedSessionException.get());
             return promise;
         }
 
         final Channel ch = pollHealthy(key);
-        if (ch == null) {
-            final Future<Channel> pendingChannel = pendingConnections.get(key);
-            if (pendingChannel != null) {
-                // Try acquiring again after the pending connection is completed.
-                pendingChannel.addListener(unused -> acquireHealthyFromPoolOrNew(key, promise));
-            } else {
-                final Future<Channel> f = channelFactory.apply(key);
-                pendingConnections.put(key, f);
-                if (f.isDone()) {
-                    notifyConnect(key, f, promise);
-                } else {
-                    f.addListener((Future<Channel> future) -> notifyConnect(key, future, promise));
-                }
-            }
+        if (ch != null) {
+            notifyAcquired(key, ch, promise);
+            return promise;
+        }
+
+        final Future<Channel> pendingChannel = pendingConnections.get(key);
+        if (pendingChannel != null) {
+            // Try acquiring again after the pending connection is completed.
+            pendingChannel.addListener(unused -> acquireHealthyFromPoolOrNew(key, promise));
+            return promise;
+        }
+
+        final PendingAcquisition pendingAcquisition = new PendingAcquisition(key, promise);
+        switch (channelLimiter.acquire(key, pendingAcquisition)) {
+            case ACQUIRED:
+                connect(key, promise);
+                break;
+            case QUEUED:
+                // Wait until a channel is released or closed rather than opening one more connection.
+                addPendingAcquisition(pendingAcquisition);
+                break;
+            case REJECTED:
+                promise.tryFailure(TOO_MANY_PENDING_ACQUISITIONS);
+                break;
+        }
+
+        return promise;
+    }
+
+    /**
+     * Opens a new {@link Channel} with a permit acquired from {@link #channelLimiter}.
+     */
+    private void connect(K key, Promise<Channel> promise) {
+        final Future<Channel> f;
+        try {
+            f = channelFactory.apply(key);
+        } catch (Throwable cause) {
+            channelLimiter.release(key);
+            promise.tryFailure(cause);
+            return;
+        }
+
+        pendingConnections.putIfAbsent(key, f);
+        if (f.isDone()) {
+            notifyConnect(key, f, promise);
         } else {
-            try {
-                ch.attr(KeyedChannelPoolUtil.POOL).set(this);
-                channelPoolHandler.channelAcquired(key, ch);
-                promise.setSuccess(ch);
-            } catch (Throwable cause) {
-                closeAndFail(ch, cause, promise);
+            f.addListener((Future<Channel> future) -> notifyConnect(key, future, promise));
+        }
+    }
+
+    private void notifyAcquired(K key, Channel ch, Promise<Channel> promise) {
+        try {
+            ch.attr(KeyedChannelPoolUtil.POOL).set(this);
+            channelPoolHandler.channelAcquired(key, ch);
+            if (!promise.trySuccess(ch)) {
+                // Cancelled concurrently; give the channel back.
+                doRelease(key, ch, eventLoop.newPromise());
             }
+        } catch (Throwable cause) {
+            closeAndFail(ch, cause, promise);
         }
+    }
 
-        return promise;
+    private void addPendingAcquisition(PendingAcquisition pendingAcquisition) {
+        final K key = pendingAcquisition.key;
+        pendingAcquisitions.computeIfAbsent(key, k -> new ArrayDeque<>()).add(pendingAcquisition);
+        pendingAcquisition.promise.addListener(future -> {
+            if (future.isCancelled()) {
+                // Leave the queues immediately so that the cancelled acquisitions do not occupy them.
+                channelLimiter.cancel(key, pendingAcquisition);
+                if (eventLoop.inEventLoop()) {
+                    removePendingAcquisition(pendingAcquisition);
+                } else {
+                    eventLoop.execute(() -> removePendingAcquisition(pendingAcquisition));
+                }
+            }
+        });
+    }
+
+    private void removePendingAcquisition(PendingAcquisition pendingAcquisition) {
+        final K key = pendingAcquisition.key;
+        final Deque<PendingAcquisition> queue = pendingAcquisitions.get(key);
+        if (queue != null && queue.remove(pendingAcquisition) && queue.isEmpty()) {
+            pendingAcquisitions.remove(key);
+        }
     }
 
     @Nullable
@@ -181,14 +278,15 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
 
     private void notifyConnect(K key, Future<Channel> future, Promise<Channel> promise) {
         assert future.isDone();
-        pendingConnections.remove(key);
+        pendingConnections.remove(key, future);
 
         try {
             if (future.isSuccess()) {
                 final Channel channel = future.getNow();
                 if (closed) {
                     channel.close();
-                    promise.setFailure(ClosedSessionException.get());
+                    channelLimiter.release(key);
+                    promise.tryFailure(ClosedSessionException.get());
                     return;
                 }
 
@@ -207,13 +305,27 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
                             pool.remove(key);
                         }
                     }
+
+                    // A new connection can be opened for the next pending acquisition, if any.
+                    channelLimiter.release(key);
                 });
-                promise.setSuccess(channel);
+
+                if (!promise.trySuccess(channel)) {
+                    // Cancelled while connecting; make the new channel available to others.
+                    if (offerChannel(key, channel)) {
+                        if (!acquireForNextPendingAcquisition(key)) {
+                            closeIdleChannelForOtherPools(key);
+                        }
+                    } else {
+                        closeChannel(channel);
+                    }
+                }
             } else {
-                promise.setFailure(future.cause());
+                channelLimiter.release(key);
+                promise.tryFailure(future.cause());
             }
         } catch (Exception e) {
-            promise.setFailure(e);
+            promise.tryFailure(e);
         }
     }
 
@@ -226,7 +338,7 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
 
     private static void closeAndFail(Channel channel, Throwable cause, Promise<?> promise) {
         closeChannel(channel);
-        promise.setFailure(cause);
+        promise.tryFailure(cause);
     }
 
     @Override
@@ -288,11 +400,77 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
         if (offerChannel(key, channel)) {
             channelPoolHandler.channelReleased(key, channel);
             promise.setSuccess(null);
+            if (!acquireForNextPendingAcquisition(key)) {
+                closeIdleChannelForOtherPools(key);
+            }
         } else {
             closeAndFail(channel, FULL_EXCEPTION, promise);
         }
     }
 
+    /**
+     * Lets the next acquisition waiting in this pool take the {@link Channel} released for the specified
+     * {@code key}.
+     *
+     * @return {@code false} if no acquisition waits in this pool
+     */
+    private boolean acquireForNextPendingAcquisition(K key) {
+        assert eventLoop.inEventLoop();
+
+        final Deque<PendingAcquisition> queue = pendingAcquisitions.get(key);
+        if (queue == null) {
+            return false;
+        }
+
+        for (;;) {
+            final PendingAcquisition pendingAcquisition = queue.poll();
+            if (pendingAcquisition == null) {
+                pendingAcquisitions.remove(key);
+                return false;
+            }
+
+            // Skip the acquisitions which have been cancelled while waiting.
+            if (!pendingAcquisition.promise.isDone()) {
+                if (queue.isEmpty()) {
+                    pendingAcquisitions.remove(key);
+                }
+
+                // The acquisition does not need a permit anymore because it will get the released channel.
+                // If a permit has been transferred to it already, it will give the permit back.
+                channelLimiter.cancel(key, pendingAcquisition);
+                acquireHealthyFromPoolOrNew(key, pendingAcquisition.promise);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Closes the least recently released {@link Channel} of the specified {@code key} if the acquisitions
+     * of the other pools sharing {@link #channelLimiter} wait for a permit. Otherwise, the idle
+     * {@link Channel} would keep its permit until it is closed by the idle timeout while they wait.
+     */
+    private void closeIdleChannelForOtherPools(K key) {
+        if (!channelLimiter.hasWaiters(key)) {
+            return;
+        }
+
+        final Deque<Channel> queue = pool.get(key);
+        if (queue == null) {
+            return;
+        }
+
+        final Channel ch = queue.pollFirst();
+        if (ch == null) {
+            return;
+        }
+        if (queue.isEmpty()) {
+            pool.remove(key);
+        }
+
+        // The permit of the channel is transferred to the next waiter when the channel is closed.
+        closeChannel(ch);
+    }
+
     /**
      * Adds a {@link Channel} to this pool.
      *
@@ -317,6 +495,16 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
     private void doClose(boolean blocking) {
         closed = true;
 
+        if (!pendingAcquisitions.isEmpty()) {
+            final List<PendingAcquisition> removed = new ArrayList<>();
+            pendingAcquisitions.values().forEach(removed::addAll);
+            pendingAcquisitions.clear();
+            for (PendingAcquisition pendingAcquisition : removed) {
+                channelLimiter.cancel(pendingAcquisition.key, pendingAcquisition);
+                pendingAcquisition.promise.tryFailure(ClosedSessionException.get());
+            }
+        }
+
         if (allChannels.isEmpty()) {
             return;
         }
@@ -335,4 +523,49 @@ public class DefaultKeyedChannelPool<K> implements KeyedChannelPool<K> {
             closeFutures.forEach(ChannelFuture::syncUninterruptibly);
         }
     }
+
+    /**
+     * An acquisition waiting for a {@link Channel}, which is run by {@link KeyedChannelLimiter} with
+     * a permit to open a new {@link Channel}.
+     */
+    private final class PendingAcquisition implements Runnable {
+
+        final K key;
+        final Promise<Channel> promise;
+
+        PendingAcquisition(K key, Promise<Channel> promise) {
+            this.key = key;
+            this.promise = promise;
+        }
+
+        @Override
+        public void run() {
+            try {
+                eventLoop.execute(this::acquireWithPermit);
+            } catch (Throwable cause) {
+                // The event loop has been shut down.
+                channelLimiter.release(key);
+                promise.tryFailure(ClosedSessionException.get());
+            }
+        }
+
+        private void acquireWithPermit() {
+            removePendingAcquisition(this);
+            if (promise.isDone() || closed) {
+                // Give the permit to the next acquisition.
+                channelLimiter.release(key);
+                promise.tryFailure(ClosedSessionException.get());
+                return;
+            }
+
+            final Channel ch = pollHealthy(key);
+            if (ch != null) {
+                // A channel has been released while waiting for the permit.
+                channelLimiter.release(key);
+                notifyAcquired(key, ch, promise);
+            } else {
+                connect(key, promise);
+            }
+        }
+    }
 }
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.pool;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.google.common.base.MoreObjects;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+
+/**
+ * Limits the number of the {@link Channel}s opened for each key by the {@link DefaultKeyedChannelPool}s
+ * which share this limiter, e.g. the pools of the different {@link EventLoop}s of a client factory.
+ * An acquisition which cannot open a new {@link Channel} waits in a bounded queue until a {@link Channel}
+ * of the same key is closed. A pool closes an idle {@link Channel} when {@link #hasWaiters(Object)} returns
+ * {@code true} for its key, so that its permit is transferred to the acquisitions of the other pools.
+ *
+ * @param <K> the key type
+ */
+public final class KeyedChannelLimiter<K> {
+
+    enum Result {
+        /**
+         * A permit to open a new {@link Channel} has been acquired.
+         */
+        ACQUIRED,
+        /**
+         * The waiter has been queued. It will be run with a permit when a {@link Channel} is closed.
+         */
+        QUEUED,
+        /**
+         * The queue is full.
+         */
+        REJECTED
+    }
+
+    private final int maxNumChannelsPerKey;
+    private final int maxNumPendingAcquisitionsPerKey;
+    private final ConcurrentMap<K, Slot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxNumChannelsPerKey the maximum number of {@link Channel}s which can be opened for a key
+     * @param maxNumPendingAcquisitionsPerKey the maximum number of acquisitions which can wait for
+     *                                        a {@link Channel} of a key. An acquisition fails immediately
+     *                                        when this limit is reached.
+     */
+    public KeyedChannelLimiter(int maxNumChannelsPerKey, int maxNumPendingAcquisitionsPerKey) {
+        checkArgument(maxNumChannelsPerKey > 0,
+                      "maxNumChannelsPerKey: %s (expected: > 0)", maxNumChannelsPerKey);
+        checkArgument(maxNumPendingAcquisitionsPerKey >= 0,
+                      "maxNumPendingAcquisitionsPerKey: %s (expected: >= 0)", maxNumPendingAcquisitionsPerKey);
+        this.maxNumChannelsPerKey = maxNumChannelsPerKey;
+        this.maxNumPendingAcquisitionsPerKey = maxNumPendingAcquisitionsPerKey;
+    }
+
+    /**
+     * Returns the maximum number of {@link Channel}s which can be opened for a key.
+     */
+    public int maxNumChannelsPerKey() {
+        return maxNumChannelsPerKey;
+    }
+
+    /**
+     * Returns the maximum number of acquisitions which can wait for a {@link Channel} of a key.
+     */
+    public int maxNumPendingAcquisitionsPerKey() {
+        return maxNumPendingAcquisitionsPerKey;
+    }
+
+    /**
+     * Acquires a permit to open a new {@link Channel} for the specified {@code key}, or queues the specified
+     * {@code waiter} if there's no permit left. A queued {@code waiter} is run by the thread which released
+     * a permit, and the permit is transferred to the {@code waiter}, which must {@link #release(Object)} it
+     * when it does not use it.
+     */
+    Result acquire(K key, Runnable waiter) {
+        requireNonNull(key, "key");
+        requireNonNull(waiter, "waiter");
+        final Result[] result = new Result[1];
+        slots.compute(key, (unused, slot) -> {
+            if (slot == null) {
+                slot = new Slot();
+            }
+            if (slot.numChannels < maxNumChannelsPerKey) {
+                slot.numChannels++;
+                result[0] = Result.ACQUIRED;
+            } else if (slot.waiters.size() < maxNumPendingAcquisitionsPerKey) {
+                slot.waiters.add(waiter);
+                result[0] = Result.QUEUED;
+            } else {
+                result[0] = Result.REJECTED;
+            }
+            return slot;
+        });
+        return result[0];
+    }
+
+    /**
+     * Releases a permit of the specified {@code key}, transferring it to the next queued waiter if any.
+     */
+    void release(K key) {
+        final Object[] waiter = new Object[1];
+        slots.computeIfPresent(key, (unused, slot) -> {
+            waiter[0] = slot.waiters.poll();
+            if (waiter[0] != null) {
+                // Transfer the permit to the waiter.
+                return slot;
+            }
+
+            assert slot.numChannels > 0;
+            return --slot.numChannels != 0 ? slot : null;
+        });
+
+        if (waiter[0] != null) {
+            ((Runnable) waiter[0]).run();
+        }
+    }
+
+    /**
+     * Returns whether any acquisition waits for a permit of the specified {@code key}.
+     */
+    boolean hasWaiters(K key) {
+        final boolean[] hasWaiters = new boolean[1];
+        slots.computeIfPresent(key, (unused, slot) -> {
+            hasWaiters[0] = !slot.waiters.isEmpty();
+            return slot;
+        });
+        return hasWaiters[0];
+    }
+
+    /**
+     * Removes the specified {@code waiter} from the queue.
+     *
+     * @return {@code true} if the {@code waiter} has been removed. {@code false} if the {@code waiter} was
+     *         not queued or a permit has been transferred to it already.
+     */
+    boolean cancel(K key, Runnable waiter) {
+        final boolean[] removed = new boolean[1];
+        slots.computeIfPresent(key, (unused, slot) -> {
+            removed[0] = slot.waiters.remove(waiter);
+            return slot;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("maxNumChannelsPerKey", maxNumChannelsPerKey)
+                          .add("maxNumPendingAcquisitionsPerKey", maxNumPendingAcquisitionsPerKey)
+                          .toString();
+    }
+
+    private static final class Slot {
+        int numChannels;
+        final Deque<Runnable> waiters = new ArrayDeque<>();
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.retry;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Estimates a quantile of the recent latencies from a fixed-size ring of samples. The quantile is
+ * recomputed only once per {@value #RECOMPUTE_INTERVAL} samples, so that recording a sample and
+ * reading the estimate are cheap.
+ */
+final class LatencyQuantileEstimator {
+
+    private static final int NUM_SAMPLES = 1024;
+    private static final int RECOMPUTE_INTERVAL = 128;
+
+    private final double quantile;
+    private final long defaultValue;
+    private final AtomicLongArray samples = new AtomicLongArray(NUM_SAMPLES);
+    private final AtomicInteger numRecorded = new AtomicInteger();
+    private volatile long estimate;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param quantile the quantile to estimate, e.g. {@code 0.95}
+     * @param defaultValue the value returned by {@link #estimate()} until enough samples are recorded
+     */
+    LatencyQuantileEstimator(double quantile, long defaultValue) {
+        assert quantile > 0 && quantile < 1 : quantile;
+        this.quantile = quantile;
+        this.defaultValue = defaultValue;
+        estimate = defaultValue;
+    }
+
+    /**
+     * Records a new sample.
+     */
+    void record(long value) {
+        final int n = numRecorded.getAndIncrement();
+        samples.set(n & (NUM_SAMPLES - 1), value);
+        final int numSamples = n + 1;
+        if (numSamples % RECOMPUTE_INTERVAL == 0) {
+            // numSamples overflows after 2^31 samples, when the ring is full anyway.
+            recompute(numSamples > 0 && numSamples < NUM_SAMPLES ? numSamples : NUM_SAMPLES);
+        }
+    }
+
+    private void recompute(int numSamples) {
+        final long[] sorted = new long[numSamples];
+        for (int i = 0; i < numSamples; i++) {
+            sorted[i] = samples.get(i);
+        }
+        Arrays.sort(sorted);
+        estimate = sorted[Math.min(numSamples - 1, (int) (numSamples * quantile))];
+    }
+
+    /**
+     * Returns the estimated quantile of the recent samples, or the default value if less than
+     * {@value #RECOMPUTE_INTERVAL} samples were recorded.
+     */
+    long estimate() {
+        return estimate;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyQuantileEstimator(quantile: " + quantile + ", default: " + defaultValue +
+               ", estimate: " + estimate + ')';
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.retry;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A token bucket which limits the number of retries and hedged requests made by {@link RetryingClient}s
+ * relative to the number of the requests they received. Every request deposits {@code retryRatio}
+ * tokens and every retry or hedged request withdraws one token, so that a {@link RetryingClient} does
+ * not multiply the load on an upstream which is already failing. The bucket holds at most
+ * {@code maxTokens} tokens and it is full initially, which allows a small burst of retries for
+ * the clients which send only a few requests.
+ *
+ * <p>A {@link RetryBudget} may be shared by more than one {@link RetryingClient}, e.g. by all clients
+ * which send requests to the same endpoint group:
+ * <pre>{@code
+ * RetryBudget budget = RetryBudget.of(0.2); // Retry at most 20% of the requests.
+ * Function<Client<HttpRequest, HttpResponse>, RetryingHttpClient> decorator =
+ *         new RetryingHttpClientBuilder(strategy).retryBudget(budget)
+ *                                                .newDecorator();
+ * }</pre>
+ */
+public final class RetryBudget {
+
+    private static final int DEFAULT_MAX_TOKENS = 100;
+
+    /**
+     * The number of the fractional units in a token.
+     */
+    private static final long UNITS_PER_TOKEN = 1000;
+
+    /**
+     * Returns a new {@link RetryBudget} which allows retrying the specified ratio of the requests,
+     * holding at most {@value #DEFAULT_MAX_TOKENS} tokens.
+     *
+     * @param retryRatio the number of tokens deposited per request, e.g. {@code 0.2} to allow
+     *                   retrying 20% of the requests
+     */
+    public static RetryBudget of(double retryRatio) {
+        return of(retryRatio, DEFAULT_MAX_TOKENS);
+    }
+
+    /**
+     * Returns a new {@link RetryBudget} which allows retrying the specified ratio of the requests.
+     *
+     * @param retryRatio the number of tokens deposited per request, e.g. {@code 0.2} to allow
+     *                   retrying 20% of the requests
+     * @param maxTokens the maximum number of tokens in the bucket, which is also the initial number
+     *                  of tokens
+     */
+    public static RetryBudget of(double retryRatio, int maxTokens) {
+        return new RetryBudget(retryRatio, maxTokens);
+    }
+
+    private final double retryRatio;
+    private final int maxTokens;
+    private final long unitsPerRequest;
+    private final long maxUnits;
+    private final AtomicLong units;
+
+    private RetryBudget(double retryRatio, int maxTokens) {
+        checkArgument(retryRatio >= 0 && retryRatio <= 1,
+                      "retryRatio: %s (expected: >= 0 and <= 1)", retryRatio);
+        checkArgument(maxTokens > 0, "maxTokens: %s (expected: > 0)", maxTokens);
+        this.retryRatio = retryRatio;
+        this.maxTokens = maxTokens;
+        unitsPerRequest = Math.round(retryRatio * UNITS_PER_TOKEN);
+        maxUnits = maxTokens * UNITS_PER_TOKEN;
+        units = new AtomicLong(maxUnits);
+    }
+
+    /**
+     * Returns the number of tokens deposited per request.
+     */
+    public double retryRatio() {
+        return retryRatio;
+    }
+
+    /**
+     * Returns the maximum number of tokens in the bucket.
+     */
+    public int maxTokens() {
+        return maxTokens;
+    }
+
+    /**
+     * Returns the current number of tokens in the bucket.
+     */
+    public double availableTokens() {
+        return (double) units.get() / UNITS_PER_TOKEN;
+    }
+
+    /**
+     * Deposits the tokens for a new request.
+     */
+    void deposit() {
+        if (unitsPerRequest == 0) {
+            return;
+        }
+        for (;;) {
+            final long current = units.get();
+            if (current >= maxUnits) {
+                return;
+            }
+            if (units.compareAndSet(current, Math.min(maxUnits, current + unitsPerRequest))) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Withdraws a token for a retry or a hedged request.
+     *
+     * @return {@code true} if a token has been withdrawn. {@code false} if the budget is exhausted.
+     */
+    boolean tryWithdraw() {
+        for (;;) {
+            final long current = units.get();
+            if (current < UNITS_PER_TOKEN) {
+                return false;
+            }
+            if (units.compareAndSet(current, current - UNITS_PER_TOKEN)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("retryRatio", retryRatio)
+                          .add("maxTokens", maxTokens)
+                          .add("availableTokens", availableTokens())
+                          .toString();
+    }
+}
@@ -32,6 +32,7 @@ import com.linecorp.armeria.client.ClosedClientFactoryException;
 import com.linecorp.armeria.client.SimpleDecoratingClient;
 import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.Response;
+import com.linecorp.armeria.common.logging.RequestLog;
 import com.linecorp.armeria.common.util.SafeCloseable;
 
 import io.netty.util.AttributeKey;
@@ -54,12 +55,26 @@ public abstract class RetryingClient<I extends Request, O extends Response>
     private final RetryStrategy<I, O> retryStrategy;
     private final int maxTotalAttempts;
     private final long responseTimeoutMillisForEachAttempt;
+    @Nullable
+    private final RetryBudget retryBudget;
 
     /**
      * Creates a new instance that decorates the specified {@link Client}.
      */
     protected RetryingClient(Client<I, O> delegate, RetryStrategy<I, O> retryStrategy,
                              int maxTotalAttempts, long responseTimeoutMillisForEachAttempt) {
+        this(delegate, retryStrategy, maxTotalAttempts, responseTimeoutMillisForEachAttempt, null);
+    }
+
+    /**
+     * Creates a new instance that decorates the specified {@link Client}.
+     *
+     * @param retryBudget the {@link RetryBudget} which limits the number of retries, or {@code null} to
+     *                    retry every request up to {@code maxTotalAttempts}
+     */
+    protected RetryingClient(Client<I, O> delegate, RetryStrategy<I, O> retryStrategy,
+                             int maxTotalAttempts, long responseTimeoutMillisForEachAttempt,
+                             @Nullable RetryBudget retryBudget) {
         super(delegate);
         this.retryStrategy = requireNonNull(retryStrategy, "retryStrategy");
         checkArgument(maxTotalAttempts > 0, "maxTotalAttempts: %s (expected: > 0)", maxTotalAttempts);
@@ -69,6 +84,7 @@ public abstract class RetryingClient<I extends Request, O extends Response>
                       "responseTimeoutMillisForEachAttempt: %s (expected: >= 0)",
                       responseTimeoutMillisForEachAttempt);
         this.responseTimeoutMillisForEachAttempt = responseTimeoutMillisForEachAttempt;
+        this.retryBudget = retryBudget;
     }
 
     @Override
@@ -76,6 +92,9 @@ public abstract class RetryingClient<I extends Request, O extends Response>
         final State state =
                 new State(maxTotalAttempts, responseTimeoutMillisForEachAttempt, ctx.responseTimeoutMillis());
         ctx.attr(STATE).set(state);
+        if (retryBudget != null) {
+            retryBudget.deposit();
+        }
         return doExecute(ctx, req);
     }
 
@@ -103,6 +122,14 @@ public abstract class RetryingClient<I extends Request, O extends Response>
         ctx.logBuilder().endResponseWithLastChild();
     }
 
+    /**
+     * This should be called when retrying is finished with the response of the attempt whose
+     * {@link RequestLog} is the specified one, which is not necessarily the last attempt.
+     */
+    static void onRetryingComplete(ClientRequestContext ctx, RequestLog attemptLog) {
+        ctx.logBuilder().endResponseWithChild(attemptLog);
+    }
+
     protected RetryStrategy<I, O> retryStrategy() {
         return retryStrategy;
     }
@@ -195,9 +222,32 @@ public abstract class RetryingClient<I extends Request, O extends Response>
             return -1;
         }
 
+        if (retryBudget != null && !retryBudget.tryWithdraw()) {
+            logger.debug("Exceeded the retry budget: {}", retryBudget);
+            return -1;
+        }
+
         return nextDelay;
     }
 
+    /**
+     * Reserves an attempt which is made while the previous attempt is still in progress.
+     *
+     * @return {@code true} if the attempt has been reserved. {@code false} if the number of attempts
+     *         exceeds {@code maxTotalAttempts} or the {@link RetryBudget} is exhausted.
+     */
+    final boolean tryReserveConcurrentAttempt(ClientRequestContext ctx) {
+        final State state = ctx.attr(STATE).get();
+        if (!state.tryIncreaseAttemptNo()) {
+            return false;
+        }
+        if (retryBudget != null && !retryBudget.tryWithdraw()) {
+            logger.debug("Exceeded the retry budget: {}", retryBudget);
+            return false;
+        }
+        return true;
+    }
+
     private static class State {
 
         private final int maxTotalAttempts;
@@ -257,6 +307,14 @@ public abstract class RetryingClient<I extends Request, O extends Response>
             return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
         }
 
+        boolean tryIncreaseAttemptNo() {
+            if (totalAttemptNo >= maxTotalAttempts) {
+                return false;
+            }
+            totalAttemptNo++;
+            return true;
+        }
+
         int currentAttemptNoWith(Backoff backoff) {
             if (totalAttemptNo++ >= maxTotalAttempts) {
                 return -1;
@@ -22,6 +22,8 @@ import static java.util.Objects.requireNonNull;
 import java.time.Duration;
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.MoreObjects;
 import com.google.common.base.MoreObjects.ToStringHelper;
 
@@ -45,6 +47,8 @@ public abstract class RetryingClientBuilder<
     final RetryStrategy<I, O> retryStrategy;
     int maxTotalAttempts = Flags.defaultMaxTotalAttempts();
     long responseTimeoutMillisForEachAttempt = Flags.defaultResponseTimeoutMillis();
+    @Nullable
+    RetryBudget retryBudget;
 
     /**
      * Creates a new builder with the specified retry strategy.
@@ -106,6 +110,19 @@ public abstract class RetryingClientBuilder<
         return responseTimeoutMillisForEachAttempt(responseTimeoutForEachAttempt.toMillis());
     }
 
+    /**
+     * Sets the {@link RetryBudget} which limits the number of retries relative to the number of requests.
+     * Share the same {@link RetryBudget} between the clients which send requests to the same upstream,
+     * so that they do not multiply the load on the upstream when it is failing. If unspecified, every
+     * request is retried up to {@link #maxTotalAttempts(int)}.
+     *
+     * @return {@link T} to support method chaining.
+     */
+    public T retryBudget(RetryBudget retryBudget) {
+        this.retryBudget = requireNonNull(retryBudget, "retryBudget");
+        return self();
+    }
+
     /**
      * Returns a newly-created {@link RetryingClient} based on the properties of this builder.
      */
@@ -126,6 +143,7 @@ public abstract class RetryingClientBuilder<
         return MoreObjects.toStringHelper(this)
                           .add("retryStrategy", retryStrategy)
                           .add("maxTotalAttempts", maxTotalAttempts)
-                          .add("responseTimeoutMillisForEachAttempt", responseTimeoutMillisForEachAttempt);
+                          .add("responseTimeoutMillisForEachAttempt", responseTimeoutMillisForEachAttempt)
+                          .add("retryBudget", retryBudget);
     }
 }
@@ -19,7 +19,11 @@ package com.linecorp.armeria.client.retry;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -41,6 +45,7 @@ import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpRequestDuplicator;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpResponseDuplicator;
+import com.linecorp.armeria.common.logging.RequestLog;
 import com.linecorp.armeria.common.stream.AbortedStreamException;
 import com.linecorp.armeria.internal.HttpHeaderSubscriber;
 
@@ -55,6 +60,11 @@ public final class RetryingHttpClient extends RetryingClient<HttpRequest, HttpRe
 
     private final int contentPreviewLength;
 
+    private final long minHedgingDelayMillis;
+
+    @Nullable
+    private final LatencyQuantileEstimator hedgingDelayEstimator;
+
     /**
      * Creates a new {@link Client} decorator that handles failures of an invocation and retries HTTP requests.
      *
@@ -99,12 +109,23 @@ public final class RetryingHttpClient extends RetryingClient<HttpRequest, HttpRe
     RetryingHttpClient(Client<HttpRequest, HttpResponse> delegate,
                        RetryStrategy<HttpRequest, HttpResponse> strategy, int totalMaxAttempts,
                        long responseTimeoutMillisForEachAttempt, boolean useRetryAfter,
-                       int contentPreviewLength) {
-        super(delegate, strategy, totalMaxAttempts, responseTimeoutMillisForEachAttempt);
+                       int contentPreviewLength, @Nullable RetryBudget retryBudget,
+                       double hedgingQuantile, long minHedgingDelayMillis) {
+        super(delegate, strategy, totalMaxAttempts, responseTimeoutMillisForEachAttempt, retryBudget);
         this.useRetryAfter = useRetryAfter;
         checkArgument(contentPreviewLength >= 0,
                       "contentPreviewLength: %s (expected: >= 0)", contentPreviewLength);
         this.contentPreviewLength = contentPreviewLength;
+        checkArgument(hedgingQuantile >= 0 && hedgingQuantile < 1,
+                      "hedgingQuantile: %s (expected: >= 0 and < 1)", hedgingQuantile);
+        checkArgument(minHedgingDelayMillis >= 0,
+                      "minHedgingDelayMillis: %s (expected: >= 0)", minHedgingDelayMillis);
+        this.minHedgingDelayMillis = minHedgingDelayMillis;
+        if (hedgingQuantile > 0) {
+            hedgingDelayEstimator = new LatencyQuantileEstimator(hedgingQuantile, minHedgingDelayMillis);
+        } else {
+            hedgingDelayEstimator = null;
+        }
     }
 
     @Override
@@ -112,13 +133,13 @@ public final class RetryingHttpClient extends RetryingClient<HttpRequest, HttpRe
         final CompletableFuture<HttpResponse> responseFuture = new CompletableFuture<>();
         final HttpResponse res = HttpResponse.from(responseFuture);
         final HttpRequestDuplicator reqDuplicator = new HttpRequestDuplicator(req, 0, ctx.eventLoop());
-        doExecute0(ctx, reqDuplicator, req, res, responseFuture);
+        doExecute0(ctx, reqDuplicator, req, res, responseFuture, hedgingDelayEstimator != null);
         return res;
     }
 
     private void doExecute0(ClientRequestContext ctx, HttpRequestDuplicator rootReqDuplicator,
                             HttpRequest originalReq, HttpResponse returnedRes,
-                            CompletableFuture<HttpResponse> future) {
+                            CompletableFuture<HttpResponse> future, boolean hedge) {
         if (originalReq.completionFuture().isCompletedExceptionally() || returnedRes.isComplete()) {
             // The request or response has been aborted by the client before it receives a response,
             // so stop retrying.
@@ -131,42 +152,62 @@ public final class RetryingHttpClient extends RetryingClient<HttpRequest, HttpRe
             return;
         }
 
-        HttpResponse response;
-        try {
-            response = executeDelegate(ctx, rootReqDuplicator.duplicateStream());
-        } catch (Exception e) {
-            response = HttpResponse.ofFailure(e);
+        if (hedge) {
+            new HedgedAttempts(ctx, rootReqDuplicator, originalReq, returnedRes, future).start();
+            return;
         }
 
         final HttpResponseDuplicator resDuplicator =
-                new HttpResponseDuplicator(response, maxSignalLength(ctx.maxResponseLength()), ctx.eventLoop());
+                newResponseDuplicator(ctx, executeAttempt(ctx, rootReqDuplicator));
         retryStrategy().shouldRetry(rootReqDuplicator.duplicateStream(), contentPreviewResponse(resDuplicator))
-                       .whenComplete((backoff, unused) -> {
-                           if (backoff != null) {
-                               final long millisAfter;
-                               if (useRetryAfter) {
-                                   millisAfter = getRetryAfterMillis(contentPreviewResponse(resDuplicator));
-                               } else {
-                                   millisAfter = -1;
-                               }
-
-                               final long nextDelay = getNextDelay(ctx, backoff, millisAfter);
-                               if (nextDelay < 0) {
-                                   finishRetryWithCurrentResponse(
-                                           ctx, rootReqDuplicator, future, resDuplicator);
-                                   return;
-                               }
-
-                               resDuplicator.close();
-                               scheduleNextRetry(
-                                       ctx, cause -> handleException(ctx, rootReqDuplicator, future, cause),
-                                       () -> doExecute0(ctx, rootReqDuplicator, originalReq,
-                                                        returnedRes, future),
-                                       nextDelay);
-                           } else {
-                               finishRetryWithCurrentResponse(ctx, rootReqDuplicator, future, resDuplicator);
-                           }
-                       });
+                       .whenComplete((backoff, unused) -> onRetryDecision(
+                               ctx, rootReqDuplicator, originalReq, returnedRes, future,
+                               resDuplicator, backoff, null));
+    }
+
+    private HttpResponse executeAttempt(ClientRequestContext ctx, HttpRequestDuplicator rootReqDuplicator) {
+        try {
+            return executeDelegate(ctx, rootReqDuplicator.duplicateStream());
+        } catch (Exception e) {
+            return HttpResponse.ofFailure(e);
+        }
+    }
+
+    private static HttpResponseDuplicator newResponseDuplicator(ClientRequestContext ctx, HttpResponse res) {
+        return new HttpResponseDuplicator(res, maxSignalLength(ctx.maxResponseLength()), ctx.eventLoop());
+    }
+
+    /**
+     * Retries or finishes retrying with the response of an attempt.
+     *
+     * @param attemptLog the {@link RequestLog} of the attempt, or {@code null} if it is the last attempt
+     */
+    private void onRetryDecision(ClientRequestContext ctx, HttpRequestDuplicator rootReqDuplicator,
+                                 HttpRequest originalReq, HttpResponse returnedRes,
+                                 CompletableFuture<HttpResponse> future, HttpResponseDuplicator resDuplicator,
+                                 @Nullable Backoff backoff, @Nullable RequestLog attemptLog) {
+        if (backoff != null) {
+            final long millisAfter;
+            if (useRetryAfter) {
+                millisAfter = getRetryAfterMillis(contentPreviewResponse(resDuplicator));
+            } else {
+                millisAfter = -1;
+            }
+
+            final long nextDelay = getNextDelay(ctx, backoff, millisAfter);
+            if (nextDelay < 0) {
+                finishRetryWithCurrentResponse(ctx, rootReqDuplicator, future, resDuplicator, attemptLog);
+                return;
+            }
+
+            resDuplicator.close();
+            scheduleNextRetry(
+                    ctx, cause -> handleException(ctx, rootReqDuplicator, future, cause),
+                    () -> doExecute0(ctx, rootReqDuplicator, originalReq, returnedRes, future, false),
+                    nextDelay);
+        } else {
+            finishRetryWithCurrentResponse(ctx, rootReqDuplicator, future, resDuplicator, attemptLog);
+        }
     }
 
     private static void handleException(ClientRequestContext ctx, HttpRequestDuplicator rootReqDuplicator,
@@ -221,12 +262,180 @@ public final class RetryingHttpClient extends RetryingClient<HttpRequest, HttpRe
     private static void finishRetryWithCurrentResponse(ClientRequestContext ctx,
                                                        HttpRequestDuplicator rootReqDuplicator,
                                                        CompletableFuture<HttpResponse> res,
-                                                       HttpResponseDuplicator resDuplicator) {
-        onRetryingComplete(ctx);
+                                                       HttpResponseDuplicator resDuplicator,
+                                                       @Nullable RequestLog attemptLog) {
+        if (attemptLog != null) {
+            onRetryingComplete(ctx, attemptLog);
+        } else {
+            onRetryingComplete(ctx);
+        }
         res.complete(resDuplicator.duplicateStream(true));
         rootReqDuplicator.close();
     }
 
+    /**
+     * The first attempt of a request and the hedged attempt which is sent when the first attempt does not
+     * finish within the hedging delay. The attempt which finishes first without needing a retry wins and
+     * the other is cancelled. If every attempt needs a retry, the one which finishes last is retried
+     * as usual.
+     */
+    private final class HedgedAttempts {
+
+        private final ClientRequestContext ctx;
+        private final HttpRequestDuplicator rootReqDuplicator;
+        private final HttpRequest originalReq;
+        private final HttpResponse returnedRes;
+        private final CompletableFuture<HttpResponse> future;
+
+        // Guarded by 'this'. An attempt is counted in 'numPendingAttempts' before it is started, so that
+        // the other attempt waits for its decision rather than retrying. The delegate is never invoked while
+        // holding the lock; an attempt which is started after the winner is chosen is aborted immediately.
+        private final List<Attempt> attempts = new ArrayList<>(2);
+        private int numPendingAttempts;
+        private boolean done;
+        @Nullable
+        private ScheduledFuture<?> hedgingFuture;
+
+        HedgedAttempts(ClientRequestContext ctx, HttpRequestDuplicator rootReqDuplicator,
+                       HttpRequest originalReq, HttpResponse returnedRes,
+                       CompletableFuture<HttpResponse> future) {
+            this.ctx = ctx;
+            this.rootReqDuplicator = rootReqDuplicator;
+            this.originalReq = originalReq;
+            this.returnedRes = returnedRes;
+            this.future = future;
+        }
+
+        void start() {
+            assert hedgingDelayEstimator != null;
+            final long delayMillis = Math.max(minHedgingDelayMillis, hedgingDelayEstimator.estimate());
+            startAttempt();
+            synchronized (this) {
+                if (!done) {
+                    hedgingFuture = ctx.contextAwareEventLoop().schedule(this::hedge, delayMillis,
+                                                                        TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+            }
+            if (originalReq.completionFuture().isCompletedExceptionally() || returnedRes.isComplete()) {
+                return;
+            }
+            if (!tryReserveConcurrentAttempt(ctx) || !setResponseTimeout(ctx)) {
+                return;
+            }
+            startAttempt();
+        }
+
+        private void startAttempt() {
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                numPendingAttempts++;
+            }
+
+            final long startTimeNanos = System.nanoTime();
+            final int attemptIndex = ctx.log().children().size();
+            final HttpResponse res = executeAttempt(ctx, rootReqDuplicator);
+            final List<RequestLog> children = ctx.log().children();
+            final Attempt attempt = new Attempt(res, newResponseDuplicator(ctx, res),
+                                                children.size() > attemptIndex ? children.get(attemptIndex)
+                                                                               : null,
+                                                startTimeNanos);
+            synchronized (this) {
+                if (done) {
+                    // The other attempt won while this attempt was being started.
+                    numPendingAttempts--;
+                    res.abort();
+                    attempt.resDuplicator.close();
+                    return;
+                }
+                attempts.add(attempt);
+            }
+
+            retryStrategy().shouldRetry(rootReqDuplicator.duplicateStream(),
+                                        contentPreviewResponse(attempt.resDuplicator))
+                           .whenComplete((backoff, unused) -> onDecision(attempt, backoff));
+        }
+
+        private void onDecision(Attempt attempt, @Nullable Backoff backoff) {
+            final ScheduledFuture<?> hedgingFuture;
+            final List<Attempt> losers;
+            final Attempt firstAttempt;
+            synchronized (this) {
+                numPendingAttempts--;
+                if (done || backoff != null && numPendingAttempts > 0) {
+                    // Cancelled by the winner, or needs a retry while the other attempt is in progress.
+                    attempt.resDuplicator.close();
+                    return;
+                }
+
+                done = true;
+                hedgingFuture = this.hedgingFuture;
+                firstAttempt = attempts.get(0);
+                losers = new ArrayList<>(attempts);
+                losers.remove(attempt);
+            }
+
+            if (hedgingFuture != null) {
+                hedgingFuture.cancel(false);
+            }
+            for (Attempt loser : losers) {
+                loser.res.abort();
+                loser.resDuplicator.close();
+            }
+
+            if (backoff == null) {
+                recordLatencies(firstAttempt, losers);
+            }
+            onRetryDecision(ctx, rootReqDuplicator, originalReq, returnedRes, future,
+                            attempt.resDuplicator, backoff, attempt.log);
+        }
+
+        /**
+         * Records the latency of the request from the start of the first attempt, rather than the latency
+         * of the winner, so that a slow first attempt which lost to a hedged attempt is accounted. The time
+         * a cancelled hedged attempt has been in flight is also recorded as a lower bound of its latency.
+         * Otherwise, only the fast attempts would be recorded and the hedging delay would keep decreasing.
+         */
+        private void recordLatencies(Attempt firstAttempt, List<Attempt> losers) {
+            assert hedgingDelayEstimator != null;
+            final long currentTimeNanos = System.nanoTime();
+            hedgingDelayEstimator.record(
+                    TimeUnit.NANOSECONDS.toMillis(currentTimeNanos - firstAttempt.startTimeNanos));
+            for (Attempt loser : losers) {
+                if (loser != firstAttempt) {
+                    hedgingDelayEstimator.record(
+                            TimeUnit.NANOSECONDS.toMillis(currentTimeNanos - loser.startTimeNanos));
+                }
+            }
+        }
+    }
+
+    private static final class Attempt {
+
+        final HttpResponse res;
+        final HttpResponseDuplicator resDuplicator;
+        @Nullable
+        final RequestLog log;
+        final long startTimeNanos;
+
+        Attempt(HttpResponse res, HttpResponseDuplicator resDuplicator, @Nullable RequestLog log,
+                long startTimeNanos) {
+            this.res = res;
+            this.resDuplicator = resDuplicator;
+            this.log = log;
+            this.startTimeNanos = startTimeNanos;
+        }
+    }
+
     private static class ContentPreviewResponse extends FilteredHttpResponse {
 
         private final int contentPreviewLength;
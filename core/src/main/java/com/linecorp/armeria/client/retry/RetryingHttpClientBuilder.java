@@ -17,7 +17,9 @@
 package com.linecorp.armeria.client.retry;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
 
+import java.time.Duration;
 import java.util.function.Function;
 
 import com.linecorp.armeria.client.Client;
@@ -32,10 +34,16 @@ public class RetryingHttpClientBuilder extends RetryingClientBuilder<
 
     private static final int DEFAULT_CONTENT_PREVIEW_LENGTH = 0; // no preview (0 byte)
 
+    private static final long DEFAULT_MIN_HEDGING_DELAY_MILLIS = 100;
+
     private boolean useRetryAfter;
 
     private int contentPreviewLength = DEFAULT_CONTENT_PREVIEW_LENGTH;
 
+    private double hedgingQuantile; // 0 disables hedging.
+
+    private long minHedgingDelayMillis = DEFAULT_MIN_HEDGING_DELAY_MILLIS;
+
     /**
      * Creates a new builder with the specified retry strategy.
      */
@@ -73,13 +81,62 @@ public class RetryingHttpClientBuilder extends RetryingClientBuilder<
         return self();
     }
 
+    /**
+     * Enables hedging, which sends a duplicate of the request when the first attempt does not finish
+     * within the specified quantile of the latencies of the recent successful attempts, e.g. {@code 0.95}
+     * to hedge the slowest 5% of the requests. The response of the attempt which finishes first without
+     * needing a retry is used and the other attempt is cancelled. A hedged attempt counts as an attempt
+     * in {@link #maxTotalAttempts(int)} and withdraws a token from the {@link #retryBudget(RetryBudget)}.
+     * The request content is buffered only once for all attempts.
+     *
+     * <p>Note that hedging sends the same request more than once concurrently, so it should be enabled
+     * only for idempotent requests.
+     *
+     * @param hedgingQuantile the quantile of the recent latencies to wait for before hedging
+     * @return {@link RetryingHttpClientBuilder} to support method chaining
+     */
+    public RetryingHttpClientBuilder hedgingQuantile(double hedgingQuantile) {
+        checkArgument(hedgingQuantile > 0 && hedgingQuantile < 1,
+                      "hedgingQuantile: %s (expected: > 0 and < 1)", hedgingQuantile);
+        this.hedgingQuantile = hedgingQuantile;
+        return self();
+    }
+
+    /**
+     * Sets the minimum delay before sending a hedged request in milliseconds, which is also used until
+     * enough latencies are collected to estimate the {@link #hedgingQuantile(double)}. If unspecified,
+     * {@value #DEFAULT_MIN_HEDGING_DELAY_MILLIS} milliseconds is used.
+     *
+     * @return {@link RetryingHttpClientBuilder} to support method chaining
+     */
+    public RetryingHttpClientBuilder minHedgingDelayMillis(long minHedgingDelayMillis) {
+        checkArgument(minHedgingDelayMillis >= 0,
+                      "minHedgingDelayMillis: %s (expected: >= 0)", minHedgingDelayMillis);
+        this.minHedgingDelayMillis = minHedgingDelayMillis;
+        return self();
+    }
+
+    /**
+     * Sets the minimum delay before sending a hedged request, which is also used until enough latencies
+     * are collected to estimate the {@link #hedgingQuantile(double)}. If unspecified,
+     * {@value #DEFAULT_MIN_HEDGING_DELAY_MILLIS} milliseconds is used.
+     *
+     * @return {@link RetryingHttpClientBuilder} to support method chaining
+     */
+    public RetryingHttpClientBuilder minHedgingDelay(Duration minHedgingDelay) {
+        checkArgument(!requireNonNull(minHedgingDelay, "minHedgingDelay").isNegative(),
+                      "minHedgingDelay: %s (expected: >= 0)", minHedgingDelay);
+        return minHedgingDelayMillis(minHedgingDelay.toMillis());
+    }
+
     /**
      * Returns a newly-created {@link RetryingHttpClient} based on the properties of this builder.
      */
     @Override
     public RetryingHttpClient build(Client<HttpRequest, HttpResponse> delegate) {
         return new RetryingHttpClient(delegate, retryStrategy, maxTotalAttempts,
-                                      responseTimeoutMillisForEachAttempt, useRetryAfter, contentPreviewLength);
+                                      responseTimeoutMillisForEachAttempt, useRetryAfter, contentPreviewLength,
+                                      retryBudget, hedgingQuantile, minHedgingDelayMillis);
     }
 
     /**
@@ -90,11 +147,14 @@ public class RetryingHttpClientBuilder extends RetryingClientBuilder<
     public Function<Client<HttpRequest, HttpResponse>, RetryingHttpClient> newDecorator() {
         return delegate -> new RetryingHttpClient(
                 delegate, retryStrategy, maxTotalAttempts, responseTimeoutMillisForEachAttempt,
-                useRetryAfter, contentPreviewLength);
+                useRetryAfter, contentPreviewLength, retryBudget, hedgingQuantile, minHedgingDelayMillis);
     }
 
     @Override
     public String toString() {
-        return toStringHelper().add("useRetryAfter", useRetryAfter).toString();
+        return toStringHelper().add("useRetryAfter", useRetryAfter)
+                               .add("hedgingQuantile", hedgingQuantile)
+                               .add("minHedgingDelayMillis", minHedgingDelayMillis)
+                               .toString();
     }
 }
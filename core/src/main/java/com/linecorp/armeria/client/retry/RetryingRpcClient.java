@@ -19,6 +19,8 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.client.Client;
 import com.linecorp.armeria.client.ClientRequestContext;
 import com.linecorp.armeria.client.ResponseTimeoutException;
@@ -74,8 +76,9 @@ public final class RetryingRpcClient extends RetryingClient<RpcRequest, RpcRespo
      */
     RetryingRpcClient(Client<RpcRequest, RpcResponse> delegate,
                       RetryStrategy<RpcRequest, RpcResponse> retryStrategy,
-                      int totalMaxAttempts, long responseTimeoutMillisForEachAttempt) {
-        super(delegate, retryStrategy, totalMaxAttempts, responseTimeoutMillisForEachAttempt);
+                      int totalMaxAttempts, long responseTimeoutMillisForEachAttempt,
+                      @Nullable RetryBudget retryBudget) {
+        super(delegate, retryStrategy, totalMaxAttempts, responseTimeoutMillisForEachAttempt, retryBudget);
     }
 
     @Override
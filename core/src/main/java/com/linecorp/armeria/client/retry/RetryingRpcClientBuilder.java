@@ -42,7 +42,7 @@ public class RetryingRpcClientBuilder
     @Override
     public RetryingRpcClient build(Client<RpcRequest, RpcResponse> delegate) {
         return new RetryingRpcClient(
-                delegate, retryStrategy, maxTotalAttempts, responseTimeoutMillisForEachAttempt);
+                delegate, retryStrategy, maxTotalAttempts, responseTimeoutMillisForEachAttempt, retryBudget);
     }
 
     /**
@@ -52,7 +52,7 @@ public class RetryingRpcClientBuilder
     @Override
     public Function<Client<RpcRequest, RpcResponse>, RetryingRpcClient> newDecorator() {
         return delegate ->
-                new RetryingRpcClient(
-                        delegate, retryStrategy, maxTotalAttempts, responseTimeoutMillisForEachAttempt);
+                new RetryingRpcClient(delegate, retryStrategy, maxTotalAttempts,
+                                      responseTimeoutMillisForEachAttempt, retryBudget);
     }
 }
@@ -40,7 +40,9 @@ import com.linecorp.armeria.client.retry.Backoff;
 import com.linecorp.armeria.client.retry.RetryingHttpClient;
 import com.linecorp.armeria.client.retry.RetryingRpcClient;
 import com.linecorp.armeria.common.util.Exceptions;
+import com.linecorp.armeria.server.PathMapping;
 import com.linecorp.armeria.server.PathMappingContext;
+import com.linecorp.armeria.server.PathMappingResult;
 import com.linecorp.armeria.server.ServiceConfig;
 
 import io.netty.channel.epoll.Epoll;
@@ -143,6 +145,24 @@ public final class Flags {
     private static final boolean DEFAULT_USE_HTTP2_PREFACE = getBoolean("defaultUseHttp2Preface", true);
     private static final boolean DEFAULT_USE_HTTP1_PIPELINING = getBoolean("defaultUseHttp1Pipelining", false);
 
+    private static final int DEFAULT_DEFAULT_MAX_HTTP1_PIPELINE_DEPTH = 16;
+    private static final int DEFAULT_MAX_HTTP1_PIPELINE_DEPTH =
+            getInt("defaultMaxHttp1PipelineDepth",
+                   DEFAULT_DEFAULT_MAX_HTTP1_PIPELINE_DEPTH,
+                   value -> value > 0);
+
+    private static final int DEFAULT_DEFAULT_MAX_NUM_CONNECTIONS_PER_POOL_KEY = Integer.MAX_VALUE;
+    private static final int DEFAULT_MAX_NUM_CONNECTIONS_PER_POOL_KEY =
+            getInt("defaultMaxNumConnectionsPerPoolKey",
+                   DEFAULT_DEFAULT_MAX_NUM_CONNECTIONS_PER_POOL_KEY,
+                   value -> value > 0);
+
+    private static final int DEFAULT_DEFAULT_MAX_NUM_PENDING_ACQUISITIONS_PER_POOL_KEY = 1024;
+    private static final int DEFAULT_MAX_NUM_PENDING_ACQUISITIONS_PER_POOL_KEY =
+            getInt("defaultMaxNumPendingAcquisitionsPerPoolKey",
+                   DEFAULT_DEFAULT_MAX_NUM_PENDING_ACQUISITIONS_PER_POOL_KEY,
+                   value -> value >= 0);
+
     private static final String DEFAULT_DEFAULT_BACKOFF_SPEC =
             "exponential=200:10000,jitter=0.2";
     private static final String DEFAULT_BACKOFF_SPEC =
@@ -166,6 +186,8 @@ public final class Flags {
     private static final Optional<String> ROUTE_CACHE_SPEC =
             caffeineSpec("routeCache", DEFAULT_ROUTE_CACHE_SPEC);
 
+    private static final boolean PARAMETERLESS_ROUTE_CACHE = getBoolean("parameterlessRouteCache", false);
+
     private static final String DEFAULT_COMPOSITE_SERVICE_CACHE_SPEC = "maximumSize=256";
     private static final Optional<String> COMPOSITE_SERVICE_CACHE_SPEC =
             caffeineSpec("compositeServiceCache", DEFAULT_COMPOSITE_SERVICE_CACHE_SPEC);
@@ -405,6 +427,43 @@ public final class Flags {
         return DEFAULT_USE_HTTP1_PIPELINING;
     }
 
+    /**
+     * Returns the default value of the {@link ClientFactoryBuilder#maxHttp1PipelineDepth(int)} option.
+     * Note that this value has effect only if a user did not specify it.
+     *
+     * <p>This default value of this flag is {@value #DEFAULT_DEFAULT_MAX_HTTP1_PIPELINE_DEPTH}.
+     * Specify the {@code -Dcom.linecorp.armeria.defaultMaxHttp1PipelineDepth=<integer>} JVM option
+     * to override the default value.
+     */
+    public static int defaultMaxHttp1PipelineDepth() {
+        return DEFAULT_MAX_HTTP1_PIPELINE_DEPTH;
+    }
+
+    /**
+     * Returns the default value of the {@link ClientFactoryBuilder#maxNumConnectionsPerPoolKey(int)} option.
+     * Note that this value has effect only if a user did not specify it.
+     *
+     * <p>This default value of this flag is {@value #DEFAULT_DEFAULT_MAX_NUM_CONNECTIONS_PER_POOL_KEY},
+     * i.e. unlimited. Specify the {@code -Dcom.linecorp.armeria.defaultMaxNumConnectionsPerPoolKey=<integer>}
+     * JVM option to override the default value.
+     */
+    public static int defaultMaxNumConnectionsPerPoolKey() {
+        return DEFAULT_MAX_NUM_CONNECTIONS_PER_POOL_KEY;
+    }
+
+    /**
+     * Returns the default value of the {@link ClientFactoryBuilder#maxNumPendingAcquisitionsPerPoolKey(int)}
+     * option. Note that this value has effect only if a user did not specify it.
+     *
+     * <p>This default value of this flag is
+     * {@value #DEFAULT_DEFAULT_MAX_NUM_PENDING_ACQUISITIONS_PER_POOL_KEY}. Specify the
+     * {@code -Dcom.linecorp.armeria.defaultMaxNumPendingAcquisitionsPerPoolKey=<integer>} JVM option
+     * to override the default value.
+     */
+    public static int defaultMaxNumPendingAcquisitionsPerPoolKey() {
+        return DEFAULT_MAX_NUM_PENDING_ACQUISITIONS_PER_POOL_KEY;
+    }
+
     /**
      * Returns the default value of the {@code backoffSpec} parameter when instantiating a {@link Backoff}
      * using {@link Backoff#of(String)}. Note that this value has effect only if a user did not specify the
@@ -443,6 +502,21 @@ public final class Flags {
         return ROUTE_CACHE_SPEC;
     }
 
+    /**
+     * Returns whether the route cache specified by {@link #routeCacheSpec()} caches only the requests
+     * routed to an exact {@link PathMapping}, which has no path variables. In this mode, the
+     * {@link PathMappingResult} of a request is reused on a cache hit instead of being computed again,
+     * and the requests which were not routed to any service are also cached in a separate small cache,
+     * so that repeated {@code 404 Not Found} requests do not search the routing table again without
+     * evicting the routes of the existing services.
+     *
+     * <p>This flag is disabled by default. Specify the
+     * {@code -Dcom.linecorp.armeria.parameterlessRouteCache=true} JVM option to enable it.
+     */
+    public static boolean parameterlessRouteCache() {
+        return PARAMETERLESS_ROUTE_CACHE;
+    }
+
     /**
      * Returns the value of the {@code parsedPathCache} parameter. It would be used to create a Caffeine
      * {@link Cache} instance using {@link Caffeine#from(String)} mapping raw HTTP paths to parsed pair of
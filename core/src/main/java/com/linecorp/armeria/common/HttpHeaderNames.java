@@ -415,9 +415,11 @@ public final class HttpHeaderNames {
     public static final AsciiString X_FRAME_OPTIONS = AsciiString.cached("x-frame-options");
 
     private static final Map<String, AsciiString> map;
+    private static final Map<AsciiString, AsciiString> asciiMap;
 
     static {
         final ImmutableMap.Builder<String, AsciiString> builder = ImmutableMap.builder();
+        final ImmutableMap.Builder<AsciiString, AsciiString> asciiBuilder = ImmutableMap.builder();
         for (Field f : HttpHeaderNames.class.getDeclaredFields()) {
             final int m = f.getModifiers();
             if (Modifier.isPublic(m) && Modifier.isStatic(m) && Modifier.isFinal(m) &&
@@ -429,9 +431,11 @@ public final class HttpHeaderNames {
                     throw new Error(e);
                 }
                 builder.put(name.toString(), name);
+                asciiBuilder.put(name, name);
             }
         }
         map = builder.build();
+        asciiMap = asciiBuilder.build();
     }
 
     /**
@@ -445,5 +449,16 @@ public final class HttpHeaderNames {
         return asciiName != null ? asciiName : AsciiString.cached(name);
     }
 
+    /**
+     * Lower-cases the specified header name. If {@code name} is a known header name, this method will
+     * return a pre-instantiated {@link AsciiString} so that the header name can be compared by identity
+     * and the specified {@code name} does not need to be retained.
+     */
+    public static AsciiString of(AsciiString name) {
+        final AsciiString lowerCased = requireNonNull(name, "name").toLowerCase();
+        final AsciiString asciiName = asciiMap.get(lowerCased);
+        return asciiName != null ? asciiName : lowerCased;
+    }
+
     private HttpHeaderNames() {}
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.limit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import javax.annotation.Nullable;
+
+/**
+ * A skeletal builder of an {@link AdaptiveLimit}.
+ *
+ * @param <B> the type of this builder
+ *
+ * @see VegasLimitBuilder
+ * @see GradientLimitBuilder
+ */
+public abstract class AbstractAdaptiveLimitBuilder<B extends AbstractAdaptiveLimitBuilder<B>> {
+
+    private static final int DEFAULT_INITIAL_LIMIT = 20;
+    private static final int DEFAULT_MIN_LIMIT = 1;
+    private static final int DEFAULT_MAX_LIMIT = 1000;
+
+    @Nullable
+    private String name;
+    private int initialLimit = DEFAULT_INITIAL_LIMIT;
+    private int minLimit = DEFAULT_MIN_LIMIT;
+    private int maxLimit = DEFAULT_MAX_LIMIT;
+
+    AbstractAdaptiveLimitBuilder() {}
+
+    @SuppressWarnings("unchecked")
+    final B self() {
+        return (B) this;
+    }
+
+    /**
+     * Sets the name of the {@link AdaptiveLimit}, which is used as a meter tag.
+     */
+    public B name(String name) {
+        this.name = requireNonNull(name, "name");
+        return self();
+    }
+
+    /**
+     * Sets the limit used until enough samples are collected.
+     * The default value is {@value #DEFAULT_INITIAL_LIMIT}.
+     */
+    public B initialLimit(int initialLimit) {
+        checkArgument(initialLimit > 0, "initialLimit: %s (expected: > 0)", initialLimit);
+        this.initialLimit = initialLimit;
+        return self();
+    }
+
+    /**
+     * Sets the lower bound of the limit. The default value is {@value #DEFAULT_MIN_LIMIT}.
+     */
+    public B minLimit(int minLimit) {
+        checkArgument(minLimit > 0, "minLimit: %s (expected: > 0)", minLimit);
+        this.minLimit = minLimit;
+        return self();
+    }
+
+    /**
+     * Sets the upper bound of the limit. The default value is {@value #DEFAULT_MAX_LIMIT}.
+     */
+    public B maxLimit(int maxLimit) {
+        checkArgument(maxLimit > 0, "maxLimit: %s (expected: > 0)", maxLimit);
+        this.maxLimit = maxLimit;
+        return self();
+    }
+
+    /**
+     * Returns a newly-created {@link AdaptiveLimit} based on the properties of this builder.
+     */
+    public abstract AdaptiveLimit build();
+
+    final void validateLimits() {
+        checkArgument(minLimit <= maxLimit,
+                      "minLimit: %s, maxLimit: %s (expected: minLimit <= maxLimit)", minLimit, maxLimit);
+        checkArgument(initialLimit >= minLimit && initialLimit <= maxLimit,
+                      "initialLimit: %s (expected: >= %s and <= %s)", initialLimit, minLimit, maxLimit);
+    }
+
+    @Nullable
+    final String name() {
+        return name;
+    }
+
+    final int initialLimit() {
+        return initialLimit;
+    }
+
+    final int minLimit() {
+        return minLimit;
+    }
+
+    final int maxLimit() {
+        return maxLimit;
+    }
+}
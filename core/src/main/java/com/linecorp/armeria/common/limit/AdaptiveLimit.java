@@ -0,0 +1,216 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.limit;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * A concurrency limit which adapts itself to the round-trip time of the requests, so that the number of
+ * concurrent requests stays close to what the upstream can handle without queueing. Feed the round-trip time
+ * of every completed request via {@link #onSample(long, int, boolean)} and read the current value via
+ * {@link #limit()}.
+ *
+ * <p>An {@link AdaptiveLimit} also keeps track of the requests in flight. A request must acquire a permit via
+ * {@link #tryAcquire()} before it is sent and return it via {@link #release()} when it is complete, so that
+ * all the components sharing an {@link AdaptiveLimit} are limited together. A component which queues the
+ * requests exceeding the limit may wait for a permit via {@link #awaitPermit(Runnable)}.
+ *
+ * <p>An {@link AdaptiveLimit} is thread-safe. Use one instance per upstream, because the round-trip time of
+ * one upstream says nothing about another.
+ *
+ * @see #vegas()
+ * @see #gradient()
+ */
+public abstract class AdaptiveLimit {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveLimit.class);
+
+    private static final AtomicInteger GLOBAL_LIMIT_ID = new AtomicInteger();
+
+    /**
+     * Returns a new {@link VegasLimitBuilder} which builds an {@link AdaptiveLimit} based on the congestion
+     * avoidance algorithm of TCP Vegas.
+     */
+    public static VegasLimitBuilder vegas() {
+        return new VegasLimitBuilder();
+    }
+
+    /**
+     * Returns a new {@link GradientLimitBuilder} which builds an {@link AdaptiveLimit} that follows the
+     * gradient between the long-term and the current round-trip time.
+     */
+    public static GradientLimitBuilder gradient() {
+        return new GradientLimitBuilder();
+    }
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile int limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final Queue<Runnable> waiters = new ConcurrentLinkedQueue<>();
+
+    AdaptiveLimit(@Nullable String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name != null ? name : "adaptive-limit-" + GLOBAL_LIMIT_ID.getAndIncrement();
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        limit = initialLimit;
+    }
+
+    /**
+     * Returns the name of this {@link AdaptiveLimit}.
+     */
+    public final String name() {
+        return name;
+    }
+
+    /**
+     * Returns the current maximum number of concurrent requests.
+     */
+    public final int limit() {
+        return limit;
+    }
+
+    /**
+     * Returns the lower bound of {@link #limit()}.
+     */
+    public final int minLimit() {
+        return minLimit;
+    }
+
+    /**
+     * Returns the upper bound of {@link #limit()}.
+     */
+    public final int maxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Returns the number of the requests which hold a permit acquired via {@link #tryAcquire()}.
+     */
+    public final int inflight() {
+        return inflight.get();
+    }
+
+    /**
+     * Acquires a permit if {@link #inflight()} is less than {@link #limit()}. The permit must be returned
+     * via {@link #release()} when the request is complete.
+     *
+     * @return {@code true} if a permit was acquired
+     */
+    public final boolean tryAcquire() {
+        for (;;) {
+            final int inflight = this.inflight.get();
+            if (inflight >= limit) {
+                return false;
+            }
+            if (this.inflight.compareAndSet(inflight, inflight + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a permit acquired via {@link #tryAcquire()} and notifies the waiters registered via
+     * {@link #awaitPermit(Runnable)}.
+     */
+    public final void release() {
+        inflight.decrementAndGet();
+        notifyWaiters();
+    }
+
+    /**
+     * Invokes the specified {@link Runnable} once when a permit might be available, i.e. when a permit is
+     * released or {@link #limit()} increases. The {@link Runnable} is invoked immediately if a permit is
+     * available already. Note that another request may take the permit before the {@link Runnable} tries to
+     * acquire it, in which case the {@link Runnable} has to wait again.
+     */
+    public final void awaitPermit(Runnable waiter) {
+        waiters.add(requireNonNull(waiter, "waiter"));
+        // A permit might have been released before the waiter was added.
+        notifyWaiters();
+    }
+
+    private void notifyWaiters() {
+        while (inflight.get() < limit) {
+            final Runnable waiter = waiters.poll();
+            if (waiter == null) {
+                break;
+            }
+            try {
+                waiter.run();
+            } catch (Throwable t) {
+                logger.warn("Unexpected exception from a waiter of {}:", this, t);
+            }
+        }
+    }
+
+    /**
+     * Updates {@link #limit()} with the result of a completed request.
+     *
+     * @param rttNanos the round-trip time of the request, excluding the time it spent waiting for the limit
+     * @param inflight the number of requests which were in flight when the request was sent
+     * @param dropped whether the request was dropped or timed out, which indicates overload regardless of
+     *                its round-trip time
+     */
+    public final void onSample(long rttNanos, int inflight, boolean dropped) {
+        if (rttNanos <= 0 && !dropped) {
+            return;
+        }
+
+        final boolean increased;
+        synchronized (this) {
+            final int oldLimit = limit;
+            final int newLimit = update(oldLimit, rttNanos, inflight, dropped);
+            limit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+            increased = limit > oldLimit;
+        }
+
+        if (increased) {
+            notifyWaiters();
+        }
+    }
+
+    /**
+     * Returns the new limit calculated from the current one and the specified sample. Invoked while holding
+     * the lock of this {@link AdaptiveLimit}, so the implementation may keep mutable state without
+     * synchronization. The returned value is clamped between {@link #minLimit()} and {@link #maxLimit()}.
+     */
+    abstract int update(int limit, long rttNanos, int inflight, boolean dropped);
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("name", name)
+                          .add("limit", limit)
+                          .add("inflight", inflight)
+                          .add("minLimit", minLimit)
+                          .add("maxLimit", maxLimit)
+                          .toString();
+    }
+}
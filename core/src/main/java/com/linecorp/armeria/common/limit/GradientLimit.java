@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.limit;
+
+import javax.annotation.Nullable;
+
+/**
+ * An {@link AdaptiveLimit} which follows the gradient between the long-term average and the current
+ * round-trip time. The limit shrinks in proportion as the current round-trip time exceeds the long-term one
+ * by more than the tolerance, and grows by {@code sqrt(limit)} otherwise to leave room for a small queue.
+ */
+final class GradientLimit extends AdaptiveLimit {
+
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DROP_GRADIENT = 0.5;
+
+    private final double rttTolerance;
+    private final double smoothing;
+    private final int longWindow;
+
+    // Guarded by the lock of this limit.
+    private double estimatedLimit;
+    private double longRttNanos;
+    private int numSamples;
+
+    GradientLimit(@Nullable String name, int initialLimit, int minLimit, int maxLimit,
+                  double rttTolerance, double smoothing, int longWindow) {
+        super(name, initialLimit, minLimit, maxLimit);
+        this.rttTolerance = rttTolerance;
+        this.smoothing = smoothing;
+        this.longWindow = longWindow;
+        estimatedLimit = initialLimit;
+    }
+
+    @Override
+    int update(int limit, long rttNanos, int inflight, boolean dropped) {
+        final double gradient;
+        if (dropped) {
+            gradient = DROP_GRADIENT;
+        } else {
+            updateLongRtt(rttNanos);
+            if (inflight * 2 < estimatedLimit) {
+                // The limit is not being exercised, so the sample says nothing about whether it is too low.
+                return limit;
+            }
+            gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRttNanos / rttNanos));
+        }
+
+        final double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+        estimatedLimit = Math.max(minLimit(), Math.min(maxLimit(), estimatedLimit));
+        return (int) estimatedLimit;
+    }
+
+    private void updateLongRtt(long rttNanos) {
+        if (numSamples < longWindow) {
+            // Use the plain average until the window is filled,
+            // so that the first samples are not underweighted.
+            numSamples++;
+            longRttNanos += (rttNanos - longRttNanos) / numSamples;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) * 2 / (longWindow + 1);
+        }
+
+        if (longRttNanos / rttNanos > 2) {
+            // The latency improved a lot. Decay the long-term average faster than usual, or the limit would
+            // stay at its ceiling until the average catches up.
+            longRttNanos *= 0.95;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.limit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Builds a new {@link AdaptiveLimit} which follows the gradient between the long-term average and the
+ * current round-trip time.
+ * <h2>Example</h2>
+ * <pre>{@code
+ * AdaptiveLimit limit = AdaptiveLimit.gradient()
+ *                                    .rttTolerance(2.0)
+ *                                    .maxLimit(200)
+ *                                    .build();
+ * }</pre>
+ */
+public final class GradientLimitBuilder extends AbstractAdaptiveLimitBuilder<GradientLimitBuilder> {
+
+    private static final double DEFAULT_RTT_TOLERANCE = 1.5;
+    private static final double DEFAULT_SMOOTHING = 0.2;
+    private static final int DEFAULT_LONG_WINDOW = 600;
+
+    private double rttTolerance = DEFAULT_RTT_TOLERANCE;
+    private double smoothing = DEFAULT_SMOOTHING;
+    private int longWindow = DEFAULT_LONG_WINDOW;
+
+    GradientLimitBuilder() {}
+
+    /**
+     * Sets how many times the current round-trip time may be longer than the long-term average before
+     * the limit is reduced. The default value is {@value #DEFAULT_RTT_TOLERANCE}.
+     */
+    public GradientLimitBuilder rttTolerance(double rttTolerance) {
+        checkArgument(rttTolerance >= 1, "rttTolerance: %s (expected: >= 1)", rttTolerance);
+        this.rttTolerance = rttTolerance;
+        return this;
+    }
+
+    /**
+     * Sets the weight of a new estimate when it is blended into the current limit. A smaller value makes
+     * the limit move more slowly. The default value is {@value #DEFAULT_SMOOTHING}.
+     */
+    public GradientLimitBuilder smoothing(double smoothing) {
+        checkArgument(smoothing > 0 && smoothing <= 1, "smoothing: %s (expected: > 0 and <= 1)", smoothing);
+        this.smoothing = smoothing;
+        return this;
+    }
+
+    /**
+     * Sets the number of samples the long-term average round-trip time is calculated over.
+     * The default value is {@value #DEFAULT_LONG_WINDOW}.
+     */
+    public GradientLimitBuilder longWindow(int longWindow) {
+        checkArgument(longWindow > 0, "longWindow: %s (expected: > 0)", longWindow);
+        this.longWindow = longWindow;
+        return this;
+    }
+
+    @Override
+    public AdaptiveLimit build() {
+        validateLimits();
+        return new GradientLimit(name(), initialLimit(), minLimit(), maxLimit(),
+                                 rttTolerance, smoothing, longWindow);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).omitNullValues()
+                          .add("name", name())
+                          .add("initialLimit", initialLimit())
+                          .add("minLimit", minLimit())
+                          .add("maxLimit", maxLimit())
+                          .add("rttTolerance", rttTolerance)
+                          .add("smoothing", smoothing)
+                          .add("longWindow", longWindow)
+                          .toString();
+    }
+}
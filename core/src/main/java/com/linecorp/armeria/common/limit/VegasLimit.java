@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.limit;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.annotation.Nullable;
+
+/**
+ * An {@link AdaptiveLimit} based on the congestion avoidance algorithm of TCP Vegas. The minimum round-trip
+ * time observed so far is taken as the round-trip time without load, and the number of queued requests is
+ * estimated as {@code limit * (1 - rttNoLoad / rtt)}. The limit is increased while the estimated queue is
+ * short and decreased when it grows long.
+ *
+ * <p>The minimum round-trip time is re-measured every {@code probeMultiplier * limit} samples so that the
+ * limit follows the upstream when its baseline latency goes up.
+ */
+final class VegasLimit extends AdaptiveLimit {
+
+    private static final int ALPHA = 3;
+    private static final int BETA = 6;
+
+    private final double backoffRatio;
+    private final int probeMultiplier;
+
+    // Guarded by the lock of this limit.
+    private long rttNoLoadNanos;
+    private long probeCountdown;
+
+    VegasLimit(@Nullable String name, int initialLimit, int minLimit, int maxLimit,
+               double backoffRatio, int probeMultiplier) {
+        super(name, initialLimit, minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.probeMultiplier = probeMultiplier;
+        resetProbeCountdown(initialLimit);
+    }
+
+    @Override
+    int update(int limit, long rttNanos, int inflight, boolean dropped) {
+        if (dropped) {
+            return (int) (limit * backoffRatio);
+        }
+
+        if (--probeCountdown <= 0) {
+            // Forget the old minimum so that a higher baseline latency is picked up.
+            rttNoLoadNanos = rttNanos;
+            resetProbeCountdown(limit);
+            return limit;
+        }
+
+        if (rttNoLoadNanos == 0 || rttNanos < rttNoLoadNanos) {
+            rttNoLoadNanos = rttNanos;
+            return limit;
+        }
+
+        if (inflight * 2 < limit) {
+            // The limit is not being exercised, so the sample says nothing about whether it is too low.
+            return limit;
+        }
+
+        final int step = Math.max(1, (int) Math.log10(limit));
+        final double queueSize = Math.ceil(limit * (1 - (double) rttNoLoadNanos / rttNanos));
+        if (queueSize <= ALPHA * step) {
+            return limit + step;
+        }
+        if (queueSize > BETA * step) {
+            return limit - step;
+        }
+        return limit;
+    }
+
+    private void resetProbeCountdown(int limit) {
+        // Add some jitter so that the clients which started together do not probe at the same time.
+        final long probeInterval = (long) probeMultiplier * limit;
+        probeCountdown = probeInterval + ThreadLocalRandom.current().nextLong(probeInterval + 1);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.limit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Builds a new {@link AdaptiveLimit} based on the congestion avoidance algorithm of TCP Vegas.
+ * <h2>Example</h2>
+ * <pre>{@code
+ * AdaptiveLimit limit = AdaptiveLimit.vegas()
+ *                                    .initialLimit(10)
+ *                                    .maxLimit(200)
+ *                                    .build();
+ * }</pre>
+ */
+public final class VegasLimitBuilder extends AbstractAdaptiveLimitBuilder<VegasLimitBuilder> {
+
+    private static final double DEFAULT_BACKOFF_RATIO = 0.9;
+    private static final int DEFAULT_PROBE_MULTIPLIER = 30;
+
+    private double backoffRatio = DEFAULT_BACKOFF_RATIO;
+    private int probeMultiplier = DEFAULT_PROBE_MULTIPLIER;
+
+    VegasLimitBuilder() {}
+
+    /**
+     * Sets the ratio the limit is multiplied by when a request is dropped.
+     * The default value is {@value #DEFAULT_BACKOFF_RATIO}.
+     */
+    public VegasLimitBuilder backoffRatio(double backoffRatio) {
+        checkArgument(backoffRatio >= 0.5 && backoffRatio < 1,
+                      "backoffRatio: %s (expected: >= 0.5 and < 1)", backoffRatio);
+        this.backoffRatio = backoffRatio;
+        return this;
+    }
+
+    /**
+     * Sets how often the round-trip time without load is re-measured, in the multiples of the current
+     * limit. The default value is {@value #DEFAULT_PROBE_MULTIPLIER}.
+     */
+    public VegasLimitBuilder probeMultiplier(int probeMultiplier) {
+        checkArgument(probeMultiplier > 0, "probeMultiplier: %s (expected: > 0)", probeMultiplier);
+        this.probeMultiplier = probeMultiplier;
+        return this;
+    }
+
+    @Override
+    public AdaptiveLimit build() {
+        validateLimits();
+        return new VegasLimit(name(), initialLimit(), minLimit(), maxLimit(), backoffRatio, probeMultiplier);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).omitNullValues()
+                          .add("name", name())
+                          .add("initialLimit", initialLimit())
+                          .add("minLimit", minLimit())
+                          .add("maxLimit", maxLimit())
+                          .add("backoffRatio", backoffRatio)
+                          .add("probeMultiplier", probeMultiplier)
+                          .toString();
+    }
+}
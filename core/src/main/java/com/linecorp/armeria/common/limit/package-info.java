@@ -1,5 +1,5 @@
 /*
- * Copyright 2017 LINE Corporation
+ * Copyright 2018 LINE Corporation
  *
  * LINE Corporation licenses this file to you under the Apache License,
  * version 2.0 (the "License"); you may not use this file except in compliance
@@ -14,12 +14,10 @@
  * under the License.
  */
 
-package com.linecorp.armeria.server.encoding;
-
 /**
- * A type of HTTP encoding, which is usually included in accept-encoding and content-encoding headers.
+ * Concurrency limits which adapt themselves to the observed latency.
  */
-enum HttpEncodingType {
-    GZIP,
-    DEFLATE
-}
+@NonNullByDefault
+package com.linecorp.armeria.common.limit;
+
+import com.linecorp.armeria.common.util.NonNullByDefault;
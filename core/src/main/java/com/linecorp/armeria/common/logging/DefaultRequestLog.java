@@ -30,10 +30,11 @@ import static com.linecorp.armeria.common.logging.RequestLogAvailability.SCHEME;
 import static java.util.Objects.requireNonNull;
 
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
@@ -59,6 +60,35 @@ public class DefaultRequestLog implements RequestLog, RequestLogBuilder {
 
     private static final AtomicIntegerFieldUpdater<DefaultRequestLog> flagsUpdater =
             AtomicIntegerFieldUpdater.newUpdater(DefaultRequestLog.class, "flags");
+    private static final AtomicIntegerFieldUpdater<DefaultRequestLog> listenerSequenceUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(DefaultRequestLog.class, "listenerSequence");
+
+    /**
+     * Maps the index of a flag bit to the index of its listener stack in {@link #listeners},
+     * or {@code -1} if the bit is not used by any {@link RequestLogAvailability}.
+     */
+    private static final int[] LISTENER_SLOTS = new int[Integer.SIZE];
+    private static final int NUM_LISTENER_SLOTS;
+
+    /**
+     * The marker which replaces the head of a listener stack once its flag is set,
+     * so that no more listeners are pushed into it.
+     */
+    private static final ListenerEntry CLOSED_STACK = new ListenerEntry(log -> { /* no-op */ }, 0, 0);
+
+    static {
+        Arrays.fill(LISTENER_SLOTS, -1);
+        int numSlots = 0;
+        for (RequestLogAvailability a : RequestLogAvailability.values()) {
+            for (int flags = a.setterFlags(); flags != 0; flags &= flags - 1) {
+                final int bit = Integer.numberOfTrailingZeros(flags);
+                if (LISTENER_SLOTS[bit] < 0) {
+                    LISTENER_SLOTS[bit] = numSlots++;
+                }
+            }
+        }
+        NUM_LISTENER_SLOTS = numSlots;
+    }
 
     private static final int FLAGS_REQUEST_END_WITHOUT_CONTENT =
             REQUEST_END.setterFlags() & ~REQUEST_CONTENT.setterFlags();
@@ -84,7 +114,22 @@ public class DefaultRequestLog implements RequestLog, RequestLogBuilder {
      */
     @SuppressWarnings("unused")
     private volatile int flags;
-    private final List<ListenerEntry> listeners = new ArrayList<>(4);
+
+    /**
+     * The stacks of the {@link ListenerEntry}s which are not notified yet, indexed by
+     * {@link #LISTENER_SLOTS}. A listener is pushed into the stack of the highest flag it is still waiting
+     * for, which is usually the last one to be set. When a flag is set, its stack is replaced with
+     * {@link #CLOSED_STACK} and the popped entries are either notified or pushed into another stack.
+     */
+    private final AtomicReferenceArray<ListenerEntry> listeners =
+            new AtomicReferenceArray<>(NUM_LISTENER_SLOTS);
+    /**
+     * The registration order of the next {@link ListenerEntry}, which is used to notify the listeners
+     * satisfied by the same update in the order of registration even if they were kept in different stacks.
+     * Updated by {@link #listenerSequenceUpdater}.
+     */
+    @SuppressWarnings("unused")
+    private volatile int listenerSequence;
     private volatile boolean requestContentDeferred;
     private volatile boolean responseContentDeferred;
 
@@ -174,6 +219,15 @@ public class DefaultRequestLog implements RequestLog, RequestLogBuilder {
         propagateResponseSideLog(lastChild);
     }
 
+    @Override
+    public void endResponseWithChild(RequestLog child) {
+        requireNonNull(child, "child");
+        checkState(!hasLastChild, "last child is already added");
+        checkState(children != null && children.contains(child), "child not added: %s", child);
+        hasLastChild = true;
+        propagateResponseSideLog(child);
+    }
+
     private void propagateResponseSideLog(RequestLog lastChild) {
         // update the available logs if the lastChild already has them
         if (lastChild.isAvailable(RESPONSE_START)) {
@@ -278,13 +332,37 @@ public class DefaultRequestLog implements RequestLog, RequestLogBuilder {
             return;
         }
 
-        final ListenerEntry e = new ListenerEntry(listener, interestedFlags);
-        final RequestLogListener[] satisfiedListeners;
-        synchronized (listeners) {
-            listeners.add(e);
-            satisfiedListeners = removeSatisfiedListeners();
+        addListener(new ListenerEntry(listener, interestedFlags,
+                                      listenerSequenceUpdater.getAndIncrement(this)));
+    }
+
+    private void addListener(ListenerEntry e) {
+        final int interestedFlags = e.interestedFlags;
+        for (;;) {
+            final int missingFlags = interestedFlags & ~flags;
+            if (missingFlags == 0) {
+                RequestLogListenerInvoker.invokeOnRequestLog(e.listener, this);
+                return;
+            }
+
+            final int bit = Integer.SIZE - 1 - Integer.numberOfLeadingZeros(missingFlags);
+            final int slot = LISTENER_SLOTS[bit];
+            final ListenerEntry head = listeners.get(slot);
+            if (head == CLOSED_STACK) {
+                // The flag has been set since we read 'flags'.
+                continue;
+            }
+
+            e.next = head;
+            if (listeners.compareAndSet(slot, head, e)) {
+                if ((flags & (1 << bit)) != 0) {
+                    // The flag has been set after we read 'flags', but we do not know whether
+                    // updateAvailability() closed the stack before or after we pushed into it.
+                    notifyListeners(listeners.getAndSet(slot, CLOSED_STACK));
+                }
+                return;
+            }
         }
-        notifyListeners(satisfiedListeners);
     }
 
     private static int getterFlags(RequestLogAvailability[] availabilities) {
@@ -715,56 +793,68 @@ public class DefaultRequestLog implements RequestLog, RequestLogBuilder {
             final int oldAvailability = this.flags;
             final int newAvailability = oldAvailability | flags;
             if (flagsUpdater.compareAndSet(this, oldAvailability, newAvailability)) {
-                if (oldAvailability != newAvailability) {
-                    final RequestLogListener[] satisfiedListeners;
-                    synchronized (listeners) {
-                        satisfiedListeners = removeSatisfiedListeners();
-                    }
-                    notifyListeners(satisfiedListeners);
+                // Collect the entries of all the closed stacks, so that they are notified in the order of
+                // registration regardless of which stack they were kept in.
+                ListenerEntry popped = null;
+                for (int setFlags = newAvailability & ~oldAvailability; setFlags != 0;
+                     setFlags &= setFlags - 1) {
+                    final int slot = LISTENER_SLOTS[Integer.numberOfTrailingZeros(setFlags)];
+                    popped = concat(listeners.getAndSet(slot, CLOSED_STACK), popped);
                 }
+                notifyListeners(popped);
                 break;
             }
         }
     }
 
+    /**
+     * Prepends the entries of the specified popped stack to the specified list.
+     */
     @Nullable
-    private RequestLogListener[] removeSatisfiedListeners() {
-        if (listeners.isEmpty()) {
-            return null;
+    private static ListenerEntry concat(@Nullable ListenerEntry stack, @Nullable ListenerEntry list) {
+        if (stack == null || stack == CLOSED_STACK) {
+            return list;
         }
 
-        final int flags = this.flags;
-        final int maxNumListeners = listeners.size();
-        final Iterator<ListenerEntry> i = listeners.iterator();
-        RequestLogListener[] satisfied = null;
-        int numSatisfied = 0;
-
-        do {
-            final ListenerEntry e = i.next();
-            final int interestedFlags = e.interestedFlags;
-            if ((flags & interestedFlags) == interestedFlags) {
-                i.remove();
-                if (satisfied == null) {
-                    satisfied = new RequestLogListener[maxNumListeners];
-                }
-                satisfied[numSatisfied++] = e.listener;
-            }
-        } while (i.hasNext());
-
-        return satisfied;
+        ListenerEntry tail = stack;
+        while (tail.next != null) {
+            tail = tail.next;
+        }
+        tail.next = list;
+        return stack;
     }
 
-    private void notifyListeners(@Nullable RequestLogListener[] listeners) {
-        if (listeners == null) {
+    private void notifyListeners(@Nullable ListenerEntry head) {
+        if (head == null || head == CLOSED_STACK) {
             return;
         }
 
-        for (RequestLogListener l : listeners) {
-            if (l == null) {
-                break;
+        // Sort the entries in the order of registration. A stack is popped in the reverse order of pushes,
+        // so inserting each entry into the front of the sorted list is usually enough.
+        ListenerEntry sorted = null;
+        do {
+            final ListenerEntry next = head.next;
+            if (sorted == null || head.sequence < sorted.sequence) {
+                head.next = sorted;
+                sorted = head;
+            } else {
+                ListenerEntry prev = sorted;
+                while (prev.next != null && prev.next.sequence < head.sequence) {
+                    prev = prev.next;
+                }
+                head.next = prev.next;
+                prev.next = head;
             }
-            RequestLogListenerInvoker.invokeOnRequestLog(l, this);
-        }
+            head = next;
+        } while (head != null);
+
+        do {
+            final ListenerEntry next = sorted.next;
+            sorted.next = null;
+            // Notifies the listener or pushes it into the stack of another flag it is waiting for.
+            addListener(sorted);
+            sorted = next;
+        } while (sorted != null);
     }
 
     @Override
@@ -904,10 +994,14 @@ public class DefaultRequestLog implements RequestLog, RequestLogBuilder {
     private static final class ListenerEntry {
         final RequestLogListener listener;
         final int interestedFlags;
+        final int sequence;
+        @Nullable
+        ListenerEntry next;
 
-        ListenerEntry(RequestLogListener listener, int interestedFlags) {
+        ListenerEntry(RequestLogListener listener, int interestedFlags, int sequence) {
             this.listener = listener;
             this.interestedFlags = interestedFlags;
+            this.sequence = sequence;
         }
     }
 }
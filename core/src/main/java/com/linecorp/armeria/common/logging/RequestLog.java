@@ -47,7 +47,8 @@ import io.netty.channel.Channel;
  * property using {@link #isAvailable(RequestLogAvailability)} or {@link #availabilities()}. Attempting to
  * access the properties that are not available yet will cause a {@link RequestLogAvailabilityException}.
  * Use {@link #addListener(RequestLogListener, RequestLogAvailability)} to get notified when the interested
- * properties are available.
+ * properties are available. The listeners which are satisfied by the same update are notified in the order
+ * of their registration.
  *
  * @see RequestContext#log()
  * @see RequestLogAvailability
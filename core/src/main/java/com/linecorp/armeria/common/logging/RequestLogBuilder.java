@@ -49,6 +49,19 @@ public interface RequestLogBuilder {
      */
     void endResponseWithLastChild();
 
+    /**
+     * Fills the response-side logs from the specified child, which must have been added via
+     * {@link #addChild(RequestLog)}. This is useful when the child which produced the response is not
+     * the last added one, e.g. when the earlier of the concurrent attempts won. Note that already
+     * fulfilled {@link RequestLogAvailability}s in the child log will be propagated immediately.
+     *
+     * <p>The default implementation calls {@link #endResponseWithLastChild()}, so that the existing
+     * implementations keep working, albeit propagating the last added child.
+     */
+    default void endResponseWithChild(RequestLog child) {
+        endResponseWithLastChild();
+    }
+
     // Methods related with a request:
 
     /**
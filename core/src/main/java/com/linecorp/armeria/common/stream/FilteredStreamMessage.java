@@ -116,20 +116,20 @@ public abstract class FilteredStreamMessage<T, U> implements StreamMessage<U> {
     @Override
     public void subscribe(Subscriber<? super U> subscriber) {
         requireNonNull(subscriber, "subscriber");
-        delegate.subscribe(new FilteringSubscriber(subscriber));
+        delegate.subscribe(new FilteringSubscriber(subscriber, false));
     }
 
     @Override
     public void subscribe(Subscriber<? super U> subscriber, boolean withPooledObjects) {
         requireNonNull(subscriber, "subscriber");
-        delegate.subscribe(new FilteringSubscriber(subscriber), withPooledObjects);
+        delegate.subscribe(new FilteringSubscriber(subscriber, withPooledObjects), withPooledObjects);
     }
 
     @Override
     public void subscribe(Subscriber<? super U> subscriber, EventExecutor executor) {
         requireNonNull(subscriber, "subscriber");
         requireNonNull(executor, "executor");
-        delegate.subscribe(new FilteringSubscriber(subscriber), executor);
+        delegate.subscribe(new FilteringSubscriber(subscriber, false), executor);
     }
 
     @Override
@@ -137,7 +137,8 @@ public abstract class FilteredStreamMessage<T, U> implements StreamMessage<U> {
                           boolean withPooledObjects) {
         requireNonNull(subscriber, "subscriber");
         requireNonNull(executor, "executor");
-        delegate.subscribe(new FilteringSubscriber(subscriber), executor, withPooledObjects);
+        delegate.subscribe(new FilteringSubscriber(subscriber, withPooledObjects),
+                           executor, withPooledObjects);
     }
 
     @Override
@@ -148,10 +149,12 @@ public abstract class FilteredStreamMessage<T, U> implements StreamMessage<U> {
     private final class FilteringSubscriber implements Subscriber<T> {
 
         private final Subscriber<? super U> delegate;
+        private final boolean subscribedWithPooledObjects;
 
-        FilteringSubscriber(Subscriber<? super U> delegate) {
+        FilteringSubscriber(Subscriber<? super U> delegate, boolean subscribedWithPooledObjects) {
             requireNonNull(delegate, "delegate");
             this.delegate = delegate;
+            this.subscribedWithPooledObjects = subscribedWithPooledObjects;
         }
 
         @Override
@@ -166,7 +169,12 @@ public abstract class FilteredStreamMessage<T, U> implements StreamMessage<U> {
             if (!withPooledObjects) {
                 o = PooledObjects.toUnpooled(o);
             }
-            delegate.onNext(filter(o));
+            U filtered = filter(o);
+            if (!subscribedWithPooledObjects) {
+                // The filter may produce a pooled object even if the subscriber did not ask for one.
+                filtered = PooledObjects.toUnpooled(filtered);
+            }
+            delegate.onNext(filtered);
         }
 
         @Override
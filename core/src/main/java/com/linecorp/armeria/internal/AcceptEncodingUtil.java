@@ -0,0 +1,200 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+/**
+ * Utilities for negotiating a content encoding with an {@code "accept-encoding"} header value.
+ */
+public final class AcceptEncodingUtil {
+
+    /**
+     * The maximum number of candidates whose weights are tracked by
+     * {@link #determineEncoding(String, List, Function)}.
+     */
+    public static final int MAX_CANDIDATES = 64;
+
+    private static final int MAX_QVALUE = 1000;
+
+    /**
+     * Returns whether the specified {@code encoding} is acceptable for the specified
+     * {@code "accept-encoding"} header value, i.e. its weight is not {@code 0}.
+     */
+    public static boolean isAcceptable(String acceptEncoding, String encoding) {
+        return determineEncoding(acceptEncoding, Collections.singletonList(encoding),
+                                 Function.identity()) != null;
+    }
+
+    /**
+     * Returns the candidate whose encoding has the highest weight in the specified {@code "accept-encoding"}
+     * header value. The earlier candidate wins when the weights are the same. The header value is scanned
+     * in place without splitting it, so that no garbage is produced.
+     *
+     * @param encodingResolver the {@link Function} that returns the encoding of a candidate,
+     *                         e.g. {@code "gzip"}
+     * @return the chosen candidate, or {@code null} if none of the encodings is acceptable
+     */
+    @Nullable
+    public static <T> T determineEncoding(String acceptEncoding, List<T> candidates,
+                                          Function<? super T, String> encodingResolver) {
+        final int numCandidates = candidates.size();
+        assert numCandidates <= MAX_CANDIDATES;
+
+        // The qvalues are tracked as integers in thousandths, e.g. 0.5 -> 500.
+        int bestQ = 0;
+        int bestIdx = -1;
+        int starQ = -1;
+        // A bit is set for each candidate which was mentioned explicitly.
+        long mentioned = 0;
+
+        final int length = acceptEncoding.length();
+        int i = 0;
+        while (i < length) {
+            // Skip the leading whitespace and empty list elements.
+            final char ch = acceptEncoding.charAt(i);
+            if (ch == ' ' || ch == '\t' || ch == ',') {
+                i++;
+                continue;
+            }
+
+            // Find the end of the content-coding.
+            final int codingStart = i;
+            while (i < length) {
+                final char c = acceptEncoding.charAt(i);
+                if (c == ',' || c == ';' || c == ' ' || c == '\t') {
+                    break;
+                }
+                i++;
+            }
+            final int codingEnd = i;
+
+            // Parse the parameters, if any.
+            int q = MAX_QVALUE;
+            while (i < length && acceptEncoding.charAt(i) != ',') {
+                final char c = acceptEncoding.charAt(i);
+                if ((c == 'q' || c == 'Q') && i + 1 < length && acceptEncoding.charAt(i + 1) == '=' &&
+                    isParameterStart(acceptEncoding, i)) {
+                    i += 2;
+                    final int qEnd = parameterEnd(acceptEncoding, i);
+                    q = parseQvalue(acceptEncoding, i, qEnd);
+                    i = qEnd;
+                } else {
+                    i++;
+                }
+            }
+
+            final int codingLength = codingEnd - codingStart;
+            if (codingLength == 1 && acceptEncoding.charAt(codingStart) == '*') {
+                starQ = Math.max(starQ, q);
+                continue;
+            }
+
+            for (int j = 0; j < numCandidates; j++) {
+                final String encoding = encodingResolver.apply(candidates.get(j));
+                if (encoding.length() == codingLength &&
+                    acceptEncoding.regionMatches(true, codingStart, encoding, 0, codingLength)) {
+                    mentioned |= 1L << j;
+                    if (q > bestQ || (q == bestQ && q > 0 && j < bestIdx)) {
+                        bestQ = q;
+                        bestIdx = j;
+                    }
+                    break;
+                }
+            }
+        }
+
+        if (starQ > bestQ) {
+            // The wildcard matches any encoding which was not mentioned explicitly.
+            for (int j = 0; j < numCandidates; j++) {
+                if ((mentioned & (1L << j)) == 0) {
+                    return candidates.get(j);
+                }
+            }
+        }
+
+        return bestIdx >= 0 ? candidates.get(bestIdx) : null;
+    }
+
+    private static boolean isParameterStart(String value, int index) {
+        for (int i = index - 1; i >= 0; i--) {
+            final char c = value.charAt(i);
+            if (c == ';') {
+                return true;
+            }
+            if (c != ' ' && c != '\t') {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static int parameterEnd(String value, int start) {
+        int i = start;
+        final int length = value.length();
+        while (i < length) {
+            final char c = value.charAt(i);
+            if (c == ',' || c == ';' || c == ' ' || c == '\t') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Parses a qvalue, i.e. {@code ( "0" [ "." 0*3DIGIT ] ) / ( "1" [ "." 0*3("0") ] )}, into thousandths.
+     * A malformed qvalue is treated as {@code 0} so that the encoding is not chosen.
+     */
+    private static int parseQvalue(String value, int start, int end) {
+        if (start >= end || end - start > 5) {
+            return 0;
+        }
+
+        final char first = value.charAt(start);
+        if (first != '0' && first != '1') {
+            return 0;
+        }
+
+        int q = 0;
+        int multiplier = 100;
+        if (end - start > 1) {
+            if (value.charAt(start + 1) != '.') {
+                return 0;
+            }
+            for (int i = start + 2; i < end; i++) {
+                final char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return 0;
+                }
+                q += (c - '0') * multiplier;
+                multiplier /= 10;
+            }
+        }
+
+        if (first == '1') {
+            return q == 0 ? MAX_QVALUE : 0;
+        }
+        return q;
+    }
+
+    private AcceptEncodingUtil() {}
+}
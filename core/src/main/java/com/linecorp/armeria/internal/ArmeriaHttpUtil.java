@@ -52,7 +52,6 @@ import javax.annotation.Nullable;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Splitter;
 
 import com.linecorp.armeria.common.DefaultHttpHeaders;
@@ -340,6 +339,32 @@ public final class ArmeriaHttpUtil {
         return out;
     }
 
+    /**
+     * Returns whether the specified lower-cased HTTP/1 header must not be copied when converting headers
+     * from HTTP/1 to HTTP/2.
+     */
+    public static boolean isHttpToHttp2Blacklisted(AsciiString lowerCasedName) {
+        return HTTP_TO_HTTP2_HEADER_BLACKLIST.contains(lowerCasedName);
+    }
+
+    /**
+     * Returns the HTTP/1 name of the specified HTTP/2 response header, or {@code null} if the header must not
+     * be sent over HTTP/1. This applies the same rules as {@link #toNettyHttp1} does for responses.
+     */
+    @Nullable
+    public static AsciiString toHttp1ResponseHeaderName(AsciiString name) {
+        final AsciiString translatedName = RESPONSE_HEADER_TRANSLATIONS.get(name);
+        if (translatedName != null) {
+            return translatedName;
+        }
+
+        if (name.isEmpty() || HTTP2_TO_HTTP_HEADER_BLACKLIST.contains(name)) {
+            return null;
+        }
+
+        return name;
+    }
+
     /**
      * Converts the specified Netty HTTP/1 headers into Armeria HTTP/2 headers.
      */
@@ -449,7 +474,14 @@ public final class ArmeriaHttpUtil {
     }
 
     private static URI toUri(HttpRequest in) throws URISyntaxException {
-        final String uri = in.uri();
+        return toUri(in.uri());
+    }
+
+    /**
+     * Converts the specified HTTP/1 request target into a {@link URI}, normalizing the path that starts
+     * with more than one slash.
+     */
+    public static URI toUri(String uri) throws URISyntaxException {
         if (uri.startsWith("//")) {
             // Normalize the path that starts with more than one slash into the one with a single slash,
             // so that java.net.URI does not raise a URISyntaxException.
@@ -468,7 +500,7 @@ public final class ArmeriaHttpUtil {
      * Generate a HTTP/2 {code :path} from a URI in accordance with
      * <a href="https://tools.ietf.org/html/rfc7230#section-5.3">rfc7230, 5.3</a>.
      */
-    private static String toHttp2Path(URI uri) {
+    public static String toHttp2Path(URI uri) {
         final StringBuilder pathBuilder = new StringBuilder(
                 length(uri.getRawPath()) + length(uri.getRawQuery()) + length(uri.getRawFragment()) + 2);
 
@@ -487,8 +519,13 @@ public final class ArmeriaHttpUtil {
         return pathBuilder.length() != 0 ? pathBuilder.toString() : EMPTY_REQUEST_PATH;
     }
 
-    @VisibleForTesting
-    static void setHttp2Authority(@Nullable String authority, HttpHeaders out) {
+    /**
+     * Sets the specified HTTP/1 {@code authority} into the {@code ":authority"} header of the specified
+     * HTTP/2 headers, stripping the deprecated {@code "userinfo"} subcomponent.
+     *
+     * @throws IllegalArgumentException if the {@code authority} has nothing but {@code "userinfo"}
+     */
+    public static void setHttp2Authority(@Nullable String authority, HttpHeaders out) {
         // The authority MUST NOT include the deprecated "userinfo" subcomponent
         if (authority != null) {
             final String actualAuthority;
@@ -21,6 +21,8 @@ import java.util.ArrayDeque;
 import java.util.Map.Entry;
 import java.util.Queue;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.common.ClosedSessionException;
 import com.linecorp.armeria.common.HttpData;
 import com.linecorp.armeria.common.HttpHeaders;
@@ -36,19 +38,14 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
-import io.netty.handler.codec.http.DefaultFullHttpResponse;
 import io.netty.handler.codec.http.DefaultHttpContent;
 import io.netty.handler.codec.http.DefaultHttpRequest;
-import io.netty.handler.codec.http.DefaultHttpResponse;
 import io.netty.handler.codec.http.DefaultLastHttpContent;
 import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaderNames;
 import io.netty.handler.codec.http.HttpHeaderValues;
-import io.netty.handler.codec.http.HttpMessage;
 import io.netty.handler.codec.http.HttpObject;
 import io.netty.handler.codec.http.HttpRequest;
-import io.netty.handler.codec.http.HttpResponse;
-import io.netty.handler.codec.http.HttpResponseStatus;
 import io.netty.handler.codec.http.HttpUtil;
 import io.netty.handler.codec.http.HttpVersion;
 import io.netty.handler.codec.http.LastHttpContent;
@@ -78,6 +75,18 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
      */
     private static final HttpContent EMPTY_CONTENT = new DefaultHttpContent(Unpooled.EMPTY_BUFFER);
 
+    /**
+     * The maximum length of the content which is copied into the same buffer with its preceding headers or
+     * chunk header, so that they are written at once rather than as separate buffers.
+     */
+    private static final int MAX_COALESCED_CONTENT_LENGTH = 2048;
+
+    /**
+     * The maximum number of bytes required for framing a chunk of chunked content.
+     */
+    private static final int CHUNK_FRAMING_LENGTH =
+            Http1ResponseEncoder.MAX_CHUNK_HEADER_LENGTH + Http1ResponseEncoder.MAX_CHUNK_FOOTER_LENGTH;
+
     private final boolean server;
     private final boolean isTls;
 
@@ -101,6 +110,13 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
      */
     private final IntObjectMap<PendingWrites> pendingWritesMap = new IntObjectHashMap<>();
 
+    /**
+     * The map which maps a request ID to how the content of its response is framed, if the response is not
+     * framed by the 'content-length' header. The entry is removed when the response ends.
+     * Used only on the server side.
+     */
+    private final IntObjectMap<ContentFraming> contentFramings = new IntObjectHashMap<>(4);
+
     public Http1ObjectEncoder(boolean server, boolean isTls) {
         this.server = server;
         this.isTls = isTls;
@@ -114,7 +130,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         try {
-            return server ? writeServerHeaders(ctx, id, streamId, headers, endStream)
+            return server ? writeServerHeaders(ctx, id, headers, endStream)
                           : writeClientHeaders(ctx, id, streamId, headers, endStream);
         } catch (Throwable t) {
             return ctx.newFailedFuture(t);
@@ -122,21 +138,28 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
     }
 
     private ChannelFuture writeServerHeaders(
-            ChannelHandlerContext ctx, int id, int streamId,
-            HttpHeaders headers, boolean endStream) throws Http2Exception {
+            ChannelHandlerContext ctx, int id, HttpHeaders headers, boolean endStream) {
 
-        final HttpObject converted = convertServerHeaders(streamId, headers, endStream);
+        // Leading headers will always have :status, trailers will never have it.
         final HttpStatus status = headers.status();
         if (status == null) {
             // Trailing headers
-            final ChannelFuture f = write(ctx, id, converted, endStream);
+            final ByteBuf buf;
+            if (contentFramings.remove(id) == ContentFraming.CHUNKED) {
+                buf = Http1ResponseEncoder.encodeTrailers(ctx.alloc(), headers);
+            } else {
+                // Trailers can be sent only with the chunked transfer encoding.
+                buf = Unpooled.EMPTY_BUFFER;
+            }
+            final ChannelFuture f = write(ctx, id, buf, endStream);
             ctx.flush();
             return f;
         }
 
         if (status.codeClass() == HttpStatusClass.INFORMATIONAL) {
-            // Informational status headers.
-            final ChannelFuture f = write(ctx, id, converted, false);
+            // Informational status headers. 1xx responses do not have the 'content-length' header.
+            final ByteBuf buf = Http1ResponseEncoder.encodeHeaders(ctx.alloc(), status, headers, true, null, 0);
+            final ChannelFuture f = write(ctx, id, buf, false);
             if (endStream) {
                 // Can't end a stream with informational status in HTTP/1.
                 f.addListener(ChannelFutureListener.CLOSE);
@@ -146,7 +169,56 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         // Non-informational status headers.
-        return writeNonInformationalHeaders(ctx, id, converted, endStream);
+        final ByteBuf buf = encodeServerHeaders(ctx, id, status, headers, endStream, 0);
+        final ChannelFuture f = write(ctx, id, buf, endStream);
+        ctx.flush();
+        return f;
+    }
+
+    /**
+     * Encodes the non-informational response headers and remembers how the content of the response has to be
+     * framed if the headers do not end the stream.
+     */
+    private ByteBuf encodeServerHeaders(ChannelHandlerContext ctx, int id, HttpStatus status,
+                                        HttpHeaders headers, boolean endStream, int reservedBytes) {
+        final boolean contentAlwaysEmpty = ArmeriaHttpUtil.isContentAlwaysEmpty(status);
+        boolean omitContentLength = false;
+        byte[] additionalHeader = null;
+        switch (status.code()) {
+            case 204:
+                omitContentLength = true;
+                break;
+            case 205:
+                omitContentLength = true;
+                additionalHeader = Http1ResponseEncoder.CONTENT_LENGTH_ZERO;
+                break;
+            default:
+                if (headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
+                    break;
+                }
+                if (endStream) {
+                    // NB: Set the 'content-length' only when not set rather than always setting to 0.
+                    //     It's because a response to a HEAD request can have empty content while having
+                    //     non-zero 'content-length' header.
+                    //     However, this also opens the possibility of sending a non-zero 'content-length'
+                    //     header even when it really has to be zero. e.g. a response to a non-HEAD request
+                    additionalHeader = Http1ResponseEncoder.CONTENT_LENGTH_ZERO;
+                } else if (!contentAlwaysEmpty) {
+                    // Use chunked encoding.
+                    additionalHeader = Http1ResponseEncoder.TRANSFER_ENCODING_CHUNKED;
+                }
+        }
+
+        if (!endStream) {
+            if (contentAlwaysEmpty) {
+                contentFramings.put(id, ContentFraming.ALWAYS_EMPTY);
+            } else if (additionalHeader == Http1ResponseEncoder.TRANSFER_ENCODING_CHUNKED) {
+                contentFramings.put(id, ContentFraming.CHUNKED);
+            }
+        }
+
+        return Http1ResponseEncoder.encodeHeaders(ctx.alloc(), status, headers,
+                                                  omitContentLength, additionalHeader, reservedBytes);
     }
 
     private ChannelFuture writeClientHeaders(
@@ -175,50 +247,6 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         return f;
     }
 
-    private HttpObject convertServerHeaders(
-            int streamId, HttpHeaders headers, boolean endStream) throws Http2Exception {
-
-        // Leading headers will always have :status, trailers will never have it.
-        final HttpStatus status = headers.status();
-        if (status == null) {
-            return convertTrailingHeaders(streamId, headers);
-        }
-
-        // Convert leading headers.
-        final HttpResponse res;
-        final boolean informational = status.codeClass() == HttpStatusClass.INFORMATIONAL;
-        final HttpResponseStatus nettyStatus = HttpResponseStatus.valueOf(status.code());
-
-        if (endStream || informational) {
-
-            res = new DefaultFullHttpResponse(
-                    HttpVersion.HTTP_1_1, nettyStatus,
-                    Unpooled.EMPTY_BUFFER, false);
-
-            final io.netty.handler.codec.http.HttpHeaders outHeaders = res.headers();
-            convert(streamId, headers, outHeaders, false);
-
-            if (informational) {
-                // 1xx responses does not have the 'content-length' header.
-                outHeaders.remove(HttpHeaderNames.CONTENT_LENGTH);
-            } else if (!headers.contains(HttpHeaderNames.CONTENT_LENGTH)) {
-                // NB: Set the 'content-length' only when not set rather than always setting to 0.
-                //     It's because a response to a HEAD request can have empty content while having
-                //     non-zero 'content-length' header.
-                //     However, this also opens the possibility of sending a non-zero 'content-length'
-                //     header even when it really has to be zero. e.g. a response to a non-HEAD request
-                outHeaders.setInt(HttpHeaderNames.CONTENT_LENGTH, 0);
-            }
-        } else {
-            res = new DefaultHttpResponse(HttpVersion.HTTP_1_1, nettyStatus, false);
-            // Perform conversion.
-            convert(streamId, headers, res.headers(), false);
-            setTransferEncoding(res);
-        }
-
-        return res;
-    }
-
     private HttpObject convertClientHeaders(int streamId, HttpHeaders headers, boolean endStream)
             throws Http2Exception {
 
@@ -259,11 +287,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
                 streamId, inHeaders, outHeaders, HttpVersion.HTTP_1_1, trailer, false);
 
         outHeaders.remove(ExtensionHeaderNames.STREAM_ID.text());
-        if (server) {
-            outHeaders.remove(ExtensionHeaderNames.SCHEME.text());
-        } else {
-            outHeaders.remove(ExtensionHeaderNames.PATH.text());
-        }
+        outHeaders.remove(ExtensionHeaderNames.PATH.text());
     }
 
     private LastHttpContent convertTrailingHeaders(int streamId, HttpHeaders headers) throws Http2Exception {
@@ -277,16 +301,6 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         return lastContent;
     }
 
-    private static void setTransferEncoding(HttpMessage out) {
-        final io.netty.handler.codec.http.HttpHeaders outHeaders = out.headers();
-        final long contentLength = HttpUtil.getContentLength(out, -1L);
-        if (contentLength < 0) {
-            // Use chunked encoding.
-            outHeaders.set(HttpHeaderNames.TRANSFER_ENCODING, HttpHeaderValues.CHUNKED);
-            outHeaders.remove(HttpHeaderNames.CONTENT_LENGTH);
-        }
-    }
-
     @Override
     protected ChannelFuture doWriteData(
             ChannelHandlerContext ctx, int id, int streamId, HttpData data, boolean endStream) {
@@ -296,6 +310,10 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
             return ctx.newFailedFuture(ClosedSessionException.get());
         }
 
+        if (server) {
+            return writeServerData(ctx, id, data, endStream);
+        }
+
         final int length = data.length();
         if (length == 0) {
             ReferenceCountUtil.safeRelease(data);
@@ -370,6 +388,120 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
     }
 
+    private ChannelFuture writeServerData(ChannelHandlerContext ctx, int id, HttpData data, boolean endStream) {
+        final ContentFraming framing = endStream ? contentFramings.remove(id) : contentFramings.get(id);
+        if (data.isEmpty() || framing == ContentFraming.ALWAYS_EMPTY) {
+            ReferenceCountUtil.safeRelease(data);
+            final ByteBuf buf;
+            if (endStream && framing == ContentFraming.CHUNKED) {
+                buf = Http1ResponseEncoder.LAST_CHUNK_BUF.duplicate();
+            } else {
+                buf = Unpooled.EMPTY_BUFFER;
+            }
+            final ChannelFuture future = write(ctx, id, buf, endStream);
+            ctx.flush();
+            return future;
+        }
+
+        try {
+            final ChannelFuture future =
+                    writeServerContent(ctx, id, null, data, framing == ContentFraming.CHUNKED, endStream);
+            ctx.flush();
+            return future;
+        } catch (Throwable t) {
+            return ctx.newFailedFuture(t);
+        }
+    }
+
+    /**
+     * Writes the non-empty content of a response. When TLS is enabled, the content is split so that
+     * a write does not exceed the maximum length of a cleartext TLS record. A small piece of the content is
+     * copied into a single buffer with its chunk framing and the specified {@code head}, if any, so that
+     * they are written at once.
+     *
+     * @param head the encoded headers which precede the content, with enough writable bytes reserved
+     */
+    private ChannelFuture writeServerContent(ChannelHandlerContext ctx, int id, @Nullable ByteBuf head,
+                                             HttpData data, boolean chunked, boolean endStream) {
+        try {
+            final int maxChunkLength = isTls ? MAX_TLS_DATA_LENGTH : Integer.MAX_VALUE;
+            final int length = data.length();
+            int position = 0;
+            for (;;) {
+                final int chunkLength = Math.min(maxChunkLength, length - position);
+                final boolean endOfContent = endStream && position + chunkLength == length;
+                final ChannelFuture future;
+                if (chunkLength <= MAX_COALESCED_CONTENT_LENGTH) {
+                    final ByteBuf buf;
+                    if (head != null) {
+                        buf = head;
+                        head = null;
+                    } else {
+                        buf = ctx.alloc().buffer(chunkLength + CHUNK_FRAMING_LENGTH);
+                    }
+                    if (chunked) {
+                        Http1ResponseEncoder.encodeChunkHeader(buf, chunkLength);
+                    }
+                    copyContent(buf, data, position, chunkLength);
+                    if (chunked) {
+                        Http1ResponseEncoder.encodeChunkFooter(buf, endOfContent);
+                    }
+                    future = write(ctx, id, buf, endOfContent);
+                } else {
+                    if (chunked) {
+                        final ByteBuf chunkHeader;
+                        if (head != null) {
+                            chunkHeader = head;
+                            head = null;
+                        } else {
+                            chunkHeader = ctx.alloc().buffer(Http1ResponseEncoder.MAX_CHUNK_HEADER_LENGTH);
+                        }
+                        Http1ResponseEncoder.encodeChunkHeader(chunkHeader, chunkLength);
+                        write(ctx, id, chunkHeader, false);
+                        write(ctx, id, contentSlice(data, position, chunkLength), false);
+                        final ByteBuf chunkFooter = endOfContent ? Http1ResponseEncoder.CRLF_LAST_CHUNK_BUF
+                                                                 : Http1ResponseEncoder.CRLF_BUF;
+                        future = write(ctx, id, chunkFooter.duplicate(), endOfContent);
+                    } else {
+                        if (head != null) {
+                            write(ctx, id, head, false);
+                            head = null;
+                        }
+                        future = write(ctx, id, contentSlice(data, position, chunkLength), endOfContent);
+                    }
+                }
+
+                position += chunkLength;
+                if (position == length) {
+                    return future;
+                }
+            }
+        } finally {
+            ReferenceCountUtil.safeRelease(data);
+            if (head != null) {
+                head.release();
+            }
+        }
+    }
+
+    private static void copyContent(ByteBuf dst, HttpData data, int position, int length) {
+        if (data instanceof ByteBufHolder) {
+            final ByteBuf buf = ((ByteBufHolder) data).content();
+            dst.writeBytes(buf, buf.readerIndex() + position, length);
+        } else {
+            dst.writeBytes(data.array(), data.offset() + position, length);
+        }
+    }
+
+    private static ByteBuf contentSlice(HttpData data, int position, int length) {
+        if (data instanceof ByteBufHolder) {
+            final ByteBuf buf = ((ByteBufHolder) data).content();
+            return buf.retainedSlice(buf.readerIndex() + position, length);
+        } else {
+            return Unpooled.wrappedBuffer(data.array(), data.offset() + position, length);
+        }
+    }
+
     private static ByteBuf dataChunk(HttpData data, int offset, int chunkSize) {
         if (data instanceof ByteBufHolder) {
             final ByteBuf buf = ((ByteBufHolder) data).content();
@@ -379,7 +511,49 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
     }
 
-    private ChannelFuture write(ChannelHandlerContext ctx, int id, HttpObject obj, boolean endStream) {
+    @Override
+    protected ChannelFuture doWriteHeadersAndData(ChannelHandlerContext ctx, int id, int streamId,
+                                                  HttpHeaders headers, HttpData data, boolean endStream) {
+        final HttpStatus status = headers.status();
+        if (!server || status == null || status.codeClass() == HttpStatusClass.INFORMATIONAL ||
+            id >= minClosedId) {
+            return super.doWriteHeadersAndData(ctx, id, streamId, headers, data, endStream);
+        }
+
+        final int length = data.length();
+        final int reservedBytes = length <= MAX_COALESCED_CONTENT_LENGTH ? length + CHUNK_FRAMING_LENGTH
+                                                                        : CHUNK_FRAMING_LENGTH;
+        final ByteBuf head;
+        try {
+            head = encodeServerHeaders(ctx, id, status, headers, false, reservedBytes);
+        } catch (Throwable t) {
+            ReferenceCountUtil.safeRelease(data);
+            return ctx.newFailedFuture(t);
+        }
+
+        final ContentFraming framing = endStream ? contentFramings.remove(id) : contentFramings.get(id);
+        if (length == 0 || framing == ContentFraming.ALWAYS_EMPTY) {
+            ReferenceCountUtil.safeRelease(data);
+            if (endStream && framing == ContentFraming.CHUNKED) {
+                final ByteBuf lastChunk = Http1ResponseEncoder.LAST_CHUNK_BUF;
+                head.writeBytes(lastChunk, lastChunk.readerIndex(), lastChunk.readableBytes());
+            }
+            final ChannelFuture future = write(ctx, id, head, endStream);
+            ctx.flush();
+            return future;
+        }
+
+        try {
+            final ChannelFuture future =
+                    writeServerContent(ctx, id, head, data, framing == ContentFraming.CHUNKED, endStream);
+            ctx.flush();
+            return future;
+        } catch (Throwable t) {
+            return ctx.newFailedFuture(t);
+        }
+    }
+
+    private ChannelFuture write(ChannelHandlerContext ctx, int id, Object obj, boolean endStream) {
         if (id < currentId) {
             // Attempted to write something on a finished request/response; discard.
             // e.g. the request already timed out.
@@ -418,7 +592,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
             return future;
         } else {
             final ChannelPromise promise = ctx.newPromise();
-            final Entry<HttpObject, ChannelPromise> entry = new SimpleImmutableEntry<>(obj, promise);
+            final Entry<Object, ChannelPromise> entry = new SimpleImmutableEntry<>(obj, promise);
             final PendingWrites pendingWrites;
             if (currentPendingWrites == null) {
                 pendingWrites = new PendingWrites();
@@ -440,7 +614,7 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
 
     private static void flushPendingWrites(ChannelHandlerContext ctx, PendingWrites pendingWrites) {
         for (;;) {
-            final Entry<HttpObject, ChannelPromise> e = pendingWrites.poll();
+            final Entry<Object, ChannelPromise> e = pendingWrites.poll();
             if (e == null) {
                 break;
             }
@@ -455,13 +629,15 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         //     and they are handled by different threads simultaneously.
         //     e.g. when the 3rd request triggers a reset and then the 2nd one triggers another.
         minClosedId = Math.min(minClosedId, id);
+        contentFramings.remove(id);
         for (int i = minClosedId; i <= maxIdWithPendingWrites; i++) {
             final PendingWrites pendingWrites = pendingWritesMap.remove(i);
             for (;;) {
-                final Entry<HttpObject, ChannelPromise> e = pendingWrites.poll();
+                final Entry<Object, ChannelPromise> e = pendingWrites.poll();
                 if (e == null) {
                     break;
                 }
+                ReferenceCountUtil.safeRelease(e.getKey());
                 e.getValue().tryFailure(ClosedSessionException.get());
             }
         }
@@ -476,18 +652,20 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
 
     @Override
     protected void doClose() {
+        contentFramings.clear();
         if (pendingWritesMap.isEmpty()) {
             return;
         }
 
         final ClosedSessionException cause = ClosedSessionException.get();
-        for (Queue<Entry<HttpObject, ChannelPromise>> queue : pendingWritesMap.values()) {
+        for (Queue<Entry<Object, ChannelPromise>> queue : pendingWritesMap.values()) {
             for (;;) {
-                final Entry<HttpObject, ChannelPromise> e = queue.poll();
+                final Entry<Object, ChannelPromise> e = queue.poll();
                 if (e == null) {
                     break;
                 }
 
+                ReferenceCountUtil.safeRelease(e.getKey());
                 e.getValue().tryFailure(cause);
             }
         }
@@ -495,7 +673,18 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         pendingWritesMap.clear();
     }
 
-    private static final class PendingWrites extends ArrayDeque<Entry<HttpObject, ChannelPromise>> {
+    private enum ContentFraming {
+        /**
+         * The content is sent with the chunked transfer encoding.
+         */
+        CHUNKED,
+        /**
+         * The response must not have content, e.g. '304 Not Modified'. The content is discarded.
+         */
+        ALWAYS_EMPTY
+    }
+
+    private static final class PendingWrites extends ArrayDeque<Entry<Object, ChannelPromise>> {
 
         private static final long serialVersionUID = 4241891747461017445L;
 
@@ -506,8 +695,8 @@ public final class Http1ObjectEncoder extends HttpObjectEncoder {
         }
 
         @Override
-        public boolean add(Entry<HttpObject, ChannelPromise> httpObjectChannelPromiseEntry) {
-            return isEndOfStream() ? false : super.add(httpObjectChannelPromiseEntry);
+        public boolean add(Entry<Object, ChannelPromise> entry) {
+            return isEndOfStream() ? false : super.add(entry);
         }
 
         boolean isEndOfStream() {
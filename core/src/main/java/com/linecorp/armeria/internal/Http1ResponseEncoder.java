@@ -0,0 +1,225 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpStatus;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.AsciiString;
+
+/**
+ * Serializes the status line, the headers and the chunk framing of an HTTP/1 response directly into
+ * a {@link ByteBuf}, without converting them into a Netty {@link io.netty.handler.codec.http.HttpResponse}
+ * first. The status lines and the names of the common headers are encoded in advance.
+ */
+final class Http1ResponseEncoder {
+
+    private static final int MIN_PRE_ENCODED_STATUS = 100;
+    private static final int MAX_PRE_ENCODED_STATUS = 599;
+
+    private static final byte[] CRLF = { '\r', '\n' };
+    private static final byte[] COLON_AND_SPACE = { ':', ' ' };
+    private static final byte[] LAST_CHUNK_PREFIX = ascii("0\r\n");
+
+    /**
+     * {@code "\r\n"} which ends a chunk, as a shared {@link ByteBuf}. Write its {@link ByteBuf#duplicate()}.
+     */
+    static final ByteBuf CRLF_BUF = unreleasable(CRLF);
+
+    /**
+     * {@code "0\r\n\r\n"} which ends a chunked content without trailers, as a shared {@link ByteBuf}.
+     * Write its {@link ByteBuf#duplicate()}.
+     */
+    static final ByteBuf LAST_CHUNK_BUF = unreleasable(ascii("0\r\n\r\n"));
+
+    /**
+     * {@code "\r\n0\r\n\r\n"} which ends the last non-empty chunk and the content, as a shared
+     * {@link ByteBuf}. Write its {@link ByteBuf#duplicate()}.
+     */
+    static final ByteBuf CRLF_LAST_CHUNK_BUF = unreleasable(ascii("\r\n0\r\n\r\n"));
+
+    /**
+     * The maximum number of bytes written by {@link #encodeChunkHeader(ByteBuf, int)}.
+     */
+    static final int MAX_CHUNK_HEADER_LENGTH = 10;
+
+    /**
+     * The maximum number of bytes written after the content of a chunk, i.e. {@link #CRLF_LAST_CHUNK_BUF}.
+     */
+    static final int MAX_CHUNK_FOOTER_LENGTH = CRLF_LAST_CHUNK_BUF.readableBytes();
+
+    static final byte[] CONTENT_LENGTH_ZERO = ascii("content-length: 0\r\n");
+    static final byte[] TRANSFER_ENCODING_CHUNKED = ascii("transfer-encoding: chunked\r\n");
+
+    /**
+     * The status lines of the status codes from {@value #MIN_PRE_ENCODED_STATUS} to
+     * {@value #MAX_PRE_ENCODED_STATUS}, e.g. {@code "HTTP/1.1 200 OK\r\n"}.
+     */
+    private static final byte[][] STATUS_LINES;
+
+    /**
+     * The names of the common response headers followed by {@code ": "}.
+     */
+    private static final Map<AsciiString, byte[]> HEADER_NAMES;
+
+    static {
+        STATUS_LINES = new byte[MAX_PRE_ENCODED_STATUS - MIN_PRE_ENCODED_STATUS + 1][];
+        for (int i = 0; i < STATUS_LINES.length; i++) {
+            STATUS_LINES[i] = newStatusLine(MIN_PRE_ENCODED_STATUS + i);
+        }
+
+        final ImmutableMap.Builder<AsciiString, byte[]> builder = ImmutableMap.builder();
+        for (AsciiString name : new AsciiString[] {
+                HttpHeaderNames.ACCEPT_RANGES, HttpHeaderNames.ACCESS_CONTROL_ALLOW_ORIGIN,
+                HttpHeaderNames.AGE, HttpHeaderNames.ALLOW, HttpHeaderNames.CACHE_CONTROL,
+                HttpHeaderNames.CONTENT_DISPOSITION, HttpHeaderNames.CONTENT_ENCODING,
+                HttpHeaderNames.CONTENT_LENGTH, HttpHeaderNames.CONTENT_RANGE, HttpHeaderNames.CONTENT_TYPE,
+                HttpHeaderNames.DATE, HttpHeaderNames.ETAG, HttpHeaderNames.EXPIRES,
+                HttpHeaderNames.LAST_MODIFIED, HttpHeaderNames.LOCATION, HttpHeaderNames.PRAGMA,
+                HttpHeaderNames.RETRY_AFTER, HttpHeaderNames.SERVER, HttpHeaderNames.SET_COOKIE,
+                HttpHeaderNames.VARY, HttpHeaderNames.WWW_AUTHENTICATE }) {
+            builder.put(name, ascii(name + ": "));
+        }
+        HEADER_NAMES = builder.build();
+    }
+
+    private static byte[] newStatusLine(int code) {
+        return ascii("HTTP/1.1 " + HttpResponseStatus.valueOf(code) + "\r\n");
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(US_ASCII);
+    }
+
+    private static ByteBuf unreleasable(byte[] bytes) {
+        return Unpooled.unreleasableBuffer(
+                Unpooled.directBuffer(bytes.length, bytes.length).writeBytes(bytes));
+    }
+
+    /**
+     * Encodes the status line and the headers of a response, followed by an empty line.
+     *
+     * @param omitContentLength whether to omit the {@code "content-length"} header
+     * @param additionalHeader the pre-encoded header line to append, e.g. {@link #CONTENT_LENGTH_ZERO}
+     * @param reservedBytes the number of bytes to reserve after the headers, e.g. for the content
+     */
+    static ByteBuf encodeHeaders(ByteBufAllocator alloc, HttpStatus status, HttpHeaders headers,
+                                 boolean omitContentLength, @Nullable byte[] additionalHeader,
+                                 int reservedBytes) {
+        final int code = status.code();
+        final byte[] statusLine;
+        if (code >= MIN_PRE_ENCODED_STATUS && code <= MAX_PRE_ENCODED_STATUS) {
+            statusLine = STATUS_LINES[code - MIN_PRE_ENCODED_STATUS];
+        } else {
+            statusLine = newStatusLine(code);
+        }
+
+        int capacity = statusLine.length + CRLF.length + reservedBytes;
+        if (additionalHeader != null) {
+            capacity += additionalHeader.length;
+        }
+        capacity += estimateLength(headers);
+
+        final ByteBuf buf = alloc.buffer(capacity);
+        buf.writeBytes(statusLine);
+        for (Entry<AsciiString, String> e : headers) {
+            final AsciiString name = e.getKey();
+            // Do not send the 'connection' header as Netty's HttpUtil.setKeepAlive() does.
+            if (HttpHeaderNames.CONNECTION.equals(name) ||
+                omitContentLength && HttpHeaderNames.CONTENT_LENGTH.equals(name)) {
+                continue;
+            }
+            encodeHeader(buf, name, e.getValue());
+        }
+        if (additionalHeader != null) {
+            buf.writeBytes(additionalHeader);
+        }
+        buf.writeBytes(CRLF);
+        return buf;
+    }
+
+    /**
+     * Encodes the last chunk of a chunked content with the specified trailers.
+     */
+    static ByteBuf encodeTrailers(ByteBufAllocator alloc, HttpHeaders trailers) {
+        final ByteBuf buf = alloc.buffer(LAST_CHUNK_PREFIX.length + estimateLength(trailers) + CRLF.length);
+        buf.writeBytes(LAST_CHUNK_PREFIX);
+        for (Entry<AsciiString, String> e : trailers) {
+            encodeHeader(buf, e.getKey(), e.getValue());
+        }
+        buf.writeBytes(CRLF);
+        return buf;
+    }
+
+    /**
+     * Encodes the header of a chunk, i.e. its length in hexadecimal followed by {@code "\r\n"}.
+     */
+    static void encodeChunkHeader(ByteBuf buf, int length) {
+        assert length > 0;
+        buf.writeCharSequence(Integer.toHexString(length), US_ASCII);
+        buf.writeBytes(CRLF);
+    }
+
+    /**
+     * Encodes the end of a chunk, optionally followed by the last chunk without trailers.
+     */
+    static void encodeChunkFooter(ByteBuf buf, boolean lastChunk) {
+        final ByteBuf footer = lastChunk ? CRLF_LAST_CHUNK_BUF : CRLF_BUF;
+        buf.writeBytes(footer, footer.readerIndex(), footer.readableBytes());
+    }
+
+    private static int estimateLength(HttpHeaders headers) {
+        int length = 0;
+        for (Entry<AsciiString, String> e : headers) {
+            length += e.getKey().length() + e.getValue().length() + 4;
+        }
+        return length;
+    }
+
+    private static void encodeHeader(ByteBuf buf, AsciiString name, String value) {
+        final AsciiString http1Name = ArmeriaHttpUtil.toHttp1ResponseHeaderName(name);
+        if (http1Name == null) {
+            return;
+        }
+
+        final byte[] encodedName = HEADER_NAMES.get(http1Name);
+        if (encodedName != null) {
+            buf.writeBytes(encodedName);
+        } else {
+            buf.writeBytes(http1Name.array(), http1Name.arrayOffset(), http1Name.length());
+            buf.writeBytes(COLON_AND_SPACE);
+        }
+        buf.writeCharSequence(value, US_ASCII);
+        buf.writeBytes(CRLF);
+    }
+
+    private Http1ResponseEncoder() {}
+}
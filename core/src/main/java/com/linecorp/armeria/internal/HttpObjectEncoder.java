@@ -73,6 +73,37 @@ public abstract class HttpObjectEncoder {
     protected abstract ChannelFuture doWriteData(
             ChannelHandlerContext ctx, int id, int streamId, HttpData data, boolean endStream);
 
+    /**
+     * Writes an {@link HttpHeaders} and the {@link HttpData} which follows it. An implementation may
+     * coalesce them into a single write.
+     */
+    public final ChannelFuture writeHeadersAndData(
+            ChannelHandlerContext ctx, int id, int streamId,
+            HttpHeaders headers, HttpData data, boolean endStream) {
+
+        assert ctx.channel().eventLoop().inEventLoop();
+
+        if (closed) {
+            ReferenceCountUtil.safeRelease(data);
+            return newFailedFuture(ctx);
+        }
+
+        return doWriteHeadersAndData(ctx, id, streamId, headers, data, endStream);
+    }
+
+    protected ChannelFuture doWriteHeadersAndData(
+            ChannelHandlerContext ctx, int id, int streamId,
+            HttpHeaders headers, HttpData data, boolean endStream) {
+
+        final ChannelFuture future = doWriteHeaders(ctx, id, streamId, headers, false);
+        if (future.isDone() && !future.isSuccess()) {
+            ReferenceCountUtil.safeRelease(data);
+            return future;
+        }
+
+        return doWriteData(ctx, id, streamId, data, endStream);
+    }
+
     /**
      * Resets the specified stream. If the session protocol does not support multiplexing or the connection
      * is in unrecoverable state, the connection will be closed. For example, in an HTTP/1 connection, this
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+
+import io.netty.util.AttributeKey;
+
+/**
+ * Keeps track of the host {@link Endpoint} selected from an {@code EndpointGroup} for a request.
+ */
+public final class SelectedEndpoints {
+
+    private static final AttributeKey<Endpoint> SELECTED_ENDPOINT =
+            AttributeKey.valueOf(SelectedEndpoints.class, "SELECTED_ENDPOINT");
+
+    /**
+     * Remembers the specified {@link Endpoint} as the one selected for the specified
+     * {@link ClientRequestContext}.
+     */
+    public static void set(ClientRequestContext ctx, Endpoint endpoint) {
+        ctx.attr(SELECTED_ENDPOINT).set(endpoint);
+    }
+
+    /**
+     * Returns the {@link Endpoint} selected for the specified {@link ClientRequestContext}, or {@code null}
+     * if no {@link Endpoint} has been selected from an {@code EndpointGroup} yet.
+     */
+    @Nullable
+    public static Endpoint get(ClientRequestContext ctx) {
+        return ctx.attr(SELECTED_ENDPOINT).get();
+    }
+
+    private SelectedEndpoints() {}
+}
@@ -29,6 +29,7 @@ import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.ToDoubleFunction;
@@ -37,6 +38,7 @@ import javax.annotation.Nullable;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Policy.Eviction;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import com.google.common.annotations.VisibleForTesting;
 
@@ -87,6 +89,7 @@ public final class CaffeineMetricSupport {
         private final MeterIdPrefix idPrefix;
         private final List<CacheReference> cacheRefs = new ArrayList<>(2);
         private final AtomicBoolean hasLoadingCache = new AtomicBoolean();
+        private final AtomicBoolean hasWeightedCache = new AtomicBoolean();
 
         /**
          * An array whose each element is the sum of the garbage-collected {@link Cache} stats.
@@ -134,6 +137,16 @@ public final class CaffeineMetricSupport {
                 parent.more().counter(idPrefix.name("loadDuration"), idPrefix.tags(), this,
                                       func(TOTAL_LOAD_TIME, ref -> ref.cacheStats.totalLoadTime()));
             }
+
+            if (isWeighted(cache) && hasWeightedCache.compareAndSet(false, true)) {
+                // Add the total weight of the entries only for the cache bounded by weight and only once.
+                parent.gauge(idPrefix.name("weightedSize"), idPrefix.tags(), this,
+                             func(null, ref -> ref.weightedSize));
+            }
+        }
+
+        private static boolean isWeighted(Cache<?, ?> cache) {
+            return cache.policy().eviction().map(Eviction::isWeighted).orElse(false);
         }
 
         private ToDoubleFunction<CaffeineMetrics> func(@Nullable Type type,
@@ -181,6 +194,7 @@ public final class CaffeineMetricSupport {
         private volatile long lastStatsUpdateTime;
         private CacheStats cacheStats = CacheStats.empty();
         private long estimatedSize;
+        private long weightedSize;
 
         CacheReference(Cache<?, ?> cache, Ticker ticker) {
             super(requireNonNull(cache, "cache"));
@@ -207,11 +221,20 @@ public final class CaffeineMetricSupport {
 
             cacheStats = cache.stats();
             estimatedSize = cache.estimatedSize();
+            weightedSize = weightedSize(cache);
 
-            // Write the volatile field last so that cacheStats and estimatedSize are visible
+            // Write the volatile field last so that cacheStats, estimatedSize and weightedSize are visible
             // after reading the volatile field.
             lastStatsUpdateTime = currentTimeNanos;
             return false; // Not GC'd
         }
+
+        private static long weightedSize(Cache<?, ?> cache) {
+            final Optional<? extends Eviction<?, ?>> eviction = cache.policy().eviction();
+            if (!eviction.isPresent()) {
+                return 0;
+            }
+            return eviction.get().weightedSize().orElse(0);
+        }
     }
 }
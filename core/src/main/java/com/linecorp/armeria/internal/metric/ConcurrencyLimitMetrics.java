@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal.metric;
+
+import static com.linecorp.armeria.common.metric.MoreMeters.newTimer;
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.TimeUnit;
+
+import com.linecorp.armeria.common.limit.AdaptiveLimit;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * The metrics of a component which limits the number of concurrent requests with an {@link AdaptiveLimit}:
+ * <ul>
+ *   <li>{@code <prefix>.limit} - the current limit</li>
+ *   <li>{@code <prefix>.inflight} - the number of requests in flight, which is
+ *       {@link AdaptiveLimit#inflight()}</li>
+ *   <li>{@code <prefix>.queueWaitDuration} - the time spent by the requests waiting for the limit</li>
+ * </ul>
+ */
+public final class ConcurrencyLimitMetrics {
+
+    /**
+     * Returns the {@link ConcurrencyLimitMetrics} registered with the specified {@link MeterIdPrefix},
+     * registering a new one if not registered yet.
+     */
+    public static ConcurrencyLimitMetrics of(MeterRegistry registry, MeterIdPrefix idPrefix,
+                                             AdaptiveLimit limit) {
+        requireNonNull(limit, "limit");
+        return MicrometerUtil.register(registry, idPrefix, ConcurrencyLimitMetrics.class,
+                                       (reg, prefix) -> new ConcurrencyLimitMetrics(reg, prefix, limit));
+    }
+
+    // Keep the strong reference because a gauge only holds a weak reference to its state object.
+    private final AdaptiveLimit limit;
+    private final Timer queueWaitDuration;
+
+    private ConcurrencyLimitMetrics(MeterRegistry registry, MeterIdPrefix idPrefix,
+                                    AdaptiveLimit limit) {
+        this.limit = limit;
+        registry.gauge(idPrefix.name("limit"), idPrefix.tags(), this, metrics -> metrics.limit.limit());
+        registry.gauge(idPrefix.name("inflight"), idPrefix.tags(), this, metrics -> metrics.limit.inflight());
+        queueWaitDuration = newTimer(registry, idPrefix.name("queueWaitDuration"), idPrefix.tags());
+    }
+
+    /**
+     * Records the time a request spent waiting for the limit.
+     */
+    public void recordQueueWait(long durationNanos) {
+        queueWaitDuration.record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+}
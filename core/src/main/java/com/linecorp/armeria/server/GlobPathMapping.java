@@ -113,6 +113,10 @@ final class GlobPathMapping extends AbstractPathMapping {
         return meterTag;
     }
 
+    String glob() {
+        return glob;
+    }
+
     @VisibleForTesting
     Pattern asRegex() {
         return pattern;
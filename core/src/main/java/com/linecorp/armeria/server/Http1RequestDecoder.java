@@ -35,6 +35,9 @@ import com.linecorp.armeria.common.ProtocolViolationException;
 import com.linecorp.armeria.internal.ArmeriaHttpUtil;
 import com.linecorp.armeria.internal.Http1ObjectEncoder;
 import com.linecorp.armeria.internal.InboundTrafficController;
+import com.linecorp.armeria.server.Http1RequestParser.BadRequest;
+import com.linecorp.armeria.server.Http1RequestParser.Head;
+import com.linecorp.armeria.server.Http1RequestParser.Tail;
 import com.linecorp.armeria.unsafe.ByteBufHttpData;
 
 import io.netty.buffer.ByteBuf;
@@ -99,6 +102,12 @@ final class Http1RequestDecoder extends ChannelDuplexHandler {
 
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        if (msg instanceof Head || msg instanceof HttpData || msg instanceof Tail ||
+            msg instanceof BadRequest) {
+            decodeParsedRequest(ctx, msg);
+            return;
+        }
+
         if (!(msg instanceof HttpObject)) {
             ctx.fireChannelRead(msg);
             return;
@@ -230,6 +239,112 @@ final class Http1RequestDecoder extends ChannelDuplexHandler {
         }
     }
 
+    /**
+     * Handles the {@link Head}, {@link HttpData}, {@link Tail} and {@link BadRequest} produced by
+     * {@link Http1RequestParser}.
+     */
+    private void decodeParsedRequest(ChannelHandlerContext ctx, Object msg) {
+        // this.req can be set to null by fail(), so we keep it in a local variable.
+        DecodedHttpRequest req = this.req;
+        final int id = req != null ? req.id() : ++receivedRequests;
+        boolean released = false;
+        try {
+            if (discarding) {
+                return;
+            }
+
+            if (msg instanceof BadRequest) {
+                fail(ctx, id, ((BadRequest) msg).status());
+                if (req != null) {
+                    req.close(new ProtocolViolationException("malformed HTTP/1 request"));
+                }
+                return;
+            }
+
+            if (msg instanceof Head) {
+                if (req != null) {
+                    // Received the next request before the current one is complete; should never happen.
+                    fail(ctx, id, HttpResponseStatus.BAD_REQUEST);
+                    req.close(new ProtocolViolationException("unexpected HTTP/1 request"));
+                    return;
+                }
+
+                final Head head = (Head) msg;
+                final com.linecorp.armeria.common.HttpHeaders headers = head.headers();
+                if (head.isHttp11() &&
+                    !handle100Continue(ctx, id, headers.get(HttpHeaderNames.EXPECT))) {
+                    ctx.pipeline().fireUserEventTriggered(HttpExpectationFailedEvent.INSTANCE);
+                    fail(ctx, id, HttpResponseStatus.EXPECTATION_FAILED);
+                    return;
+                }
+                headers.remove(HttpHeaderNames.EXPECT);
+
+                this.req = req = new DecodedHttpRequest(
+                        ctx.channel().eventLoop(),
+                        id, 1,
+                        headers,
+                        head.isKeepAlive(),
+                        inboundTrafficController,
+                        cfg.defaultMaxRequestLength());
+
+                // Close the request early when it is sure that there will be
+                // neither content nor trailing headers.
+                if (!head.hasContent()) {
+                    req.close();
+                    this.req = null;
+                }
+
+                ctx.fireChannelRead(req);
+                return;
+            }
+
+            if (req == null) {
+                fail(ctx, id, HttpResponseStatus.BAD_REQUEST);
+                return;
+            }
+
+            if (msg instanceof HttpData) {
+                final HttpData data = (HttpData) msg;
+                final int dataLength = data.length();
+                if (dataLength != 0) {
+                    req.increaseTransferredBytes(dataLength);
+                    final long maxContentLength = req.maxRequestLength();
+                    if (maxContentLength > 0 && req.transferredBytes() > maxContentLength) {
+                        fail(ctx, id, HttpResponseStatus.REQUEST_ENTITY_TOO_LARGE);
+                        req.close(ContentTooLargeException.get());
+                        return;
+                    }
+
+                    if (req.isOpen()) {
+                        // The ownership of the data is transferred to the request.
+                        released = true;
+                        req.write(data);
+                    }
+                }
+                return;
+            }
+
+            final com.linecorp.armeria.common.HttpHeaders trailers = ((Tail) msg).trailers();
+            if (!trailers.isEmpty()) {
+                req.write(trailers);
+            }
+
+            req.close();
+            this.req = null;
+        } catch (Throwable t) {
+            fail(ctx, id, HttpResponseStatus.INTERNAL_SERVER_ERROR);
+            if (req != null) {
+                req.close(t);
+            } else {
+                logger.warn("Unexpected exception:", t);
+            }
+        } finally {
+            if (!released) {
+                ReferenceCountUtil.release(msg);
+            }
+        }
+    }
+
     private boolean handle100Continue(ChannelHandlerContext ctx, int id,
                                       HttpRequest nettyReq, HttpHeaders nettyHeaders) {
 
@@ -238,7 +353,16 @@ final class Http1RequestDecoder extends ChannelDuplexHandler {
             return true;
         }
 
-        final String expectValue = nettyHeaders.get(HttpHeaderNames.EXPECT);
+        if (!handle100Continue(ctx, id, nettyHeaders.get(HttpHeaderNames.EXPECT))) {
+            return false;
+        }
+
+        // Remove the 'expect' header so that it's handled in a way invisible to a Service.
+        nettyHeaders.remove(HttpHeaderNames.EXPECT);
+        return true;
+    }
+
+    private boolean handle100Continue(ChannelHandlerContext ctx, int id, @Nullable String expectValue) {
         if (expectValue == null) {
             // No 'expect' header.
             return true;
@@ -251,9 +375,6 @@ final class Http1RequestDecoder extends ChannelDuplexHandler {
 
         // Send a '100 Continue' response.
         writer.writeHeaders(ctx, id, 1, CONTINUE_RESPONSE, false);
-
-        // Remove the 'expect' header so that it's handled in a way invisible to a Service.
-        nettyHeaders.remove(HttpHeaderNames.EXPECT);
         return true;
     }
 
@@ -0,0 +1,879 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import static io.netty.handler.codec.http.HttpUtil.isAsteriskForm;
+import static io.netty.handler.codec.http.HttpUtil.isOriginForm;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.StringJoiner;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+
+import com.linecorp.armeria.common.DefaultHttpHeaders;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.internal.ArmeriaHttpUtil;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.ByteToMessageDecoder;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.AsciiString;
+
+/**
+ * Decodes HTTP/1 requests into Armeria {@link HttpHeaders} and {@link ByteBufHttpData}s directly, without
+ * building Netty {@link io.netty.handler.codec.http.HttpRequest}s and their headers first.
+ *
+ * <p>Each header block is copied once into a byte array and the header names and values are decoded from
+ * the {@link AsciiString} slices over it. The well-known header names are replaced with the constants in
+ * {@link HttpHeaderNames}. The headers are converted into HTTP/2 headers in the same way as
+ * {@link ArmeriaHttpUtil#toArmeria(io.netty.handler.codec.http.HttpRequest)} does.
+ *
+ * <p>This decoder produces the following messages for each request:
+ * <ul>
+ *   <li>a {@link Head} which contains the request line and the headers</li>
+ *   <li>the {@link ByteBufHttpData}s of the content, if {@link Head#hasContent()} is {@code true}</li>
+ *   <li>a {@link Tail} which contains the trailing headers, if {@link Head#hasContent()} is {@code true}</li>
+ * </ul>
+ * A {@link BadRequest} is produced instead when a request is malformed, and then all received bytes
+ * are discarded.
+ *
+ * <p>Unlike Netty's {@link io.netty.handler.codec.http.HttpServerCodec}, this decoder does not handle
+ * an {@code "upgrade"} request. Use {@link #isUpgradeRequest(ByteBuf, int)} to determine whether a
+ * connection should be handled by this decoder.
+ */
+final class Http1RequestParser extends ByteToMessageDecoder {
+
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+    private static final int NEED_MORE = -1;
+    private static final int TOO_LONG = -2;
+
+    private static final byte[] UPGRADE_PREFIX = "upgrade:".getBytes(StandardCharsets.US_ASCII);
+
+    private static final AsciiString CHUNKED = AsciiString.cached("chunked");
+    private static final AsciiString CLOSE = AsciiString.cached("close");
+    private static final AsciiString KEEP_ALIVE = AsciiString.cached("keep-alive");
+    private static final AsciiString TRAILERS = AsciiString.cached("trailers");
+
+    private static final Splitter COOKIE_SPLITTER = Splitter.on(';').trimResults().omitEmptyStrings();
+    private static final String COOKIE_SEPARATOR = "; ";
+
+    private static final ImmutableMap<AsciiString, HttpMethod> METHODS;
+
+    /**
+     * The characters which can appear in the path and the query of a request target without being
+     * validated by {@link URI}. {@code '%'} is validated separately.
+     */
+    private static final boolean[] SAFE_TARGET_CHARS = new boolean[128];
+
+    /**
+     * The characters which can appear in a header name, as specified in RFC 7230, section 3.2.6.
+     */
+    private static final boolean[] TOKEN_CHARS = new boolean[128];
+
+    static {
+        final ImmutableMap.Builder<AsciiString, HttpMethod> builder = ImmutableMap.builder();
+        for (HttpMethod method : HttpMethod.values()) {
+            if (HttpMethod.isSupported(method.name())) {
+                builder.put(AsciiString.cached(method.name()), method);
+            }
+        }
+        METHODS = builder.build();
+
+        for (char c = '0'; c <= '9'; c++) {
+            SAFE_TARGET_CHARS[c] = true;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            SAFE_TARGET_CHARS[c] = true;
+            SAFE_TARGET_CHARS[Character.toUpperCase(c)] = true;
+        }
+        for (char c : "-._~!$&'()*+,;=:@/?".toCharArray()) {
+            SAFE_TARGET_CHARS[c] = true;
+        }
+
+        for (char c = '0'; c <= '9'; c++) {
+            TOKEN_CHARS[c] = true;
+        }
+        for (char c = 'a'; c <= 'z'; c++) {
+            TOKEN_CHARS[c] = true;
+            TOKEN_CHARS[Character.toUpperCase(c)] = true;
+        }
+        for (char c : "!#$%&'*+-.^_`|~".toCharArray()) {
+            TOKEN_CHARS[c] = true;
+        }
+    }
+
+    private enum State {
+        READ_HEADERS,
+        READ_FIXED_LENGTH_CONTENT,
+        READ_CHUNK_SIZE,
+        READ_CHUNKED_CONTENT,
+        READ_CHUNK_DELIMITER,
+        READ_TRAILERS,
+        DISCARD
+    }
+
+    private final int maxInitialLineLength;
+    private final int maxHeaderSize;
+    private final int maxChunkSize;
+    private final String scheme;
+
+    private State state = State.READ_HEADERS;
+
+    /** The number of the content bytes to read in the current request or chunk. */
+    private long remainingContentLength;
+
+    Http1RequestParser(int maxInitialLineLength, int maxHeaderSize, int maxChunkSize, AsciiString scheme) {
+        this.maxInitialLineLength = maxInitialLineLength;
+        this.maxHeaderSize = maxHeaderSize;
+        this.maxChunkSize = maxChunkSize;
+        this.scheme = scheme.toString();
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+        switch (state) {
+            case READ_HEADERS:
+                readHeaders(in, out);
+                break;
+            case READ_FIXED_LENGTH_CONTENT:
+            case READ_CHUNKED_CONTENT:
+                readContent(in, out);
+                break;
+            case READ_CHUNK_SIZE:
+                readChunkSize(in, out);
+                break;
+            case READ_CHUNK_DELIMITER:
+                readChunkDelimiter(in, out);
+                break;
+            case READ_TRAILERS:
+                readTrailers(in, out);
+                break;
+            case DISCARD:
+                in.skipBytes(in.readableBytes());
+                break;
+        }
+    }
+
+    private void readHeaders(ByteBuf in, List<Object> out) {
+        // Ignore the empty lines before the request line, as recommended by RFC 7230, section 3.5.
+        int start = in.readerIndex();
+        final int end = in.writerIndex();
+        while (start < end && isWhitespaceOrLineBreak(in.getByte(start))) {
+            start++;
+        }
+        in.readerIndex(start);
+
+        final int headersEnd = findEndOfHeaders(in, maxInitialLineLength + maxHeaderSize);
+        if (headersEnd == NEED_MORE) {
+            return;
+        }
+        if (headersEnd == TOO_LONG) {
+            fail(in, out, BadRequest.BAD_REQUEST);
+            return;
+        }
+
+        final byte[] block = new byte[headersEnd - start];
+        in.readBytes(block);
+
+        Object head;
+        try {
+            head = parseHead(block);
+        } catch (IllegalArgumentException e) {
+            // Rejected by the validation of HttpHeaders.
+            head = BadRequest.BAD_REQUEST;
+        }
+        if (head instanceof BadRequest) {
+            fail(in, out, (BadRequest) head);
+            return;
+        }
+
+        out.add(head);
+    }
+
+    private Object parseHead(byte[] block) {
+        // Parse the request line.
+        final int lineEnd = findLineEnd(block, 0);
+        if (lineEnd > maxInitialLineLength) {
+            return BadRequest.BAD_REQUEST;
+        }
+
+        final int methodEnd = indexOfWhitespace(block, 0, lineEnd);
+        final int targetStart = skipWhitespaces(block, methodEnd, lineEnd);
+        final int targetEnd = indexOfWhitespace(block, targetStart, lineEnd);
+        final int versionStart = skipWhitespaces(block, targetEnd, lineEnd);
+        final int versionEnd = trimEnd(block, versionStart, lineEnd);
+        if (methodEnd == 0 || targetStart == targetEnd || versionStart == versionEnd ||
+            indexOfWhitespace(block, versionStart, versionEnd) != versionEnd) {
+            return BadRequest.BAD_REQUEST;
+        }
+
+        final boolean http11;
+        if (isVersion(block, versionStart, versionEnd, (byte) '1')) {
+            http11 = true;
+        } else if (isVersion(block, versionStart, versionEnd, (byte) '0')) {
+            http11 = false;
+        } else {
+            return BadRequest.BAD_REQUEST;
+        }
+
+        final HttpMethod method = METHODS.get(new AsciiString(block, 0, methodEnd, false));
+        if (method == null) {
+            return BadRequest.METHOD_NOT_ALLOWED;
+        }
+
+        final HttpHeaders headers = new DefaultHttpHeaders(true, 16);
+        headers.method(method);
+
+        // Convert the request target into ':path' and ':scheme'. Use java.net.URI only when necessary.
+        @Nullable
+        final URI uri;
+        if (isSimpleOriginForm(block, targetStart, targetEnd)) {
+            uri = null;
+            headers.path(new AsciiString(block, targetStart, targetEnd - targetStart, false).toString());
+            headers.scheme(scheme);
+        } else {
+            try {
+                uri = ArmeriaHttpUtil.toUri(
+                        new String(block, targetStart, targetEnd - targetStart, StandardCharsets.ISO_8859_1));
+            } catch (URISyntaxException e) {
+                return BadRequest.BAD_REQUEST;
+            }
+            headers.path(ArmeriaHttpUtil.toHttp2Path(uri));
+            headers.scheme(uri.getScheme() != null ? uri.getScheme() : scheme);
+        }
+
+        // Parse the header fields.
+        final HeaderParser parser = new HeaderParser(headers, false);
+        if (!parser.parse(block, nextLineStart(block, lineEnd))) {
+            return BadRequest.BAD_REQUEST;
+        }
+
+        if (uri == null || !isOriginForm(uri) && !isAsteriskForm(uri)) {
+            // Attempt to take from the 'host' header before taking from the request target.
+            final String host = parser.host;
+            final String authority;
+            if (host != null && !host.isEmpty()) {
+                authority = host;
+            } else {
+                authority = uri != null ? uri.getAuthority() : null;
+            }
+            try {
+                ArmeriaHttpUtil.setHttp2Authority(authority, headers);
+            } catch (IllegalArgumentException e) {
+                return BadRequest.BAD_REQUEST;
+            }
+        }
+
+        final String connection = parser.connection;
+        final boolean keepAlive;
+        if (connection == null) {
+            keepAlive = http11;
+        } else if (containsToken(connection, CLOSE)) {
+            keepAlive = false;
+        } else {
+            keepAlive = http11 || containsToken(connection, KEEP_ALIVE);
+        }
+
+        // Determine the length of the content, as specified in RFC 7230, section 3.3.3.
+        @Nullable
+        final String transferEncoding = parser.transferEncoding;
+        final boolean hasContent;
+        if (transferEncoding != null) {
+            // The content of a request whose final transfer coding is not 'chunked' cannot be delimited.
+            if (!isChunkedOnlyOnceAndLast(transferEncoding)) {
+                return BadRequest.BAD_REQUEST;
+            }
+            headers.remove(HttpHeaderNames.CONTENT_LENGTH);
+            state = State.READ_CHUNK_SIZE;
+            hasContent = true;
+        } else if (parser.contentLength > 0) {
+            remainingContentLength = parser.contentLength;
+            state = State.READ_FIXED_LENGTH_CONTENT;
+            hasContent = true;
+        } else {
+            hasContent = false;
+        }
+
+        return new Head(headers, keepAlive, http11, hasContent);
+    }
+
+    private void readContent(ByteBuf in, List<Object> out) {
+        final int length = (int) Math.min(Math.min(remainingContentLength, in.readableBytes()), maxChunkSize);
+        if (length == 0) {
+            return;
+        }
+
+        out.add(new ByteBufHttpData(in.readRetainedSlice(length), false));
+        remainingContentLength -= length;
+        if (remainingContentLength != 0) {
+            return;
+        }
+
+        if (state == State.READ_FIXED_LENGTH_CONTENT) {
+            out.add(Tail.EMPTY);
+            state = State.READ_HEADERS;
+        } else {
+            state = State.READ_CHUNK_DELIMITER;
+        }
+    }
+
+    private void readChunkSize(ByteBuf in, List<Object> out) {
+        final int start = in.readerIndex();
+        final int lf = in.indexOf(start, Math.min(in.writerIndex(), start + maxInitialLineLength), LF);
+        if (lf < 0) {
+            if (in.readableBytes() >= maxInitialLineLength) {
+                fail(in, out, BadRequest.BAD_REQUEST);
+            }
+            return;
+        }
+
+        // Parse the hexadecimal chunk size, ignoring the chunk extensions.
+        long chunkSize = 0;
+        int numDigits = 0;
+        for (int i = start; i < lf; i++) {
+            final int digit = Character.digit(in.getByte(i), 16);
+            if (digit < 0) {
+                break;
+            }
+            if (++numDigits > 15) {
+                fail(in, out, BadRequest.BAD_REQUEST);
+                return;
+            }
+            chunkSize = chunkSize << 4 | digit;
+        }
+        if (numDigits == 0) {
+            fail(in, out, BadRequest.BAD_REQUEST);
+            return;
+        }
+
+        in.readerIndex(lf + 1);
+        if (chunkSize == 0) {
+            state = State.READ_TRAILERS;
+        } else {
+            remainingContentLength = chunkSize;
+            state = State.READ_CHUNKED_CONTENT;
+        }
+    }
+
+    private void readChunkDelimiter(ByteBuf in, List<Object> out) {
+        final int start = in.readerIndex();
+        final byte b = in.getByte(start);
+        if (b == LF) {
+            in.readerIndex(start + 1);
+        } else if (b == CR) {
+            if (in.readableBytes() < 2) {
+                return;
+            }
+            if (in.getByte(start + 1) != LF) {
+                fail(in, out, BadRequest.BAD_REQUEST);
+                return;
+            }
+            in.readerIndex(start + 2);
+        } else {
+            fail(in, out, BadRequest.BAD_REQUEST);
+            return;
+        }
+
+        state = State.READ_CHUNK_SIZE;
+    }
+
+    private void readTrailers(ByteBuf in, List<Object> out) {
+        final int start = in.readerIndex();
+        final int trailersEnd = findEndOfHeaders(in, maxHeaderSize);
+        if (trailersEnd == NEED_MORE) {
+            return;
+        }
+        if (trailersEnd == TOO_LONG) {
+            fail(in, out, BadRequest.BAD_REQUEST);
+            return;
+        }
+
+        final Tail tail;
+        if (isLineBreak(in.getByte(start))) {
+            // No trailing headers
+            in.readerIndex(trailersEnd);
+            tail = Tail.EMPTY;
+        } else {
+            final byte[] block = new byte[trailersEnd - start];
+            in.readBytes(block);
+            final HttpHeaders trailers = new DefaultHttpHeaders(true, 4);
+            boolean valid;
+            try {
+                valid = new HeaderParser(trailers, true).parse(block, 0);
+            } catch (IllegalArgumentException e) {
+                // Rejected by the validation of HttpHeaders.
+                valid = false;
+            }
+            if (!valid) {
+                fail(in, out, BadRequest.BAD_REQUEST);
+                return;
+            }
+            tail = trailers.isEmpty() ? Tail.EMPTY : new Tail(trailers);
+        }
+
+        out.add(tail);
+        state = State.READ_HEADERS;
+    }
+
+    private void fail(ByteBuf in, List<Object> out, BadRequest badRequest) {
+        out.add(badRequest);
+        state = State.DISCARD;
+        in.skipBytes(in.readableBytes());
+    }
+
+    /**
+     * Returns whether the first request in the specified {@link ByteBuf} has an {@code "upgrade"} header,
+     * without consuming it. {@code null} is returned if the header block of the request has not been
+     * received completely.
+     */
+    @Nullable
+    static Boolean isUpgradeRequest(ByteBuf in, int maxHeaderBlockLength) {
+        final int end = findEndOfHeaders(in, maxHeaderBlockLength);
+        if (end == NEED_MORE) {
+            return null;
+        }
+        if (end == TOO_LONG) {
+            // Let the decoder reject the request.
+            return false;
+        }
+
+        int lineStart = in.indexOf(in.readerIndex(), end, LF) + 1;
+        while (lineStart < end) {
+            if (startsWithUpgrade(in, lineStart, end)) {
+                return true;
+            }
+            lineStart = in.indexOf(lineStart, end, LF) + 1;
+        }
+        return false;
+    }
+
+    private static boolean startsWithUpgrade(ByteBuf in, int start, int end) {
+        if (end - start < UPGRADE_PREFIX.length) {
+            return false;
+        }
+        for (int i = 0; i < UPGRADE_PREFIX.length; i++) {
+            // Lower-case the letters. ':' is not affected.
+            if ((in.getByte(start + i) | 0x20) != UPGRADE_PREFIX[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the index right after the empty line which terminates the header block which starts at
+     * {@link ByteBuf#readerIndex()}, {@link #NEED_MORE} if the empty line has not been received yet,
+     * or {@link #TOO_LONG} if the header block is longer than {@code maxLength}.
+     */
+    private static int findEndOfHeaders(ByteBuf in, int maxLength) {
+        final int start = in.readerIndex();
+        final int end = in.writerIndex();
+        final int searchEnd = (int) Math.min(end, (long) start + maxLength);
+        int lineStart = start;
+        for (;;) {
+            final int lf = in.indexOf(lineStart, searchEnd, LF);
+            if (lf < 0) {
+                return searchEnd < end ? TOO_LONG : NEED_MORE;
+            }
+            if (lf == lineStart || lf == lineStart + 1 && in.getByte(lineStart) == CR) {
+                return lf + 1;
+            }
+            lineStart = lf + 1;
+        }
+    }
+
+    /**
+     * Returns the end of the line which starts at {@code start}, excluding the line break.
+     */
+    private static int findLineEnd(byte[] block, int start) {
+        for (int i = start; i < block.length; i++) {
+            if (block[i] == LF) {
+                return i > start && block[i - 1] == CR ? i - 1 : i;
+            }
+        }
+        return block.length;
+    }
+
+    /**
+     * Returns the start of the line which follows the line which ends at {@code lineEnd}.
+     */
+    private static int nextLineStart(byte[] block, int lineEnd) {
+        return lineEnd < block.length && block[lineEnd] == CR ? lineEnd + 2 : lineEnd + 1;
+    }
+
+    private static int indexOfWhitespace(byte[] block, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (isWhitespace(block[i])) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int skipWhitespaces(byte[] block, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!isWhitespace(block[i])) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int trimEnd(byte[] block, int start, int end) {
+        while (end > start && isWhitespace(block[end - 1])) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t';
+    }
+
+    private static boolean isLineBreak(byte b) {
+        return b == CR || b == LF;
+    }
+
+    private static boolean isWhitespaceOrLineBreak(byte b) {
+        return isWhitespace(b) || isLineBreak(b);
+    }
+
+    /**
+     * Returns whether the specified bytes are {@code "HTTP/1.<minorVersion>"}.
+     */
+    private static boolean isVersion(byte[] block, int start, int end, byte minorVersion) {
+        return end - start == 8 &&
+               block[start] == 'H' && block[start + 1] == 'T' && block[start + 2] == 'T' &&
+               block[start + 3] == 'P' && block[start + 4] == '/' && block[start + 5] == '1' &&
+               block[start + 6] == '.' && block[start + 7] == minorVersion;
+    }
+
+    /**
+     * Returns whether the specified request target is in the origin form and {@link URI} would accept it
+     * as it is, so that it can be used as the {@code ":path"} header without any conversion.
+     */
+    private static boolean isSimpleOriginForm(byte[] block, int start, int end) {
+        if (block[start] != '/' || end - start > 1 && block[start + 1] == '/') {
+            return false;
+        }
+
+        for (int i = start + 1; i < end; i++) {
+            final byte b = block[i];
+            if (b == '%') {
+                if (i + 2 >= end || !isHexDigit(block[i + 1]) || !isHexDigit(block[i + 2])) {
+                    return false;
+                }
+                i += 2;
+            } else if (b < 0 || !SAFE_TARGET_CHARS[b]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isHexDigit(byte b) {
+        return Character.digit(b, 16) >= 0;
+    }
+
+    /**
+     * Returns whether the specified comma-separated header value contains the specified token,
+     * ignoring case.
+     */
+    private static boolean containsToken(String value, AsciiString token) {
+        final int length = value.length();
+        int start = 0;
+        while (start < length) {
+            int end = value.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (AsciiString.contentEqualsIgnoreCase(AsciiString.trim(value.subSequence(start, end)), token)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether the specified {@code "transfer-encoding"} header value has {@code "chunked"} as its
+     * final transfer coding and nowhere else, as required by RFC 7230, section 3.3.1.
+     */
+    private static boolean isChunkedOnlyOnceAndLast(String value) {
+        final int length = value.length();
+        int start = 0;
+        boolean chunkedLast = false;
+        while (start < length) {
+            int end = value.indexOf(',', start);
+            if (end < 0) {
+                end = length;
+            }
+            final CharSequence coding = AsciiString.trim(value.subSequence(start, end));
+            if (coding.length() != 0) {
+                if (chunkedLast) {
+                    // 'chunked' is followed by another transfer coding.
+                    return false;
+                }
+                chunkedLast = AsciiString.contentEqualsIgnoreCase(coding, CHUNKED);
+            }
+            start = end + 1;
+        }
+        return chunkedLast;
+    }
+
+    /**
+     * Parses the header fields of a header block into Armeria {@link HttpHeaders}, dropping the headers
+     * which are specific to HTTP/1 connections.
+     */
+    private static final class HeaderParser {
+
+        private final HttpHeaders out;
+        private final boolean trailers;
+
+        @Nullable
+        String host;
+        @Nullable
+        String connection;
+        @Nullable
+        String transferEncoding;
+        long contentLength = -1;
+        @Nullable
+        private StringJoiner cookieJoiner;
+
+        HeaderParser(HttpHeaders out, boolean trailers) {
+            this.out = out;
+            this.trailers = trailers;
+        }
+
+        /**
+         * Parses the header fields which start at {@code start}.
+         *
+         * @return {@code false} if the header fields are malformed
+         */
+        boolean parse(byte[] block, int start) {
+            int lineStart = start;
+            for (;;) {
+                final int lineEnd = findLineEnd(block, lineStart);
+                if (lineEnd == lineStart) {
+                    break;
+                }
+                if (!parseField(block, lineStart, lineEnd)) {
+                    return false;
+                }
+                lineStart = nextLineStart(block, lineEnd);
+            }
+
+            if (cookieJoiner != null && cookieJoiner.length() != 0) {
+                out.add(HttpHeaderNames.COOKIE, cookieJoiner.toString());
+            }
+
+            if (connection != null) {
+                // Remove the headers nominated by the 'connection' header.
+                for (String name : connection.split(",")) {
+                    final String trimmed = name.trim();
+                    if (!trimmed.isEmpty()) {
+                        out.remove(HttpHeaderNames.of(trimmed));
+                    }
+                }
+            }
+            return true;
+        }
+
+        private boolean parseField(byte[] block, int start, int end) {
+            if (isWhitespace(block[start])) {
+                // Reject the obsolete line folding, as permitted by RFC 7230, section 3.2.4.
+                return false;
+            }
+
+            int colon = -1;
+            for (int i = start; i < end; i++) {
+                if (block[i] == ':') {
+                    colon = i;
+                    break;
+                }
+            }
+            if (colon == start) {
+                return false;
+            }
+            for (int i = start; i < colon; i++) {
+                final byte b = block[i];
+                if (b < 0 || !TOKEN_CHARS[b]) {
+                    // Also rejects the whitespace between the name and the colon.
+                    return false;
+                }
+            }
+
+            final AsciiString name = HttpHeaderNames.of(new AsciiString(block, start, colon - start, false));
+            final int valueStart = skipWhitespaces(block, colon + 1, end);
+            final int valueEnd = trimEnd(block, valueStart, end);
+            for (int i = valueStart; i < valueEnd; i++) {
+                final byte b = block[i];
+                if (b == CR || b == 0) {
+                    // Reject a bare CR, which may be interpreted as a line break by other implementations.
+                    return false;
+                }
+            }
+            final String value = new AsciiString(block, valueStart, valueEnd - valueStart, false).toString();
+
+            if (name == HttpHeaderNames.CONTENT_LENGTH && !trailers) {
+                final long newContentLength = parseContentLength(value);
+                if (newContentLength < 0) {
+                    return false;
+                }
+                if (contentLength < 0) {
+                    contentLength = newContentLength;
+                    out.add(name, value);
+                } else if (contentLength != newContentLength) {
+                    // Reject the conflicting lengths, as specified in RFC 7230, section 3.3.3.
+                    return false;
+                }
+            } else if (name == HttpHeaderNames.TRANSFER_ENCODING) {
+                if (!trailers) {
+                    transferEncoding = transferEncoding == null ? value : transferEncoding + ',' + value;
+                }
+            } else if (name == HttpHeaderNames.HOST) {
+                if (host == null) {
+                    host = value;
+                }
+            } else if (name == HttpHeaderNames.CONNECTION) {
+                connection = connection == null ? value : connection + ',' + value;
+            } else if (name == HttpHeaderNames.TE) {
+                // https://tools.ietf.org/html/rfc7540#section-8.1.2.2 makes a special exception for TE
+                if (containsToken(value, TRAILERS)) {
+                    out.add(HttpHeaderNames.TE, TRAILERS.toString());
+                }
+            } else if (name == HttpHeaderNames.COOKIE) {
+                // Cookies must be concatenated into a single octet string.
+                // https://tools.ietf.org/html/rfc7540#section-8.1.2.5
+                if (cookieJoiner == null) {
+                    cookieJoiner = new StringJoiner(COOKIE_SEPARATOR);
+                }
+                COOKIE_SPLITTER.split(value).forEach(cookieJoiner::add);
+            } else if (!ArmeriaHttpUtil.isHttpToHttp2Blacklisted(name)) {
+                out.add(name, value);
+            }
+            return true;
+        }
+
+        private static long parseContentLength(String value) {
+            final int length = value.length();
+            if (length == 0 || length > 18) {
+                return -1;
+            }
+
+            long contentLength = 0;
+            for (int i = 0; i < length; i++) {
+                final char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                contentLength = contentLength * 10 + (c - '0');
+            }
+            return contentLength;
+        }
+    }
+
+    /**
+     * The request line and the headers of an HTTP/1 request.
+     */
+    static final class Head {
+
+        private final HttpHeaders headers;
+        private final boolean keepAlive;
+        private final boolean http11;
+        private final boolean hasContent;
+
+        Head(HttpHeaders headers, boolean keepAlive, boolean http11, boolean hasContent) {
+            this.headers = headers;
+            this.keepAlive = keepAlive;
+            this.http11 = http11;
+            this.hasContent = hasContent;
+        }
+
+        HttpHeaders headers() {
+            return headers;
+        }
+
+        boolean isKeepAlive() {
+            return keepAlive;
+        }
+
+        /**
+         * Returns whether the request is an HTTP/1.1 request rather than an HTTP/1.0 one.
+         */
+        boolean isHttp11() {
+            return http11;
+        }
+
+        /**
+         * Returns whether the request has the content or the trailing headers, which are followed by
+         * a {@link Tail}.
+         */
+        boolean hasContent() {
+            return hasContent;
+        }
+    }
+
+    /**
+     * The end of an HTTP/1 request which has the content.
+     */
+    static final class Tail {
+
+        static final Tail EMPTY = new Tail(HttpHeaders.EMPTY_HEADERS);
+
+        private final HttpHeaders trailers;
+
+        Tail(HttpHeaders trailers) {
+            this.trailers = trailers;
+        }
+
+        HttpHeaders trailers() {
+            return trailers;
+        }
+    }
+
+    /**
+     * A malformed HTTP/1 request.
+     */
+    static final class BadRequest {
+
+        static final BadRequest BAD_REQUEST = new BadRequest(HttpResponseStatus.BAD_REQUEST);
+        static final BadRequest METHOD_NOT_ALLOWED = new BadRequest(HttpResponseStatus.METHOD_NOT_ALLOWED);
+
+        private final HttpResponseStatus status;
+
+        private BadRequest(HttpResponseStatus status) {
+            this.status = status;
+        }
+
+        HttpResponseStatus status() {
+            return status;
+        }
+    }
+}
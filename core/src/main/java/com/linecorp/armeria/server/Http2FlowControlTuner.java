@@ -0,0 +1,118 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2LocalFlowController;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2Stream;
+
+/**
+ * Grows the HTTP/2 flow control windows of a connection based on its bandwidth-delay product (BDP).
+ *
+ * <p>When a {@code DATA} frame is received and no probe is in flight, a {@code PING} frame is sent and
+ * the number of bytes received until its acknowledgement is counted. The count approximates the BDP of
+ * the connection, because the acknowledgement arrives one round trip later. If the window is smaller than
+ * twice the BDP and the measured bandwidth is still growing, both the connection window and the initial
+ * stream window are raised to twice the BDP, up to {@value #MAX_WINDOW_SIZE} bytes. Once the connection
+ * window reaches that limit, no more {@code PING} frames are sent because the window cannot grow further.
+ */
+final class Http2FlowControlTuner {
+
+    /**
+     * The payload of the {@code PING} frames sent by this tuner, which distinguishes their
+     * acknowledgements from the ones of the other {@code PING} frames.
+     */
+    static final long PING_PAYLOAD = 0x41524d4542445031L; // "ARMEBDP1"
+
+    private static final int MAX_WINDOW_SIZE = 16 * 1024 * 1024;
+
+    private final Http2Connection connection;
+    private final Http2ConnectionEncoder encoder;
+
+    private boolean pinging;
+    private boolean maxWindowSizeReached;
+    private long pingSentNanos;
+    private int bytesSincePing;
+    private long maxBandwidth;
+
+    Http2FlowControlTuner(Http2ConnectionEncoder encoder) {
+        this.encoder = encoder;
+        connection = encoder.connection();
+    }
+
+    /**
+     * Invoked when a {@code DATA} frame is received.
+     *
+     * @param numBytes the number of flow-controlled bytes in the frame, including padding
+     */
+    void onDataRead(ChannelHandlerContext ctx, int numBytes) {
+        if (!pinging && !maxWindowSizeReached) {
+            pinging = true;
+            bytesSincePing = 0;
+            pingSentNanos = System.nanoTime();
+            encoder.writePing(ctx, false, PING_PAYLOAD, ctx.newPromise());
+            ctx.flush();
+        }
+
+        final int newBytesSincePing = bytesSincePing + numBytes;
+        // Saturate rather than overflow.
+        bytesSincePing = newBytesSincePing >= 0 ? newBytesSincePing : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Invoked when the acknowledgement of the {@code PING} frame sent by this tuner is received.
+     */
+    void onPingAckRead(ChannelHandlerContext ctx) throws Http2Exception {
+        if (!pinging) {
+            return;
+        }
+        pinging = false;
+
+        final long elapsedNanos = Math.max(1, System.nanoTime() - pingSentNanos);
+        final int bdp = bytesSincePing;
+        final long bandwidth = (long) ((double) bdp * 1_000_000_000L / elapsedNanos);
+
+        final Http2LocalFlowController flowController = connection.local().flowController();
+        final Http2Stream connectionStream = connection.connectionStream();
+        final int currentWindowSize = flowController.initialWindowSize(connectionStream);
+        if (currentWindowSize >= MAX_WINDOW_SIZE) {
+            maxWindowSizeReached = true;
+            return;
+        }
+
+        final int targetWindowSize = (int) Math.min(2L * bdp, MAX_WINDOW_SIZE);
+        if (targetWindowSize <= currentWindowSize || bandwidth <= maxBandwidth) {
+            return;
+        }
+
+        maxBandwidth = bandwidth;
+        maxWindowSizeReached = targetWindowSize == MAX_WINDOW_SIZE;
+        flowController.incrementWindowSize(connectionStream, targetWindowSize - currentWindowSize);
+
+        // The new initial stream window is applied to the local flow controller when the settings are
+        // acknowledged by the client.
+        if (targetWindowSize > flowController.initialWindowSize()) {
+            encoder.writeSettings(ctx, new Http2Settings().initialWindowSize(targetWindowSize),
+                                  ctx.newPromise());
+        }
+        ctx.flush();
+    }
+}
@@ -23,6 +23,8 @@ import static io.netty.handler.codec.http2.Http2Exception.streamError;
 
 import java.nio.charset.StandardCharsets;
 
+import javax.annotation.Nullable;
+
 import com.linecorp.armeria.common.ClosedSessionException;
 import com.linecorp.armeria.common.ContentTooLargeException;
 import com.linecorp.armeria.common.HttpHeaderNames;
@@ -57,6 +59,8 @@ final class Http2RequestDecoder extends Http2EventAdapter {
     private final ServerConfig cfg;
     private final Http2ConnectionEncoder writer;
     private final InboundTrafficController inboundTrafficController;
+    @Nullable
+    private final Http2FlowControlTuner flowControlTuner;
     private final IntObjectMap<DecodedHttpRequest> requests = new IntObjectHashMap<>();
     private int nextId;
 
@@ -64,6 +68,7 @@ final class Http2RequestDecoder extends Http2EventAdapter {
         this.cfg = cfg;
         this.writer = writer;
         inboundTrafficController = new InboundTrafficController(channel);
+        flowControlTuner = cfg.adaptiveHttp2FlowControl() ? new Http2FlowControlTuner(writer) : null;
     }
 
     @Override
@@ -184,6 +189,10 @@ final class Http2RequestDecoder extends Http2EventAdapter {
         }
 
         final int dataLength = data.readableBytes();
+        if (flowControlTuner != null) {
+            flowControlTuner.onDataRead(ctx, dataLength + padding);
+        }
+
         if (dataLength == 0) {
             // Received an empty DATA frame
             if (endOfStream) {
@@ -261,6 +270,13 @@ final class Http2RequestDecoder extends Http2EventAdapter {
                 streamId, Http2Error.valueOf(errorCode), "received a RST_STREAM frame"));
     }
 
+    @Override
+    public void onPingAckRead(ChannelHandlerContext ctx, long data) throws Http2Exception {
+        if (flowControlTuner != null && data == Http2FlowControlTuner.PING_PAYLOAD) {
+            flowControlTuner.onPingAckRead(ctx);
+        }
+    }
+
     @Override
     public void onPushPromiseRead(ChannelHandlerContext ctx, int streamId, int promisedStreamId,
                                   Http2Headers headers, int padding) throws Http2Exception {
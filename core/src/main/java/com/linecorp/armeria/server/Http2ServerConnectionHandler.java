@@ -16,20 +16,72 @@
 
 package com.linecorp.armeria.server;
 
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.linecorp.armeria.internal.AbstractHttp2ConnectionHandler;
 
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.Http2Connection;
 import io.netty.handler.codec.http2.Http2ConnectionDecoder;
 import io.netty.handler.codec.http2.Http2ConnectionEncoder;
+import io.netty.handler.codec.http2.Http2Exception;
 import io.netty.handler.codec.http2.Http2Settings;
 
 final class Http2ServerConnectionHandler extends AbstractHttp2ConnectionHandler {
 
+    private static final Logger logger = LoggerFactory.getLogger(Http2ServerConnectionHandler.class);
+
+    private final int initialConnectionWindowSize;
+    private boolean connectionWindowSizeUpdated;
+
     Http2ServerConnectionHandler(
             Http2ConnectionDecoder decoder, Http2ConnectionEncoder encoder,
-            Http2Settings initialSettings) {
+            Http2Settings initialSettings, int initialConnectionWindowSize) {
 
         super(decoder, encoder, initialSettings);
+        this.initialConnectionWindowSize = initialConnectionWindowSize;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        super.handlerAdded(ctx);
+        if (ctx.channel().isActive()) {
+            updateConnectionWindowSize(ctx);
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        super.channelActive(ctx);
+        updateConnectionWindowSize(ctx);
+    }
+
+    /**
+     * Sends a {@code WINDOW_UPDATE} frame for the connection if the configured connection window size is
+     * greater than the default one, which is the only way to change the connection window size.
+     * This must be done after the connection preface has been sent.
+     */
+    private void updateConnectionWindowSize(ChannelHandlerContext ctx) {
+        if (connectionWindowSizeUpdated) {
+            return;
+        }
+        connectionWindowSizeUpdated = true;
+
+        final int delta = initialConnectionWindowSize - DEFAULT_WINDOW_SIZE;
+        if (delta <= 0) {
+            return;
+        }
+
+        try {
+            final Http2Connection connection = connection();
+            connection.local().flowController().incrementWindowSize(connection.connectionStream(), delta);
+            ctx.flush();
+        } catch (Http2Exception e) {
+            logger.warn("{} Failed to increment the connection window size: {}", ctx.channel(), delta, e);
+        }
     }
 
     @Override
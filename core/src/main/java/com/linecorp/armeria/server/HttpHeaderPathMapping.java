@@ -136,6 +136,10 @@ final class HttpHeaderPathMapping implements PathMapping {
         return PathMappingResult.empty();
     }
 
+    PathMapping pathStringMapping() {
+        return pathStringMapping;
+    }
+
     @Override
     public Set<String> paramNames() {
         return pathStringMapping.paramNames();
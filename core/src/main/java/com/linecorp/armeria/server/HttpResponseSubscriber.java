@@ -45,6 +45,7 @@ import com.linecorp.armeria.internal.HttpObjectEncoder;
 
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.http2.Http2Error;
 import io.netty.util.ReferenceCountUtil;
@@ -78,6 +79,13 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
     private State state = State.NEEDS_HEADERS;
     private boolean isComplete;
 
+    /**
+     * The non-informational headers which have been published but not written yet, so that they are written
+     * together with the first {@link HttpData} if it is published immediately, e.g. by a fixed response.
+     */
+    @Nullable
+    private HttpHeaders pendingHeaders;
+
     HttpResponseSubscriber(ChannelHandlerContext ctx, HttpObjectEncoder responseEncoder,
                            DefaultServiceRequestContext reqCtx, DecodedHttpRequest req,
                            Consumer<RequestLog> accessLogWriter) {
@@ -204,6 +212,15 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
                         break;
                     default:
                         state = State.NEEDS_DATA_OR_TRAILING_HEADERS;
+                        if (!endOfStream) {
+                            // Hold the headers and request the next object. If it is an HttpData available
+                            // already, it will be written with the headers. Otherwise, the headers will be
+                            // written alone by the task scheduled below.
+                            pendingHeaders = headers;
+                            ctx.channel().eventLoop().execute(this::writePendingHeaders);
+                            subscription.request(1);
+                            return;
+                        }
                 }
                 break;
             }
@@ -286,10 +303,32 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
             setDone();
         }
 
-        ch.eventLoop().execute(() -> write0(o, endOfStream));
+        final HttpHeaders pendingHeaders = this.pendingHeaders;
+        if (pendingHeaders != null) {
+            this.pendingHeaders = null;
+            if (o instanceof HttpData) {
+                ch.eventLoop().execute(() -> write0(pendingHeaders, (HttpData) o, endOfStream));
+                return;
+            }
+
+            // Do not request the next object for the held headers, because it was requested when they
+            // were held and it is the trailing headers being written now.
+            ch.eventLoop().execute(() -> write0(pendingHeaders, false, false));
+        }
+
+        ch.eventLoop().execute(() -> write0(o, endOfStream, true));
+    }
+
+    private void writePendingHeaders() {
+        final HttpHeaders pendingHeaders = this.pendingHeaders;
+        if (pendingHeaders != null) {
+            this.pendingHeaders = null;
+            // Do not request the next object, because it was requested when the headers were held.
+            write0(pendingHeaders, false, false);
+        }
     }
 
-    private void write0(HttpObject o, boolean endOfStream) {
+    private void write0(HttpObject o, boolean endOfStream, boolean requestNext) {
         final ChannelFuture future;
         final boolean wroteEmptyData;
         if (o instanceof HttpData) {
@@ -305,7 +344,21 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
             throw new Error();
         }
 
-        future.addListener((ChannelFuture f) -> {
+        future.addListener(newWriteListener(endOfStream, wroteEmptyData, requestNext));
+        ctx.flush();
+    }
+
+    private void write0(HttpHeaders headers, HttpData data, boolean endOfStream) {
+        final ChannelFuture future = responseEncoder.writeHeadersAndData(
+                ctx, req.id(), req.streamId(), headers, data, endOfStream);
+        logBuilder().increaseResponseLength(data.length());
+        future.addListener(newWriteListener(endOfStream, data.isEmpty(), true));
+        ctx.flush();
+    }
+
+    private ChannelFutureListener newWriteListener(boolean endOfStream, boolean wroteEmptyData,
+                                                   boolean requestNext) {
+        return f -> {
             final boolean isSuccess;
             if (f.isSuccess()) {
                 isSuccess = true;
@@ -328,7 +381,7 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
                     logBuilder().endResponse();
                     reqCtx.log().addListener(accessLogWriter::accept, RequestLogAvailability.COMPLETE);
                 }
-                if (state != State.DONE) {
+                if (requestNext && state != State.DONE) {
                     subscription.request(1);
                 }
                 return;
@@ -341,9 +394,7 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
                 reqCtx.log().addListener(accessLogWriter::accept, RequestLogAvailability.COMPLETE);
             }
             HttpServerHandler.CLOSE_ON_FAILURE.operationComplete(f);
-        });
-
-        ctx.flush();
+        };
     }
 
     private State setDone() {
@@ -363,11 +414,14 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
         final State oldState = setDone();
         subscription.cancel();
 
+        final boolean headersPending = pendingHeaders != null;
+        pendingHeaders = null;
+
         final int id = req.id();
         final int streamId = req.streamId();
 
         final ChannelFuture future;
-        if (wroteNothing(oldState)) {
+        if (wroteNothing(oldState) || headersPending) {
             // Did not write anything yet; we can send an error response instead of resetting the stream.
             if (content.isEmpty()) {
                 future = responseEncoder.writeHeaders(ctx, id, streamId, headers, true);
@@ -386,6 +440,7 @@ final class HttpResponseSubscriber implements Subscriber<HttpObject>, RequestTim
     private void failAndReset(AbortedStreamException cause) {
         final State oldState = setDone();
         subscription.cancel();
+        pendingHeaders = null;
 
         final ChannelFuture future =
                 responseEncoder.writeReset(ctx, req.id(), req.streamId(), Http2Error.CANCEL);
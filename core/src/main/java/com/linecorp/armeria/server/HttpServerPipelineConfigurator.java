@@ -19,6 +19,10 @@ package com.linecorp.armeria.server;
 import static com.linecorp.armeria.common.SessionProtocol.HTTP;
 import static com.linecorp.armeria.common.SessionProtocol.HTTPS;
 import static com.linecorp.armeria.common.SessionProtocol.PROXY;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_CONCURRENT_STREAMS;
 import static java.util.Objects.requireNonNull;
 
 import java.net.InetSocketAddress;
@@ -46,10 +50,14 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.CombinedChannelDuplexHandler;
 import io.netty.handler.codec.ByteToMessageDecoder;
 import io.netty.handler.codec.MessageToMessageDecoder;
 import io.netty.handler.codec.haproxy.HAProxyMessage;
 import io.netty.handler.codec.haproxy.HAProxyMessageDecoder;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.codec.http.HttpResponseEncoder;
 import io.netty.handler.codec.http.HttpServerCodec;
 import io.netty.handler.codec.http.HttpServerUpgradeHandler;
 import io.netty.handler.codec.http2.DefaultHttp2Connection;
@@ -180,8 +188,8 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
         final Http2ConnectionEncoder encoder = new DefaultHttp2ConnectionEncoder(conn, writer);
         final Http2ConnectionDecoder decoder = new DefaultHttp2ConnectionDecoder(conn, encoder, reader);
 
-        final Http2ConnectionHandler handler =
-                new Http2ServerConnectionHandler(decoder, encoder, new Http2Settings());
+        final Http2ConnectionHandler handler = new Http2ServerConnectionHandler(
+                decoder, encoder, http2Settings(), config.initialHttp2ConnectionWindowSize());
 
         // Setup post build options
         final Http2RequestDecoder listener =
@@ -194,6 +202,30 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
         return handler;
     }
 
+    private Http2Settings http2Settings() {
+        final Http2Settings http2Settings = new Http2Settings();
+        if (config.initialHttp2StreamWindowSize() != DEFAULT_WINDOW_SIZE) {
+            http2Settings.initialWindowSize(config.initialHttp2StreamWindowSize());
+        }
+        if (config.http2MaxFrameSize() != DEFAULT_MAX_FRAME_SIZE) {
+            http2Settings.maxFrameSize(config.http2MaxFrameSize());
+        }
+        if (config.http2MaxStreamsPerConnection() != MAX_CONCURRENT_STREAMS) {
+            http2Settings.maxConcurrentStreams(config.http2MaxStreamsPerConnection());
+        }
+        if (config.http2HeaderTableSize() != DEFAULT_HEADER_TABLE_SIZE) {
+            http2Settings.headerTableSize(config.http2HeaderTableSize());
+        }
+        return http2Settings;
+    }
+
+    private Http1RequestParser newHttp1RequestParser(AsciiString scheme) {
+        return new Http1RequestParser(config.defaultMaxHttp1InitialLineLength(),
+                                      config.defaultMaxHttp1HeaderSize(),
+                                      config.defaultMaxHttp1ChunkSize(),
+                                      scheme);
+    }
+
     private final class ProtocolDetectionHandler extends ByteToMessageDecoder {
 
         private final EnumSet<SessionProtocol> candidates;
@@ -366,10 +398,7 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
         private void addHttpHandlers(ChannelHandlerContext ctx) {
             final ChannelPipeline p = ctx.pipeline();
             final Http1ObjectEncoder writer = new Http1ObjectEncoder(true, true);
-            p.addLast(new HttpServerCodec(
-                    config.defaultMaxHttp1InitialLineLength(),
-                    config.defaultMaxHttp1HeaderSize(),
-                    config.defaultMaxHttp1ChunkSize()));
+            p.addLast(newHttp1RequestParser(SCHEME_HTTPS));
             p.addLast(new Http1RequestDecoder(config, ctx.channel(), SCHEME_HTTPS, writer));
             configureIdleTimeoutHandler(p);
             p.addLast(new HttpServerHandler(config, gracefulShutdownSupport, writer,
@@ -404,7 +433,18 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
                 configureHttp2(ctx);
             } else {
                 // Probably HTTP/1; the client can still upgrade using the traditional HTTP/1 upgrade request.
-                configureHttp1WithUpgrade(ctx);
+                final Boolean upgrade = Http1RequestParser.isUpgradeRequest(
+                        in, config.defaultMaxHttp1InitialLineLength() + config.defaultMaxHttp1HeaderSize());
+                if (upgrade == null) {
+                    // Need more data to find the 'upgrade' header.
+                    return;
+                }
+
+                if (upgrade) {
+                    configureHttp1WithUpgrade(ctx);
+                } else {
+                    configureHttp1(ctx);
+                }
             }
 
             ctx.pipeline().remove(this);
@@ -412,7 +452,7 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
 
         private void configureHttp1WithUpgrade(ChannelHandlerContext ctx) {
             final ChannelPipeline p = ctx.pipeline();
-            final HttpServerCodec http1codec = new HttpServerCodec(
+            final Http1UpgradeSourceCodec http1codec = new Http1UpgradeSourceCodec(
                     config.defaultMaxHttp1InitialLineLength(),
                     config.defaultMaxHttp1HeaderSize(),
                     config.defaultMaxHttp1ChunkSize());
@@ -435,6 +475,19 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
             addAfter(p, baseName, new Http1RequestDecoder(config, ctx.channel(), SCHEME_HTTP, responseEncoder));
         }
 
+        /**
+         * Configures the pipeline for the connection whose first request is not an upgrade request.
+         * {@link Http1RequestParser} ignores the {@code "upgrade"} header of the subsequent requests,
+         * as permitted by RFC 7230, section 6.7.
+         */
+        private void configureHttp1(ChannelHandlerContext ctx) {
+            final ChannelPipeline p = ctx.pipeline();
+            String baseName = name;
+            assert baseName != null;
+            baseName = addAfter(p, baseName, newHttp1RequestParser(SCHEME_HTTP));
+            addAfter(p, baseName, new Http1RequestDecoder(config, ctx.channel(), SCHEME_HTTP, responseEncoder));
+        }
+
         private void configureHttp2(ChannelHandlerContext ctx) {
             final ChannelPipeline p = ctx.pipeline();
             assert name != null;
@@ -446,4 +499,30 @@ final class HttpServerPipelineConfigurator extends ChannelInitializer<Channel> {
             return p.context(handler).name();
         }
     }
+
+    /**
+     * Decodes the HTTP/1 requests until the connection is upgraded to HTTP/2. Unlike {@link HttpServerCodec},
+     * this codec encodes only the {@code "101 Switching Protocols"} response sent by
+     * {@link HttpServerUpgradeHandler}, because {@link Http1ObjectEncoder} writes the other responses as
+     * {@link ByteBuf}s which are encoded already.
+     */
+    private static final class Http1UpgradeSourceCodec
+            extends CombinedChannelDuplexHandler<HttpRequestDecoder, HttpResponseEncoder>
+            implements HttpServerUpgradeHandler.SourceCodec {
+
+        Http1UpgradeSourceCodec(int maxInitialLineLength, int maxHeaderSize, int maxChunkSize) {
+            init(new HttpRequestDecoder(maxInitialLineLength, maxHeaderSize, maxChunkSize),
+                 new HttpResponseEncoder() {
+                     @Override
+                     public boolean acceptOutboundMessage(Object msg) throws Exception {
+                         return msg instanceof HttpObject;
+                     }
+                 });
+        }
+
+        @Override
+        public void upgradeFrom(ChannelHandlerContext ctx) {
+            ctx.pipeline().remove(this);
+        }
+    }
 }
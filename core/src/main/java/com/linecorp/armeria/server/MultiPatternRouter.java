@@ -0,0 +1,462 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import javax.annotation.Nullable;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+
+/**
+ * A {@link Router} for the {@link PathMapping}s which cannot be put into a {@link RoutingTrie}, such as
+ * the glob and regular expression mappings. Instead of trying every mapping in turn, it extracts
+ * a literal string which must appear in the path for each mapping to match, and finds the mappings whose
+ * literal appears in the path with a single pass of an Aho-Corasick automaton. Only those mappings and
+ * the mappings without such a literal are actually applied, in the same order as a sequential lookup,
+ * so that the {@link PathMapping#complexity()}-based tie-breaking does not change.
+ */
+final class MultiPatternRouter<V> implements Router<V> {
+
+    private static final int[] EMPTY_INTS = {};
+
+    private final List<V> values;
+    private final Function<V, PathMapping> pathMappingResolver;
+    private final List<String> literals;
+
+    /**
+     * The bit set of the values which have to be applied regardless of the path.
+     */
+    private final long[] alwaysCandidates;
+
+    // The Aho-Corasick automaton. The root node is 0.
+    private final char[][] transitionChars;
+    private final int[][] transitionNodes;
+    private final int[] failureNodes;
+    private final int[][] outputs;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param values the values sorted in the order they have to be applied
+     */
+    MultiPatternRouter(List<V> values, Function<V, PathMapping> pathMappingResolver) {
+        this.values = ImmutableList.copyOf(requireNonNull(values, "values"));
+        this.pathMappingResolver = requireNonNull(pathMappingResolver, "pathMappingResolver");
+
+        final int numValues = this.values.size();
+        alwaysCandidates = new long[(numValues + 63) >>> 6];
+
+        // Build a trie of the literals first.
+        final List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        final List<List<Integer>> trieOutputs = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        trieOutputs.add(new ArrayList<>());
+
+        final ImmutableList.Builder<String> literals = ImmutableList.builder();
+        for (int i = 0; i < numValues; i++) {
+            final String literal = requiredLiteral(pathMappingResolver.apply(this.values.get(i)));
+            if (literal == null) {
+                alwaysCandidates[i >>> 6] |= 1L << i;
+                literals.add("");
+                continue;
+            }
+
+            literals.add(literal);
+            int node = 0;
+            for (int j = 0; j < literal.length(); j++) {
+                final Character ch = literal.charAt(j);
+                Integer next = trie.get(node).get(ch);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    trieOutputs.add(new ArrayList<>());
+                    trie.get(node).put(ch, next);
+                }
+                node = next;
+            }
+            trieOutputs.get(node).add(i);
+        }
+        this.literals = literals.build();
+
+        // Convert the trie into arrays.
+        final int numNodes = trie.size();
+        transitionChars = new char[numNodes][];
+        transitionNodes = new int[numNodes][];
+        for (int i = 0; i < numNodes; i++) {
+            final Map<Character, Integer> children = trie.get(i);
+            final char[] chars = new char[children.size()];
+            final int[] nodes = new int[children.size()];
+            int j = 0;
+            // TreeMap iterates in ascending order, so that the transitions can be binary-searched.
+            for (Map.Entry<Character, Integer> e : children.entrySet()) {
+                chars[j] = e.getKey();
+                nodes[j] = e.getValue();
+                j++;
+            }
+            transitionChars[i] = chars;
+            transitionNodes[i] = nodes;
+        }
+
+        // Compute the failure links and merge the outputs of the failure nodes in the breadth-first order,
+        // so that the failure node of a node is always visited before the node.
+        failureNodes = new int[numNodes];
+        outputs = new int[numNodes][];
+        outputs[0] = Ints.toArray(trieOutputs.get(0));
+        final Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : transitionNodes[0]) {
+            failureNodes[child] = 0;
+            outputs[child] = Ints.toArray(trieOutputs.get(child));
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            final int node = queue.remove();
+            final char[] chars = transitionChars[node];
+            final int[] nodes = transitionNodes[node];
+            for (int i = 0; i < chars.length; i++) {
+                final int child = nodes[i];
+                final int failure = nextNode(failureNodes[node], chars[i]);
+                failureNodes[child] = failure;
+                outputs[child] = merge(Ints.toArray(trieOutputs.get(child)), outputs[failure]);
+                queue.add(child);
+            }
+        }
+    }
+
+    private static int[] merge(int[] a, int[] b) {
+        if (b.length == 0) {
+            return a.length == 0 ? EMPTY_INTS : a;
+        }
+        if (a.length == 0) {
+            return b;
+        }
+        return Ints.concat(a, b);
+    }
+
+    /**
+     * Returns the node to move to from the specified {@code node} with the specified {@code ch},
+     * following the failure links.
+     */
+    private int nextNode(int node, char ch) {
+        for (;;) {
+            final int idx = Arrays.binarySearch(transitionChars[node], ch);
+            if (idx >= 0) {
+                return transitionNodes[node][idx];
+            }
+            if (node == 0) {
+                return 0;
+            }
+            node = failureNodes[node];
+        }
+    }
+
+    @Override
+    public PathMapped<V> find(PathMappingContext mappingCtx) {
+        final String path = mappingCtx.path();
+        final long[] candidates = alwaysCandidates.clone();
+        int node = 0;
+        for (int i = 0; i < path.length(); i++) {
+            node = nextNode(node, path.charAt(i));
+            for (int idx : outputs[node]) {
+                candidates[idx >>> 6] |= 1L << idx;
+            }
+        }
+        return Routers.findsBest(mappingCtx, select(candidates), pathMappingResolver);
+    }
+
+    @Nullable
+    private List<V> select(long[] candidates) {
+        List<V> selected = null;
+        for (int i = 0; i < candidates.length; i++) {
+            long bits = candidates[i];
+            while (bits != 0) {
+                final int idx = (i << 6) + Long.numberOfTrailingZeros(bits);
+                if (selected == null) {
+                    selected = new ArrayList<>(4);
+                }
+                selected.add(values.get(idx));
+                bits &= bits - 1;
+            }
+        }
+        return selected;
+    }
+
+    @Override
+    public void dump(OutputStream output) {
+        // Do not close this writer in order to keep output stream open.
+        final PrintWriter p = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        p.printf("Dump of %s:%n", this);
+        for (int i = 0; i < values.size(); i++) {
+            final String literal = literals.get(i);
+            p.printf("<%d> %s (literal: %s)%n", i, values.get(i), literal.isEmpty() ? "<none>" : literal);
+        }
+        p.flush();
+    }
+
+    /**
+     * Returns a string which must appear in a path for the specified {@link PathMapping} to match it,
+     * or {@code null} if unknown.
+     */
+    @Nullable
+    @VisibleForTesting
+    static String requiredLiteral(PathMapping mapping) {
+        if (mapping instanceof HttpHeaderPathMapping) {
+            mapping = ((HttpHeaderPathMapping) mapping).pathStringMapping();
+        }
+        if (mapping instanceof GlobPathMapping) {
+            return globLiteral(((GlobPathMapping) mapping).glob());
+        }
+        if (mapping instanceof RegexPathMapping) {
+            return regexLiteral(((RegexPathMapping) mapping).asRegex());
+        }
+        return null;
+    }
+
+    /**
+     * Returns the longest literal part of the specified glob pattern. Every part between the wildcards
+     * appears in a matching path as it is, including the {@code '/'}s around {@code "/**\/"}, because
+     * {@code "/**\/"} matches a single {@code '/'} at least.
+     */
+    @Nullable
+    @VisibleForTesting
+    static String globLiteral(String glob) {
+        String longest = "";
+        for (String part : glob.split("\\*")) {
+            if (part.length() > longest.length()) {
+                longest = part;
+            }
+        }
+        return longest.isEmpty() ? null : longest;
+    }
+
+    /**
+     * Returns the longest run of the literal characters which always appears in the strings matching
+     * the specified regular expression, or {@code null} if the regular expression is not simple enough
+     * to find one. The runs inside a group, a character class or an alternation are not looked for,
+     * so the result may be shorter than possible, but never wrong.
+     */
+    @Nullable
+    @VisibleForTesting
+    static String regexLiteral(Pattern regex) {
+        if (regex.flags() != 0) {
+            // Flags such as CASE_INSENSITIVE and COMMENTS change what a literal character matches.
+            return null;
+        }
+
+        final String pattern = regex.pattern();
+        final int length = pattern.length();
+        final StringBuilder run = new StringBuilder();
+        String longest = "";
+        boolean lastAtomIsLiteral = false;
+        int i = 0;
+        while (i < length) {
+            final char ch = pattern.charAt(i);
+            switch (ch) {
+                case '\\': {
+                    if (i + 1 == length) {
+                        return null;
+                    }
+                    final char escaped = pattern.charAt(i + 1);
+                    i += 2;
+                    if (isAsciiLetterOrDigit(escaped)) {
+                        if ("dDsSwWbBtnrfaehHvVRXAzZG".indexOf(escaped) < 0) {
+                            // An escape which spans more than two characters, such as \x41, \p{L},
+                            // \Q...\E and the back references.
+                            return null;
+                        }
+                        longest = longer(longest, run);
+                        lastAtomIsLiteral = false;
+                    } else {
+                        run.append(escaped);
+                        lastAtomIsLiteral = true;
+                    }
+                    continue;
+                }
+                case '[':
+                    i = skipCharacterClass(pattern, i);
+                    break;
+                case '(':
+                    if (i + 2 < length && pattern.charAt(i + 1) == '?' &&
+                        ":<=!>".indexOf(pattern.charAt(i + 2)) < 0) {
+                        // Embedded flags such as (?i)
+                        return null;
+                    }
+                    i = skipGroup(pattern, i);
+                    break;
+                case '|':
+                case ')':
+                    return null;
+                case '.':
+                case '^':
+                case '$':
+                    i++;
+                    break;
+                case '*':
+                case '?':
+                    if (lastAtomIsLiteral) {
+                        // The last literal character is optional.
+                        run.setLength(run.length() - 1);
+                    }
+                    i = skipQuantifierModifier(pattern, i + 1);
+                    break;
+                case '+':
+                    i = skipQuantifierModifier(pattern, i + 1);
+                    break;
+                case '{': {
+                    final int end = pattern.indexOf('}', i);
+                    if (end < 0) {
+                        return null;
+                    }
+                    final String bounds = pattern.substring(i + 1, end);
+                    final int comma = bounds.indexOf(',');
+                    final int min;
+                    try {
+                        min = Integer.parseInt(comma < 0 ? bounds : bounds.substring(0, comma));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    if (min == 0 && lastAtomIsLiteral) {
+                        run.setLength(run.length() - 1);
+                    }
+                    i = skipQuantifierModifier(pattern, end + 1);
+                    break;
+                }
+                default:
+                    run.append(ch);
+                    lastAtomIsLiteral = true;
+                    i++;
+                    continue;
+            }
+
+            if (i < 0) {
+                return null;
+            }
+
+            // Anything but a literal character ends the current run.
+            longest = longer(longest, run);
+            lastAtomIsLiteral = false;
+        }
+
+        longest = longer(longest, run);
+        return longest.isEmpty() ? null : longest;
+    }
+
+    private static String longer(String longest, StringBuilder run) {
+        final String result = run.length() > longest.length() ? run.toString() : longest;
+        run.setLength(0);
+        return result;
+    }
+
+    private static boolean isAsciiLetterOrDigit(char ch) {
+        return ch >= 'a' && ch <= 'z' || ch >= 'A' && ch <= 'Z' || ch >= '0' && ch <= '9';
+    }
+
+    /**
+     * Skips the reluctant or possessive modifier of a quantifier, if any.
+     */
+    private static int skipQuantifierModifier(String pattern, int i) {
+        if (i < pattern.length() && (pattern.charAt(i) == '?' || pattern.charAt(i) == '+')) {
+            return i + 1;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the index next to the end of the character class which starts at {@code start},
+     * or {@code -1} if not terminated.
+     */
+    private static int skipCharacterClass(String pattern, int start) {
+        final int length = pattern.length();
+        int i = start + 1;
+        if (i < length && pattern.charAt(i) == '^') {
+            i++;
+        }
+        if (i < length && pattern.charAt(i) == ']') {
+            // A ']' right after '[' or '[^' is a literal.
+            i++;
+        }
+        int depth = 0;
+        while (i < length) {
+            final char ch = pattern.charAt(i);
+            if (ch == '\\') {
+                i += 2;
+                continue;
+            }
+            if (ch == '[') {
+                depth++;
+            } else if (ch == ']') {
+                if (depth == 0) {
+                    return i + 1;
+                }
+                depth--;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index next to the end of the group which starts at {@code start},
+     * or {@code -1} if not terminated.
+     */
+    private static int skipGroup(String pattern, int start) {
+        final int length = pattern.length();
+        int depth = 0;
+        int i = start;
+        while (i < length) {
+            final char ch = pattern.charAt(i);
+            switch (ch) {
+                case '\\':
+                    i += 2;
+                    continue;
+                case '[':
+                    i = skipCharacterClass(pattern, i);
+                    if (i < 0) {
+                        return -1;
+                    }
+                    continue;
+                case '(':
+                    depth++;
+                    break;
+                case ')':
+                    if (--depth == 0) {
+                        return i + 1;
+                    }
+                    break;
+            }
+            i++;
+        }
+        return -1;
+    }
+}
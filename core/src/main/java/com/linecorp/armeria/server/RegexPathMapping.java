@@ -22,7 +22,6 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 
@@ -111,7 +110,6 @@ final class RegexPathMapping extends AbstractPathMapping {
         return meterTag;
     }
 
-    @VisibleForTesting
     Pattern asRegex() {
         return regex;
     }
@@ -19,12 +19,15 @@ package com.linecorp.armeria.server;
 import static java.util.Objects.requireNonNull;
 
 import java.io.OutputStream;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 import javax.annotation.Nullable;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 
 import com.linecorp.armeria.common.Flags;
@@ -37,12 +40,19 @@ import com.linecorp.armeria.server.composition.CompositeServiceEntry;
 import io.micrometer.core.instrument.MeterRegistry;
 
 /**
- * See {@link Flags#routeCacheSpec()} to configure this {@link RouteCache}.
+ * See {@link Flags#routeCacheSpec()} and {@link Flags#parameterlessRouteCache()} to configure this
+ * {@link RouteCache}.
  */
 final class RouteCache {
 
+    /**
+     * The maximum number of the requests which were not routed to any service, cached per
+     * {@link CachingRouter}.
+     */
+    private static final int NEGATIVE_CACHE_SIZE = 256;
+
     @Nullable
-    private static final Cache<PathMappingContext, ServiceConfig> CACHE =
+    private static final Cache<PathMappingContext, PathMapped<ServiceConfig>> CACHE =
             Flags.routeCacheSpec().map(RouteCache::<ServiceConfig>buildCache)
                  .orElse(null);
 
@@ -52,7 +62,8 @@ final class RouteCache {
      */
     static Router<ServiceConfig> wrapVirtualHostRouter(Router<ServiceConfig> delegate) {
         return CACHE == null ? delegate
-                             : new CachingRouter<>(delegate, CACHE, ServiceConfig::pathMapping);
+                             : new CachingRouter<>(delegate, CACHE, ServiceConfig::pathMapping,
+                                                   Flags.parameterlessRouteCache());
     }
 
     /**
@@ -63,17 +74,24 @@ final class RouteCache {
     Router<CompositeServiceEntry<I, O>> wrapCompositeServiceRouter(
             Router<CompositeServiceEntry<I, O>> delegate) {
 
-        final Cache<PathMappingContext, CompositeServiceEntry<I, O>> cache =
+        final Cache<PathMappingContext, PathMapped<CompositeServiceEntry<I, O>>> cache =
                 Flags.compositeServiceCacheSpec().map(RouteCache::<CompositeServiceEntry<I, O>>buildCache)
                      .orElse(null);
         if (cache == null) {
             return delegate;
         }
 
-        return new CachingRouter<>(delegate, cache, CompositeServiceEntry::pathMapping);
+        return new CachingRouter<>(delegate, cache, CompositeServiceEntry::pathMapping,
+                                   Flags.parameterlessRouteCache());
     }
 
-    private static <T> Cache<PathMappingContext, T> buildCache(String spec) {
+    @VisibleForTesting
+    static <V> Router<V> wrapRouter(Router<V> delegate, String cacheSpec,
+                                    Function<V, PathMapping> pathMappingResolver, boolean parameterlessOnly) {
+        return new CachingRouter<>(delegate, buildCache(cacheSpec), pathMappingResolver, parameterlessOnly);
+    }
+
+    private static <T> Cache<PathMappingContext, PathMapped<T>> buildCache(String spec) {
         return Caffeine.from(spec).recordStats().build();
     }
 
@@ -81,44 +99,108 @@ final class RouteCache {
 
     /**
      * A {@link Router} which is wrapped with a {@link Cache} layer.
+     *
+     * <p>If {@code parameterlessOnly} is {@code false}, every successful routing result is cached and
+     * the {@link PathMapping} of the cached value is applied again on a cache hit.
+     *
+     * <p>If {@code parameterlessOnly} is {@code true}, only the requests routed to an exact
+     * {@link PathMapping} are cached, so that the requests to the paths with path variables such as
+     * {@code /users/12345} do not evict the other entries. The {@link PathMapped} of such a request is
+     * reused as it is on a cache hit because it does not depend on anything but the path. The requests
+     * which were not routed to any service are cached as well, along with the delayed {@link Throwable}
+     * such as {@code 405 Method Not Allowed}, so that the subsequent requests to the same path are
+     * rejected without searching again. They are kept in a small cache of each router rather than
+     * the shared one, so that the requests to random non-existent paths do not evict the routes of
+     * the existing services.
      */
     private static final class CachingRouter<V> implements Router<V> {
 
         private final Router<V> delegate;
-        private final Cache<PathMappingContext, V> cache;
+        private final Cache<PathMappingContext, PathMapped<V>> cache;
+        @Nullable
+        private final Cache<PathMappingContext, NegativeRoute> negativeCache;
         private final Function<V, PathMapping> pathMappingResolver;
+        private final boolean parameterlessOnly;
+
+        // Counted per router because the cache may be shared by more than one router.
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder negativeHits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
 
-        CachingRouter(Router<V> delegate, Cache<PathMappingContext, V> cache,
-                      Function<V, PathMapping> pathMappingResolver) {
+        CachingRouter(Router<V> delegate, Cache<PathMappingContext, PathMapped<V>> cache,
+                      Function<V, PathMapping> pathMappingResolver, boolean parameterlessOnly) {
             this.delegate = requireNonNull(delegate, "delegate");
             this.cache = requireNonNull(cache, "cache");
             this.pathMappingResolver = requireNonNull(pathMappingResolver, "pathMappingResolver");
+            this.parameterlessOnly = parameterlessOnly;
+            negativeCache = parameterlessOnly ? Caffeine.newBuilder()
+                                                        .maximumSize(NEGATIVE_CACHE_SIZE)
+                                                        .build()
+                                              : null;
         }
 
         @Override
         public PathMapped<V> find(PathMappingContext mappingCtx) {
-            final V cached = cache.getIfPresent(mappingCtx);
-            if (cached != null) {
+            final PathMapped<V> mapped = cache.getIfPresent(mappingCtx);
+            if (mapped != null) {
+                hits.increment();
+                if (parameterlessOnly && Objects.equals(mapped.mappingResult().query(), mappingCtx.query())) {
+                    return mapped;
+                }
+
                 // PathMappingResult may be different to each other for every requests, so we cannot
                 // use it as a cache value.
-                final PathMapping mapping = pathMappingResolver.apply(cached);
+                final V value = mapped.value();
+                final PathMapping mapping = pathMappingResolver.apply(value);
                 final PathMappingResult mappingResult = mapping.apply(mappingCtx);
-                return PathMapped.of(mapping, mappingResult, cached);
+                return PathMapped.of(mapping, mappingResult, value);
+            }
+
+            if (negativeCache != null) {
+                final NegativeRoute negative = negativeCache.getIfPresent(mappingCtx);
+                if (negative != null) {
+                    negativeHits.increment();
+                    if (negative.delayedCause != null && !mappingCtx.delayedThrowable().isPresent()) {
+                        mappingCtx.delayThrowable(negative.delayedCause);
+                    }
+                    return PathMapped.empty();
+                }
             }
 
+            misses.increment();
             final PathMapped<V> result = delegate.find(mappingCtx);
             if (result.isPresent()) {
-                cache.put(mappingCtx, result.value());
+                if (!parameterlessOnly || isParameterless(result)) {
+                    cache.put(mappingCtx, result);
+                }
+            } else if (negativeCache != null) {
+                negativeCache.put(mappingCtx, new NegativeRoute(mappingCtx.delayedThrowable().orElse(null)));
             }
             return result;
         }
 
+        private static boolean isParameterless(PathMapped<?> result) {
+            return result.mapping().exactPath().isPresent() && result.mappingResult().pathParams().isEmpty();
+        }
+
         @Override
         public boolean registerMetrics(MeterRegistry registry, MeterIdPrefix idPrefix) {
             CaffeineMetricSupport.setup(registry, idPrefix, cache);
+
+            final String lookups = idPrefix.name("lookups");
+            registry.more().counter(lookups, idPrefix.tags("result", "hit"), hits);
+            registry.more().counter(lookups, idPrefix.tags("result", "negativeHit"), negativeHits);
+            registry.more().counter(lookups, idPrefix.tags("result", "miss"), misses);
+            registry.gauge(idPrefix.name("hitRatio"), idPrefix.tags(), this, CachingRouter::hitRatio);
             return true;
         }
 
+        private double hitRatio() {
+            final double numHits = hits.sum() + negativeHits.sum();
+            final double numLookups = numHits + misses.sum();
+            return numLookups == 0 ? 1.0 : numHits / numLookups;
+        }
+
         @Override
         public void dump(OutputStream output) {
             delegate.dump(output);
@@ -129,7 +211,21 @@ final class RouteCache {
             return MoreObjects.toStringHelper(this)
                               .add("delegate", delegate)
                               .add("cache", cache)
+                              .add("parameterlessOnly", parameterlessOnly)
                               .toString();
         }
     }
+
+    /**
+     * A cached result of a request which was not routed to any service.
+     */
+    private static final class NegativeRoute {
+
+        @Nullable
+        final Throwable delayedCause;
+
+        NegativeRoute(@Nullable Throwable delayedCause) {
+            this.delayedCause = delayedCause;
+        }
+    }
 }
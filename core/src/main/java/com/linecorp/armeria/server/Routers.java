@@ -27,6 +27,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -51,6 +52,12 @@ import com.linecorp.armeria.server.composition.CompositeServiceEntry;
 public final class Routers {
     private static final Logger logger = LoggerFactory.getLogger(Routers.class);
 
+    /**
+     * The minimum number of consecutive non-trie {@link PathMapping}s to use a {@link MultiPatternRouter}
+     * for. Trying a few mappings in turn is cheaper than running the automaton.
+     */
+    private static final int MIN_MULTI_PATTERN_ROUTER_SIZE = 8;
+
     /**
      * Returns the default implementation of the {@link Router} to find a {@link ServiceConfig}.
      * It consists of several router implementations which use one of Trie and List. It also includes
@@ -191,7 +198,8 @@ public final class Routers {
     }
 
     /**
-     * Returns a {@link Router} implementation which is using one of {@link RoutingTrie} and {@link List}.
+     * Returns a {@link Router} implementation which is using one of {@link RoutingTrie}, {@link List} and
+     * {@link MultiPatternRouter}.
      */
     private static <V> Router<V> router(boolean isTrie, List<V> values,
                                         Function<V, PathMapping> pathMappingResolver) {
@@ -205,10 +213,14 @@ public final class Routers {
             // order.
             builder.comparator(valueComparator);
             values.forEach(v -> builder.add(pathMappingResolver.apply(v).triePath().get(), v));
-            router = new TrieRouter<>(builder.build(), pathMappingResolver);
+            router = new TrieRouter<>(builder.build(), values, pathMappingResolver);
         } else {
             values.sort(valueComparator);
-            router = new SequentialRouter<>(values, pathMappingResolver);
+            if (values.size() < MIN_MULTI_PATTERN_ROUTER_SIZE) {
+                router = new SequentialRouter<>(values, pathMappingResolver);
+            } else {
+                router = new MultiPatternRouter<>(values, pathMappingResolver);
+            }
         }
 
         if (logger.isDebugEnabled()) {
@@ -226,8 +238,8 @@ public final class Routers {
     /**
      * Finds the most suitable service from the given {@link ServiceConfig} list.
      */
-    private static <V> PathMapped<V> findsBest(PathMappingContext mappingCtx, @Nullable List<V> values,
-                                               Function<V, PathMapping> pathMappingResolver) {
+    static <V> PathMapped<V> findsBest(PathMappingContext mappingCtx, @Nullable List<V> values,
+                                       Function<V, PathMapping> pathMappingResolver) {
         PathMapped<V> result = PathMapped.empty();
         if (values != null) {
             for (V value : values) {
@@ -286,14 +298,41 @@ public final class Routers {
         private final RoutingTrie<V> trie;
         private final Function<V, PathMapping> pathMappingResolver;
 
-        TrieRouter(RoutingTrie<V> trie, Function<V, PathMapping> pathMappingResolver) {
+        /**
+         * The pre-built results of the plain {@link ExactPathMapping}s, which are always the same for
+         * a request without a query string.
+         */
+        private final Map<V, PathMapped<V>> exactResults = new IdentityHashMap<>();
+
+        TrieRouter(RoutingTrie<V> trie, List<V> values, Function<V, PathMapping> pathMappingResolver) {
             this.trie = requireNonNull(trie, "trie");
             this.pathMappingResolver = requireNonNull(pathMappingResolver, "pathMappingResolver");
+
+            for (V value : values) {
+                final PathMapping mapping = pathMappingResolver.apply(value);
+                if (!(mapping instanceof ExactPathMapping)) {
+                    continue;
+                }
+                final String exactPath = mapping.exactPath().get();
+                if (exactPath.indexOf(':') >= 0 || exactPath.indexOf('*') >= 0) {
+                    // RoutingTrie treats these characters as wildcards.
+                    continue;
+                }
+                exactResults.put(value, PathMapped.of(mapping, PathMappingResult.of(exactPath, null), value));
+            }
         }
 
         @Override
         public PathMapped<V> find(PathMappingContext mappingCtx) {
-            return findsBest(mappingCtx, trie.find(mappingCtx.path()), pathMappingResolver);
+            final List<V> values = trie.find(mappingCtx.path());
+            if (values != null && values.size() == 1 && mappingCtx.query() == null) {
+                // Fast path: the path matches only a plain exact mapping, whose result is always the same.
+                final PathMapped<V> exactResult = exactResults.get(values.get(0));
+                if (exactResult != null) {
+                    return exactResult;
+                }
+            }
+            return findsBest(mappingCtx, values, pathMappingResolver);
         }
 
         @Override
@@ -302,7 +341,7 @@ public final class Routers {
         }
     }
 
-    private static final class SequentialRouter<V> implements Router<V> {
+    static final class SequentialRouter<V> implements Router<V> {
 
         private final List<V> values;
         private final Function<V, PathMapping> pathMappingResolver;
@@ -26,6 +26,7 @@ import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -101,69 +102,80 @@ final class RoutingTrie<V> {
     }
 
     /**
-     * Finds a {@link Node} which is mapped to the given {@code path}. It is recursively called by itself
-     * to visit the children of the given node. Returns {@code null} if there is no {@link Node} to find.
+     * Finds a {@link Node} which is mapped to the given {@code path}. Returns {@code null} if there is no
+     * {@link Node} to find.
+     *
+     * <p>It walks down the trie iteratively, remembering the catch-all child of the deepest visited node as
+     * a fallback. It calls itself recursively only for the nodes with a parameter child, because a failed
+     * lookup on the exact child of such a node has to be retried on the parameter child.
      */
     @Nullable
     private Node<V> findNode(Node<V> node, String path, int begin, boolean exact) {
-        final int next;
-        switch (node.type()) {
-            case EXACT:
-                final int len = node.path().length();
-                if (!path.regionMatches(begin, node.path(), 0, len)) {
-                    // A given path does not start with the path of this node.
-                    return null;
-                }
-                if (len == path.length() - begin) {
-                    // Matched. No more input characters.
-                    // If this node is not added by a user, then we should return a catch-all child
-                    // if it exists. But if 'exact' is true, we just return this node to make caller
-                    // have the exact matched node.
-                    return exact || node.hasValues() || !node.hasCatchAllChild() ? node
-                                                                                 : node.catchAllChild();
+        Node<V> fallback = null;
+        for (;;) {
+            final int next;
+            switch (node.type()) {
+                case EXACT:
+                    final int len = node.path().length();
+                    if (!path.regionMatches(begin, node.path(), 0, len)) {
+                        // A given path does not start with the path of this node.
+                        return fallback;
+                    }
+                    if (len == path.length() - begin) {
+                        // Matched. No more input characters.
+                        // If this node is not added by a user, then we should return a catch-all child
+                        // if it exists. But if 'exact' is true, we just return this node to make caller
+                        // have the exact matched node.
+                        return exact || node.hasValues() || !node.hasCatchAllChild() ? node
+                                                                                     : node.catchAllChild();
+                    }
+                    next = begin + len;
+                    break;
+                case PARAMETER:
+                    // Consume characters until the delimiter '/' as a path variable.
+                    final int delim = path.indexOf('/', begin);
+                    if (delim < 0 || path.length() == delim + 1) {
+                        // No more delimiter, or ends with delimiter.
+                        return node;
+                    }
+                    next = delim;
+                    break;
+                default:
+                    throw new Error("Should not reach here");
+            }
+
+            // The path is not matched to this node, but it is possible to be matched on my children
+            // because the path starts with the path of this node. So we need to visit children as the
+            // following sequences:
+            //  - The child which is able to consume the next character of the path.
+            //  - The child which has a path variable.
+            //  - The child which is able to consume every remaining path. (catch-all)
+
+            final Node<V> child = node.child(path.charAt(next));
+            final Node<V> parameterChild = node.parameterChild();
+            if (parameterChild != null) {
+                if (child != null) {
+                    final Node<V> found = findNode(child, path, next, exact);
+                    if (found != null) {
+                        return found;
+                    }
                 }
-                next = begin + len;
-                break;
-            case PARAMETER:
-                // Consume characters until the delimiter '/' as a path variable.
-                final int delim = path.indexOf('/', begin);
-                if (delim < 0 || path.length() == delim + 1) {
-                    // No more delimiter, or ends with delimiter.
-                    return node;
+                final Node<V> found = findNode(parameterChild, path, next, exact);
+                if (found != null) {
+                    return found;
                 }
-                next = delim;
-                break;
-            default:
-                throw new Error("Should not reach here");
-        }
+                return node.hasCatchAllChild() ? node.catchAllChild() : fallback;
+            }
 
-        // The path is not matched to this node, but it is possible to be matched on my children
-        // because the path starts with the path of this node. So we need to visit children as the
-        // following sequences:
-        //  - The child which is able to consume the next character of the path.
-        //  - The child which has a path variable.
-        //  - The child which is able to consume every remaining path. (catch-all)
-
-        Node<V> child = node.child(path.charAt(next));
-        if (child != null) {
-            final Node<V> found = findNode(child, path, next, exact);
-            if (found != null) {
-                return found;
+            if (node.hasCatchAllChild()) {
+                fallback = node.catchAllChild();
             }
-        }
-        child = node.parameterChild();
-        if (child != null) {
-            final Node<V> found = findNode(child, path, next, exact);
-            if (found != null) {
-                return found;
+            if (child == null) {
+                return fallback;
             }
+            node = child;
+            begin = next;
         }
-        child = node.catchAllChild();
-        if (child != null) {
-            return child;
-        }
-
-        return null;
     }
 
     public void dump(OutputStream output) {
@@ -229,6 +241,7 @@ final class RoutingTrie<V> {
                 final Entry<String, V> route = routes.get(i);
                 addRoute(root, route.getKey(), route.getValue());
             }
+            root.freeze();
             return new RoutingTrie<>(root);
         }
 
@@ -353,6 +366,13 @@ final class RoutingTrie<V> {
         private static final char KEY_PARAMETER = 0x01;
         private static final char KEY_CATCH_ALL = 0x02;
 
+        private static final char[] EMPTY_KEYS = {};
+
+        /**
+         * The maximum number of children to find a child by linear search rather than binary search.
+         */
+        private static final int MAX_LINEAR_SEARCH_CHILDREN = 8;
+
         // The parent may be changed when this node is split into two.
         @Nullable
         private Node<V> parent;
@@ -363,9 +383,16 @@ final class RoutingTrie<V> {
         // But the first character of the path should not be changed even if this node is split.
         private String path;
 
+        // Used only while building a RoutingTrie. Replaced with 'childKeys' and 'childNodes' by freeze().
         @Nullable
         private Map<Character, Node<V>> children;
 
+        // The sorted first characters of the EXACT children and the children themselves,
+        // so that a lookup does not box a Character.
+        private char[] childKeys = EMPTY_KEYS;
+        @Nullable
+        private Node<V>[] childNodes;
+
         // Short-cuts to the special-purpose children.
         @Nullable
         private Node<V> parameterChild;
@@ -405,8 +432,21 @@ final class RoutingTrie<V> {
         }
 
         Collection<Node<V>> children() {
-            return children == null ?
-                   ImmutableList.of() : Collections.unmodifiableCollection(children.values());
+            if (children != null) {
+                return Collections.unmodifiableCollection(children.values());
+            }
+
+            final ImmutableList.Builder<Node<V>> builder = ImmutableList.builder();
+            if (childNodes != null) {
+                builder.add(childNodes);
+            }
+            if (parameterChild != null) {
+                builder.add(parameterChild);
+            }
+            if (catchAllChild != null) {
+                builder.add(catchAllChild);
+            }
+            return builder.build();
         }
 
         @Nullable
@@ -445,9 +485,55 @@ final class RoutingTrie<V> {
 
         @Nullable
         private Node<V> child(char key) {
+            final Node<V>[] childNodes = this.childNodes;
+            if (childNodes != null) {
+                final char[] childKeys = this.childKeys;
+                if (childKeys.length <= MAX_LINEAR_SEARCH_CHILDREN) {
+                    for (int i = 0; i < childKeys.length; i++) {
+                        if (childKeys[i] == key) {
+                            return childNodes[i];
+                        }
+                    }
+                    return null;
+                }
+                final int idx = Arrays.binarySearch(childKeys, key);
+                return idx >= 0 ? childNodes[idx] : null;
+            }
+
+            // Not frozen yet.
             return children == null ? null : children.get(key);
         }
 
+        /**
+         * Converts the children of this {@link Node} and its descendants into the arrays, and makes
+         * the values immutable. Invoked when the {@link RoutingTrie} is built.
+         */
+        @SuppressWarnings("unchecked")
+        private void freeze() {
+            if (values != null) {
+                values = ImmutableList.copyOf(values);
+            }
+            if (children == null) {
+                return;
+            }
+
+            final List<Node<V>> exactChildren = new ArrayList<>(children.size());
+            for (Node<V> child : children.values()) {
+                child.freeze();
+                if (child.type() == Type.EXACT) {
+                    exactChildren.add(child);
+                }
+            }
+            exactChildren.sort(Comparator.comparing(child -> child.path().charAt(0)));
+
+            childKeys = new char[exactChildren.size()];
+            childNodes = exactChildren.toArray(new Node[exactChildren.size()]);
+            for (int i = 0; i < childKeys.length; i++) {
+                childKeys[i] = childNodes[i].path().charAt(0);
+            }
+            children = null;
+        }
+
         /**
          * Attaches a given {@code value} to the value list. If the list is not empty
          * the {@code value} is added, and sorted by the given {@link Comparator}.
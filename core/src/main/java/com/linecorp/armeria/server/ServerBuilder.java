@@ -23,7 +23,16 @@ import static com.linecorp.armeria.common.SessionProtocol.HTTPS;
 import static com.linecorp.armeria.common.SessionProtocol.PROXY;
 import static com.linecorp.armeria.server.ServerConfig.validateDefaultMaxRequestLength;
 import static com.linecorp.armeria.server.ServerConfig.validateDefaultRequestTimeoutMillis;
+import static com.linecorp.armeria.server.ServerConfig.validateHttp2HeaderTableSize;
+import static com.linecorp.armeria.server.ServerConfig.validateHttp2MaxFrameSize;
+import static com.linecorp.armeria.server.ServerConfig.validateHttp2MaxStreamsPerConnection;
+import static com.linecorp.armeria.server.ServerConfig.validateInitialHttp2ConnectionWindowSize;
+import static com.linecorp.armeria.server.ServerConfig.validateInitialHttp2StreamWindowSize;
 import static com.linecorp.armeria.server.ServerConfig.validateNonNegative;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_MAX_FRAME_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_CONCURRENT_STREAMS;
 import static java.util.Objects.requireNonNull;
 
 import java.io.File;
@@ -62,6 +71,7 @@ import io.micrometer.core.instrument.Metrics;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.handler.codec.http2.Http2CodecUtil;
 import io.netty.handler.ssl.SslContext;
 import io.netty.util.DomainNameMapping;
 import io.netty.util.DomainNameMappingBuilder;
@@ -153,6 +163,12 @@ public final class ServerBuilder {
     private int maxHttp1InitialLineLength = Flags.defaultMaxHttp1InitialLineLength();
     private int maxHttp1HeaderSize = Flags.defaultMaxHttp1HeaderSize();
     private int maxHttp1ChunkSize = Flags.defaultMaxHttp1ChunkSize();
+    private int initialHttp2ConnectionWindowSize = DEFAULT_WINDOW_SIZE;
+    private int initialHttp2StreamWindowSize = DEFAULT_WINDOW_SIZE;
+    private long http2MaxStreamsPerConnection = MAX_CONCURRENT_STREAMS;
+    private int http2MaxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+    private long http2HeaderTableSize = DEFAULT_HEADER_TABLE_SIZE;
+    private boolean adaptiveHttp2FlowControl;
     private int proxyProtocolMaxTlvSize = PROXY_PROTOCOL_DEFAULT_MAX_TLV_SIZE;
     private Duration gracefulShutdownQuietPeriod = DEFAULT_GRACEFUL_SHUTDOWN_QUIET_PERIOD;
     private Duration gracefulShutdownTimeout = DEFAULT_GRACEFUL_SHUTDOWN_TIMEOUT;
@@ -480,6 +496,75 @@ public final class ServerBuilder {
         return this;
     }
 
+    /**
+     * Sets the <a href="https://tools.ietf.org/html/rfc7540#section-6.9.2">initial connection flow-control
+     * window size</a>. The HTTP/2 connection is first established with
+     * {@value Http2CodecUtil#DEFAULT_WINDOW_SIZE} bytes of connection flow-control window size,
+     * and it is changed if and only if {@code initialHttp2ConnectionWindowSize} is set.
+     * Note that this setting affects the connection-level window size, not the window size of streams.
+     *
+     * @see #initialHttp2StreamWindowSize(int)
+     */
+    public ServerBuilder initialHttp2ConnectionWindowSize(int initialHttp2ConnectionWindowSize) {
+        this.initialHttp2ConnectionWindowSize =
+                validateInitialHttp2ConnectionWindowSize(initialHttp2ConnectionWindowSize);
+        return this;
+    }
+
+    /**
+     * Sets the <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">SETTINGS_INITIAL_WINDOW_SIZE</a>
+     * for HTTP/2 stream-level flow control. Note that this setting affects the window size of all streams,
+     * not the connection-level window size.
+     *
+     * @see #initialHttp2ConnectionWindowSize(int)
+     */
+    public ServerBuilder initialHttp2StreamWindowSize(int initialHttp2StreamWindowSize) {
+        this.initialHttp2StreamWindowSize = validateInitialHttp2StreamWindowSize(initialHttp2StreamWindowSize);
+        return this;
+    }
+
+    /**
+     * Sets the <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">SETTINGS_MAX_CONCURRENT_STREAMS</a>
+     * that indicates the maximum number of concurrent streams that a client is allowed to open on an HTTP/2
+     * connection. The number of streams is not limited by default.
+     */
+    public ServerBuilder http2MaxStreamsPerConnection(long http2MaxStreamsPerConnection) {
+        this.http2MaxStreamsPerConnection = validateHttp2MaxStreamsPerConnection(http2MaxStreamsPerConnection);
+        return this;
+    }
+
+    /**
+     * Sets the <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">SETTINGS_MAX_FRAME_SIZE</a>
+     * that indicates the size of the largest frame payload that this server is willing to receive.
+     */
+    public ServerBuilder http2MaxFrameSize(int http2MaxFrameSize) {
+        this.http2MaxFrameSize = validateHttp2MaxFrameSize(http2MaxFrameSize);
+        return this;
+    }
+
+    /**
+     * Sets the <a href="https://tools.ietf.org/html/rfc7540#section-6.5.2">SETTINGS_HEADER_TABLE_SIZE</a>
+     * that indicates the maximum size of the HPACK header table used to decode the HTTP/2 headers sent by
+     * a client. The default value is {@value Http2CodecUtil#DEFAULT_HEADER_TABLE_SIZE}.
+     */
+    public ServerBuilder http2HeaderTableSize(long http2HeaderTableSize) {
+        this.http2HeaderTableSize = validateHttp2HeaderTableSize(http2HeaderTableSize);
+        return this;
+    }
+
+    /**
+     * Sets whether the HTTP/2 flow control windows are grown automatically. When enabled, the server
+     * measures the bandwidth-delay product of each connection with {@code PING} frames while receiving
+     * data, and grows the connection and stream windows so that a client is not throttled by a window
+     * smaller than what the link can carry. This is useful for large uploads over high-latency links.
+     * The windows never become smaller than {@link #initialHttp2ConnectionWindowSize(int)} and
+     * {@link #initialHttp2StreamWindowSize(int)}. This option is disabled by default.
+     */
+    public ServerBuilder adaptiveHttp2FlowControl(boolean adaptiveHttp2FlowControl) {
+        this.adaptiveHttp2FlowControl = adaptiveHttp2FlowControl;
+        return this;
+    }
+
     /**
      * Sets the amount of time to wait after calling {@link Server#stop()} for
      * requests to go away before actually shutting down.
@@ -1056,6 +1141,9 @@ public final class ServerBuilder {
                 workerGroup, shutdownWorkerGroupOnStop, maxNumConnections,
                 idleTimeoutMillis, defaultRequestTimeoutMillis, defaultMaxRequestLength,
                 maxHttp1InitialLineLength, maxHttp1HeaderSize, maxHttp1ChunkSize,
+                initialHttp2ConnectionWindowSize, initialHttp2StreamWindowSize,
+                http2MaxStreamsPerConnection, http2MaxFrameSize, http2HeaderTableSize,
+                adaptiveHttp2FlowControl,
                 gracefulShutdownQuietPeriod, gracefulShutdownTimeout, blockingTaskExecutor,
                 meterRegistry, serviceLoggerPrefix, accessLogWriter,
                 proxyProtocolMaxTlvSize, channelOptions, childChannelOptions), sslContexts);
@@ -1095,7 +1183,10 @@ public final class ServerBuilder {
                 getClass(), ports, defaultVirtualHost, virtualHosts, workerGroup, shutdownWorkerGroupOnStop,
                 maxNumConnections, idleTimeoutMillis, defaultRequestTimeoutMillis, defaultMaxRequestLength,
                 maxHttp1InitialLineLength, maxHttp1HeaderSize, maxHttp1ChunkSize,
-                proxyProtocolMaxTlvSize, gracefulShutdownQuietPeriod, gracefulShutdownTimeout,
+                initialHttp2ConnectionWindowSize, initialHttp2StreamWindowSize,
+                http2MaxStreamsPerConnection, http2MaxFrameSize, http2HeaderTableSize,
+                adaptiveHttp2FlowControl, proxyProtocolMaxTlvSize,
+                gracefulShutdownQuietPeriod, gracefulShutdownTimeout,
                 blockingTaskExecutor, meterRegistry, serviceLoggerPrefix, accessLogWriter, channelOptions,
                 childChannelOptions
         );
@@ -17,6 +17,12 @@
 package com.linecorp.armeria.server;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.netty.handler.codec.http2.Http2CodecUtil.DEFAULT_WINDOW_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_CONCURRENT_STREAMS;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_FRAME_SIZE_LOWER_BOUND;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_FRAME_SIZE_UPPER_BOUND;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_HEADER_TABLE_SIZE;
+import static io.netty.handler.codec.http2.Http2CodecUtil.MAX_INITIAL_WINDOW_SIZE;
 import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
@@ -68,6 +74,12 @@ public final class ServerConfig {
     private final int defaultMaxHttp1InitialLineLength;
     private final int defaultMaxHttp1HeaderSize;
     private final int defaultMaxHttp1ChunkSize;
+    private final int initialHttp2ConnectionWindowSize;
+    private final int initialHttp2StreamWindowSize;
+    private final long http2MaxStreamsPerConnection;
+    private final int http2MaxFrameSize;
+    private final long http2HeaderTableSize;
+    private final boolean adaptiveHttp2FlowControl;
 
     private final Duration gracefulShutdownQuietPeriod;
     private final Duration gracefulShutdownTimeout;
@@ -95,6 +107,9 @@ public final class ServerConfig {
             int maxNumConnections, long idleTimeoutMillis,
             long defaultRequestTimeoutMillis, long defaultMaxRequestLength,
             int defaultMaxHttp1InitialLineLength, int defaultMaxHttp1HeaderSize, int defaultMaxHttp1ChunkSize,
+            int initialHttp2ConnectionWindowSize, int initialHttp2StreamWindowSize,
+            long http2MaxStreamsPerConnection, int http2MaxFrameSize, long http2HeaderTableSize,
+            boolean adaptiveHttp2FlowControl,
             Duration gracefulShutdownQuietPeriod, Duration gracefulShutdownTimeout,
             Executor blockingTaskExecutor, MeterRegistry meterRegistry, String serviceLoggerPrefix,
             Consumer<RequestLog> accessLogWriter, int proxyProtocolMaxTlvSize,
@@ -118,6 +133,15 @@ public final class ServerConfig {
                 defaultMaxHttp1HeaderSize, "defaultMaxHttp1HeaderSize");
         this.defaultMaxHttp1ChunkSize = validateNonNegative(
                 defaultMaxHttp1ChunkSize, "defaultMaxHttp1ChunkSize");
+        this.initialHttp2ConnectionWindowSize = validateInitialHttp2ConnectionWindowSize(
+                initialHttp2ConnectionWindowSize);
+        this.initialHttp2StreamWindowSize = validateInitialHttp2StreamWindowSize(
+                initialHttp2StreamWindowSize);
+        this.http2MaxStreamsPerConnection = validateHttp2MaxStreamsPerConnection(
+                http2MaxStreamsPerConnection);
+        this.http2MaxFrameSize = validateHttp2MaxFrameSize(http2MaxFrameSize);
+        this.http2HeaderTableSize = validateHttp2HeaderTableSize(http2HeaderTableSize);
+        this.adaptiveHttp2FlowControl = adaptiveHttp2FlowControl;
         this.gracefulShutdownQuietPeriod = validateNonNegative(requireNonNull(
                 gracefulShutdownQuietPeriod), "gracefulShutdownQuietPeriod");
         this.gracefulShutdownTimeout = validateNonNegative(requireNonNull(
@@ -221,6 +245,52 @@ public final class ServerConfig {
         return defaultMaxRequestLength;
     }
 
+    static int validateInitialHttp2ConnectionWindowSize(int initialHttp2ConnectionWindowSize) {
+        if (initialHttp2ConnectionWindowSize < DEFAULT_WINDOW_SIZE) {
+            throw new IllegalArgumentException(
+                    "initialHttp2ConnectionWindowSize: " + initialHttp2ConnectionWindowSize +
+                    " (expected: >= " + DEFAULT_WINDOW_SIZE + " and <= " + MAX_INITIAL_WINDOW_SIZE + ')');
+        }
+        return initialHttp2ConnectionWindowSize;
+    }
+
+    static int validateInitialHttp2StreamWindowSize(int initialHttp2StreamWindowSize) {
+        if (initialHttp2StreamWindowSize <= 0) {
+            throw new IllegalArgumentException(
+                    "initialHttp2StreamWindowSize: " + initialHttp2StreamWindowSize +
+                    " (expected: > 0 and <= " + MAX_INITIAL_WINDOW_SIZE + ')');
+        }
+        return initialHttp2StreamWindowSize;
+    }
+
+    static long validateHttp2MaxStreamsPerConnection(long http2MaxStreamsPerConnection) {
+        if (http2MaxStreamsPerConnection <= 0 || http2MaxStreamsPerConnection > MAX_CONCURRENT_STREAMS) {
+            throw new IllegalArgumentException(
+                    "http2MaxStreamsPerConnection: " + http2MaxStreamsPerConnection +
+                    " (expected: > 0 and <= " + MAX_CONCURRENT_STREAMS + ')');
+        }
+        return http2MaxStreamsPerConnection;
+    }
+
+    static int validateHttp2MaxFrameSize(int http2MaxFrameSize) {
+        if (http2MaxFrameSize < MAX_FRAME_SIZE_LOWER_BOUND || http2MaxFrameSize > MAX_FRAME_SIZE_UPPER_BOUND) {
+            throw new IllegalArgumentException(
+                    "http2MaxFrameSize: " + http2MaxFrameSize +
+                    " (expected: >= " + MAX_FRAME_SIZE_LOWER_BOUND +
+                    " and <= " + MAX_FRAME_SIZE_UPPER_BOUND + ')');
+        }
+        return http2MaxFrameSize;
+    }
+
+    static long validateHttp2HeaderTableSize(long http2HeaderTableSize) {
+        if (http2HeaderTableSize < 0 || http2HeaderTableSize > MAX_HEADER_TABLE_SIZE) {
+            throw new IllegalArgumentException(
+                    "http2HeaderTableSize: " + http2HeaderTableSize +
+                    " (expected: >= 0 and <= " + MAX_HEADER_TABLE_SIZE + ')');
+        }
+        return http2HeaderTableSize;
+    }
+
     static int validateNonNegative(int value, String fieldName) {
         if (value < 0) {
             throw new IllegalArgumentException(fieldName + ": " + value + " (expected: >= 0)");
@@ -417,6 +487,49 @@ public final class ServerConfig {
         return defaultMaxHttp1ChunkSize;
     }
 
+    /**
+     * Returns the initial connection-level HTTP/2 flow control window size.
+     */
+    public int initialHttp2ConnectionWindowSize() {
+        return initialHttp2ConnectionWindowSize;
+    }
+
+    /**
+     * Returns the initial stream-level HTTP/2 flow control window size.
+     */
+    public int initialHttp2StreamWindowSize() {
+        return initialHttp2StreamWindowSize;
+    }
+
+    /**
+     * Returns the maximum number of concurrent streams per HTTP/2 connection.
+     */
+    public long http2MaxStreamsPerConnection() {
+        return http2MaxStreamsPerConnection;
+    }
+
+    /**
+     * Returns the maximum size of HTTP/2 frame that can be received.
+     */
+    public int http2MaxFrameSize() {
+        return http2MaxFrameSize;
+    }
+
+    /**
+     * Returns the maximum size of the HPACK header table used to decode HTTP/2 headers.
+     */
+    public long http2HeaderTableSize() {
+        return http2HeaderTableSize;
+    }
+
+    /**
+     * Returns whether the HTTP/2 flow control windows are grown automatically based on the bandwidth-delay
+     * product measured with {@code PING} frames.
+     */
+    public boolean adaptiveHttp2FlowControl() {
+        return adaptiveHttp2FlowControl;
+    }
+
     /**
      * Returns the number of milliseconds to wait for active requests to go end before shutting down.
      * {@code 0} means the server will stop right away without waiting.
@@ -482,7 +595,10 @@ public final class ServerConfig {
                     maxNumConnections(), idleTimeoutMillis(),
                     defaultRequestTimeoutMillis(), defaultMaxRequestLength(),
                     defaultMaxHttp1InitialLineLength(), defaultMaxHttp1HeaderSize(), defaultMaxHttp1ChunkSize(),
-                    proxyProtocolMaxTlvSize(), gracefulShutdownQuietPeriod(), gracefulShutdownTimeout(),
+                    initialHttp2ConnectionWindowSize(), initialHttp2StreamWindowSize(),
+                    http2MaxStreamsPerConnection(), http2MaxFrameSize(), http2HeaderTableSize(),
+                    adaptiveHttp2FlowControl(), proxyProtocolMaxTlvSize(),
+                    gracefulShutdownQuietPeriod(), gracefulShutdownTimeout(),
                     blockingTaskExecutor(), meterRegistry(), serviceLoggerPrefix(), accessLogWriter(),
                     channelOptions(), childChannelOptions()
             );
@@ -497,7 +613,10 @@ public final class ServerConfig {
             EventLoopGroup workerGroup, boolean shutdownWorkerGroupOnStop,
             int maxNumConnections, long idleTimeoutMillis, long defaultRequestTimeoutMillis,
             long defaultMaxRequestLength, long defaultMaxHttp1InitialLineLength,
-            long defaultMaxHttp1HeaderSize, long defaultMaxHttp1ChunkSize, int proxyProtocolMaxTlvSize,
+            long defaultMaxHttp1HeaderSize, long defaultMaxHttp1ChunkSize,
+            int initialHttp2ConnectionWindowSize, int initialHttp2StreamWindowSize,
+            long http2MaxStreamsPerConnection, int http2MaxFrameSize, long http2HeaderTableSize,
+            boolean adaptiveHttp2FlowControl, int proxyProtocolMaxTlvSize,
             Duration gracefulShutdownQuietPeriod, Duration gracefulShutdownTimeout,
             Executor blockingTaskExecutor, @Nullable MeterRegistry meterRegistry, String serviceLoggerPrefix,
             Consumer<RequestLog> accessLogWriter, Map<ChannelOption<?>, ?> channelOptions,
@@ -563,7 +682,19 @@ public final class ServerConfig {
         buf.append(defaultMaxHttp1HeaderSize);
         buf.append("B, defaultMaxHttp1ChunkSize: ");
         buf.append(defaultMaxHttp1ChunkSize);
-        buf.append("B, proxyProtocolMaxTlvSize: ");
+        buf.append("B, initialHttp2ConnectionWindowSize: ");
+        buf.append(initialHttp2ConnectionWindowSize);
+        buf.append("B, initialHttp2StreamWindowSize: ");
+        buf.append(initialHttp2StreamWindowSize);
+        buf.append("B, http2MaxStreamsPerConnection: ");
+        buf.append(http2MaxStreamsPerConnection);
+        buf.append(", http2MaxFrameSize: ");
+        buf.append(http2MaxFrameSize);
+        buf.append("B, http2HeaderTableSize: ");
+        buf.append(http2HeaderTableSize);
+        buf.append("B, adaptiveHttp2FlowControl: ");
+        buf.append(adaptiveHttp2FlowControl);
+        buf.append(", proxyProtocolMaxTlvSize: ");
         buf.append(proxyProtocolMaxTlvSize);
         buf.append("B, gracefulShutdownQuietPeriod: ");
         buf.append(gracefulShutdownQuietPeriod);
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.encoding;
+
+import com.linecorp.armeria.common.HttpData;
+
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * A {@link StreamEncoderFactory} which supports the 'deflate' encoding.
+ */
+public class DeflateStreamEncoderFactory implements StreamEncoderFactory {
+
+    private final int compressionLevel;
+    private final boolean syncFlush;
+
+    /**
+     * Creates a new instance with the default compression level and synchronous flush.
+     */
+    public DeflateStreamEncoderFactory() {
+        this(ZlibStreamEncoder.DEFAULT_COMPRESSION_LEVEL, true);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param compressionLevel the compression level, between {@code 0} (no compression) and {@code 9}
+     *                         (best compression)
+     * @param syncFlush whether to flush the compressed content whenever an {@link HttpData} is encoded,
+     *                  so that a client can decode the content received so far. If {@code false}, the
+     *                  compressed content is emitted only when the compressor's buffer is full, which
+     *                  yields a better compression ratio for a response with many small chunks.
+     */
+    public DeflateStreamEncoderFactory(int compressionLevel, boolean syncFlush) {
+        this.compressionLevel = ZlibStreamEncoder.validateCompressionLevel(compressionLevel);
+        this.syncFlush = syncFlush;
+    }
+
+    @Override
+    public String encodingHeaderValue() {
+        return "deflate";
+    }
+
+    @Override
+    public StreamEncoder newEncoder(ByteBufAllocator alloc) {
+        return new ZlibStreamEncoder(alloc, false, compressionLevel, syncFlush);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.encoding;
+
+import java.util.ArrayDeque;
+import java.util.zip.Deflater;
+
+import io.netty.util.concurrent.FastThreadLocal;
+
+/**
+ * A per-thread pool of {@link Deflater}s, which avoids allocating a native zlib stream for every encoded
+ * response. Because responses are encoded in their event loops, this is effectively a pool per event loop.
+ */
+final class DeflaterPool {
+
+    /**
+     * The maximum number of idle {@link Deflater}s kept per thread for each compression level and
+     * wrapping mode.
+     */
+    private static final int MAX_POOLED_DEFLATERS = 16;
+
+    // Compression levels range from -1 (default) to 9, with or without the zlib wrapper.
+    private static final int NUM_POOLS = 11 * 2;
+
+    private static final FastThreadLocal<ArrayDeque<Deflater>[]> pools =
+            new FastThreadLocal<ArrayDeque<Deflater>[]>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                protected ArrayDeque<Deflater>[] initialValue() {
+                    return new ArrayDeque[NUM_POOLS];
+                }
+            };
+
+    /**
+     * Returns a {@link Deflater} from the pool of the current thread, or a new one if the pool is empty.
+     *
+     * @param nowrap whether to omit the zlib header and trailer, as in {@link Deflater#Deflater(int, boolean)}
+     */
+    static Deflater acquire(int compressionLevel, boolean nowrap) {
+        final ArrayDeque<Deflater> pool = pools.get()[index(compressionLevel, nowrap)];
+        if (pool != null) {
+            final Deflater deflater = pool.pollFirst();
+            if (deflater != null) {
+                return deflater;
+            }
+        }
+        return new Deflater(compressionLevel, nowrap);
+    }
+
+    /**
+     * Resets the specified {@link Deflater} and returns it to the pool of the current thread. The
+     * {@link Deflater} is ended if the pool is full.
+     */
+    static void release(Deflater deflater, int compressionLevel, boolean nowrap) {
+        final ArrayDeque<Deflater>[] pools = DeflaterPool.pools.get();
+        final int index = index(compressionLevel, nowrap);
+        ArrayDeque<Deflater> pool = pools[index];
+        if (pool == null) {
+            pools[index] = pool = new ArrayDeque<>(MAX_POOLED_DEFLATERS);
+        }
+
+        if (pool.size() < MAX_POOLED_DEFLATERS) {
+            deflater.reset();
+            pool.addFirst(deflater);
+        } else {
+            deflater.end();
+        }
+    }
+
+    private static int index(int compressionLevel, boolean nowrap) {
+        return (compressionLevel + 1) * 2 + (nowrap ? 1 : 0);
+    }
+
+    private DeflaterPool() {}
+}
@@ -18,10 +18,7 @@ package com.linecorp.armeria.server.encoding;
 
 import static java.util.Objects.requireNonNull;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
 import java.util.function.Predicate;
-import java.util.zip.DeflaterOutputStream;
 
 import javax.annotation.Nullable;
 
@@ -37,31 +34,36 @@ import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.HttpStatusClass;
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.stream.FilteredStreamMessage;
+import com.linecorp.armeria.internal.PooledObjects;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.ReferenceCountUtil;
 
 /**
  * A {@link FilteredStreamMessage} that applies HTTP encoding to {@link HttpObject}s as they are published.
  */
 class HttpEncodedResponse extends FilteredHttpResponse {
 
-    private final HttpEncodingType encodingType;
+    private final StreamEncoderFactory encoderFactory;
+    private final ByteBufAllocator alloc;
     private final Predicate<MediaType> encodableContentTypePredicate;
     private final int minBytesToForceChunkedAndEncoding;
 
     @Nullable
-    private ByteArrayOutputStream encodedStream;
-
-    @Nullable
-    private DeflaterOutputStream encodingStream;
+    private StreamEncoder encoder;
 
     private boolean headersSent;
 
     HttpEncodedResponse(
             HttpResponse delegate,
-            HttpEncodingType encodingType,
+            StreamEncoderFactory encoderFactory,
+            ByteBufAllocator alloc,
             Predicate<MediaType> encodableContentTypePredicate,
             int minBytesToForceChunkedAndEncoding) {
-        super(delegate);
-        this.encodingType = requireNonNull(encodingType, "encodingType");
+        // Receive the pooled objects as they are, because they are consumed by the encoder immediately.
+        super(delegate, true);
+        this.encoderFactory = requireNonNull(encoderFactory, "encoderFactory");
+        this.alloc = requireNonNull(alloc, "alloc");
         this.encodableContentTypePredicate = requireNonNull(encodableContentTypePredicate,
                                                             "encodableContentTypePredicate");
         this.minBytesToForceChunkedAndEncoding = HttpEncodingService.validateMinBytesToForceChunkedAndEncoding(
@@ -94,48 +96,42 @@ class HttpEncodedResponse extends FilteredHttpResponse {
                 return obj;
             }
 
-            encodedStream = new ByteArrayOutputStream();
-            encodingStream = HttpEncoders.getEncodingOutputStream(encodingType, encodedStream);
+            encoder = encoderFactory.newEncoder(alloc);
+            // Neither beforeComplete() nor beforeError() is invoked when the subscription is cancelled,
+            // so close the encoder when the stream is closed for any reason.
+            completionFuture().whenComplete((unused1, unused2) -> closeEncoder());
 
             // Always use chunked encoding when compressing.
             headers.remove(HttpHeaderNames.CONTENT_LENGTH);
-            switch (encodingType) {
-                case GZIP:
-                    headers.set(HttpHeaderNames.CONTENT_ENCODING, "gzip");
-                    break;
-                case DEFLATE:
-                    headers.set(HttpHeaderNames.CONTENT_ENCODING, "deflate");
-                    break;
-            }
+            headers.set(HttpHeaderNames.CONTENT_ENCODING, encoderFactory.encodingHeaderValue());
             headers.set(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING.toString());
             return headers;
         }
 
-        if (encodingStream == null) {
+        if (encoder == null) {
             // Encoding was disabled for this response.
             return obj;
         }
 
-        final HttpData data = (HttpData) obj;
-        assert encodedStream != null;
         try {
-            encodingStream.write(data.array(), data.offset(), data.length());
-            encodingStream.flush();
-            return HttpData.of(encodedStream.toByteArray());
-        } catch (IOException e) {
-            throw new IllegalStateException(
-                    "Error encoding HttpData, this should not happen with byte arrays.",
-                    e);
+            return encoder.encode((HttpData) obj);
         } finally {
-            encodedStream.reset();
+            ReferenceCountUtil.safeRelease(obj);
         }
     }
 
     @Override
     protected void beforeComplete(Subscriber<? super HttpObject> subscriber) {
-        closeEncoder();
-        if (encodedStream != null && encodedStream.size() > 0) {
-            subscriber.onNext(HttpData.of(encodedStream.toByteArray()));
+        if (encoder == null) {
+            return;
+        }
+
+        // The remaining data is usually tiny, so it is always copied into an unpooled buffer
+        // because we do not know whether the subscriber accepts a pooled object.
+        final HttpData data = PooledObjects.toUnpooled(encoder.finish());
+        encoder = null;
+        if (!data.isEmpty()) {
+            subscriber.onNext(data);
         }
     }
 
@@ -146,15 +142,10 @@ class HttpEncodedResponse extends FilteredHttpResponse {
     }
 
     private void closeEncoder() {
-        if (encodingStream == null) {
-            return;
-        }
-        try {
-            encodingStream.close();
-        } catch (IOException e) {
-            throw new IllegalStateException(
-                    "Error closing encodingStream, this should not happen with byte arrays.",
-                    e);
+        final StreamEncoder encoder = this.encoder;
+        if (encoder != null) {
+            this.encoder = null;
+            encoder.close();
         }
     }
 
@@ -16,88 +16,44 @@
 
 package com.linecorp.armeria.server.encoding;
 
-import java.io.IOException;
-import java.io.OutputStream;
-import java.util.zip.DeflaterOutputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.List;
 
 import javax.annotation.Nullable;
 
 import com.linecorp.armeria.common.HttpHeaderNames;
 import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.internal.AcceptEncodingUtil;
 
 /**
  * Support utilities for dealing with HTTP encoding (e.g., gzip).
  */
 final class HttpEncoders {
 
+    /**
+     * The maximum number of {@link StreamEncoderFactory}s whose weights are tracked by
+     * {@link #determineEncoding(String, List)}.
+     */
+    static final int MAX_ENCODER_FACTORIES = AcceptEncodingUtil.MAX_CANDIDATES;
+
     @Nullable
-    static HttpEncodingType getWrapperForRequest(HttpRequest request) {
+    static StreamEncoderFactory getEncoderFactory(HttpRequest request, List<StreamEncoderFactory> factories) {
         final String acceptEncoding = request.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
         if (acceptEncoding == null) {
             return null;
         }
-        return determineEncoding(acceptEncoding);
-    }
-
-    static DeflaterOutputStream getEncodingOutputStream(HttpEncodingType encodingType, OutputStream out) {
-        switch (encodingType) {
-            case GZIP:
-                try {
-                    return new GZIPOutputStream(out, true);
-                } catch (IOException e) {
-                    throw new IllegalStateException(
-                            "Error writing gzip header. This should not happen with byte arrays.", e);
-                }
-            case DEFLATE:
-                return new DeflaterOutputStream(out, true);
-            default:
-                throw new IllegalArgumentException("Unexpected zlib type, this is a programming bug.");
-        }
+        return determineEncoding(acceptEncoding, factories);
     }
 
-    // Copied from netty's HttpContentCompressor.
+    /**
+     * Returns the {@link StreamEncoderFactory} whose encoding has the highest weight in the specified
+     * {@code "accept-encoding"} header value. The earlier factory wins when the weights are the same.
+     *
+     * @return the chosen {@link StreamEncoderFactory}, or {@code null} if none of the encodings is acceptable
+     */
     @Nullable
-    @SuppressWarnings("FloatingPointEquality")
-    private static HttpEncodingType determineEncoding(String acceptEncoding) {
-        float starQ = -1.0f;
-        float gzipQ = -1.0f;
-        float deflateQ = -1.0f;
-        for (String encoding : acceptEncoding.split(",")) {
-            float q = 1.0f;
-            final int equalsPos = encoding.indexOf('=');
-            if (equalsPos != -1) {
-                try {
-                    q = Float.parseFloat(encoding.substring(equalsPos + 1));
-                } catch (NumberFormatException e) {
-                    // Ignore encoding
-                    q = 0.0f;
-                }
-            }
-            if (encoding.contains("*")) {
-                starQ = q;
-            } else if (encoding.contains("gzip") && q > gzipQ) {
-                gzipQ = q;
-            } else if (encoding.contains("deflate") && q > deflateQ) {
-                deflateQ = q;
-            }
-        }
-        if (gzipQ > 0.0f || deflateQ > 0.0f) {
-            if (gzipQ >= deflateQ) {
-                return HttpEncodingType.GZIP;
-            } else {
-                return HttpEncodingType.DEFLATE;
-            }
-        }
-        if (starQ > 0.0f) {
-            if (gzipQ == -1.0f) {
-                return HttpEncodingType.GZIP;
-            }
-            if (deflateQ == -1.0f) {
-                return HttpEncodingType.DEFLATE;
-            }
-        }
-        return null;
+    static StreamEncoderFactory determineEncoding(String acceptEncoding, List<StreamEncoderFactory> factories) {
+        return AcceptEncodingUtil.determineEncoding(acceptEncoding, factories,
+                                                    StreamEncoderFactory::encodingHeaderValue);
     }
 
     private HttpEncoders() {}
@@ -18,9 +18,12 @@ package com.linecorp.armeria.server.encoding;
 
 import static java.util.Objects.requireNonNull;
 
+import java.util.List;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 
+import com.google.common.collect.ImmutableList;
+
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.MediaType;
@@ -38,15 +41,19 @@ import com.linecorp.armeria.server.SimpleDecoratingService;
 public class HttpEncodingService
         extends SimpleDecoratingService<HttpRequest, HttpResponse> {
 
-    private static final Predicate<MediaType> DEFAULT_ENCODABLE_CONTENT_TYPE_PREDICATE =
+    static final Predicate<MediaType> DEFAULT_ENCODABLE_CONTENT_TYPE_PREDICATE =
             contentType -> Stream.of(MediaType.ANY_TEXT_TYPE,
                                      MediaType.APPLICATION_XML_UTF_8,
                                      MediaType.JAVASCRIPT_UTF_8,
                                      MediaType.JSON_UTF_8)
                                  .anyMatch(contentType::is);
 
-    private static final int DEFAULT_MIN_BYTES_TO_FORCE_CHUNKED_AND_ENCODING = 1024;
+    static final int DEFAULT_MIN_BYTES_TO_FORCE_CHUNKED_AND_ENCODING = 1024;
+
+    static final List<StreamEncoderFactory> DEFAULT_ENCODER_FACTORIES =
+            ImmutableList.of(new GzipStreamEncoderFactory(), new DeflateStreamEncoderFactory());
 
+    private final List<StreamEncoderFactory> encoderFactories;
     private final Predicate<MediaType> encodableContentTypePredicate;
     private final int minBytesToForceChunkedAndEncoding;
 
@@ -69,7 +76,16 @@ public class HttpEncodingService
     public HttpEncodingService(Service<HttpRequest, HttpResponse> delegate,
                                Predicate<MediaType> encodableContentTypePredicate,
                                int minBytesToForceChunkedAndEncoding) {
+        this(delegate, DEFAULT_ENCODER_FACTORIES, encodableContentTypePredicate,
+             minBytesToForceChunkedAndEncoding);
+    }
+
+    HttpEncodingService(Service<HttpRequest, HttpResponse> delegate,
+                        List<StreamEncoderFactory> encoderFactories,
+                        Predicate<MediaType> encodableContentTypePredicate,
+                        int minBytesToForceChunkedAndEncoding) {
         super(delegate);
+        this.encoderFactories = validateEncoderFactories(encoderFactories);
         this.encodableContentTypePredicate = requireNonNull(encodableContentTypePredicate,
                                                             "encodableContentTypePredicate");
         this.minBytesToForceChunkedAndEncoding = validateMinBytesToForceChunkedAndEncoding(
@@ -78,14 +94,15 @@ public class HttpEncodingService
 
     @Override
     public HttpResponse serve(ServiceRequestContext ctx, HttpRequest req) throws Exception {
-        final HttpEncodingType encodingType = HttpEncoders.getWrapperForRequest(req);
+        final StreamEncoderFactory encoderFactory = HttpEncoders.getEncoderFactory(req, encoderFactories);
         final HttpResponse delegateResponse = delegate().serve(ctx, req);
-        if (encodingType == null) {
+        if (encoderFactory == null) {
             return delegateResponse;
         }
         return new HttpEncodedResponse(
                 delegateResponse,
-                encodingType,
+                encoderFactory,
+                ctx.alloc(),
                 encodableContentTypePredicate,
                 minBytesToForceChunkedAndEncoding);
     }
@@ -96,4 +113,17 @@ public class HttpEncodingService
         }
         return minBytesToForceChunkedAndEncoding;
     }
+
+    static List<StreamEncoderFactory> validateEncoderFactories(List<StreamEncoderFactory> encoderFactories) {
+        requireNonNull(encoderFactories, "encoderFactories");
+        if (encoderFactories.isEmpty()) {
+            throw new IllegalArgumentException("encoderFactories is empty.");
+        }
+        if (encoderFactories.size() > HttpEncoders.MAX_ENCODER_FACTORIES) {
+            throw new IllegalArgumentException(
+                    "encoderFactories.size(): " + encoderFactories.size() +
+                    " (expected: <= " + HttpEncoders.MAX_ENCODER_FACTORIES + ')');
+        }
+        return ImmutableList.copyOf(encoderFactories);
+    }
 }
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.encoding;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.collect.ImmutableList;
+
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.server.Service;
+
+/**
+ * Builds a new {@link HttpEncodingService} or its decorator function.
+ */
+public final class HttpEncodingServiceBuilder {
+
+    @Nullable
+    private List<StreamEncoderFactory> encoderFactories;
+    private Predicate<MediaType> encodableContentTypePredicate =
+            HttpEncodingService.DEFAULT_ENCODABLE_CONTENT_TYPE_PREDICATE;
+    private int minBytesToForceChunkedAndEncoding =
+            HttpEncodingService.DEFAULT_MIN_BYTES_TO_FORCE_CHUNKED_AND_ENCODING;
+    private int compressionLevel = ZlibStreamEncoder.DEFAULT_COMPRESSION_LEVEL;
+    private boolean syncFlush = true;
+
+    /**
+     * Sets the {@link StreamEncoderFactory}s of the encodings supported by the {@link HttpEncodingService},
+     * in the order of preference. When a client accepts more than one of them with the same weight,
+     * the earlier one is chosen. If not set, {@code "gzip"} and {@code "deflate"} are supported.
+     * Use this to add other encodings such as {@code "br"}.
+     */
+    public HttpEncodingServiceBuilder encoderFactories(StreamEncoderFactory... encoderFactories) {
+        requireNonNull(encoderFactories, "encoderFactories");
+        return encoderFactories(ImmutableList.copyOf(encoderFactories));
+    }
+
+    /**
+     * Sets the {@link StreamEncoderFactory}s of the encodings supported by the {@link HttpEncodingService},
+     * in the order of preference. When a client accepts more than one of them with the same weight,
+     * the earlier one is chosen. If not set, {@code "gzip"} and {@code "deflate"} are supported.
+     * Use this to add other encodings such as {@code "br"}.
+     */
+    public HttpEncodingServiceBuilder encoderFactories(
+            Iterable<? extends StreamEncoderFactory> encoderFactories) {
+        requireNonNull(encoderFactories, "encoderFactories");
+        this.encoderFactories = HttpEncodingService.validateEncoderFactories(
+                ImmutableList.copyOf(encoderFactories));
+        return this;
+    }
+
+    /**
+     * Sets the {@link Predicate} which determines whether a response of the given content type is encoded.
+     * By default, common web text formats such as HTML, XML, JavaScript and JSON are encoded.
+     */
+    public HttpEncodingServiceBuilder encodableContentTypePredicate(
+            Predicate<MediaType> encodableContentTypePredicate) {
+        this.encodableContentTypePredicate = requireNonNull(encodableContentTypePredicate,
+                                                            "encodableContentTypePredicate");
+        return this;
+    }
+
+    /**
+     * Sets the minimum {@code "content-length"} of a response to encode. A response without
+     * {@code "content-length"} is always encoded. The default value is {@code 1024}.
+     */
+    public HttpEncodingServiceBuilder minBytesToForceChunkedAndEncoding(int minBytesToForceChunkedAndEncoding) {
+        this.minBytesToForceChunkedAndEncoding =
+                HttpEncodingService.validateMinBytesToForceChunkedAndEncoding(
+                        minBytesToForceChunkedAndEncoding);
+        return this;
+    }
+
+    /**
+     * Sets the compression level ({@code 0-9}) of the default {@code "gzip"} and {@code "deflate"}
+     * encodings. A lower level uses less CPU per byte at the cost of a larger response.
+     * The default value is {@code 6}. This option is ignored if {@link #encoderFactories(Iterable)} is set.
+     */
+    public HttpEncodingServiceBuilder compressionLevel(int compressionLevel) {
+        this.compressionLevel = ZlibStreamEncoder.validateCompressionLevel(compressionLevel);
+        return this;
+    }
+
+    /**
+     * Sets whether the default {@code "gzip"} and {@code "deflate"} encodings flush the compressed data
+     * of every chunk, so that a streaming response is never delayed by the encoder. Disable this to get
+     * a better compression ratio for the responses which consist of many small chunks.
+     * The default value is {@code true}. This option is ignored if {@link #encoderFactories(Iterable)}
+     * is set.
+     */
+    public HttpEncodingServiceBuilder syncFlush(boolean syncFlush) {
+        this.syncFlush = syncFlush;
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link HttpEncodingService} decorating the specified {@link Service}
+     * based on the properties of this builder.
+     */
+    public HttpEncodingService build(Service<HttpRequest, HttpResponse> delegate) {
+        return new HttpEncodingService(delegate, encoderFactories(), encodableContentTypePredicate,
+                                       minBytesToForceChunkedAndEncoding);
+    }
+
+    /**
+     * Returns a newly-created decorator that decorates a {@link Service} with a new
+     * {@link HttpEncodingService} based on the properties of this builder.
+     */
+    public Function<Service<HttpRequest, HttpResponse>, HttpEncodingService> newDecorator() {
+        return this::build;
+    }
+
+    private List<StreamEncoderFactory> encoderFactories() {
+        if (encoderFactories != null) {
+            return encoderFactories;
+        }
+        if (compressionLevel == ZlibStreamEncoder.DEFAULT_COMPRESSION_LEVEL && syncFlush) {
+            return HttpEncodingService.DEFAULT_ENCODER_FACTORIES;
+        }
+        return ImmutableList.of(new GzipStreamEncoderFactory(compressionLevel, syncFlush),
+                                new DeflateStreamEncoderFactory(compressionLevel, syncFlush));
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).omitNullValues()
+                          .add("encoderFactories", encoderFactories)
+                          .add("encodableContentTypePredicate", encodableContentTypePredicate)
+                          .add("minBytesToForceChunkedAndEncoding", minBytesToForceChunkedAndEncoding)
+                          .add("compressionLevel", compressionLevel)
+                          .add("syncFlush", syncFlush)
+                          .toString();
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.encoding;
+
+import com.linecorp.armeria.common.HttpData;
+
+/**
+ * An interface for objects that apply HTTP content encoding to outgoing {@link HttpData}.
+ * Implement this interface to use content encoding schemes not built-in to the JDK, such as
+ * brotli or zstd.
+ */
+public interface StreamEncoder {
+
+    /**
+     * Encodes an {@link HttpData} and returns the encoded {@link HttpData}. The specified {@link HttpData}
+     * is not released by this method.
+     */
+    HttpData encode(HttpData obj);
+
+    /**
+     * Closes the encoder and returns any encoded data that may be left over, including the trailer of
+     * the encoding format.
+     */
+    HttpData finish();
+
+    /**
+     * Closes the encoder without producing any more data, releasing the resources held by the encoder.
+     * This method is invoked when the {@link StreamEncoder} is not finished successfully, e.g. when
+     * the response is aborted.
+     */
+    void close();
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.encoding;
+
+import com.linecorp.armeria.common.HttpResponse;
+
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * An interface that constructs a new {@link StreamEncoder} for a given Content-Encoding header value.
+ * A new encoder is valid for the lifetime of an {@link HttpResponse}.
+ */
+public interface StreamEncoderFactory {
+
+    /**
+     * Returns the value of the Content-Encoding header which this factory applies to.
+     */
+    String encodingHeaderValue();
+
+    /**
+     * Constructs a new {@link StreamEncoder} to use to encode an {@link HttpResponse}.
+     *
+     * @param alloc the {@link ByteBufAllocator} which allocates the buffers of the encoded content
+     */
+    StreamEncoder newEncoder(ByteBufAllocator alloc);
+}
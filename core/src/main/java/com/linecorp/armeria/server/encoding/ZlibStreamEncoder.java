@@ -0,0 +1,171 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.encoding;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+
+/**
+ * A {@link StreamEncoder} that uses zlib ('gzip' or 'deflate'). The content is compressed directly into
+ * the buffers allocated by a {@link ByteBufAllocator}, with a {@link Deflater} borrowed from
+ * the {@link DeflaterPool}.
+ */
+final class ZlibStreamEncoder implements StreamEncoder {
+
+    static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int GZIP_TRAILER_LENGTH = 8;
+
+    private static final int MIN_WRITABLE_BYTES = 256;
+
+    static int validateCompressionLevel(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) {
+            throw new IllegalArgumentException(
+                    "compressionLevel: " + compressionLevel + " (expected: 0-9)");
+        }
+        return compressionLevel;
+    }
+
+    private final ByteBufAllocator alloc;
+    private final boolean gzip;
+    private final int compressionLevel;
+    private final boolean syncFlush;
+    @Nullable
+    private final CRC32 crc;
+    @Nullable
+    private Deflater deflater;
+    private boolean headerWritten;
+
+    ZlibStreamEncoder(ByteBufAllocator alloc, boolean gzip, int compressionLevel, boolean syncFlush) {
+        this.alloc = alloc;
+        this.gzip = gzip;
+        this.compressionLevel = compressionLevel;
+        this.syncFlush = syncFlush;
+        crc = gzip ? new CRC32() : null;
+        // The gzip header and trailer are written by this encoder, so zlib wrapping is disabled for gzip.
+        deflater = DeflaterPool.acquire(compressionLevel, gzip);
+    }
+
+    @Override
+    public HttpData encode(HttpData obj) {
+        final Deflater deflater = this.deflater;
+        checkState(deflater != null, "encoder closed already");
+
+        final int length = obj.length();
+        final ByteBuf out = alloc.heapBuffer(estimateEncodedLength(length));
+        boolean success = false;
+        try {
+            writeHeaderIfNecessary(out);
+            if (length != 0) {
+                final byte[] array = obj.array();
+                final int offset = obj.offset();
+                if (crc != null) {
+                    crc.update(array, offset, length);
+                }
+                deflater.setInput(array, offset, length);
+                deflate(deflater, out, syncFlush ? Deflater.SYNC_FLUSH : Deflater.NO_FLUSH);
+            }
+            success = true;
+            return new ByteBufHttpData(out, false);
+        } finally {
+            if (!success) {
+                out.release();
+            }
+        }
+    }
+
+    @Override
+    public HttpData finish() {
+        final Deflater deflater = this.deflater;
+        checkState(deflater != null, "encoder closed already");
+
+        final ByteBuf out = alloc.heapBuffer(MIN_WRITABLE_BYTES);
+        boolean success = false;
+        try {
+            writeHeaderIfNecessary(out);
+            deflater.finish();
+            while (!deflater.finished()) {
+                deflate(deflater, out, Deflater.NO_FLUSH);
+            }
+
+            if (crc != null) {
+                out.ensureWritable(GZIP_TRAILER_LENGTH);
+                out.writeIntLE((int) crc.getValue());
+                out.writeIntLE((int) deflater.getBytesRead());
+            }
+            success = true;
+            return new ByteBufHttpData(out, false);
+        } finally {
+            if (!success) {
+                out.release();
+            }
+            close();
+        }
+    }
+
+    @Override
+    public void close() {
+        final Deflater deflater = this.deflater;
+        if (deflater != null) {
+            this.deflater = null;
+            DeflaterPool.release(deflater, compressionLevel, gzip);
+        }
+    }
+
+    private void writeHeaderIfNecessary(ByteBuf out) {
+        if (gzip && !headerWritten) {
+            out.writeBytes(GZIP_HEADER);
+            headerWritten = true;
+        }
+    }
+
+    /**
+     * Deflates the pending input into the specified heap buffer, expanding the buffer as necessary.
+     */
+    private static void deflate(Deflater deflater, ByteBuf out, int flush) {
+        for (;;) {
+            out.ensureWritable(MIN_WRITABLE_BYTES);
+            final int writerIndex = out.writerIndex();
+            final int writableBytes = out.writableBytes();
+            final int writtenBytes = deflater.deflate(out.array(), out.arrayOffset() + writerIndex,
+                                                      writableBytes, flush);
+            out.writerIndex(writerIndex + writtenBytes);
+            if (writtenBytes < writableBytes && (deflater.needsInput() || deflater.finished())) {
+                break;
+            }
+        }
+    }
+
+    private int estimateEncodedLength(int length) {
+        // Compressible content usually shrinks; start small and let the buffer grow if it does not.
+        return (length >>> 1) + GZIP_HEADER.length + MIN_WRITABLE_BYTES;
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.file;
+
+import javax.annotation.Nullable;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Generates and compares the entity tags of the cached file contents, as specified in
+ * <a href="https://tools.ietf.org/html/rfc7232#section-2.3">RFC 7232</a>.
+ */
+final class ETags {
+
+    private static final HashFunction hashFunction = Hashing.murmur3_128();
+
+    /**
+     * Returns a new strong entity tag derived from the hash of the specified {@code content}.
+     * The tags of the same content with different content encodings are different from each other.
+     */
+    static String of(ByteBuf content, @Nullable String contentEncoding) {
+        final String hash = hashFunction.hashBytes(content.nioBuffer()).toString();
+        if (contentEncoding == null) {
+            return '"' + hash + '"';
+        } else {
+            return '"' + hash + '-' + contentEncoding + '"';
+        }
+    }
+
+    /**
+     * Returns whether any of the entity tags in the specified header value matches the specified
+     * entity tag.
+     *
+     * @param headerValue the value of an {@code "if-none-match"} or {@code "if-match"} header
+     * @param etag the strong entity tag of the current representation, or {@code null} if unknown.
+     *             {@code "*"} matches even if {@code null}.
+     * @param weakComparison whether to use weak comparison, which ignores the weakness of the tags
+     *                       in the header value
+     */
+    static boolean matchesAny(String headerValue, @Nullable String etag, boolean weakComparison) {
+        final int length = headerValue.length();
+        int i = 0;
+        while (i < length) {
+            final char ch = headerValue.charAt(i);
+            if (ch == ' ' || ch == '\t' || ch == ',') {
+                i++;
+                continue;
+            }
+
+            if (ch == '*') {
+                return true;
+            }
+
+            boolean weak = false;
+            if (ch == 'W' && headerValue.startsWith("W/", i)) {
+                weak = true;
+                i += 2;
+            }
+
+            if (i >= length || headerValue.charAt(i) != '"') {
+                // Malformed.
+                return false;
+            }
+
+            final int end = headerValue.indexOf('"', i + 1);
+            if (end < 0) {
+                // Malformed.
+                return false;
+            }
+
+            if (etag != null && (weakComparison || !weak) &&
+                etag.length() == end + 1 - i && headerValue.startsWith(etag, i)) {
+                return true;
+            }
+
+            i = end + 1;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns whether the entity tag in the specified {@code "if-range"} header value matches the specified
+     * entity tag strongly. Unlike {@code "if-none-match"}, an {@code "if-range"} header contains a single
+     * entity tag, and neither a list nor {@code "*"} is allowed.
+     *
+     * @param etag the strong entity tag of the current representation, or {@code null} if unknown
+     */
+    static boolean matchesIfRange(String headerValue, @Nullable String etag) {
+        if (etag == null) {
+            return false;
+        }
+
+        int start = 0;
+        int end = headerValue.length();
+        while (start < end && isWhitespace(headerValue.charAt(start))) {
+            start++;
+        }
+        while (end > start && isWhitespace(headerValue.charAt(end - 1))) {
+            end--;
+        }
+
+        // A weak tag, e.g. W/"foo", never matches because it does not start with a double quote.
+        return etag.length() == end - start && headerValue.startsWith(etag, start);
+    }
+
+    private static boolean isWhitespace(char ch) {
+        return ch == ' ' || ch == '\t';
+    }
+
+    private ETags() {}
+}
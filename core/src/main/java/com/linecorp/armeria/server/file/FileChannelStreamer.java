@@ -0,0 +1,201 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.file;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Streams the regions of a {@link FileChannel} as an {@link HttpResponse}. The content is read on
+ * {@link ServiceRequestContext#blockingTaskExecutor()} into pooled direct {@link ByteBuf}s of at most
+ * {@value #CHUNK_SIZE} bytes, one chunk per demand, so that the whole file is never held in memory.
+ */
+final class FileChannelStreamer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileChannelStreamer.class);
+
+    private static final int CHUNK_SIZE = 65536;
+
+    private static final byte[] EMPTY_BYTES = {};
+
+    /**
+     * Returns a new streaming {@link HttpResponse} which sends the specified {@code headers} and then
+     * the specified {@link Part}s of the {@link FileChannel}, followed by the specified {@code trailer}.
+     * The {@link FileChannel} is closed when the response is complete.
+     */
+    static HttpResponse stream(ServiceRequestContext ctx, HttpHeaders headers, FileChannel channel,
+                               List<Part> parts, byte[] trailer) {
+        final HttpResponseWriter res = HttpResponse.streaming();
+        res.write(headers);
+
+        final FileChannelStreamer streamer = new FileChannelStreamer(ctx, res, channel, parts, trailer);
+        res.completionFuture().handle((unused, cause) -> {
+            streamer.closeChannel();
+            return null;
+        });
+        streamer.scheduleNextChunk();
+        return res;
+    }
+
+    /**
+     * Returns a new {@link Part} which consists of the specified region of a file.
+     */
+    static Part part(long position, long length) {
+        return new Part(EMPTY_BYTES, position, length);
+    }
+
+    /**
+     * Returns a new {@link Part} which consists of the specified {@code header} followed by the specified
+     * region of a file.
+     */
+    static Part part(byte[] header, long position, long length) {
+        return new Part(header, position, length);
+    }
+
+    private final ServiceRequestContext ctx;
+    private final HttpResponseWriter res;
+    private final FileChannel channel;
+    private final List<Part> parts;
+    private final byte[] trailer;
+
+    // Accessed only by the task scheduled via HttpResponseWriter.onDemand(), one at a time.
+    private int partIdx;
+    private long partOffset;
+
+    private FileChannelStreamer(ServiceRequestContext ctx, HttpResponseWriter res, FileChannel channel,
+                                List<Part> parts, byte[] trailer) {
+        this.ctx = ctx;
+        this.res = res;
+        this.channel = channel;
+        this.parts = parts;
+        this.trailer = trailer;
+    }
+
+    private void scheduleNextChunk() {
+        res.onDemand(() -> ctx.blockingTaskExecutor().execute(this::writeNextChunk));
+    }
+
+    private void writeNextChunk() {
+        if (!res.isOpen()) {
+            return;
+        }
+
+        final ByteBuf buf;
+        try {
+            buf = readNextChunk();
+        } catch (Throwable cause) {
+            if (res.isOpen()) {
+                logger.warn("{} Unexpected exception reading a file:", ctx, cause);
+            }
+            res.close(cause);
+            return;
+        }
+
+        if (!res.tryWrite(new ByteBufHttpData(buf, false))) {
+            return;
+        }
+
+        if (partIdx == parts.size()) {
+            res.close();
+        } else {
+            scheduleNextChunk();
+        }
+    }
+
+    private ByteBuf readNextChunk() throws IOException {
+        final Part part = parts.get(partIdx);
+        final byte[] header = partOffset == 0 ? part.header : EMPTY_BYTES;
+        final int chunkLength = (int) Math.min(CHUNK_SIZE, part.length - partOffset);
+        final boolean lastChunkOfPart = partOffset + chunkLength == part.length;
+        final boolean lastChunk = lastChunkOfPart && partIdx == parts.size() - 1;
+
+        final int capacity = header.length + chunkLength + (lastChunk ? trailer.length : 0);
+        final ByteBuf buf = ctx.alloc().directBuffer(capacity, capacity);
+        boolean success = false;
+        try {
+            buf.writeBytes(header);
+
+            long position = part.position + partOffset;
+            int remaining = chunkLength;
+            while (remaining > 0) {
+                final int readBytes = buf.writeBytes(channel, position, remaining);
+                if (readBytes < 0) {
+                    throw new EOFException("unexpected end of file at position " + position);
+                }
+                position += readBytes;
+                remaining -= readBytes;
+            }
+
+            if (lastChunk) {
+                buf.writeBytes(trailer);
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                buf.release();
+            }
+        }
+
+        if (lastChunkOfPart) {
+            partIdx++;
+            partOffset = 0;
+        } else {
+            partOffset += chunkLength;
+        }
+
+        return buf;
+    }
+
+    private void closeChannel() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("{} Failed to close a file channel:", ctx, e);
+        }
+    }
+
+    /**
+     * A region of a file, optionally preceded by a header such as the part header of
+     * a {@code "multipart/byteranges"} response.
+     */
+    static final class Part {
+
+        private final byte[] header;
+        private final long position;
+        private final long length;
+
+        private Part(byte[] header, long position, long length) {
+            assert length > 0;
+            this.header = header;
+            this.position = position;
+            this.length = length;
+        }
+    }
+}
@@ -22,8 +22,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import javax.annotation.Nullable;
 
@@ -87,5 +89,15 @@ final class FileSystemHttpVfs extends AbstractHttpVfs {
                 return readContent(in, (int) fileLength);
             }
         }
+
+        @Override
+        public long length() {
+            return file.length();
+        }
+
+        @Override
+        public FileChannel openChannel() throws IOException {
+            return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        }
     }
 }
@@ -20,10 +20,21 @@ import static java.util.Objects.requireNonNull;
 
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.text.ParseException;
+import java.util.Date;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
 
 import javax.annotation.Nullable;
 
@@ -32,7 +43,9 @@ import org.slf4j.LoggerFactory;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
 import com.github.benmanes.caffeine.cache.LoadingCache;
-import com.google.common.base.Splitter;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 
 import com.linecorp.armeria.common.HttpData;
 import com.linecorp.armeria.common.HttpHeaderNames;
@@ -42,6 +55,7 @@ import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.metric.MeterIdPrefix;
+import com.linecorp.armeria.internal.AcceptEncodingUtil;
 import com.linecorp.armeria.internal.metric.CaffeineMetricSupport;
 import com.linecorp.armeria.server.AbstractHttpService;
 import com.linecorp.armeria.server.HttpService;
@@ -51,8 +65,17 @@ import com.linecorp.armeria.server.ServiceConfig;
 import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.server.encoding.HttpEncodingService;
 import com.linecorp.armeria.server.file.HttpVfs.Entry;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.DateFormatter;
+import io.netty.util.ReferenceCountUtil;
 
 /**
  * An {@link HttpService} that serves static files from a file system.
@@ -63,7 +86,18 @@ public final class HttpFileService extends AbstractHttpService {
 
     private static final Logger logger = LoggerFactory.getLogger(HttpFileService.class);
 
-    private static final Splitter COMMA_SPLITTER = Splitter.on(',');
+    private static final MediaType MULTIPART_BYTERANGES = MediaType.create("multipart", "byteranges");
+
+    private static final byte[] EMPTY_BYTES = {};
+
+    private static final int MIN_BYTES_TO_COMPRESS = 1024;
+
+    private static final List<MediaType> COMPRESSIBLE_MEDIA_TYPES =
+            ImmutableList.of(MediaType.ANY_TEXT_TYPE,
+                             MediaType.APPLICATION_XML_UTF_8,
+                             MediaType.JAVASCRIPT_UTF_8,
+                             MediaType.JSON_UTF_8,
+                             MediaType.SVG_UTF_8);
 
     /**
      * Creates a new {@link HttpFileService} for the specified {@code rootDir} in an O/S file system.
@@ -109,10 +143,20 @@ public final class HttpFileService extends AbstractHttpService {
         this.config = requireNonNull(config, "config");
 
         if (config.maxCacheEntries() != 0) {
-            cache = Caffeine.newBuilder()
-                            .maximumSize(config.maxCacheEntries())
-                            .recordStats()
-                            .build(this::getEntryWithoutCache);
+            final Caffeine<Object, Object> builder = Caffeine.newBuilder();
+            if (config.maxCacheSizeBytes() != 0) {
+                builder.maximumWeight(config.maxCacheSizeBytes())
+                       .weigher((PathAndEncoding key, CachedEntry value) -> value.weight());
+            } else {
+                builder.maximumSize(config.maxCacheEntries());
+            }
+            cache = builder.recordStats()
+                           .removalListener((PathAndEncoding key, CachedEntry value, RemovalCause cause) -> {
+                               if (value != null) {
+                                   value.destroyContent();
+                               }
+                           })
+                           .build(this::getEntryWithoutCache);
         } else {
             cache = null;
         }
@@ -154,10 +198,90 @@ public final class HttpFileService extends AbstractHttpService {
             return HttpResponse.of(HttpStatus.NOT_FOUND);
         }
 
+        // Choose the cached representation, which may be compressed on the fly, if available.
+        CachedContent cachedContent = null;
+        if (entry instanceof CachedEntry) {
+            final CachedEntry cachedEntry = (CachedEntry) entry;
+            if (cachedEntry.tryStartCompression()) {
+                // Compress in the background so that the event loop is not blocked. The identity content
+                // is served until the compressed variants replace the entry.
+                ctx.blockingTaskExecutor().execute(() -> compressCachedEntry(cachedEntry));
+            }
+            cachedContent = cachedEntry.content(req.headers().get(HttpHeaderNames.ACCEPT_ENCODING));
+        }
+        final String etag = cachedContent != null ? cachedContent.etag() : null;
+
+        final HttpHeaders reqHeaders = req.headers();
+        final String ifNoneMatch = reqHeaders.get(HttpHeaderNames.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            // 'If-None-Match' takes precedence over 'If-Modified-Since'.
+            if (ETags.matchesAny(ifNoneMatch, etag, true)) {
+                return notModified(lastModifiedMillis, etag);
+            }
+        } else if (!isModifiedSince(reqHeaders, lastModifiedMillis)) {
+            return notModified(lastModifiedMillis, etag);
+        }
+
+        final HttpHeaders headers =
+                HttpHeaders.of(HttpStatus.OK)
+                           .set(HttpHeaderNames.ACCEPT_RANGES, "bytes")
+                           .setTimeMillis(HttpHeaderNames.DATE, config().clock().millis())
+                           .setTimeMillis(HttpHeaderNames.LAST_MODIFIED, lastModifiedMillis);
+        final MediaType mediaType = entry.mediaType();
+        if (mediaType != null) {
+            headers.contentType(mediaType);
+        }
+        if (config.serveCompressedFiles() || config.compressCachedFiles()) {
+            headers.set(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING.toString());
+        }
+
+        try {
+            if (cachedContent != null) {
+                final HttpData data = cachedContent.retainedData();
+                if (data != null) {
+                    headers.set(HttpHeaderNames.ETAG, cachedContent.etag());
+                    setContentEncoding(headers, cachedContent.contentEncoding());
+                    return serveContent(req, headers, mediaType, lastModifiedMillis, cachedContent.etag(),
+                                        data);
+                }
+                // Evicted from the cache concurrently; read the content of the underlying entry.
+            }
+
+            setContentEncoding(headers, entry.contentEncoding());
+
+            // Stream the content from a file channel if the content is too large to be read into memory.
+            final long length = entry.length();
+            if (length > config.maxCacheEntrySizeBytes()) {
+                final FileChannel channel = entry.openChannel();
+                if (channel != null) {
+                    try {
+                        return streamContent(ctx, req, headers, mediaType, lastModifiedMillis, channel, length);
+                    } catch (Throwable t) {
+                        // The channel is closed by FileChannelStreamer only once the streaming starts.
+                        try {
+                            channel.close();
+                        } catch (IOException e) {
+                            t.addSuppressed(e);
+                        }
+                        throw t;
+                    }
+                }
+            }
+
+            return serveContent(req, headers, mediaType, lastModifiedMillis, null, entry.readContent());
+        } catch (FileNotFoundException | NoSuchFileException ignored) {
+            return HttpResponse.of(HttpStatus.NOT_FOUND);
+        } catch (Exception e) {
+            logger.warn("{} Unexpected exception reading a file:", ctx, e);
+            return HttpResponse.of(HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    private static boolean isModifiedSince(HttpHeaders reqHeaders, long lastModifiedMillis) {
         long ifModifiedSinceMillis = Long.MIN_VALUE;
         try {
             ifModifiedSinceMillis =
-                    req.headers().getTimeMillis(HttpHeaderNames.IF_MODIFIED_SINCE, Long.MIN_VALUE);
+                    reqHeaders.getTimeMillis(HttpHeaderNames.IF_MODIFIED_SINCE, Long.MIN_VALUE);
         } catch (Exception e) {
             // Ignore the ParseException, which is raised on malformed date.
             //noinspection ConstantConditions
@@ -173,38 +297,176 @@ public final class HttpFileService extends AbstractHttpService {
             ifModifiedSinceMillis += 999;
         }
 
-        if (lastModifiedMillis < ifModifiedSinceMillis) {
-            return HttpResponse.of(
-                    HttpHeaders.of(HttpStatus.NOT_MODIFIED)
-                               .setTimeMillis(HttpHeaderNames.DATE, config().clock().millis())
-                               .setTimeMillis(HttpHeaderNames.LAST_MODIFIED, lastModifiedMillis));
-        }
-
-        final HttpData data;
-        try {
-            data = entry.readContent();
-        } catch (FileNotFoundException ignored) {
-            return HttpResponse.of(HttpStatus.NOT_FOUND);
-        } catch (Exception e) {
-            logger.warn("{} Unexpected exception reading a file:", ctx, e);
-            return HttpResponse.of(HttpStatus.INTERNAL_SERVER_ERROR);
-        }
+        return lastModifiedMillis >= ifModifiedSinceMillis;
+    }
 
+    private HttpResponse notModified(long lastModifiedMillis, @Nullable String etag) {
         final HttpHeaders headers =
-                HttpHeaders.of(HttpStatus.OK)
-                           .setInt(HttpHeaderNames.CONTENT_LENGTH, data.length())
+                HttpHeaders.of(HttpStatus.NOT_MODIFIED)
                            .setTimeMillis(HttpHeaderNames.DATE, config().clock().millis())
                            .setTimeMillis(HttpHeaderNames.LAST_MODIFIED, lastModifiedMillis);
-        final MediaType mediaType = entry.mediaType();
-        if (mediaType != null) {
-            headers.contentType(mediaType);
+        if (etag != null) {
+            headers.set(HttpHeaderNames.ETAG, etag);
         }
-        final String contentEncoding = entry.contentEncoding();
+        return HttpResponse.of(headers);
+    }
+
+    private static void setContentEncoding(HttpHeaders headers, @Nullable String contentEncoding) {
         if (contentEncoding != null) {
             headers.set(HttpHeaderNames.CONTENT_ENCODING, contentEncoding);
         }
+    }
 
-        return HttpResponse.of(headers, data);
+    private static HttpResponse serveContent(HttpRequest req, HttpHeaders headers,
+                                             @Nullable MediaType mediaType, long lastModifiedMillis,
+                                             @Nullable String etag, HttpData data) {
+        final int length = data.length();
+        final List<HttpRange> ranges = ranges(req.headers(), lastModifiedMillis, etag, length);
+        if (ranges == null) {
+            headers.setInt(HttpHeaderNames.CONTENT_LENGTH, length);
+            return HttpResponse.of(headers, data);
+        }
+
+        if (ranges.isEmpty()) {
+            ReferenceCountUtil.safeRelease(data);
+            return rangeNotSatisfiable(length);
+        }
+
+        // Slice the content rather than copying it, so that the cached content is shared.
+        final ByteBuf content = data instanceof ByteBufHolder ? ((ByteBufHolder) data).content()
+                                                             : Unpooled.wrappedBuffer(data.array(),
+                                                                                      data.offset(), length);
+        try {
+            headers.status(HttpStatus.PARTIAL_CONTENT);
+            if (ranges.size() == 1) {
+                final HttpRange range = ranges.get(0);
+                headers.set(HttpHeaderNames.CONTENT_RANGE, range.toContentRange(length))
+                       .setInt(HttpHeaderNames.CONTENT_LENGTH, (int) range.length());
+                return HttpResponse.of(headers, new ByteBufHttpData(
+                        content.retainedSlice((int) range.first(), (int) range.length()), false));
+            }
+
+            final String boundary = newBoundary();
+            final CompositeByteBuf multipart = Unpooled.compositeBuffer(ranges.size() * 2 + 1);
+            for (int i = 0; i < ranges.size(); i++) {
+                final HttpRange range = ranges.get(i);
+                multipart.addComponent(true, Unpooled.wrappedBuffer(
+                        partHeader(boundary, mediaType, range, length, i == 0)));
+                multipart.addComponent(true, content.retainedSlice((int) range.first(),
+                                                                   (int) range.length()));
+            }
+            multipart.addComponent(true, Unpooled.wrappedBuffer(multipartTrailer(boundary)));
+
+            headers.contentType(MULTIPART_BYTERANGES.withParameter("boundary", boundary))
+                   .setInt(HttpHeaderNames.CONTENT_LENGTH, multipart.readableBytes());
+            return HttpResponse.of(headers, new ByteBufHttpData(multipart, false));
+        } finally {
+            content.release();
+        }
+    }
+
+    private static HttpResponse streamContent(ServiceRequestContext ctx, HttpRequest req, HttpHeaders headers,
+                                              @Nullable MediaType mediaType, long lastModifiedMillis,
+                                              FileChannel channel, long length) throws IOException {
+        final List<HttpRange> ranges = ranges(req.headers(), lastModifiedMillis, null, length);
+        if (ranges == null) {
+            headers.setLong(HttpHeaderNames.CONTENT_LENGTH, length);
+            return FileChannelStreamer.stream(ctx, headers, channel,
+                                              ImmutableList.of(FileChannelStreamer.part(0, length)),
+                                              EMPTY_BYTES);
+        }
+
+        if (ranges.isEmpty()) {
+            channel.close();
+            return rangeNotSatisfiable(length);
+        }
+
+        headers.status(HttpStatus.PARTIAL_CONTENT);
+        if (ranges.size() == 1) {
+            final HttpRange range = ranges.get(0);
+            headers.set(HttpHeaderNames.CONTENT_RANGE, range.toContentRange(length))
+                   .setLong(HttpHeaderNames.CONTENT_LENGTH, range.length());
+            return FileChannelStreamer.stream(
+                    ctx, headers, channel,
+                    ImmutableList.of(FileChannelStreamer.part(range.first(), range.length())),
+                    EMPTY_BYTES);
+        }
+
+        final String boundary = newBoundary();
+        final ImmutableList.Builder<FileChannelStreamer.Part> parts = ImmutableList.builder();
+        long contentLength = 0;
+        for (int i = 0; i < ranges.size(); i++) {
+            final HttpRange range = ranges.get(i);
+            final byte[] partHeader = partHeader(boundary, mediaType, range, length, i == 0);
+            parts.add(FileChannelStreamer.part(partHeader, range.first(), range.length()));
+            contentLength += partHeader.length + range.length();
+        }
+        final byte[] trailer = multipartTrailer(boundary);
+        contentLength += trailer.length;
+
+        headers.contentType(MULTIPART_BYTERANGES.withParameter("boundary", boundary))
+               .setLong(HttpHeaderNames.CONTENT_LENGTH, contentLength);
+        return FileChannelStreamer.stream(ctx, headers, channel, parts.build(), trailer);
+    }
+
+    /**
+     * Returns the ranges requested by the {@code "range"} header.
+     *
+     * @return {@code null} if the whole content has to be served. An empty list if no range is satisfiable.
+     */
+    @Nullable
+    private static List<HttpRange> ranges(HttpHeaders reqHeaders, long lastModifiedMillis,
+                                          @Nullable String etag, long length) {
+        final String range = reqHeaders.get(HttpHeaderNames.RANGE);
+        if (range == null || !ifRangeMatches(reqHeaders, lastModifiedMillis, etag)) {
+            return null;
+        }
+        return HttpRange.parse(range, length);
+    }
+
+    private static boolean ifRangeMatches(HttpHeaders reqHeaders, long lastModifiedMillis,
+                                          @Nullable String etag) {
+        final String ifRange = reqHeaders.get(HttpHeaderNames.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+
+        final Date date = DateFormatter.parseHttpDate(ifRange);
+        if (date == null) {
+            // Not an HTTP-date but an entity tag, which must match strongly.
+            return ETags.matchesIfRange(ifRange, etag);
+        }
+
+        // HTTP-date does not have subsecond-precision; compare in seconds.
+        return date.getTime() / 1000 == lastModifiedMillis / 1000;
+    }
+
+    private static HttpResponse rangeNotSatisfiable(long length) {
+        return HttpResponse.of(HttpHeaders.of(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                                          .set(HttpHeaderNames.CONTENT_RANGE, "bytes */" + length));
+    }
+
+    private static String newBoundary() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+    }
+
+    private static byte[] partHeader(String boundary, @Nullable MediaType mediaType, HttpRange range,
+                                     long length, boolean first) {
+        final StringBuilder buf = new StringBuilder(96);
+        if (!first) {
+            buf.append("\r\n");
+        }
+        buf.append("--").append(boundary).append("\r\n");
+        if (mediaType != null) {
+            buf.append("content-type: ").append(mediaType).append("\r\n");
+        }
+        buf.append("content-range: ").append(range.toContentRange(length)).append("\r\n\r\n");
+        return buf.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private static byte[] multipartTrailer(String boundary) {
+        return ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
     }
 
     private Entry getEntry(ServiceRequestContext ctx, HttpRequest req) {
@@ -214,15 +476,13 @@ public final class HttpFileService extends AbstractHttpService {
                 EnumSet.noneOf(FileServiceContentEncoding.class);
 
         if (config.serveCompressedFiles()) {
-            // We do a simple parse of the accept-encoding header, without worrying about star values
-            // or priorities.
+            // The priorities in the accept-encoding header are not taken into account, but the encodings
+            // with zero weight are excluded.
             final String acceptEncoding = req.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
             if (acceptEncoding != null) {
-                for (String encoding : COMMA_SPLITTER.split(acceptEncoding)) {
-                    for (FileServiceContentEncoding possibleEncoding : FileServiceContentEncoding.values()) {
-                        if (encoding.contains(possibleEncoding.headerValue)) {
-                            supportedEncodings.add(possibleEncoding);
-                        }
+                for (FileServiceContentEncoding possibleEncoding : FileServiceContentEncoding.values()) {
+                    if (AcceptEncodingUtil.isAcceptable(acceptEncoding, possibleEncoding.headerValue)) {
+                        supportedEncodings.add(possibleEncoding);
                     }
                 }
             }
@@ -249,14 +509,186 @@ public final class HttpFileService extends AbstractHttpService {
             return config.vfs().get(path, contentEncoding);
         }
 
-        final CachedEntry entry = cache.get(new PathAndEncoding(path, contentEncoding));
+        final PathAndEncoding key = new PathAndEncoding(path, contentEncoding);
+        CachedEntry entry = cache.get(key);
         assert entry != null; // Non-existent entry will have lastModifiedMillis of 0.
+        if (entry.isModified()) {
+            // Replace the stale entry rather than updating it, so that its weight is recalculated.
+            cache.asMap().remove(key, entry);
+            entry = cache.get(key);
+            assert entry != null;
+        }
         return entry;
     }
 
     private CachedEntry getEntryWithoutCache(PathAndEncoding pathAndEncoding) {
-        return new CachedEntry(config.vfs().get(pathAndEncoding.path, pathAndEncoding.contentEncoding),
-                               config.maxCacheEntrySizeBytes());
+        final Entry entry = config.vfs().get(pathAndEncoding.path, pathAndEncoding.contentEncoding);
+        final long lastModifiedMillis = entry.lastModifiedMillis();
+        final ByteBuf content = readCacheableContent(entry, lastModifiedMillis);
+        if (content == null) {
+            return new CachedEntry(pathAndEncoding, entry, lastModifiedMillis, null, false, null, null);
+        }
+
+        final String contentEncoding = entry.contentEncoding();
+        final CachedContent identity = new CachedContent(content, contentEncoding);
+        final boolean compressible = config.compressCachedFiles() && contentEncoding == null &&
+                                     content.readableBytes() >= MIN_BYTES_TO_COMPRESS &&
+                                     entry.mediaType() != null && isCompressible(entry.mediaType());
+
+        // The content is not compressed here but by compressCachedEntry() in a blocking task executor,
+        // because the cache loads an entry in the thread which requested it, i.e. an event loop.
+        return new CachedEntry(pathAndEncoding, entry, lastModifiedMillis, identity, compressible, null, null);
+    }
+
+    /**
+     * Compresses the identity content of the specified {@link CachedEntry} and replaces the entry with a new
+     * one which has the compressed variants. Nothing is replaced if the entry has been evicted or replaced
+     * with another one in the meantime.
+     */
+    private void compressCachedEntry(CachedEntry entry) {
+        assert cache != null;
+        final CachedContent identity = entry.identity;
+        assert identity != null;
+
+        // Retain the identity content so that it is shared by the new entry. The reference held by the old
+        // entry is released by the removal listener when the old entry is replaced.
+        if (!identity.tryRetain()) {
+            // Evicted already.
+            return;
+        }
+
+        CachedContent gzip = null;
+        CachedContent deflate = null;
+        boolean replaced = false;
+        try {
+            final ByteBuf content = identity.content;
+            gzip = compress(content, "gzip");
+            deflate = compress(content, "deflate");
+            if (gzip == null && deflate == null) {
+                // Compression does not reduce the size of the content.
+                return;
+            }
+
+            final CachedEntry newEntry = new CachedEntry(entry.key, entry.entry, entry.cachedLastModifiedMillis,
+                                                         identity, false, gzip, deflate);
+            replaced = cache.asMap().replace(entry.key, entry, newEntry);
+        } finally {
+            if (!replaced) {
+                identity.release();
+                if (gzip != null) {
+                    gzip.release();
+                }
+                if (deflate != null) {
+                    deflate.release();
+                }
+            }
+        }
+    }
+
+    private static DeflaterOutputStream newCompressor(String contentEncoding,
+                                                      OutputStream out) throws IOException {
+        if ("gzip".equals(contentEncoding)) {
+            return new GZIPOutputStream(out);
+        }
+        return new DeflaterOutputStream(out);
+    }
+
+    private static boolean isCompressible(MediaType mediaType) {
+        for (MediaType compressibleType : COMPRESSIBLE_MEDIA_TYPES) {
+            if (mediaType.is(compressibleType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compresses the specified {@code content} into a new direct buffer.
+     *
+     * @return {@code null} if compression does not reduce the size of the content
+     */
+    @Nullable
+    private static CachedContent compress(ByteBuf content, String contentEncoding) {
+        final int length = content.readableBytes();
+        final ByteBuf buf = ByteBufAllocator.DEFAULT.directBuffer(length);
+        boolean success = false;
+        try (DeflaterOutputStream out = newCompressor(contentEncoding, new ByteBufOutputStream(buf))) {
+            content.getBytes(content.readerIndex(), out, length);
+            out.finish();
+            if (buf.readableBytes() < length) {
+                success = true;
+                return new CachedContent(buf, contentEncoding);
+            }
+            return null;
+        } catch (IOException e) {
+            // Should never reach here because we write into a ByteBuf.
+            logger.warn("Unexpected exception while compressing a file:", e);
+            return null;
+        } finally {
+            if (!success) {
+                buf.release();
+            }
+        }
+    }
+
+    /**
+     * Reads the content of the specified {@link Entry} into a direct buffer if it is small enough to
+     * be cached.
+     *
+     * @return {@code null} if the {@link Entry} does not exist, is too large or failed to be read
+     */
+    @Nullable
+    private ByteBuf readCacheableContent(Entry entry, long lastModifiedMillis) {
+        final int maxCacheEntrySizeBytes = config.maxCacheEntrySizeBytes();
+        if (lastModifiedMillis == 0 || entry.length() > maxCacheEntrySizeBytes) {
+            return null;
+        }
+
+        try {
+            final FileChannel channel = entry.length() >= 0 ? entry.openChannel() : null;
+            if (channel != null) {
+                try {
+                    return readFully(channel, maxCacheEntrySizeBytes);
+                } finally {
+                    channel.close();
+                }
+            }
+
+            final HttpData data = entry.readContent();
+            if (data.length() > maxCacheEntrySizeBytes) {
+                return null;
+            }
+            final ByteBuf buf = ByteBufAllocator.DEFAULT.directBuffer(data.length(), data.length());
+            return buf.writeBytes(data.array(), data.offset(), data.length());
+        } catch (IOException e) {
+            logger.debug("Failed to read a file into the cache: {}", entry, e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private static ByteBuf readFully(FileChannel channel, int maxLength) throws IOException {
+        final long size = channel.size();
+        if (size > maxLength) {
+            return null;
+        }
+
+        final int length = (int) size;
+        final ByteBuf buf = ByteBufAllocator.DEFAULT.directBuffer(length, length);
+        boolean success = false;
+        try {
+            while (buf.isWritable()) {
+                if (buf.writeBytes(channel, buf.writerIndex(), buf.writableBytes()) < 0) {
+                    break;
+                }
+            }
+            success = true;
+            return buf;
+        } finally {
+            if (!success) {
+                buf.release();
+            }
+        }
     }
 
     private Entry getEntryWithSupportedEncodings(String path,
@@ -270,18 +702,54 @@ public final class HttpFileService extends AbstractHttpService {
         return getEntry(path, null);
     }
 
+    /**
+     * A snapshot of an {@link Entry} whose content is held in direct buffers, optionally with its variants
+     * compressed on the fly. A {@link CachedEntry} is never updated; it is replaced with a new one when
+     * the underlying {@link Entry} is modified.
+     */
     private static final class CachedEntry implements Entry {
 
+        /**
+         * The estimated number of bytes used by an entry in addition to its content, so that the entries
+         * of non-existent or uncacheable files are also accounted in the weight of the cache.
+         */
+        private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+        private final PathAndEncoding key;
         private final Entry entry;
-        private final int maxCacheEntrySizeBytes;
+        private final long cachedLastModifiedMillis;
         @Nullable
-        private HttpData cachedContent;
-        private volatile long cachedLastModifiedMillis;
-
-        CachedEntry(Entry entry, int maxCacheEntrySizeBytes) {
+        private final CachedContent identity;
+        private final boolean compressible;
+        private final AtomicBoolean compressionStarted = new AtomicBoolean();
+        @Nullable
+        private final CachedContent gzip;
+        @Nullable
+        private final CachedContent deflate;
+        /**
+         * The compressed variants in the order of preference.
+         */
+        private final List<CachedContent> compressedContents;
+
+        CachedEntry(PathAndEncoding key, Entry entry, long cachedLastModifiedMillis,
+                    @Nullable CachedContent identity, boolean compressible,
+                    @Nullable CachedContent gzip, @Nullable CachedContent deflate) {
+            this.key = key;
             this.entry = entry;
-            this.maxCacheEntrySizeBytes = maxCacheEntrySizeBytes;
-            cachedLastModifiedMillis = entry.lastModifiedMillis();
+            this.cachedLastModifiedMillis = cachedLastModifiedMillis;
+            this.identity = identity;
+            this.compressible = compressible;
+            this.gzip = gzip;
+            this.deflate = deflate;
+
+            final ImmutableList.Builder<CachedContent> builder = ImmutableList.builder();
+            if (gzip != null) {
+                builder.add(gzip);
+            }
+            if (deflate != null) {
+                builder.add(deflate);
+            }
+            compressedContents = builder.build();
         }
 
         @Override
@@ -297,32 +765,85 @@ public final class HttpFileService extends AbstractHttpService {
 
         @Override
         public long lastModifiedMillis() {
-            final long newLastModifiedMillis = entry.lastModifiedMillis();
-            if (newLastModifiedMillis != cachedLastModifiedMillis) {
-                cachedLastModifiedMillis = newLastModifiedMillis;
-                destroyContent();
+            return cachedLastModifiedMillis;
+        }
+
+        boolean isModified() {
+            return entry.lastModifiedMillis() != cachedLastModifiedMillis;
+        }
+
+        @Override
+        public long length() {
+            if (identity != null) {
+                return identity.length();
             }
+            return entry.length();
+        }
 
-            return newLastModifiedMillis;
+        @Nullable
+        @Override
+        public FileChannel openChannel() throws IOException {
+            return entry.openChannel();
         }
 
+        /**
+         * Returns the cached representation of the content which is acceptable for the specified
+         * {@code "accept-encoding"} header value.
+         *
+         * @return {@code null} if the content is not cached
+         */
+        @Nullable
+        CachedContent content(@Nullable String acceptEncoding) {
+            if (acceptEncoding != null && !compressedContents.isEmpty()) {
+                final CachedContent content = AcceptEncodingUtil.determineEncoding(
+                        acceptEncoding, compressedContents, CachedContent::contentEncoding);
+                if (content != null) {
+                    return content;
+                }
+            }
+            return identity;
+        }
+
+        /**
+         * Returns {@code true} if the content of this entry has to be compressed by the caller.
+         * {@code true} is returned only once for an entry.
+         */
+        boolean tryStartCompression() {
+            return compressible && compressionStarted.compareAndSet(false, true);
+        }
+
+        /**
+         * Returns a retained duplicate of the cached content, or reads the content from the underlying
+         * {@link Entry} if not cached.
+         */
         @Override
-        public synchronized HttpData readContent() throws IOException {
-            if (cachedContent == null) {
-                final HttpData newContent = entry.readContent();
-                if (newContent.length() > maxCacheEntrySizeBytes) {
-                    // Do not cache if the content is too large.
-                    return newContent;
+        public HttpData readContent() throws IOException {
+            if (identity != null) {
+                final HttpData data = identity.retainedData();
+                if (data != null) {
+                    return data;
                 }
-                cachedContent = newContent;
             }
+            return entry.readContent();
+        }
 
-            return cachedContent;
+        int weight() {
+            return ENTRY_OVERHEAD_BYTES + length(identity) + length(gzip) + length(deflate);
         }
 
-        synchronized void destroyContent() {
-            if (cachedContent != null) {
-                cachedContent = null;
+        private static int length(@Nullable CachedContent content) {
+            return content != null ? content.length() : 0;
+        }
+
+        void destroyContent() {
+            if (identity != null) {
+                identity.release();
+            }
+            if (gzip != null) {
+                gzip.release();
+            }
+            if (deflate != null) {
+                deflate.release();
             }
         }
 
@@ -332,6 +853,80 @@ public final class HttpFileService extends AbstractHttpService {
         }
     }
 
+    /**
+     * A representation of a cached file content, with its strong entity tag. The content is guarded by
+     * its own reference count rather than the one of the {@link ByteBuf}, because a pooled {@link ByteBuf}
+     * may be recycled for another allocation as soon as it is released, and retaining it after that would
+     * expose the content of another allocation.
+     */
+    @VisibleForTesting
+    static final class CachedContent {
+
+        private final ByteBuf content;
+        private final int length;
+        @Nullable
+        private final String contentEncoding;
+        private final String etag;
+        // Starts from 1, which is held by the cache.
+        private final AtomicInteger refCnt = new AtomicInteger(1);
+
+        CachedContent(ByteBuf content, @Nullable String contentEncoding) {
+            this.content = content;
+            this.contentEncoding = contentEncoding;
+            length = content.readableBytes();
+            etag = ETags.of(content, contentEncoding);
+        }
+
+        @Nullable
+        String contentEncoding() {
+            return contentEncoding;
+        }
+
+        String etag() {
+            return etag;
+        }
+
+        int length() {
+            return length;
+        }
+
+        /**
+         * Returns a retained duplicate of the content.
+         *
+         * @return {@code null} if the content has been released due to eviction
+         */
+        @Nullable
+        HttpData retainedData() {
+            if (!tryRetain()) {
+                return null;
+            }
+            try {
+                // The content cannot be released while we hold a reference.
+                return new ByteBufHttpData(content.retainedDuplicate(), false);
+            } finally {
+                release();
+            }
+        }
+
+        private boolean tryRetain() {
+            for (;;) {
+                final int refCnt = this.refCnt.get();
+                if (refCnt == 0) {
+                    return false;
+                }
+                if (this.refCnt.compareAndSet(refCnt, refCnt + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (refCnt.decrementAndGet() == 0) {
+                content.release();
+            }
+        }
+    }
+
     /**
      * Creates a new {@link HttpService} that tries this {@link HttpFileService} first and then the specified
      * {@link HttpService} when this {@link HttpFileService} does not have a requested resource.
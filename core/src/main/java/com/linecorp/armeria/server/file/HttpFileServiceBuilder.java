@@ -68,7 +68,9 @@ public final class HttpFileServiceBuilder {
     private Clock clock = Clock.systemUTC();
     private int maxCacheEntries = 1024;
     private int maxCacheEntrySizeBytes = 65536;
+    private long maxCacheSizeBytes;
     private boolean serveCompressedFiles;
+    private boolean compressCachedFiles;
 
     private HttpFileServiceBuilder(HttpVfs vfs) {
         this.vfs = requireNonNull(vfs, "vfs");
@@ -83,7 +85,10 @@ public final class HttpFileServiceBuilder {
     }
 
     /**
-     * Sets the maximum allowed number of cached file entries.
+     * Sets the maximum allowed number of cached file entries. Specify {@code 0} to disable caching.
+     * This value is ignored if {@link #maxCacheSizeBytes(long)} is set, unless it is {@code 0}.
+     * The files served from the cache have strong {@code "etag"} headers derived from their contents,
+     * so that {@code "if-none-match"} headers are evaluated without reading the files.
      */
     public HttpFileServiceBuilder maxCacheEntries(int maxCacheEntries) {
         this.maxCacheEntries = HttpFileServiceConfig.validateMaxCacheEntries(maxCacheEntries);
@@ -105,9 +110,22 @@ public final class HttpFileServiceBuilder {
         return this;
     }
 
+    /**
+     * Whether the cached files should be compressed with gzip and deflate when they are first served.
+     * The compressed contents are kept in the cache next to the original content, and served to
+     * the clients which accept them without compressing them again. Only the text, XML, JavaScript, JSON
+     * and SVG files whose size is between 1024 bytes and {@link #maxCacheEntrySizeBytes(int)} are
+     * compressed.
+     */
+    public HttpFileServiceBuilder compressCachedFiles(boolean compressCachedFiles) {
+        this.compressCachedFiles = compressCachedFiles;
+        return this;
+    }
+
     /**
      * Returns the maximum allowed size of a cached file entry. The file bigger than this value will not be
-     * cached.
+     * cached, and will be streamed from a {@link java.nio.channels.FileChannel} if its {@link HttpVfs}
+     * supports it, rather than being read into memory at once.
      */
     public HttpFileServiceBuilder maxCacheEntrySizeBytes(int maxCacheEntrySizeBytes) {
         this.maxCacheEntrySizeBytes =
@@ -115,16 +133,30 @@ public final class HttpFileServiceBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum allowed total size of the cached file entries in bytes. If set, the cache is bounded
+     * by the total size of the cached contents rather than by {@link #maxCacheEntries(int)}, so that a few
+     * large files do not exceed the memory budget and many small files are not evicted needlessly.
+     * The cached contents are held in direct buffers. Specify {@code 0} to bound the cache by the number of
+     * entries, which is the default.
+     */
+    public HttpFileServiceBuilder maxCacheSizeBytes(long maxCacheSizeBytes) {
+        this.maxCacheSizeBytes = HttpFileServiceConfig.validateMaxCacheSizeBytes(maxCacheSizeBytes);
+        return this;
+    }
+
     /**
      * Returns a newly-created {@link HttpFileService} based on the properties of this builder.
      */
     public HttpFileService build() {
         return new HttpFileService(new HttpFileServiceConfig(
-                vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes, serveCompressedFiles));
+                vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes, maxCacheSizeBytes,
+                serveCompressedFiles, compressCachedFiles));
     }
 
     @Override
     public String toString() {
-        return HttpFileServiceConfig.toString(this, vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes);
+        return HttpFileServiceConfig.toString(this, vfs, clock, maxCacheEntries, maxCacheEntrySizeBytes,
+                                              maxCacheSizeBytes);
     }
 }
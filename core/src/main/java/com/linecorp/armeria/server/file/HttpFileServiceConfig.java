@@ -29,15 +29,19 @@ public final class HttpFileServiceConfig {
     private final Clock clock;
     private final int maxCacheEntries;
     private final int maxCacheEntrySizeBytes;
+    private final long maxCacheSizeBytes;
     private final boolean serveCompressedFiles;
+    private final boolean compressCachedFiles;
 
     HttpFileServiceConfig(HttpVfs vfs, Clock clock, int maxCacheEntries, int maxCacheEntrySizeBytes,
-                          boolean serveCompressedFiles) {
+                          long maxCacheSizeBytes, boolean serveCompressedFiles, boolean compressCachedFiles) {
         this.vfs = requireNonNull(vfs, "vfs");
         this.clock = requireNonNull(clock, "clock");
         this.maxCacheEntries = validateMaxCacheEntries(maxCacheEntries);
         this.maxCacheEntrySizeBytes = validateMaxCacheEntrySizeBytes(maxCacheEntrySizeBytes);
+        this.maxCacheSizeBytes = validateMaxCacheSizeBytes(maxCacheSizeBytes);
         this.serveCompressedFiles = serveCompressedFiles;
+        this.compressCachedFiles = compressCachedFiles;
     }
 
     static int validateMaxCacheEntries(int maxCacheEntries) {
@@ -48,6 +52,14 @@ public final class HttpFileServiceConfig {
         return validateNonNegativeParameter(maxCacheEntrySizeBytes, "maxCacheEntrySizeBytes");
     }
 
+    static long validateMaxCacheSizeBytes(long maxCacheSizeBytes) {
+        if (maxCacheSizeBytes < 0) {
+            throw new IllegalArgumentException(
+                    "maxCacheSizeBytes: " + maxCacheSizeBytes + " (expected: >= 0)");
+        }
+        return maxCacheSizeBytes;
+    }
+
     private static int validateNonNegativeParameter(int value, String name) {
         if (value < 0) {
             throw new IllegalArgumentException(name + ": " + value + " (expected: >= 0)");
@@ -78,12 +90,21 @@ public final class HttpFileServiceConfig {
 
     /**
      * Returns the maximum allowed size of a cached file entry. Files bigger than this value will not be
-     * cached.
+     * cached, and will be streamed from a {@link java.nio.channels.FileChannel} if possible.
      */
     public int maxCacheEntrySizeBytes() {
         return maxCacheEntrySizeBytes;
     }
 
+    /**
+     * Returns the maximum allowed total size of the cached file entries in bytes.
+     *
+     * @return {@code 0} if the cache is bounded by {@link #maxCacheEntries()} instead
+     */
+    public long maxCacheSizeBytes() {
+        return maxCacheSizeBytes;
+    }
+
     /**
      * Whether pre-compressed files should be served.
      */
@@ -91,18 +112,28 @@ public final class HttpFileServiceConfig {
         return serveCompressedFiles;
     }
 
+    /**
+     * Whether the cached files should be compressed when they are cached, so that their compressed
+     * contents are served without compressing them on every request.
+     */
+    public boolean compressCachedFiles() {
+        return compressCachedFiles;
+    }
+
     @Override
     public String toString() {
-        return toString(this, vfs(), clock(), maxCacheEntries(), maxCacheEntrySizeBytes());
+        return toString(this, vfs(), clock(), maxCacheEntries(), maxCacheEntrySizeBytes(),
+                        maxCacheSizeBytes());
     }
 
     static String toString(Object holder, HttpVfs vfs, Clock clock,
-                           int maxCacheEntries, int maxCacheEntrySizeBytes) {
+                           int maxCacheEntries, int maxCacheEntrySizeBytes, long maxCacheSizeBytes) {
 
         return holder.getClass().getSimpleName() +
                "(vfs: " + vfs +
                ", clock: " + clock +
                ", maxCacheEntries: " + maxCacheEntries +
-               ", maxCacheEntrySizeBytes: " + maxCacheEntrySizeBytes + ')';
+               ", maxCacheEntrySizeBytes: " + maxCacheEntrySizeBytes +
+               ", maxCacheSizeBytes: " + maxCacheSizeBytes + ')';
     }
 }
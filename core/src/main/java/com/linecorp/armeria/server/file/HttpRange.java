@@ -0,0 +1,208 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * A satisfiable byte range of an entry, as specified in
+ * <a href="https://tools.ietf.org/html/rfc7233">RFC 7233</a>.
+ */
+final class HttpRange {
+
+    /**
+     * The maximum number of ranges to serve in a single response. A request with more ranges than this
+     * after coalescing is served with the whole content, as permitted by RFC 7233.
+     */
+    private static final int MAX_RANGES = 32;
+
+    private static final String BYTES_UNIT = "bytes=";
+
+    /**
+     * Parses the value of a {@code "range"} header.
+     *
+     * @param value the value of the {@code "range"} header
+     * @param length the length of the entry in bytes
+     *
+     * @return the satisfiable ranges sorted by their offsets, with overlapping and adjacent ranges coalesced.
+     *         An empty list if none of the ranges are satisfiable. {@code null} if the header must be
+     *         ignored, e.g. it is malformed, uses a unit other than {@code "bytes"} or has too many ranges.
+     */
+    @Nullable
+    static List<HttpRange> parse(String value, long length) {
+        if (!value.regionMatches(true, 0, BYTES_UNIT, 0, BYTES_UNIT.length())) {
+            return null;
+        }
+
+        final List<HttpRange> ranges = new ArrayList<>(1);
+        boolean hasRangeSpec = false;
+        int start = BYTES_UNIT.length();
+        final int end = value.length();
+        while (start < end) {
+            int comma = value.indexOf(',', start);
+            if (comma < 0) {
+                comma = end;
+            }
+
+            final String spec = value.substring(start, comma).trim();
+            start = comma + 1;
+            if (spec.isEmpty()) {
+                continue;
+            }
+
+            final int dash = spec.indexOf('-');
+            if (dash < 0) {
+                return null;
+            }
+            hasRangeSpec = true;
+
+            final long first;
+            final long last;
+            try {
+                if (dash == 0) {
+                    // suffix-byte-range-spec, e.g. "-500" for the last 500 bytes.
+                    final long suffixLength = parseNonNegative(spec.substring(1));
+                    if (suffixLength == 0) {
+                        continue;
+                    }
+                    first = Math.max(0, length - suffixLength);
+                    last = length - 1;
+                } else {
+                    first = parseNonNegative(spec.substring(0, dash));
+                    if (dash == spec.length() - 1) {
+                        last = length - 1;
+                    } else {
+                        final long lastPos = parseNonNegative(spec.substring(dash + 1));
+                        if (lastPos < first) {
+                            return null;
+                        }
+                        last = Math.min(lastPos, length - 1);
+                    }
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+
+            if (first >= length) {
+                // Unsatisfiable.
+                continue;
+            }
+
+            ranges.add(new HttpRange(first, last));
+        }
+
+        if (!hasRangeSpec) {
+            // A byte-range-set must contain at least one range spec, e.g. "bytes=" is malformed.
+            return null;
+        }
+
+        return coalesce(ranges);
+    }
+
+    /**
+     * Parses a non-empty sequence of digits. Unlike {@link Long#parseLong(String)}, a sign is not allowed.
+     */
+    private static long parseNonNegative(String value) {
+        final String trimmed = value.trim();
+        if (trimmed.isEmpty()) {
+            throw new NumberFormatException(value);
+        }
+        for (int i = 0; i < trimmed.length(); i++) {
+            final char ch = trimmed.charAt(i);
+            if (ch < '0' || ch > '9') {
+                throw new NumberFormatException(value);
+            }
+        }
+        // Still throws a NumberFormatException if overflows.
+        return Long.parseLong(trimmed);
+    }
+
+    @Nullable
+    private static List<HttpRange> coalesce(List<HttpRange> ranges) {
+        if (ranges.size() <= 1) {
+            return ranges.isEmpty() ? Collections.emptyList() : ImmutableList.of(ranges.get(0));
+        }
+
+        ranges.sort(Comparator.comparingLong(HttpRange::first));
+        final List<HttpRange> coalesced = new ArrayList<>(ranges.size());
+        HttpRange current = ranges.get(0);
+        for (int i = 1; i < ranges.size(); i++) {
+            final HttpRange next = ranges.get(i);
+            if (next.first <= current.last + 1) {
+                current = new HttpRange(current.first, Math.max(current.last, next.last));
+            } else {
+                coalesced.add(current);
+                current = next;
+            }
+        }
+        coalesced.add(current);
+
+        if (coalesced.size() > MAX_RANGES) {
+            return null;
+        }
+        return ImmutableList.copyOf(coalesced);
+    }
+
+    private final long first;
+    private final long last;
+
+    HttpRange(long first, long last) {
+        assert first >= 0 && first <= last;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+     * Returns the offset of the first byte in this range.
+     */
+    long first() {
+        return first;
+    }
+
+    /**
+     * Returns the offset of the last byte in this range, inclusive.
+     */
+    long last() {
+        return last;
+    }
+
+    /**
+     * Returns the number of bytes in this range.
+     */
+    long length() {
+        return last - first + 1;
+    }
+
+    /**
+     * Returns the value of the {@code "content-range"} header for this range.
+     */
+    String toContentRange(long entryLength) {
+        return "bytes " + first + '-' + last + '/' + entryLength;
+    }
+
+    @Override
+    public String toString() {
+        return first + "-" + last;
+    }
+}
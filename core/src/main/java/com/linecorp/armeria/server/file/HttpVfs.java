@@ -21,6 +21,7 @@ import static java.util.Objects.requireNonNull;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
@@ -145,6 +146,27 @@ public interface HttpVfs {
          * Reads the content of the entry into a new buffer.
          */
         HttpData readContent() throws IOException;
+
+        /**
+         * Returns the length of the content of the entry in bytes.
+         *
+         * @return {@code -1} if the length is unknown without reading the content
+         */
+        default long length() {
+            return -1;
+        }
+
+        /**
+         * Opens a new {@link FileChannel} that reads the content of the entry, so that the content can be
+         * streamed without being read into memory at once. The caller is responsible for closing
+         * the returned {@link FileChannel}.
+         *
+         * @return {@code null} if the entry is not backed by a regular file
+         */
+        @Nullable
+        default FileChannel openChannel() throws IOException {
+            return null;
+        }
     }
 
     /**
@@ -292,5 +314,10 @@ public interface HttpVfs {
         public HttpData readContent() {
             return content;
         }
+
+        @Override
+        public long length() {
+            return content.length();
+        }
     }
 }
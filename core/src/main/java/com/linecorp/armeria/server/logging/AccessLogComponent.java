@@ -67,6 +67,14 @@ interface AccessLogComponent {
         return false;
     }
 
+    /**
+     * Appends a part of a log message to the specified {@link StringBuilder}. A component may override
+     * this method to append its message without creating an intermediate {@link Object}.
+     */
+    default void append(StringBuilder message, RequestLog log) {
+        AccessLogger.append(message, getMessage(log), addQuote());
+    }
+
     static AccessLogComponent ofText(String text) {
         return new TextComponent(text);
     }
@@ -103,6 +111,11 @@ interface AccessLogComponent {
         public Object getMessage(RequestLog log) {
             return text;
         }
+
+        @Override
+        public void append(StringBuilder message, RequestLog log) {
+            message.append(text);
+        }
     }
 
     /**
@@ -155,6 +168,16 @@ interface AccessLogComponent {
             return addQuote;
         }
 
+        @Override
+        public void append(StringBuilder message, RequestLog log) {
+            if (addQuote) {
+                AccessLogComponent.super.append(message, log);
+            } else {
+                formatter.formatTo(ZonedDateTime.ofInstant(
+                        Instant.ofEpochMilli(log.requestStartTimeMillis()), defaultZoneId), message);
+            }
+        }
+
         static DateTimeFormatter findFormatter(@Nullable String variable) {
             if (variable == null) {
                 return defaultDateTimeFormatter;
@@ -209,6 +232,20 @@ interface AccessLogComponent {
         @Nullable
         abstract Object getMessage0(RequestLog log);
 
+        @Override
+        public final void append(StringBuilder message, RequestLog log) {
+            if (condition != null &&
+                !condition.apply(log.responseHeaders())) {
+                AccessLogger.append(message, null, addQuote);
+                return;
+            }
+            append0(message, log);
+        }
+
+        void append0(StringBuilder message, RequestLog log) {
+            AccessLogger.append(message, getMessage0(log), addQuote);
+        }
+
         @Override
         public boolean addQuote() {
             return addQuote;
@@ -284,6 +321,22 @@ interface AccessLogComponent {
             }
             return null;
         }
+
+        @Override
+        void append0(StringBuilder message, RequestLog log) {
+            if (!addQuote()) {
+                // Append the numbers without boxing them.
+                switch (type) {
+                    case RESPONSE_STATUS_CODE:
+                        message.append(log.statusCode());
+                        return;
+                    case RESPONSE_LENGTH:
+                        message.append(log.responseLength());
+                        return;
+                }
+            }
+            super.append0(message, log);
+        }
     }
 
     /**
@@ -20,6 +20,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.linecorp.armeria.server.logging.AccessLogFormats.parseCustom;
 import static java.util.Objects.requireNonNull;
 
+import java.nio.file.Path;
 import java.util.List;
 import java.util.function.Consumer;
 
@@ -60,5 +61,15 @@ public final class AccessLogWriters {
         return requestLog -> AccessLogger.write(accessLogFormat, requestLog);
     }
 
+    /**
+     * Returns an access log writer which writes access logs with the specified {@code formatStr} to
+     * the specified {@code file} from a dedicated thread, so that the caller does not perform any I/O.
+     * Use {@link RollingFileAccessLogWriterBuilder} for more options such as the rotation policy.
+     * Note that the returned writer must be closed when it is not used anymore.
+     */
+    public static RollingFileAccessLogWriter rollingFile(Path file, String formatStr) {
+        return new RollingFileAccessLogWriterBuilder(file).format(formatStr).build();
+    }
+
     private AccessLogWriters() {}
 }
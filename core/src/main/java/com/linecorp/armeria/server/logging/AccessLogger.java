@@ -18,6 +18,8 @@ package com.linecorp.armeria.server.logging;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -114,26 +116,37 @@ final class AccessLogger {
 
     static String format(List<AccessLogComponent> format, RequestLog log) {
         final StringBuilder message = new StringBuilder();
+        format(message, format, log);
+        return message.toString();
+    }
 
+    /**
+     * Formats an access log for the specified {@link RequestLog} into the specified {@link StringBuilder}.
+     */
+    static void format(StringBuilder message, List<AccessLogComponent> format, RequestLog log) {
         for (final AccessLogComponent component : format) {
-            final boolean addQuote = component.addQuote();
+            final int mark = message.length();
             try {
-                final Object text = component.getMessage(log);
-                if (text != null) {
-                    if (addQuote) {
-                        escapeAndQuote(message, text.toString());
-                    } else {
-                        message.append(text);
-                    }
-                } else {
-                    appendEmptyField(message, addQuote);
-                }
+                component.append(message, log);
             } catch (Throwable e) {
                 logger.debug("Caught an exception while formatting an access log:", e);
-                appendEmptyField(message, addQuote);
+                // Discard what the component might have appended before it failed.
+                message.setLength(mark);
+                appendEmptyField(message, component.addQuote());
             }
         }
-        return message.toString();
+    }
+
+    static void append(StringBuilder message, @Nullable Object text, boolean addQuote) {
+        if (text != null) {
+            if (addQuote) {
+                escapeAndQuote(message, text.toString());
+            } else {
+                message.append(text);
+            }
+        } else {
+            appendEmptyField(message, addQuote);
+        }
     }
 
     private static void appendEmptyField(StringBuilder message, boolean addQuote) {
@@ -0,0 +1,377 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.logging;
+
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import javax.annotation.Nullable;
+
+import org.jctools.queues.MpscArrayQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.util.SafeCloseable;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * An access log writer which formats and writes access logs to a file from a dedicated thread.
+ * The thread which completed a {@link RequestLog}, which is usually an event loop, only puts
+ * the {@link RequestLog} into a bounded queue. If the queue is full, the {@link RequestLog} is dropped
+ * and counted rather than blocking the caller. The access logs are formatted into a reusable buffer
+ * and written to the file in batches. The file is rotated when it grows larger than a certain size or
+ * a certain time passes, by renaming it with the suffix of the rotation time, e.g.
+ * {@code access.log.20180701-000000}.
+ *
+ * <pre>{@code
+ * RollingFileAccessLogWriter writer =
+ *         new RollingFileAccessLogWriterBuilder(Paths.get("/var/log/armeria/access.log"))
+ *                 .format("%h %l %u %t \"%r\" %s %b")
+ *                 .maxFileSizeBytes(512 * 1024 * 1024)
+ *                 .build();
+ *
+ * ServerBuilder sb = new ServerBuilder();
+ * sb.accessLogWriter(writer);
+ * ...
+ * Server server = sb.build();
+ * server.stop().join();
+ * // Flush the pending access logs.
+ * writer.close();
+ * }</pre>
+ *
+ * <p>The writer thread is a daemon thread, so make sure to {@link #close()} the writer when the
+ * {@link com.linecorp.armeria.server.Server} stops. Otherwise, the pending access logs may be lost.
+ */
+public final class RollingFileAccessLogWriter implements Consumer<RequestLog>, SafeCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RollingFileAccessLogWriter.class);
+
+    private static final int BUFFER_SIZE = 65536;
+
+    /**
+     * The maximum number of bytes a {@code char} is encoded into in UTF-8.
+     */
+    private static final int MAX_BYTES_PER_CHAR = 3;
+
+    private static final DateTimeFormatter rotatedFileSuffixFormatter =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ENGLISH).withZone(ZoneOffset.UTC);
+
+    private final Path file;
+    private final List<AccessLogComponent> format;
+    private final MpscArrayQueue<RequestLog> queue;
+    private final long maxFileSizeBytes;
+    private final long rotationIntervalMillis;
+    private final LongAdder writtenCount = new LongAdder();
+    private final LongAdder droppedCount = new LongAdder();
+    private final CompletableFuture<Void> closeFuture = new CompletableFuture<>();
+    private final Thread thread;
+    private volatile boolean closed;
+    // Set when the writer thread is about to park because the queue is empty.
+    private volatile boolean waiting;
+    // Set when the writer thread does not poll the queue anymore.
+    private volatile boolean terminated;
+
+    // Accessed only by the writer thread.
+    private final StringBuilder message = new StringBuilder(256);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                                                                 .onMalformedInput(CodingErrorAction.REPLACE)
+                                                                 .onUnmappableCharacter(
+                                                                         CodingErrorAction.REPLACE);
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    @Nullable
+    private FileChannel channel;
+    private long fileSize;
+    private long nextRotationTimeMillis;
+    // The number of the access logs in the buffer, which are counted when the buffer is flushed.
+    private int numBufferedLogs;
+
+    RollingFileAccessLogWriter(Path file, List<AccessLogComponent> format, int queueCapacity,
+                               long maxFileSizeBytes, long rotationIntervalMillis,
+                               MeterRegistry meterRegistry) {
+        this.file = file;
+        this.format = format;
+        queue = new MpscArrayQueue<>(queueCapacity);
+        this.maxFileSizeBytes = maxFileSizeBytes;
+        this.rotationIntervalMillis = rotationIntervalMillis;
+        nextRotationTimeMillis = nextRotationTimeMillis(System.currentTimeMillis());
+
+        FunctionCounter.builder("armeria.server.accessLog.written", this,
+                                RollingFileAccessLogWriter::writtenCount)
+                       .tag("file", file.toString())
+                       .register(meterRegistry);
+        FunctionCounter.builder("armeria.server.accessLog.dropped", this,
+                                RollingFileAccessLogWriter::droppedCount)
+                       .tag("file", file.toString())
+                       .register(meterRegistry);
+
+        thread = new DefaultThreadFactory("armeria-access-log-writer", true).newThread(this::run);
+        thread.start();
+    }
+
+    /**
+     * Returns the {@link Path} of the file where the access logs are written to.
+     */
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Returns the number of the access logs written so far.
+     */
+    public long writtenCount() {
+        return writtenCount.sum();
+    }
+
+    /**
+     * Returns the number of the access logs dropped so far because the queue was full, this writer was
+     * closed or they failed to be written to the file.
+     */
+    public long droppedCount() {
+        return droppedCount.sum();
+    }
+
+    @Override
+    public void accept(RequestLog log) {
+        if (closed || !queue.offer(log)) {
+            droppedCount.increment();
+            return;
+        }
+
+        if (terminated) {
+            // Closed while queueing; the log may have missed the final drain of the writer thread.
+            dropPendingLogs();
+        } else if (waiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /**
+     * Writes the pending access logs, closes the file and stops the writer thread. The access logs
+     * given to this writer afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+        closeFuture.join();
+    }
+
+    private void run() {
+        try {
+            for (;;) {
+                // Read the flag before draining, so that nothing put into the queue before close()
+                // is left behind.
+                final boolean closing = closed;
+                boolean wrote = false;
+                for (RequestLog log; (log = queue.poll()) != null;) {
+                    write(log);
+                    wrote = true;
+                }
+
+                flush();
+                if (closing) {
+                    break;
+                }
+
+                rotateIfNecessary();
+                if (!wrote) {
+                    park();
+                }
+            }
+        } catch (Throwable cause) {
+            logger.warn("Unexpected exception from the access log writer of: {}", file, cause);
+        } finally {
+            terminated = true;
+            dropPendingLogs();
+            closeChannel();
+            closeFuture.complete(null);
+        }
+    }
+
+    /**
+     * Parks the writer thread until an access log is queued, this writer is closed or the file has to be
+     * rotated.
+     */
+    private void park() {
+        // Publish the flag before checking the queue, so that either this thread sees the queued log or
+        // accept() sees the flag and unparks this thread.
+        waiting = true;
+        try {
+            if (queue.isEmpty() && !closed) {
+                final long delayMillis = nextRotationTimeMillis - System.currentTimeMillis();
+                if (delayMillis > 0) {
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(delayMillis));
+                }
+            }
+        } finally {
+            waiting = false;
+        }
+    }
+
+    /**
+     * Drops the access logs left in the queue after the writer thread stopped polling it. Synchronized
+     * because the queue allows only a single consumer.
+     */
+    private synchronized void dropPendingLogs() {
+        while (queue.poll() != null) {
+            droppedCount.increment();
+        }
+    }
+
+    private void write(RequestLog log) {
+        message.setLength(0);
+        AccessLogger.format(message, format, log);
+        message.append('\n');
+
+        if (buffer.remaining() < message.length() * MAX_BYTES_PER_CHAR) {
+            // Flush and rotate between the lines, so that a line is not split into two files.
+            flush();
+            rotateIfNecessary();
+        }
+
+        final CharBuffer in = CharBuffer.wrap(message);
+        for (;;) {
+            final CoderResult result = encoder.encode(in, buffer, true);
+            if (!result.isOverflow()) {
+                break;
+            }
+            // Only a line longer than the buffer can reach here.
+            flush();
+        }
+        encoder.reset();
+        numBufferedLogs++;
+    }
+
+    private void flush() {
+        if (buffer.position() == 0) {
+            return;
+        }
+
+        buffer.flip();
+        try {
+            final FileChannel channel = channel();
+            while (buffer.hasRemaining()) {
+                fileSize += channel.write(buffer);
+            }
+            writtenCount.add(numBufferedLogs);
+        } catch (IOException e) {
+            logger.warn("Failed to write access logs to: {}", file, e);
+            droppedCount.add(numBufferedLogs);
+            // Try to open the file again on the next flush.
+            closeChannel();
+        } finally {
+            numBufferedLogs = 0;
+            buffer.clear();
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        FileChannel channel = this.channel;
+        if (channel == null) {
+            this.channel = channel = FileChannel.open(file, CREATE, WRITE, APPEND);
+            fileSize = channel.size();
+        }
+        return channel;
+    }
+
+    private void closeChannel() {
+        final FileChannel channel = this.channel;
+        if (channel == null) {
+            return;
+        }
+
+        this.channel = null;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close an access log file: {}", file, e);
+        }
+    }
+
+    private void rotateIfNecessary() {
+        final long currentTimeMillis = System.currentTimeMillis();
+        if (currentTimeMillis >= nextRotationTimeMillis) {
+            nextRotationTimeMillis = nextRotationTimeMillis(currentTimeMillis);
+        } else if (maxFileSizeBytes == 0 || fileSize < maxFileSizeBytes) {
+            return;
+        }
+
+        closeChannel();
+        fileSize = 0;
+        try {
+            if (Files.exists(file) && Files.size(file) > 0) {
+                Files.move(file, rotatedFile(currentTimeMillis));
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to rotate an access log file: {}", file, e);
+        }
+    }
+
+    private long nextRotationTimeMillis(long currentTimeMillis) {
+        if (rotationIntervalMillis == 0) {
+            return Long.MAX_VALUE;
+        }
+        return (currentTimeMillis / rotationIntervalMillis + 1) * rotationIntervalMillis;
+    }
+
+    private Path rotatedFile(long currentTimeMillis) {
+        final String name = file.getFileName() + "." +
+                            rotatedFileSuffixFormatter.format(Instant.ofEpochMilli(currentTimeMillis));
+        Path rotatedFile = file.resolveSibling(name);
+        for (int i = 1; Files.exists(rotatedFile); i++) {
+            rotatedFile = file.resolveSibling(name + '.' + i);
+        }
+        return rotatedFile;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("file", file)
+                          .add("writtenCount", writtenCount())
+                          .add("droppedCount", droppedCount())
+                          .toString();
+    }
+}
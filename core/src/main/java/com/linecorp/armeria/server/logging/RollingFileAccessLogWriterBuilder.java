@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.logging;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.linecorp.armeria.server.logging.AccessLogFormats.parseCustom;
+import static java.util.Objects.requireNonNull;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import com.linecorp.armeria.common.metric.NoopMeterRegistry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Builds a new {@link RollingFileAccessLogWriter}.
+ */
+public final class RollingFileAccessLogWriterBuilder {
+
+    static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    static final long DEFAULT_MAX_FILE_SIZE_BYTES = 1024L * 1024 * 1024;
+    static final Duration DEFAULT_ROTATION_INTERVAL = Duration.ofDays(1);
+
+    private final Path file;
+    private List<AccessLogComponent> format = AccessLogFormats.COMMON;
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private long maxFileSizeBytes = DEFAULT_MAX_FILE_SIZE_BYTES;
+    private Duration rotationInterval = DEFAULT_ROTATION_INTERVAL;
+    private MeterRegistry meterRegistry = NoopMeterRegistry.get();
+
+    /**
+     * Creates a new builder which builds a {@link RollingFileAccessLogWriter} that writes to
+     * the specified {@code file}.
+     */
+    public RollingFileAccessLogWriterBuilder(Path file) {
+        this.file = requireNonNull(file, "file");
+    }
+
+    /**
+     * Sets the format of the access logs, e.g. {@code "%h %l %u %t \"%r\" %s %b"}. The format is parsed
+     * only once, when this method is called. If not set, the common log format is used.
+     */
+    public RollingFileAccessLogWriterBuilder format(String formatStr) {
+        final List<AccessLogComponent> format = parseCustom(requireNonNull(formatStr, "formatStr"));
+        checkArgument(!format.isEmpty(), "Invalid access log format string: " + formatStr);
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of {@link com.linecorp.armeria.common.logging.RequestLog}s which wait for
+     * being written. A {@link com.linecorp.armeria.common.logging.RequestLog} is dropped rather than
+     * blocking the caller when the queue is full. The default is {@value #DEFAULT_QUEUE_CAPACITY}.
+     */
+    public RollingFileAccessLogWriterBuilder queueCapacity(int queueCapacity) {
+        checkArgument(queueCapacity > 0, "queueCapacity: %s (expected: > 0)", queueCapacity);
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Sets the size of the file which triggers a rotation. {@code 0} disables the size-based rotation.
+     * The default is 1 GiB.
+     */
+    public RollingFileAccessLogWriterBuilder maxFileSizeBytes(long maxFileSizeBytes) {
+        checkArgument(maxFileSizeBytes >= 0, "maxFileSizeBytes: %s (expected: >= 0)", maxFileSizeBytes);
+        this.maxFileSizeBytes = maxFileSizeBytes;
+        return this;
+    }
+
+    /**
+     * Sets the interval of the time-based rotation. The file is rotated at the multiples of the interval
+     * since the epoch, e.g. at midnight UTC when the interval is one day. {@link Duration#ZERO} disables
+     * the time-based rotation. The default is one day.
+     */
+    public RollingFileAccessLogWriterBuilder rotationInterval(Duration rotationInterval) {
+        requireNonNull(rotationInterval, "rotationInterval");
+        checkArgument(!rotationInterval.isNegative(),
+                      "rotationInterval: %s (expected: >= 0)", rotationInterval);
+        this.rotationInterval = rotationInterval;
+        return this;
+    }
+
+    /**
+     * Sets the interval of the time-based rotation in milliseconds.
+     *
+     * @see #rotationInterval(Duration)
+     */
+    public RollingFileAccessLogWriterBuilder rotationIntervalMillis(long rotationIntervalMillis) {
+        return rotationInterval(Duration.ofMillis(rotationIntervalMillis));
+    }
+
+    /**
+     * Sets the {@link MeterRegistry} where the number of written and dropped access logs are recorded.
+     */
+    public RollingFileAccessLogWriterBuilder meterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry");
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link RollingFileAccessLogWriter} based on the properties of this builder.
+     * Its writer thread is started immediately.
+     */
+    public RollingFileAccessLogWriter build() {
+        return new RollingFileAccessLogWriter(file, format, queueCapacity, maxFileSizeBytes,
+                                              rotationInterval.toMillis(), meterRegistry);
+    }
+}
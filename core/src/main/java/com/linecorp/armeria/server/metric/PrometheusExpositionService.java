@@ -16,30 +16,69 @@
 
 package com.linecorp.armeria.server.metric;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
 
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpResponseWriter;
 import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.MediaType;
+import com.linecorp.armeria.internal.AcceptEncodingUtil;
 import com.linecorp.armeria.server.AbstractHttpService;
 import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.prometheus.client.CollectorRegistry;
 import io.prometheus.client.exporter.common.TextFormat;
 
 /**
  * Exposes Prometheus metrics in <a href="https://prometheus.io/docs/instrumenting/exposition_formats/">text
  * format 0.0.4</a>.
+ *
+ * <p>The metrics are rendered on {@link ServiceRequestContext#blockingTaskExecutor()} into pooled
+ * {@link ByteBuf}s of at most {@value #CHUNK_SIZE} bytes, which are streamed as the response, so that
+ * a large {@link CollectorRegistry} does not block an event loop. The response is compressed with gzip if
+ * the client accepts it. If a render cache TTL is specified, the rendered metrics are reused for the
+ * requests received within the TTL, so that the concurrent scrapers share a single render.
  */
 public class PrometheusExpositionService extends AbstractHttpService {
 
+    private static final Logger logger = LoggerFactory.getLogger(PrometheusExpositionService.class);
+
     private static final MediaType CONTENT_TYPE_004 = MediaType.parse(TextFormat.CONTENT_TYPE_004);
 
+    private static final int CHUNK_SIZE = 16384;
+
     private final CollectorRegistry collectorRegistry;
+    private final long renderCacheTtlNanos;
+
+    // Used only when renderCacheTtlNanos > 0.
+    private final AtomicReference<Rendering> identityRendering = new AtomicReference<>();
+    private final AtomicReference<Rendering> gzipRendering = new AtomicReference<>();
 
     /**
      * Creates a new instance.
@@ -47,21 +86,246 @@ public class PrometheusExpositionService extends AbstractHttpService {
      * @param collectorRegistry Prometheus registry
      */
     public PrometheusExpositionService(CollectorRegistry collectorRegistry) {
-        requireNonNull(collectorRegistry, "collectorRegistry");
-        this.collectorRegistry = collectorRegistry;
+        this(collectorRegistry, Duration.ZERO);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param collectorRegistry Prometheus registry
+     * @param renderCacheTtl how long the rendered metrics are reused for the subsequent requests.
+     *                       {@link Duration#ZERO} disables the cache.
+     */
+    public PrometheusExpositionService(CollectorRegistry collectorRegistry, Duration renderCacheTtl) {
+        this.collectorRegistry = requireNonNull(collectorRegistry, "collectorRegistry");
+        requireNonNull(renderCacheTtl, "renderCacheTtl");
+        checkArgument(!renderCacheTtl.isNegative(), "renderCacheTtl: %s (expected: >= 0)", renderCacheTtl);
+        renderCacheTtlNanos = renderCacheTtl.toNanos();
     }
 
     @Override
     protected HttpResponse doGet(ServiceRequestContext ctx, HttpRequest req) throws Exception {
-        final ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        try (OutputStreamWriter writer = new OutputStreamWriter(stream)) {
-            TextFormat.write004(writer, collectorRegistry.metricFamilySamples());
+        final String acceptEncoding = req.headers().get(HttpHeaderNames.ACCEPT_ENCODING);
+        final boolean gzip = acceptEncoding != null && AcceptEncodingUtil.isAcceptable(acceptEncoding, "gzip");
+        if (renderCacheTtlNanos > 0) {
+            return cachedResponse(ctx, gzip);
         }
-        return HttpResponse.of(HttpStatus.OK, CONTENT_TYPE_004, stream.toByteArray());
+
+        final HttpResponseWriter res = HttpResponse.streaming();
+        res.write(headers(gzip));
+        ctx.blockingTaskExecutor().execute(() -> {
+            try {
+                render(ctx.alloc(), gzip, buf -> {
+                    if (!res.tryWrite(new ByteBufHttpData(buf, false))) {
+                        throw new ClosedChannelException();
+                    }
+                });
+                res.close();
+            } catch (ClosedChannelException ignored) {
+                // The response has been closed already.
+            } catch (Throwable cause) {
+                logger.warn("{} Unexpected exception while rendering Prometheus metrics:", ctx, cause);
+                res.close(cause);
+            }
+        });
+        return res;
     }
 
     @Override
     protected HttpResponse doPost(ServiceRequestContext ctx, HttpRequest req) throws Exception {
         return doGet(ctx, req);
     }
+
+    private HttpResponse cachedResponse(ServiceRequestContext ctx, boolean gzip) {
+        final AtomicReference<Rendering> ref = gzip ? gzipRendering : identityRendering;
+        final long currentTimeNanos = System.nanoTime();
+        Rendering rendering;
+        for (;;) {
+            rendering = ref.get();
+            if (rendering == null || currentTimeNanos - rendering.startTimeNanos >= renderCacheTtlNanos) {
+                final Rendering newRendering = new Rendering(currentTimeNanos);
+                if (ref.compareAndSet(rendering, newRendering)) {
+                    if (rendering != null) {
+                        rendering.release();
+                    }
+                    newRendering.start(ctx, gzip);
+                }
+                continue;
+            }
+            if (rendering.tryRetain()) {
+                break;
+            }
+        }
+
+        final Rendering retained = rendering;
+        return HttpResponse.from(retained.future.thenApply(chunks -> {
+            final HttpResponseWriter res = HttpResponse.streaming();
+            int contentLength = 0;
+            for (ByteBuf chunk : chunks) {
+                contentLength += chunk.readableBytes();
+            }
+            res.write(headers(gzip).setInt(HttpHeaderNames.CONTENT_LENGTH, contentLength));
+            for (ByteBuf chunk : chunks) {
+                if (!res.tryWrite(new ByteBufHttpData(chunk.retainedDuplicate(), false))) {
+                    return res;
+                }
+            }
+            res.close();
+            return res;
+        }).whenComplete((unused1, unused2) -> retained.release()));
+    }
+
+    private void render(ByteBufAllocator alloc, boolean gzip, ChunkConsumer consumer) throws IOException {
+        final ChunkedOutputStream chunked = new ChunkedOutputStream(alloc, consumer);
+        final EndableGzipOutputStream gzipOut = gzip ? new EndableGzipOutputStream(chunked) : null;
+        try (Writer writer = new OutputStreamWriter(gzipOut != null ? gzipOut : chunked,
+                                                    StandardCharsets.UTF_8)) {
+            TextFormat.write004(writer, collectorRegistry.metricFamilySamples());
+        } finally {
+            if (gzipOut != null) {
+                // GZIPOutputStream.close() does not end its Deflater if finishing the stream fails.
+                gzipOut.end();
+            }
+            chunked.releaseCurrent();
+        }
+    }
+
+    private static HttpHeaders headers(boolean gzip) {
+        final HttpHeaders headers = HttpHeaders.of(HttpStatus.OK).contentType(CONTENT_TYPE_004);
+        headers.set(HttpHeaderNames.VARY, HttpHeaderNames.ACCEPT_ENCODING.toString());
+        if (gzip) {
+            headers.set(HttpHeaderNames.CONTENT_ENCODING, "gzip");
+        }
+        return headers;
+    }
+
+    /**
+     * A render of the metrics shared by the requests received within the render cache TTL. The rendered
+     * {@link ByteBuf}s are released when this {@link Rendering} is evicted from the cache and no request
+     * is using it anymore.
+     */
+    private final class Rendering {
+
+        final long startTimeNanos;
+        final CompletableFuture<List<ByteBuf>> future = new CompletableFuture<>();
+        // Starts from 1, which is held by the cache.
+        private final AtomicInteger refCnt = new AtomicInteger(1);
+
+        Rendering(long startTimeNanos) {
+            this.startTimeNanos = startTimeNanos;
+        }
+
+        void start(ServiceRequestContext ctx, boolean gzip) {
+            ctx.blockingTaskExecutor().execute(() -> {
+                final List<ByteBuf> chunks = new ArrayList<>();
+                try {
+                    render(ctx.alloc(), gzip, chunks::add);
+                    future.complete(chunks);
+                } catch (Throwable cause) {
+                    logger.warn("{} Unexpected exception while rendering Prometheus metrics:", ctx, cause);
+                    chunks.forEach(ByteBuf::release);
+                    future.completeExceptionally(cause);
+                }
+            });
+        }
+
+        boolean tryRetain() {
+            for (;;) {
+                final int refCnt = this.refCnt.get();
+                if (refCnt == 0) {
+                    return false;
+                }
+                if (this.refCnt.compareAndSet(refCnt, refCnt + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            if (refCnt.decrementAndGet() == 0) {
+                future.thenAccept(chunks -> chunks.forEach(ByteBuf::release));
+            }
+        }
+    }
+
+    /**
+     * A {@link GZIPOutputStream} whose {@link java.util.zip.Deflater} can be ended explicitly, so that its
+     * native memory is freed even if the stream is not closed successfully.
+     */
+    private static final class EndableGzipOutputStream extends GZIPOutputStream {
+
+        EndableGzipOutputStream(OutputStream out) throws IOException {
+            super(out, CHUNK_SIZE);
+        }
+
+        void end() {
+            def.end();
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkConsumer {
+        void accept(ByteBuf chunk) throws IOException;
+    }
+
+    /**
+     * An {@link OutputStream} which writes into the pooled {@link ByteBuf}s of at most
+     * {@value #CHUNK_SIZE} bytes, handing each of them over to a {@link ChunkConsumer} when it is full.
+     */
+    private static final class ChunkedOutputStream extends OutputStream {
+
+        private final ByteBufAllocator alloc;
+        private final ChunkConsumer consumer;
+        @Nullable
+        private ByteBuf current;
+
+        ChunkedOutputStream(ByteBufAllocator alloc, ChunkConsumer consumer) {
+            this.alloc = alloc;
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            currentChunk().writeByte(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                final ByteBuf chunk = currentChunk();
+                final int length = Math.min(len, chunk.writableBytes());
+                chunk.writeBytes(b, off, length);
+                off += length;
+                len -= length;
+            }
+        }
+
+        private ByteBuf currentChunk() throws IOException {
+            final ByteBuf current = this.current;
+            if (current != null) {
+                if (current.isWritable()) {
+                    return current;
+                }
+                this.current = null;
+                consumer.accept(current);
+            }
+            return this.current = alloc.directBuffer(CHUNK_SIZE, CHUNK_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            final ByteBuf current = this.current;
+            if (current != null && current.isReadable()) {
+                this.current = null;
+                consumer.accept(current);
+            }
+        }
+
+        void releaseCurrent() {
+            if (current != null) {
+                current.release();
+                current = null;
+            }
+        }
+    }
 }
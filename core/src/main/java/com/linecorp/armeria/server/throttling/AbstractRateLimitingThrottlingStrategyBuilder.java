@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+import java.util.function.BiFunction;
+
+import javax.annotation.Nullable;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * A skeletal builder of a rate-limiting {@link ThrottlingStrategy} which partitions the requests by a key.
+ *
+ * @param <B> the type of this builder
+ * @param <T> the type of the request
+ *
+ * @see TokenBucketThrottlingStrategyBuilder
+ * @see SlidingWindowThrottlingStrategyBuilder
+ */
+public abstract class AbstractRateLimitingThrottlingStrategyBuilder<
+        B extends AbstractRateLimitingThrottlingStrategyBuilder<B, T>, T extends Request> {
+
+    private static final long DEFAULT_MAX_NUM_KEYS = 65536;
+    private static final Duration DEFAULT_IDLE_TIMEOUT = Duration.ofMinutes(1);
+
+    @Nullable
+    private String name;
+    private BiFunction<? super ServiceRequestContext, ? super T, ?> keyFunction = ThrottlingKeys.none();
+    private long maxNumKeys = DEFAULT_MAX_NUM_KEYS;
+    private Duration idleTimeout = DEFAULT_IDLE_TIMEOUT;
+    private Ticker ticker = Ticker.systemTicker();
+
+    AbstractRateLimitingThrottlingStrategyBuilder() {}
+
+    @SuppressWarnings("unchecked")
+    final B self() {
+        return (B) this;
+    }
+
+    /**
+     * Sets the name of the {@link ThrottlingStrategy}.
+     */
+    public B name(String name) {
+        this.name = requireNonNull(name, "name");
+        return self();
+    }
+
+    /**
+     * Sets the function which returns the key of a request. The requests with different keys are
+     * rate-limited separately. All requests share a single rate limit by default.
+     *
+     * @see ThrottlingKeys
+     */
+    public B keyFunction(BiFunction<? super ServiceRequestContext, ? super T, ?> keyFunction) {
+        this.keyFunction = requireNonNull(keyFunction, "keyFunction");
+        return self();
+    }
+
+    /**
+     * Sets the maximum number of keys whose rate limit states are kept. When there are more keys than this,
+     * the states of the least recently seen keys are evicted, which resets their quota.
+     * The default value is {@value #DEFAULT_MAX_NUM_KEYS}.
+     */
+    public B maxNumKeys(long maxNumKeys) {
+        checkArgument(maxNumKeys > 0, "maxNumKeys: %s (expected: > 0)", maxNumKeys);
+        this.maxNumKeys = maxNumKeys;
+        return self();
+    }
+
+    /**
+     * Sets the amount of time after which the rate limit state of a key that has not been seen is evicted.
+     * This should be longer than the time the quota of a key takes to be fully restored.
+     * The default value is 1 minute.
+     */
+    public B idleTimeout(Duration idleTimeout) {
+        requireNonNull(idleTimeout, "idleTimeout");
+        checkArgument(!idleTimeout.isNegative() && !idleTimeout.isZero(),
+                      "idleTimeout: %s (expected: > 0)", idleTimeout);
+        this.idleTimeout = idleTimeout;
+        return self();
+    }
+
+    /**
+     * Sets the amount of time in milliseconds after which the rate limit state of a key that has not been
+     * seen is evicted.
+     *
+     * @see #idleTimeout(Duration)
+     */
+    public B idleTimeoutMillis(long idleTimeoutMillis) {
+        return idleTimeout(Duration.ofMillis(idleTimeoutMillis));
+    }
+
+    @VisibleForTesting
+    B ticker(Ticker ticker) {
+        this.ticker = requireNonNull(ticker, "ticker");
+        return self();
+    }
+
+    @Nullable
+    final String name() {
+        return name;
+    }
+
+    final BiFunction<? super ServiceRequestContext, ? super T, ?> keyFunction() {
+        return keyFunction;
+    }
+
+    final long maxNumKeys() {
+        return maxNumKeys;
+    }
+
+    final Duration idleTimeout() {
+        return idleTimeout;
+    }
+
+    final Ticker ticker() {
+        return ticker;
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.common.limit.AdaptiveLimit;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+import com.linecorp.armeria.internal.metric.ConcurrencyLimitMetrics;
+import com.linecorp.armeria.server.RequestTimeoutException;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * A {@link ThrottlingStrategy} which limits the number of concurrent requests to the current value of
+ * an {@link AdaptiveLimit}. The limit follows the latency of the accepted requests, which is measured from
+ * their {@link RequestLog}s, so that the server sheds the load before its queues grow.
+ *
+ * <p>A request which exceeds the limit waits until another request completes if the pending queue is
+ * not full, or it is rejected immediately otherwise. The accepted requests acquire the permits of the
+ * {@link AdaptiveLimit}, so the strategies sharing an {@link AdaptiveLimit} are limited together. The current
+ * limit, the number of requests in flight and the time spent by the pending requests are exported under
+ * the meter name {@code armeria.server.throttling.concurrencyLimit}, tagged with {@link AdaptiveLimit#name()}.
+ *
+ * @param <T> the type of the request
+ *
+ * @see ConcurrencyLimitingThrottlingStrategyBuilder
+ */
+public final class ConcurrencyLimitingThrottlingStrategy<T extends Request> extends ThrottlingStrategy<T> {
+
+    private final AdaptiveLimit limit;
+    private final int maxPendingRequests;
+    private final long pendingTimeoutNanos;
+    private final AtomicInteger numActiveRequests = new AtomicInteger();
+    private final AtomicInteger numPendingRequests = new AtomicInteger();
+    private final Queue<PendingRequest> pendingRequests = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean waitingForPermit = new AtomicBoolean();
+    private final Runnable permitWaiter = () -> {
+        waitingForPermit.set(false);
+        drain();
+    };
+    @Nullable
+    private volatile ConcurrencyLimitMetrics metrics;
+
+    ConcurrencyLimitingThrottlingStrategy(@Nullable String name, AdaptiveLimit limit,
+                                          int maxPendingRequests, long pendingTimeoutNanos) {
+        super(name);
+        this.limit = requireNonNull(limit, "limit");
+        this.maxPendingRequests = maxPendingRequests;
+        this.pendingTimeoutNanos = pendingTimeoutNanos;
+    }
+
+    /**
+     * Returns the {@link AdaptiveLimit} of this strategy.
+     */
+    public AdaptiveLimit limit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of the requests accepted by this strategy which are not complete yet.
+     */
+    public int numActiveRequests() {
+        return numActiveRequests.get();
+    }
+
+    @Override
+    public CompletionStage<Boolean> accept(ServiceRequestContext ctx, T request) {
+        final ConcurrencyLimitMetrics metrics = metrics(ctx);
+        if (tryAcquire()) {
+            onAcquired(ctx);
+            return completedFuture(true);
+        }
+
+        if (numPendingRequests.incrementAndGet() > maxPendingRequests) {
+            numPendingRequests.decrementAndGet();
+            return completedFuture(false);
+        }
+
+        final PendingRequest pending = new PendingRequest(ctx, metrics);
+        pendingRequests.add(pending);
+        pending.timeoutFuture = ctx.eventLoop().schedule(() -> {
+            if (pendingRequests.remove(pending)) {
+                numPendingRequests.decrementAndGet();
+                pending.complete(false);
+            }
+        }, pendingTimeoutNanos, TimeUnit.NANOSECONDS);
+        if (pending.isDone()) {
+            // Accepted before the timeout task was set.
+            pending.cancelTimeout();
+        }
+
+        // A request might have completed while the pending request was being added.
+        drain();
+        return pending;
+    }
+
+    private boolean tryAcquire() {
+        if (!limit.tryAcquire()) {
+            return false;
+        }
+        numActiveRequests.incrementAndGet();
+        return true;
+    }
+
+    private void release() {
+        numActiveRequests.decrementAndGet();
+        limit.release();
+    }
+
+    private void onAcquired(ServiceRequestContext ctx) {
+        final long acquiredNanos = System.nanoTime();
+        final int inflight = limit.inflight();
+        ctx.log().addListener(log -> onComplete(log, acquiredNanos, inflight),
+                              RequestLogAvailability.COMPLETE);
+    }
+
+    private void onComplete(RequestLog log, long acquiredNanos, int inflight) {
+        final boolean dropped = log.responseCause() instanceof RequestTimeoutException ||
+                                log.statusCode() == HttpStatus.SERVICE_UNAVAILABLE.code();
+        limit.onSample(log.responseEndTimeNanos() - acquiredNanos, inflight, dropped);
+        release();
+        drain();
+    }
+
+    private void drain() {
+        while (!pendingRequests.isEmpty()) {
+            if (!tryAcquire()) {
+                if (waitingForPermit.compareAndSet(false, true)) {
+                    // A permit might be returned by another strategy sharing the limit.
+                    limit.awaitPermit(permitWaiter);
+                }
+                break;
+            }
+
+            final PendingRequest pending = pendingRequests.poll();
+            if (pending == null) {
+                release();
+                // Another request might have been added to the queue in the meantime.
+                continue;
+            }
+
+            numPendingRequests.decrementAndGet();
+            pending.metrics.recordQueueWait(System.nanoTime() - pending.createdNanos);
+            onAcquired(pending.ctx);
+            pending.complete(true);
+            pending.cancelTimeout();
+        }
+    }
+
+    private ConcurrencyLimitMetrics metrics(ServiceRequestContext ctx) {
+        ConcurrencyLimitMetrics metrics = this.metrics;
+        if (metrics == null) {
+            this.metrics = metrics = ConcurrencyLimitMetrics.of(
+                    ctx.meterRegistry(),
+                    new MeterIdPrefix("armeria.server.throttling.concurrencyLimit", "name", limit.name()),
+                    limit);
+        }
+        return metrics;
+    }
+
+    private static final class PendingRequest extends CompletableFuture<Boolean> {
+
+        final ServiceRequestContext ctx;
+        final ConcurrencyLimitMetrics metrics;
+        final long createdNanos = System.nanoTime();
+        @Nullable
+        volatile ScheduledFuture<?> timeoutFuture;
+
+        PendingRequest(ServiceRequestContext ctx, ConcurrencyLimitMetrics metrics) {
+            this.ctx = ctx;
+            this.metrics = metrics;
+        }
+
+        /**
+         * Cancels the timeout task so that it does not stay in the scheduled task queue of the event loop
+         * until the pending timeout elapses.
+         */
+        void cancelTimeout() {
+            final ScheduledFuture<?> timeoutFuture = this.timeoutFuture;
+            if (timeoutFuture != null) {
+                timeoutFuture.cancel(false);
+            }
+        }
+    }
+}
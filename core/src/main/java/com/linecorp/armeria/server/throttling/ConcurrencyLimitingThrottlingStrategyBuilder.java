@@ -0,0 +1,125 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.common.limit.AdaptiveLimit;
+
+/**
+ * Builds a new {@link ConcurrencyLimitingThrottlingStrategy}.
+ * <h2>Example</h2>
+ * <pre>{@code
+ * // Limit the number of concurrent requests by the latency of the service, keeping up to 100 requests
+ * // waiting for at most 1 second when the limit is reached.
+ * ThrottlingStrategy<HttpRequest> strategy =
+ *     new ConcurrencyLimitingThrottlingStrategyBuilder<HttpRequest>(AdaptiveLimit.gradient().build())
+ *         .maxPendingRequests(100)
+ *         .pendingTimeout(Duration.ofSeconds(1))
+ *         .build();
+ * sb.service("/api", myService.decorate(ThrottlingHttpService.newDecorator(strategy)));
+ * }</pre>
+ *
+ * @param <T> the type of the request
+ */
+public final class ConcurrencyLimitingThrottlingStrategyBuilder<T extends Request> {
+
+    private static final Duration DEFAULT_PENDING_TIMEOUT = Duration.ofSeconds(1);
+
+    private final AdaptiveLimit limit;
+    @Nullable
+    private String name;
+    private int maxPendingRequests;
+    private Duration pendingTimeout = DEFAULT_PENDING_TIMEOUT;
+
+    /**
+     * Creates a new builder.
+     *
+     * @param limit the {@link AdaptiveLimit} which determines the maximum number of concurrent requests
+     */
+    public ConcurrencyLimitingThrottlingStrategyBuilder(AdaptiveLimit limit) {
+        this.limit = requireNonNull(limit, "limit");
+    }
+
+    /**
+     * Sets the name of the {@link ThrottlingStrategy}.
+     */
+    public ConcurrencyLimitingThrottlingStrategyBuilder<T> name(String name) {
+        this.name = requireNonNull(name, "name");
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of requests which wait for the limit. The requests which exceed the limit
+     * are rejected immediately when there are this many requests waiting already. The default value is
+     * {@code 0}, which means no request waits.
+     */
+    public ConcurrencyLimitingThrottlingStrategyBuilder<T> maxPendingRequests(int maxPendingRequests) {
+        checkArgument(maxPendingRequests >= 0,
+                      "maxPendingRequests: %s (expected: >= 0)", maxPendingRequests);
+        this.maxPendingRequests = maxPendingRequests;
+        return this;
+    }
+
+    /**
+     * Sets the amount of time a request waits for the limit before it is rejected.
+     * The default value is 1 second.
+     */
+    public ConcurrencyLimitingThrottlingStrategyBuilder<T> pendingTimeout(Duration pendingTimeout) {
+        requireNonNull(pendingTimeout, "pendingTimeout");
+        checkArgument(!pendingTimeout.isNegative() && !pendingTimeout.isZero(),
+                      "pendingTimeout: %s (expected: > 0)", pendingTimeout);
+        this.pendingTimeout = pendingTimeout;
+        return this;
+    }
+
+    /**
+     * Sets the amount of time in milliseconds a request waits for the limit before it is rejected.
+     *
+     * @see #pendingTimeout(Duration)
+     */
+    public ConcurrencyLimitingThrottlingStrategyBuilder<T> pendingTimeoutMillis(long pendingTimeoutMillis) {
+        return pendingTimeout(Duration.ofMillis(pendingTimeoutMillis));
+    }
+
+    /**
+     * Returns a newly-created {@link ConcurrencyLimitingThrottlingStrategy} based on the properties of this
+     * builder.
+     */
+    public ConcurrencyLimitingThrottlingStrategy<T> build() {
+        return new ConcurrencyLimitingThrottlingStrategy<>(name, limit, maxPendingRequests,
+                                                           pendingTimeout.toNanos());
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).omitNullValues()
+                          .add("name", name)
+                          .add("limit", limit)
+                          .add("maxPendingRequests", maxPendingRequests)
+                          .add("pendingTimeout", pendingTimeout)
+                          .toString();
+    }
+}
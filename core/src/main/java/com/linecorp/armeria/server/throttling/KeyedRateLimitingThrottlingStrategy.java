@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionStage;
+import java.util.function.BiFunction;
+
+import javax.annotation.Nullable;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.google.common.base.Ticker;
+
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * A skeletal rate-limiting {@link ThrottlingStrategy} which keeps a separate rate limit state for each key
+ * returned by a key function. The states are kept in a concurrent cache so that the requests with
+ * different keys never contend with each other, and the state of a key is evicted when the key has not been
+ * seen for a while.
+ *
+ * @param <T> the type of the request
+ * @param <S> the type of the rate limit state of a key
+ */
+abstract class KeyedRateLimitingThrottlingStrategy<T extends Request, S> extends ThrottlingStrategy<T> {
+
+    private static final Object NULL_KEY = new Object();
+
+    private final BiFunction<? super ServiceRequestContext, ? super T, ?> keyFunction;
+    private final Ticker ticker;
+    private final LoadingCache<Object, S> states;
+
+    KeyedRateLimitingThrottlingStrategy(
+            @Nullable String name, BiFunction<? super ServiceRequestContext, ? super T, ?> keyFunction,
+            long maxNumKeys, Duration idleTimeout, Ticker ticker) {
+        super(name);
+        this.keyFunction = requireNonNull(keyFunction, "keyFunction");
+        this.ticker = requireNonNull(ticker, "ticker");
+        states = Caffeine.newBuilder()
+                         .maximumSize(maxNumKeys)
+                         .expireAfterAccess(requireNonNull(idleTimeout, "idleTimeout"))
+                         .ticker(ticker::read)
+                         .build(key -> newState(ticker.read()));
+    }
+
+    @Override
+    public final CompletionStage<Boolean> accept(ServiceRequestContext ctx, T request) {
+        final RateLimit rejected = tryAcquire(keyFunction.apply(ctx, request));
+        if (rejected == null) {
+            return completedFuture(true);
+        }
+
+        ctx.attr(RateLimit.ATTR).set(rejected);
+        return completedFuture(false);
+    }
+
+    /**
+     * Acquires a permit for the specified key.
+     *
+     * @return {@code null} if acquired, or the {@link RateLimit} which explains why the permit was not
+     *         acquired.
+     */
+    @Nullable
+    final RateLimit tryAcquire(@Nullable Object key) {
+        final S state = states.get(key != null ? key : NULL_KEY);
+        assert state != null;
+        return tryAcquire(state, ticker.read());
+    }
+
+    final long numKeys() {
+        states.cleanUp();
+        return states.estimatedSize();
+    }
+
+    /**
+     * Returns a new rate limit state which has a full quota.
+     */
+    abstract S newState(long nowNanos);
+
+    /**
+     * Acquires a permit from the specified state without blocking.
+     *
+     * @return {@code null} if acquired, or the {@link RateLimit} which explains why the permit was not
+     *         acquired.
+     */
+    @Nullable
+    abstract RateLimit tryAcquire(S state, long nowNanos);
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+import io.netty.util.AsciiString;
+import io.netty.util.AttributeKey;
+
+/**
+ * The state of the rate limit applied to a request, which is stored in a {@link ServiceRequestContext}
+ * when a request is rejected by a rate-limiting {@link ThrottlingStrategy} so that the rejection can tell
+ * the client when to retry, as specified in
+ * <a href="https://tools.ietf.org/html/draft-ietf-httpapi-ratelimit-headers">RateLimit Header Fields
+ * for HTTP</a>.
+ */
+final class RateLimit {
+
+    static final AttributeKey<RateLimit> ATTR = AttributeKey.valueOf(RateLimit.class, "RATE_LIMIT");
+
+    static final AsciiString RATELIMIT_LIMIT = HttpHeaderNames.of("ratelimit-limit");
+    static final AsciiString RATELIMIT_REMAINING = HttpHeaderNames.of("ratelimit-remaining");
+    static final AsciiString RATELIMIT_RESET = HttpHeaderNames.of("ratelimit-reset");
+
+    private final long limit;
+    private final long remaining;
+    private final long resetNanos;
+    private final long retryAfterNanos;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param limit the number of requests allowed in a window
+     * @param remaining the number of requests that can be accepted right now
+     * @param resetNanos the time until the quota is fully restored
+     * @param retryAfterNanos the time until the next request can be accepted
+     */
+    RateLimit(long limit, long remaining, long resetNanos, long retryAfterNanos) {
+        this.limit = limit;
+        this.remaining = remaining;
+        this.resetNanos = resetNanos;
+        this.retryAfterNanos = retryAfterNanos;
+    }
+
+    long limit() {
+        return limit;
+    }
+
+    long remaining() {
+        return remaining;
+    }
+
+    long resetNanos() {
+        return resetNanos;
+    }
+
+    long retryAfterNanos() {
+        return retryAfterNanos;
+    }
+
+    /**
+     * Sets the {@code "retry-after"} and {@code "ratelimit-*"} headers to the specified {@link HttpHeaders}.
+     */
+    void setHeaders(HttpHeaders headers) {
+        headers.setLong(HttpHeaderNames.RETRY_AFTER, toSecondsCeil(retryAfterNanos));
+        headers.setLong(RATELIMIT_LIMIT, limit);
+        headers.setLong(RATELIMIT_REMAINING, remaining);
+        headers.setLong(RATELIMIT_RESET, toSecondsCeil(resetNanos));
+    }
+
+    private static long toSecondsCeil(long nanos) {
+        final long secondInNanos = TimeUnit.SECONDS.toNanos(1);
+        return (Math.max(0, nanos) + secondInNanos - 1) / secondInNanos;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                          .add("limit", limit)
+                          .add("remaining", remaining)
+                          .add("resetNanos", resetNanos)
+                          .add("retryAfterNanos", retryAfterNanos)
+                          .toString();
+    }
+}
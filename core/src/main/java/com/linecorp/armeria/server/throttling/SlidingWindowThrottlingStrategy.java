@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.BiFunction;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Ticker;
+
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.throttling.SlidingWindowThrottlingStrategy.Log;
+
+/**
+ * A {@link ThrottlingStrategy} which accepts at most {@code maxRequests} requests for each key in any
+ * sliding window of the specified duration. Unlike a fixed window counter, it never accepts twice as many
+ * requests around the boundary of two windows.
+ *
+ * <p>The strategy keeps a log of the acceptance times of the last {@code maxRequests} requests of each key
+ * in a ring buffer, and accepts a request if the oldest entry has fallen out of the window. A slot of the
+ * ring buffer is claimed with a compare-and-set and its acceptance time is published before the head of
+ * the log advances past it, so no lock is acquired and no stale acceptance time is read. Note that the log
+ * takes {@code 16 * maxRequests} bytes for each key; consider {@link TokenBucketThrottlingStrategy} for a
+ * large {@code maxRequests}.
+ *
+ * <p>A rejected HTTP request is responded with {@code 429 Too Many Requests} with {@code "retry-after"}
+ * and {@code "ratelimit-*"} headers by {@link ThrottlingHttpService}.
+ *
+ * @see SlidingWindowThrottlingStrategyBuilder
+ */
+public final class SlidingWindowThrottlingStrategy<T extends Request>
+        extends KeyedRateLimitingThrottlingStrategy<T, Log> {
+
+    private final int maxRequests;
+    private final long windowNanos;
+
+    SlidingWindowThrottlingStrategy(
+            @Nullable String name, BiFunction<? super ServiceRequestContext, ? super T, ?> keyFunction,
+            long maxNumKeys, Duration idleTimeout, Ticker ticker, int maxRequests, Duration window) {
+        super(name, keyFunction, maxNumKeys, idleTimeout, ticker);
+        this.maxRequests = maxRequests;
+        windowNanos = window.toNanos();
+    }
+
+    @Override
+    Log newState(long nowNanos) {
+        return new Log(maxRequests);
+    }
+
+    @Nullable
+    @Override
+    RateLimit tryAcquire(Log log, long nowNanos) {
+        final AtomicLongArray sequences = log.sequences;
+        final AtomicLongArray timestamps = log.timestamps;
+        for (;;) {
+            final long head = log.head;
+            final int index = (int) (head % maxRequests);
+            final long sequence = sequences.get(index);
+            if (sequence == head + 1) {
+                // Another request has published the slot but has not advanced the head yet.
+                Log.headUpdater.compareAndSet(log, head, head + 1);
+                continue;
+            }
+
+            final long expectedSequence = head >= maxRequests ? head - maxRequests + 1 : 0;
+            if (sequence != expectedSequence) {
+                // Another request is publishing the slot, or the head has moved on.
+                continue;
+            }
+
+            if (head >= maxRequests) {
+                // The slot to overwrite holds the acceptance time of the oldest request in the log.
+                final long expiresAtNanos = timestamps.get(index) + windowNanos;
+                if (expiresAtNanos - nowNanos > 0) {
+                    final long newest = timestamps.get((int) ((head - 1) % maxRequests));
+                    return new RateLimit(maxRequests, 0, newest + windowNanos - nowNanos,
+                                         expiresAtNanos - nowNanos);
+                }
+            }
+
+            if (sequences.compareAndSet(index, expectedSequence, -(head + 1))) {
+                timestamps.set(index, nowNanos);
+                sequences.set(index, head + 1);
+                Log.headUpdater.compareAndSet(log, head, head + 1);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * The acceptance times of the last {@code maxRequests} requests of a key.
+     */
+    static final class Log {
+
+        private static final AtomicLongFieldUpdater<Log> headUpdater =
+                AtomicLongFieldUpdater.newUpdater(Log.class, "head");
+
+        final AtomicLongArray timestamps;
+
+        /**
+         * {@code n + 1} if a slot holds the acceptance time of the {@code n}-th request,
+         * {@code -(n + 1)} while the slot is being claimed for the {@code n}-th request, or {@code 0} if
+         * the slot has never been used.
+         */
+        final AtomicLongArray sequences;
+
+        /**
+         * The number of the requests accepted so far. {@code head % maxRequests} is the index of the slot
+         * for the next request. The head advances only after the slot for the previous request is
+         * published.
+         */
+        private volatile long head;
+
+        Log(int maxRequests) {
+            timestamps = new AtomicLongArray(maxRequests);
+            sequences = new AtomicLongArray(maxRequests);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.time.Duration;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.Request;
+
+/**
+ * Builds a new {@link SlidingWindowThrottlingStrategy}.
+ * <h2>Example</h2>
+ * <pre>{@code
+ * // Accept 1000 requests per minute for each tenant.
+ * ThrottlingStrategy<HttpRequest> strategy =
+ *     new SlidingWindowThrottlingStrategyBuilder<HttpRequest>(1000, Duration.ofMinutes(1))
+ *         .keyFunction(ThrottlingKeys.header("x-tenant-id"))
+ *         .build();
+ * sb.service("/api", myService.decorate(ThrottlingHttpService.newDecorator(strategy)));
+ * }</pre>
+ *
+ * @param <T> the type of the request
+ */
+public final class SlidingWindowThrottlingStrategyBuilder<T extends Request>
+        extends AbstractRateLimitingThrottlingStrategyBuilder<SlidingWindowThrottlingStrategyBuilder<T>, T> {
+
+    private final int maxRequests;
+    private final Duration window;
+
+    /**
+     * Creates a new builder.
+     *
+     * @param maxRequests the maximum number of requests accepted for each key in any window
+     * @param window the duration of the sliding window
+     */
+    public SlidingWindowThrottlingStrategyBuilder(int maxRequests, Duration window) {
+        checkArgument(maxRequests > 0, "maxRequests: %s (expected: > 0)", maxRequests);
+        requireNonNull(window, "window");
+        checkArgument(!window.isNegative() && !window.isZero(), "window: %s (expected: > 0)", window);
+        this.maxRequests = maxRequests;
+        this.window = window;
+    }
+
+    /**
+     * Returns a newly-created {@link SlidingWindowThrottlingStrategy} based on the properties of this
+     * builder.
+     */
+    public SlidingWindowThrottlingStrategy<T> build() {
+        // Do not forget the requests of a key while they are still in the window.
+        final Duration idleTimeout = idleTimeout().compareTo(window) >= 0 ? idleTimeout() : window;
+        return new SlidingWindowThrottlingStrategy<>(name(), keyFunction(), maxNumKeys(), idleTimeout,
+                                                     ticker(), maxRequests, window);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).omitNullValues()
+                          .add("name", name())
+                          .add("maxRequests", maxRequests)
+                          .add("window", window)
+                          .add("keyFunction", keyFunction())
+                          .add("maxNumKeys", maxNumKeys())
+                          .add("idleTimeout", idleTimeout())
+                          .toString();
+    }
+}
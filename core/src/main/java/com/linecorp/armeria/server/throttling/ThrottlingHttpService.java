@@ -21,6 +21,7 @@ import java.util.function.Function;
 
 import javax.annotation.Nullable;
 
+import com.linecorp.armeria.common.HttpHeaders;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
@@ -52,11 +53,20 @@ public class ThrottlingHttpService extends ThrottlingService<HttpRequest, HttpRe
 
     /**
      * Invoked when {@code req} is throttled. By default, this method responds with the
-     * {@link HttpStatus#SERVICE_UNAVAILABLE} status.
+     * {@link HttpStatus#SERVICE_UNAVAILABLE} status. If the request was rejected by a rate-limiting
+     * strategy such as {@link TokenBucketThrottlingStrategy}, this method responds with the
+     * {@link HttpStatus#TOO_MANY_REQUESTS} status and the {@code "retry-after"} and {@code "ratelimit-*"}
+     * headers instead.
      */
     @Override
     protected HttpResponse onFailure(ServiceRequestContext ctx, HttpRequest req, @Nullable Throwable cause)
             throws Exception {
+        final RateLimit rateLimit = ctx.hasAttr(RateLimit.ATTR) ? ctx.attr(RateLimit.ATTR).get() : null;
+        if (rateLimit != null) {
+            final HttpHeaders headers = HttpHeaders.of(HttpStatus.TOO_MANY_REQUESTS);
+            rateLimit.setHeaders(headers);
+            return HttpResponse.of(headers);
+        }
         return HttpResponse.of(HttpStatus.SERVICE_UNAVAILABLE);
     }
 }
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import static java.util.Objects.requireNonNull;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.function.BiFunction;
+
+import javax.annotation.Nullable;
+
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.server.ProxiedAddresses;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+import io.netty.util.AsciiString;
+import io.netty.util.AttributeKey;
+
+/**
+ * Provides the common key functions which partition the requests throttled by
+ * {@link TokenBucketThrottlingStrategy} and {@link SlidingWindowThrottlingStrategy}.
+ * A key function may return {@code null}, and then the request shares the rate limit with the other
+ * requests without a key.
+ */
+public final class ThrottlingKeys {
+
+    private static final BiFunction<ServiceRequestContext, Request, Object> NONE = (ctx, req) -> null;
+
+    private static final BiFunction<ServiceRequestContext, Request, Object> CLIENT_ADDRESS = (ctx, req) -> {
+        final ProxiedAddresses proxiedAddresses = ctx.proxiedAddresses();
+        final SocketAddress address = proxiedAddresses != null ? proxiedAddresses.sourceAddress()
+                                                               : ctx.remoteAddress();
+        if (address instanceof InetSocketAddress) {
+            return ((InetSocketAddress) address).getAddress();
+        }
+        return address;
+    };
+
+    private static final BiFunction<ServiceRequestContext, Request, Object> PATH =
+            (ctx, req) -> ctx.path();
+
+    /**
+     * Returns a key function which puts all requests into a single partition.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Request> BiFunction<ServiceRequestContext, T, Object> none() {
+        return (BiFunction<ServiceRequestContext, T, Object>) (BiFunction<?, ?, ?>) NONE;
+    }
+
+    /**
+     * Returns a key function which partitions the requests by the IP address of the client. The source
+     * address of the <a href="https://www.haproxy.org/download/1.8/doc/proxy-protocol.txt">PROXY protocol</a>
+     * is used if available, and the remote address of the connection otherwise.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Request> BiFunction<ServiceRequestContext, T, Object> clientAddress() {
+        return (BiFunction<ServiceRequestContext, T, Object>) (BiFunction<?, ?, ?>) CLIENT_ADDRESS;
+    }
+
+    /**
+     * Returns a key function which partitions the requests by their paths.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Request> BiFunction<ServiceRequestContext, T, Object> path() {
+        return (BiFunction<ServiceRequestContext, T, Object>) (BiFunction<?, ?, ?>) PATH;
+    }
+
+    /**
+     * Returns a key function which partitions the requests by the value of the specified HTTP header,
+     * e.g. an API key or a tenant ID.
+     */
+    public static BiFunction<ServiceRequestContext, HttpRequest, Object> header(CharSequence headerName) {
+        final AsciiString name = AsciiString.of(requireNonNull(headerName, "headerName")).toLowerCase();
+        return (ctx, req) -> req.headers().get(name);
+    }
+
+    /**
+     * Returns a key function which partitions the requests by the value of the specified attribute of
+     * {@link ServiceRequestContext}. Use this to partition the requests by the principal that a decorator
+     * such as {@code HttpAuthService} stored in the context.
+     */
+    public static <T extends Request> BiFunction<ServiceRequestContext, T, Object> attr(
+            AttributeKey<?> attributeKey) {
+        requireNonNull(attributeKey, "attributeKey");
+        return (ctx, req) -> attrValue(ctx, attributeKey);
+    }
+
+    @Nullable
+    private static Object attrValue(ServiceRequestContext ctx, AttributeKey<?> attributeKey) {
+        return ctx.hasAttr(attributeKey) ? ctx.attr(attributeKey).get() : null;
+    }
+
+    private ThrottlingKeys() {}
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.BiFunction;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Ticker;
+import com.google.common.math.LongMath;
+
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.server.throttling.TokenBucketThrottlingStrategy.Bucket;
+
+/**
+ * A {@link ThrottlingStrategy} which limits the rate of requests with a token bucket for each key.
+ * A bucket holds up to {@code burst} tokens and is refilled at {@code permitsPerSecond}, so a client can send
+ * a burst of requests and then continue at the steady rate.
+ *
+ * <p>The bucket is implemented with the Generic Cell Rate Algorithm, which keeps the state of a bucket in
+ * a single {@code long} updated with a compare-and-set. Therefore, no lock is acquired when a request is
+ * throttled, and the requests with different keys never touch the same memory.
+ *
+ * <p>A rejected HTTP request is responded with {@code 429 Too Many Requests} with {@code "retry-after"}
+ * and {@code "ratelimit-*"} headers by {@link ThrottlingHttpService}.
+ *
+ * @see TokenBucketThrottlingStrategyBuilder
+ */
+public final class TokenBucketThrottlingStrategy<T extends Request>
+        extends KeyedRateLimitingThrottlingStrategy<T, Bucket> {
+
+    private final long burst;
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+
+    TokenBucketThrottlingStrategy(
+            @Nullable String name, BiFunction<? super ServiceRequestContext, ? super T, ?> keyFunction,
+            long maxNumKeys, Duration idleTimeout, Ticker ticker, double permitsPerSecond, long burst) {
+        super(name, keyFunction, maxNumKeys, idleTimeout, ticker);
+        this.burst = burst;
+        emissionIntervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        burstNanos = LongMath.saturatedMultiply(emissionIntervalNanos, burst);
+    }
+
+    @Override
+    Bucket newState(long nowNanos) {
+        // A bucket whose theoretical arrival time is now is full.
+        return new Bucket(nowNanos);
+    }
+
+    @Nullable
+    @Override
+    RateLimit tryAcquire(Bucket bucket, long nowNanos) {
+        for (;;) {
+            final long tat = bucket.tat;
+            // Note that the times are compared by subtraction because System.nanoTime() may overflow.
+            final long newTat = (tat - nowNanos > 0 ? tat : nowNanos) + emissionIntervalNanos;
+            final long allowAtNanos = newTat - burstNanos;
+            if (allowAtNanos - nowNanos > 0) {
+                return new RateLimit(burst, 0, tat - nowNanos, allowAtNanos - nowNanos);
+            }
+
+            if (Bucket.tatUpdater.compareAndSet(bucket, tat, newTat)) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * A token bucket, represented by the theoretical arrival time of the next request. The bucket is empty
+     * if the time is {@code burst * emissionInterval} or more ahead of now, and full if it is in the past.
+     */
+    static final class Bucket {
+
+        private static final AtomicLongFieldUpdater<Bucket> tatUpdater =
+                AtomicLongFieldUpdater.newUpdater(Bucket.class, "tat");
+
+        private volatile long tat;
+
+        Bucket(long tat) {
+            this.tat = tat;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.MoreObjects;
+
+import com.linecorp.armeria.common.Request;
+
+/**
+ * Builds a new {@link TokenBucketThrottlingStrategy}.
+ * <h2>Example</h2>
+ * <pre>{@code
+ * // Accept 100 requests per second from each client IP address, with bursts of up to 200 requests.
+ * ThrottlingStrategy<HttpRequest> strategy =
+ *     new TokenBucketThrottlingStrategyBuilder<HttpRequest>(100)
+ *         .burst(200)
+ *         .keyFunction(ThrottlingKeys.clientAddress())
+ *         .build();
+ * sb.service("/api", myService.decorate(ThrottlingHttpService.newDecorator(strategy)));
+ * }</pre>
+ *
+ * @param <T> the type of the request
+ */
+public final class TokenBucketThrottlingStrategyBuilder<T extends Request>
+        extends AbstractRateLimitingThrottlingStrategyBuilder<TokenBucketThrottlingStrategyBuilder<T>, T> {
+
+    private final double permitsPerSecond;
+    private long burst;
+
+    /**
+     * Creates a new builder.
+     *
+     * @param permitsPerSecond the number of requests per second accepted for each key in the long run
+     */
+    public TokenBucketThrottlingStrategyBuilder(double permitsPerSecond) {
+        checkArgument(permitsPerSecond > 0 && permitsPerSecond <= 1_000_000_000,
+                      "permitsPerSecond: %s (expected: > 0 and <= 1000000000)", permitsPerSecond);
+        this.permitsPerSecond = permitsPerSecond;
+        burst = Math.max(1, (long) Math.ceil(permitsPerSecond));
+    }
+
+    /**
+     * Sets the maximum number of requests accepted at once for each key, i.e. the capacity of the bucket.
+     * The default value is {@code permitsPerSecond}, rounded up.
+     */
+    public TokenBucketThrottlingStrategyBuilder<T> burst(long burst) {
+        checkArgument(burst > 0, "burst: %s (expected: > 0)", burst);
+        this.burst = burst;
+        return this;
+    }
+
+    /**
+     * Returns a newly-created {@link TokenBucketThrottlingStrategy} based on the properties of this builder.
+     */
+    public TokenBucketThrottlingStrategy<T> build() {
+        // Do not forget a bucket of a key before it is refilled fully.
+        final double refillTimeNanos = burst * (double) TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+        final Duration refillTime = Duration.ofNanos((long) Math.min(Long.MAX_VALUE, refillTimeNanos));
+        final Duration idleTimeout = idleTimeout().compareTo(refillTime) >= 0 ? idleTimeout() : refillTime;
+        return new TokenBucketThrottlingStrategy<>(name(), keyFunction(), maxNumKeys(), idleTimeout,
+                                                   ticker(), permitsPerSecond, burst);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this).omitNullValues()
+                          .add("name", name())
+                          .add("permitsPerSecond", permitsPerSecond)
+                          .add("burst", burst)
+                          .add("keyFunction", keyFunction())
+                          .add("maxNumKeys", maxNumKeys())
+                          .add("idleTimeout", idleTimeout())
+                          .toString();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linecorp.armeria.client.HttpResponseDecoder.HttpResponseWrapper;
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.ClosedSessionException;
+import com.linecorp.armeria.common.logging.RequestLogBuilder;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+
+public class Http1ResponseDecoderTest {
+
+    private EmbeddedChannel ch;
+    private Http1ResponseDecoder decoder;
+
+    @Before
+    public void setUp() {
+        ch = new EmbeddedChannel();
+        decoder = new Http1ResponseDecoder(ch);
+        ch.pipeline().addLast(decoder);
+    }
+
+    @Test
+    public void taskRunsWhenUnfinishedResponsesDropBelowMax() {
+        addResponse(1);
+        addResponse(2);
+
+        final AtomicInteger counter = new AtomicInteger();
+        decoder.whenUnfinishedResponsesBelow(2, counter::incrementAndGet);
+        assertThat(counter).hasValue(0);
+
+        // The task runs as soon as one of the two responses is complete.
+        writeResponse("foo");
+        assertThat(counter).hasValue(1);
+
+        // The task runs immediately if there are less unfinished responses than the maximum.
+        decoder.whenUnfinishedResponsesBelow(2, counter::incrementAndGet);
+        assertThat(counter).hasValue(2);
+
+        // The task runs when the unfinished responses are failed, e.g. due to disconnection.
+        decoder.whenUnfinishedResponsesBelow(1, counter::incrementAndGet);
+        assertThat(counter).hasValue(2);
+        decoder.failUnfinishedResponses(ClosedSessionException.get());
+        assertThat(counter).hasValue(3);
+    }
+
+    @Test
+    public void timeoutOfQueuedResponseKeepsConnection() {
+        final CompletableFuture<AggregatedHttpMessage> res1 = addResponse(1).aggregate();
+        final CompletableFuture<AggregatedHttpMessage> res2 = addResponse(2).aggregate();
+        final CompletableFuture<AggregatedHttpMessage> res3 = addResponse(3).aggregate();
+
+        // The second response times out while waiting for the first response.
+        final HttpResponseWrapper wrapper2 = decoder.getResponse(2);
+        assertThat(wrapper2).isNotNull();
+        wrapper2.run();
+        ch.runPendingTasks();
+        assertThatThrownBy(res2::join).isInstanceOf(CompletionException.class)
+                                      .hasCauseInstanceOf(ResponseTimeoutException.class);
+        assertThat(ch.isOpen()).isTrue();
+
+        // The second response is discarded when it arrives, and the others are received as usual.
+        writeResponse("foo");
+        writeResponse("bar");
+        writeResponse("baz");
+        ch.runPendingTasks();
+        assertThat(res1.join().content().toStringUtf8()).isEqualTo("foo");
+        assertThat(res3.join().content().toStringUtf8()).isEqualTo("baz");
+        assertThat(decoder.hasUnfinishedResponses()).isFalse();
+        assertThat(ch.isOpen()).isTrue();
+    }
+
+    @Test
+    public void timeoutOfHeadResponseClosesConnection() {
+        final CompletableFuture<AggregatedHttpMessage> res1 = addResponse(1).aggregate();
+        addResponse(2);
+
+        final HttpResponseWrapper wrapper1 = decoder.getResponse(1);
+        assertThat(wrapper1).isNotNull();
+        wrapper1.run();
+        ch.runPendingTasks();
+        assertThatThrownBy(res1::join).hasCauseInstanceOf(ResponseTimeoutException.class);
+        assertThat(ch.isOpen()).isFalse();
+    }
+
+    private DecodedHttpResponse addResponse(int id) {
+        final DecodedHttpResponse res = new DecodedHttpResponse(ch.eventLoop());
+        res.init(decoder.inboundTrafficController());
+        decoder.addResponse(id, null, res, RequestLogBuilder.NOOP, 0, 0);
+        return res;
+    }
+
+    private void writeResponse(String content) {
+        final DefaultHttpResponse headers =
+                new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+        headers.headers().setInt("content-length", content.length());
+        ch.writeInbound(headers, new DefaultLastHttpContent(
+                Unpooled.copiedBuffer(content, StandardCharsets.US_ASCII)));
+    }
+}
@@ -17,7 +17,6 @@
 package com.linecorp.armeria.client.circuitbreaker;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.awaitility.Awaitility.await;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -49,10 +48,10 @@ public class SlidingWindowCounterTest {
         final SlidingWindowCounter counter = new SlidingWindowCounter(ticker, Duration.ofSeconds(10),
                                                                       Duration.ofSeconds(1));
 
-        assertThat(counter.onSuccess()).isEmpty();
+        assertThat(counter.onSuccess()).isNull();
 
         ticker.advance(1, TimeUnit.SECONDS);
-        assertThat(counter.onFailure()).contains(new EventCount(1, 0));
+        assertThat(counter.onFailure()).isEqualTo(new EventCount(1, 0));
         assertThat(counter.count()).isEqualTo(new EventCount(1, 0));
     }
 
@@ -61,10 +60,10 @@ public class SlidingWindowCounterTest {
         final SlidingWindowCounter counter = new SlidingWindowCounter(ticker, Duration.ofSeconds(10),
                                                                       Duration.ofSeconds(1));
 
-        assertThat(counter.onFailure()).isEmpty();
+        assertThat(counter.onFailure()).isNull();
 
         ticker.advance(1, TimeUnit.SECONDS);
-        assertThat(counter.onFailure()).contains(new EventCount(0, 1));
+        assertThat(counter.onFailure()).isEqualTo(new EventCount(0, 1));
         assertThat(counter.count()).isEqualTo(new EventCount(0, 1));
     }
 
@@ -73,15 +72,15 @@ public class SlidingWindowCounterTest {
         final SlidingWindowCounter counter = new SlidingWindowCounter(ticker, Duration.ofSeconds(10),
                                                                       Duration.ofSeconds(1));
 
-        assertThat(counter.onSuccess()).isEmpty();
-        assertThat(counter.onFailure()).isEmpty();
+        assertThat(counter.onSuccess()).isNull();
+        assertThat(counter.onFailure()).isNull();
 
         ticker.advance(1, TimeUnit.SECONDS);
-        assertThat(counter.onFailure()).contains(new EventCount(1, 1));
+        assertThat(counter.onFailure()).isEqualTo(new EventCount(1, 1));
         assertThat(counter.count()).isEqualTo(new EventCount(1, 1));
 
         ticker.advance(11, TimeUnit.SECONDS);
-        assertThat(counter.onFailure()).contains(new EventCount(0, 0));
+        assertThat(counter.onFailure()).isEqualTo(new EventCount(0, 0));
         assertThat(counter.count()).isEqualTo(new EventCount(0, 0));
     }
 
@@ -132,17 +131,57 @@ public class SlidingWindowCounterTest {
             thread.join();
         }
 
-        await().untilAsserted(() -> assertThat(counter.onFailure()).isPresent());
+        // Wait until the counter is updated. The failures counted while waiting are also in the count,
+        // except the one which triggered the update.
+        while (counter.onFailure() == null) {
+            failure.incrementAndGet();
+            Thread.sleep(10);
+        }
         assertThat(counter.count()).isEqualTo(new EventCount(success.get(), failure.get()));
     }
 
+    @Test
+    public void testSlidingWindow() {
+        final SlidingWindowCounter counter = new SlidingWindowCounter(ticker, Duration.ofSeconds(3),
+                                                                      Duration.ofSeconds(1));
+
+        assertThat(counter.onSuccess()).isNull();
+        ticker.advance(1, TimeUnit.SECONDS);
+        assertThat(counter.onFailure()).isEqualTo(new EventCount(1, 0));
+        ticker.advance(1, TimeUnit.SECONDS);
+        assertThat(counter.onSuccess()).isEqualTo(new EventCount(1, 1));
+        ticker.advance(1, TimeUnit.SECONDS);
+        assertThat(counter.onFailure()).isEqualTo(new EventCount(2, 1));
+
+        // The first success falls out of the window.
+        ticker.advance(1, TimeUnit.SECONDS);
+        assertThat(counter.onSuccess()).isEqualTo(new EventCount(1, 2));
+
+        // Skip a slot.
+        ticker.advance(2, TimeUnit.SECONDS);
+        assertThat(counter.onSuccess()).isEqualTo(new EventCount(1, 1));
+    }
+
+    @Test
+    public void testTooManySlots() {
+        final SlidingWindowCounter counter = new SlidingWindowCounter(ticker, Duration.ofSeconds(10),
+                                                                      Duration.ofNanos(1));
+
+        // The update interval is stretched to 10 seconds / MAX_NUM_BUCKETS, which is longer than 9 ms.
+        assertThat(counter.onSuccess()).isNull();
+        ticker.advance(9, TimeUnit.MILLISECONDS);
+        assertThat(counter.onSuccess()).isNull();
+        ticker.advance(1, TimeUnit.MILLISECONDS);
+        assertThat(counter.onFailure()).isEqualTo(new EventCount(2, 0));
+    }
+
     @Test
     public void testLateBucket() {
         final SlidingWindowCounter counter = new SlidingWindowCounter(ticker, Duration.ofSeconds(10),
                                                                       Duration.ofSeconds(1));
 
         ticker.advance(-1, TimeUnit.SECONDS);
-        assertThat(counter.onSuccess()).isEmpty();
+        assertThat(counter.onSuccess()).isNull();
         assertThat(counter.count()).isEqualTo(new EventCount(0, 0));
     }
 }
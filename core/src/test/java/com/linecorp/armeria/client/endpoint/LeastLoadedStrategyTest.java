@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.endpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.linecorp.armeria.client.ClientRequestContext;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.LeastLoadedStrategy.EndpointStats;
+import com.linecorp.armeria.client.endpoint.LeastLoadedStrategy.LeastLoadedSelector;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.common.logging.RequestLogListener;
+
+public class LeastLoadedStrategyTest {
+
+    private static final Endpoint FOO = Endpoint.parse("foo:1234");
+    private static final Endpoint BAR = Endpoint.parse("bar:1234");
+
+    @Test
+    public void selectLessBusy() {
+        final LeastLoadedSelector selector = newSelector(FOO, BAR);
+        final Endpoint first = selector.select(newContext());
+        final Endpoint second = selector.select(newContext());
+        assertThat(second).isNotEqualTo(first);
+        assertThat(selector.stats(FOO).inflight()).isOne();
+        assertThat(selector.stats(BAR).inflight()).isOne();
+    }
+
+    @Test
+    public void selectFaster() {
+        final LeastLoadedSelector selector = newSelector(FOO, BAR);
+        final long now = System.nanoTime();
+        selector.stats(FOO).update(TimeUnit.MILLISECONDS.toNanos(100), now);
+        selector.stats(BAR).update(TimeUnit.MILLISECONDS.toNanos(1), now);
+
+        // BAR is less loaded until it has about 100 times more in-flight requests than FOO.
+        for (int i = 0; i < 50; i++) {
+            assertThat(selector.select(newContext())).isEqualTo(BAR);
+        }
+        assertThat(selector.stats(BAR).inflight()).isEqualTo(50);
+    }
+
+    @Test
+    public void selectByWeight() {
+        final Endpoint heavy = FOO.withWeight(1000);
+        final Endpoint light = BAR.withWeight(100);
+        final LeastLoadedSelector selector = newSelector(heavy, light);
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(selector.select(newContext())).isEqualTo(heavy);
+        }
+    }
+
+    @Test
+    public void updateStatsOnCompletion() throws Exception {
+        final LeastLoadedSelector selector = newSelector(FOO);
+        final ClientRequestContext ctx = newContext();
+        assertThat(selector.select(ctx)).isEqualTo(FOO);
+
+        final EndpointStats stats = selector.stats(FOO);
+        assertThat(stats.inflight()).isOne();
+        assertThat(stats.latencyNanos()).isZero();
+
+        final RequestLog log = ctx.log();
+        final ArgumentCaptor<RequestLogListener> captor = ArgumentCaptor.forClass(RequestLogListener.class);
+        verify(log).addListener(captor.capture(), eq(RequestLogAvailability.COMPLETE));
+        when(log.requestStartTimeNanos()).thenReturn(1000L);
+        when(log.responseEndTimeNanos()).thenReturn(3000L);
+        captor.getValue().onRequestLog(log);
+
+        assertThat(stats.inflight()).isZero();
+        assertThat(stats.latencyNanos()).isEqualTo(2000.0);
+    }
+
+    @Test
+    public void selectEmpty() {
+        final LeastLoadedSelector selector = newSelector();
+        assertThatThrownBy(() -> selector.select(newContext())).isInstanceOf(EndpointGroupException.class);
+    }
+
+    private static LeastLoadedSelector newSelector(Endpoint... endpoints) {
+        return (LeastLoadedSelector) EndpointSelectionStrategy.LEAST_LOADED.newSelector(
+                new StaticEndpointGroup(endpoints));
+    }
+
+    private static ClientRequestContext newContext() {
+        final ClientRequestContext ctx = mock(ClientRequestContext.class);
+        final RequestLog log = mock(RequestLog.class);
+        when(ctx.log()).thenReturn(log);
+        return ctx;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.endpoint.healthcheck;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.testing.FakeTicker;
+
+import com.linecorp.armeria.client.ClientFactory;
+import com.linecorp.armeria.client.Endpoint;
+import com.linecorp.armeria.client.endpoint.EndpointGroup;
+import com.linecorp.armeria.client.endpoint.StaticEndpointGroup;
+
+public class HealthCheckedEndpointGroupTest {
+
+    private static final Endpoint FOO = Endpoint.of("127.0.0.1", 1);
+    private static final Endpoint BAR = Endpoint.of("127.0.0.1", 2);
+    private static final Endpoint BAZ = Endpoint.of("127.0.0.1", 3);
+    private static final Endpoint QUX = Endpoint.of("127.0.0.1", 4);
+
+    private final FakeTicker ticker = new FakeTicker();
+
+    @Test
+    public void ejectAfterConsecutiveFailures() {
+        final OutlierDetection outlierDetection = OutlierDetection.builder()
+                                                                  .consecutiveFailures(3)
+                                                                  .baseEjectionTime(Duration.ofSeconds(10))
+                                                                  .maxEjectionTime(Duration.ofSeconds(60))
+                                                                  .build();
+        final TestEndpointGroup group = new TestEndpointGroup(
+                new StaticEndpointGroup(FOO, BAR, BAZ, QUX), outlierDetection, Duration.ZERO, ticker);
+        group.setHealthy(FOO, BAR, BAZ, QUX);
+
+        // A success resets the number of consecutive failures.
+        group.onFailure(FOO);
+        group.onFailure(FOO);
+        group.onSuccess(FOO);
+        group.onFailure(FOO);
+        group.onFailure(FOO);
+        assertThat(group.endpoints()).containsExactly(FOO, BAR, BAZ, QUX);
+
+        group.onFailure(FOO);
+        assertThat(group.endpoints()).containsExactly(BAR, BAZ, QUX);
+
+        // Ejected until the ejection time passes, even if healthy.
+        ticker.advance(9, TimeUnit.SECONDS);
+        group.checkAndUpdateHealthyServers().join();
+        assertThat(group.endpoints()).containsExactly(BAR, BAZ, QUX);
+        ticker.advance(1, TimeUnit.SECONDS);
+        group.updateEndpoints();
+        assertThat(group.endpoints()).containsExactly(FOO, BAR, BAZ, QUX);
+
+        // The second ejection in a row lasts twice as long.
+        for (int i = 0; i < 3; i++) {
+            group.onFailure(FOO);
+        }
+        assertThat(group.endpoints()).containsExactly(BAR, BAZ, QUX);
+        ticker.advance(10, TimeUnit.SECONDS);
+        group.updateEndpoints();
+        assertThat(group.endpoints()).containsExactly(BAR, BAZ, QUX);
+        ticker.advance(10, TimeUnit.SECONDS);
+        group.updateEndpoints();
+        assertThat(group.endpoints()).containsExactly(FOO, BAR, BAZ, QUX);
+
+        // Forgiven after not being ejected for the max ejection time.
+        ticker.advance(60, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            group.onFailure(FOO);
+        }
+        assertThat(group.endpoints()).containsExactly(BAR, BAZ, QUX);
+        ticker.advance(10, TimeUnit.SECONDS);
+        group.updateEndpoints();
+        assertThat(group.endpoints()).containsExactly(FOO, BAR, BAZ, QUX);
+    }
+
+    @Test
+    public void maxEjectionRatio() {
+        final OutlierDetection outlierDetection = OutlierDetection.builder()
+                                                                  .consecutiveFailures(1)
+                                                                  .maxEjectionRatio(0.5)
+                                                                  .build();
+        final TestEndpointGroup group = new TestEndpointGroup(
+                new StaticEndpointGroup(FOO, BAR, BAZ, QUX), outlierDetection, Duration.ZERO, ticker);
+        group.setHealthy(FOO, BAR, BAZ, QUX);
+
+        group.onFailure(FOO);
+        group.onFailure(BAR);
+        group.onFailure(BAZ);
+        group.onFailure(QUX);
+        assertThat(group.endpoints()).containsExactly(BAZ, QUX);
+    }
+
+    @Test
+    public void outlierDetectionDisabled() {
+        final TestEndpointGroup group = new TestEndpointGroup(
+                new StaticEndpointGroup(FOO, BAR), null, Duration.ZERO, ticker);
+        group.setHealthy(FOO, BAR);
+
+        for (int i = 0; i < 100; i++) {
+            group.onFailure(FOO);
+        }
+        assertThat(group.endpoints()).containsExactly(FOO, BAR);
+    }
+
+    @Test
+    public void slowStart() {
+        final TestEndpointGroup group = new TestEndpointGroup(
+                new StaticEndpointGroup(FOO, BAR), null, Duration.ofSeconds(10), ticker);
+
+        // The initial endpoints start with their full weights.
+        group.setHealthy(FOO);
+        assertThat(weights(group.endpoints())).containsExactly(1000);
+
+        group.setHealthy(FOO, BAR);
+        assertThat(group.endpoints()).containsExactly(FOO, BAR);
+        assertThat(weights(group.endpoints())).containsExactly(1000, 1);
+
+        ticker.advance(5, TimeUnit.SECONDS);
+        group.updateEndpoints();
+        assertThat(weights(group.endpoints())).containsExactly(1000, 500);
+
+        ticker.advance(5, TimeUnit.SECONDS);
+        group.updateEndpoints();
+        assertThat(weights(group.endpoints())).containsExactly(1000, 1000);
+    }
+
+    @Test
+    public void slowStartAfterEjection() {
+        final OutlierDetection outlierDetection = OutlierDetection.builder()
+                                                                  .consecutiveFailures(1)
+                                                                  .baseEjectionTime(Duration.ofSeconds(10))
+                                                                  .build();
+        final TestEndpointGroup group = new TestEndpointGroup(
+                new StaticEndpointGroup(FOO, BAR), outlierDetection, Duration.ofSeconds(10), ticker);
+        group.setHealthy(FOO, BAR);
+
+        group.onFailure(FOO);
+        assertThat(group.endpoints()).containsExactly(BAR);
+
+        ticker.advance(12, TimeUnit.SECONDS);
+        group.updateEndpoints();
+        assertThat(group.endpoints()).containsExactly(FOO, BAR);
+        assertThat(weights(group.endpoints())).containsExactly(200, 1000);
+    }
+
+    @Test
+    public void closeCancelsScheduledUpdate() {
+        final TestEndpointGroup group = new TestEndpointGroup(
+                new StaticEndpointGroup(FOO, BAR), null, Duration.ofSeconds(10), ticker);
+        group.setHealthy(FOO);
+        assertThat(group.hasScheduledUpdate()).isFalse();
+
+        // The weight of the slow-starting endpoint is updated later.
+        group.setHealthy(FOO, BAR);
+        assertThat(group.hasScheduledUpdate()).isTrue();
+
+        group.close();
+        assertThat(group.hasScheduledUpdate()).isFalse();
+
+        // No update is scheduled after closed.
+        ticker.advance(1, TimeUnit.SECONDS);
+        group.updateEndpoints();
+        assertThat(group.hasScheduledUpdate()).isFalse();
+    }
+
+    @Test
+    public void notifyListenersWithoutLock() {
+        final TestEndpointGroup group = new TestEndpointGroup(
+                new StaticEndpointGroup(FOO, BAR), null, Duration.ZERO, ticker);
+        final List<Boolean> holdsLock = new ArrayList<>();
+        group.addListener(unused -> holdsLock.add(Thread.holdsLock(group)));
+
+        group.setHealthy(FOO);
+        group.setHealthy(FOO, BAR);
+        assertThat(holdsLock).containsExactly(false, false);
+    }
+
+    private static int[] weights(List<Endpoint> endpoints) {
+        return endpoints.stream().mapToInt(Endpoint::weight).toArray();
+    }
+
+    private static final class TestEndpointGroup extends HealthCheckedEndpointGroup {
+
+        private final Set<Endpoint> healthyEndpoints = ConcurrentHashMap.newKeySet();
+
+        TestEndpointGroup(EndpointGroup delegate, OutlierDetection outlierDetection,
+                          Duration slowStartWindow, Ticker ticker) {
+            // Use a long retry interval so that only the explicit checks update the endpoints.
+            super(ClientFactory.DEFAULT, delegate, Duration.ofHours(1), outlierDetection, slowStartWindow,
+                  ticker);
+            init();
+        }
+
+        void setHealthy(Endpoint... endpoints) {
+            healthyEndpoints.clear();
+            for (Endpoint e : endpoints) {
+                healthyEndpoints.add(e);
+            }
+            checkAndUpdateHealthyServers().join();
+        }
+
+        @Override
+        protected EndpointHealthChecker createEndpointHealthChecker(Endpoint endpoint) {
+            return e -> CompletableFuture.completedFuture(healthyEndpoints.contains(e));
+        }
+    }
+}
@@ -20,6 +20,7 @@ import static com.linecorp.armeria.client.limit.ConcurrencyLimitingHttpClient.ne
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -29,6 +30,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.junit.AfterClass;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import com.linecorp.armeria.client.Client;
 import com.linecorp.armeria.client.ClientRequestContext;
@@ -36,6 +38,11 @@ import com.linecorp.armeria.client.ResponseTimeoutException;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpResponseWriter;
+import com.linecorp.armeria.common.limit.AdaptiveLimit;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.common.logging.RequestLogListener;
+import com.linecorp.armeria.common.metric.NoopMeterRegistry;
 import com.linecorp.armeria.common.stream.NoopSubscriber;
 
 import io.netty.channel.DefaultEventLoop;
@@ -186,6 +193,83 @@ public class ConcurrencyLimitingHttpClientTest {
         await().untilAsserted(() -> assertThat(client.numActiveRequests()).isZero());
     }
 
+    /**
+     * Tests the request pattern that exceeds the current value of an {@link AdaptiveLimit}.
+     */
+    @Test
+    public void testAdaptiveLimit() throws Exception {
+        final ClientRequestContext ctx1 = newContextWithLog();
+        final ClientRequestContext ctx2 = newContextWithLog();
+        final HttpRequest req1 = mock(HttpRequest.class);
+        final HttpRequest req2 = mock(HttpRequest.class);
+        final HttpResponseWriter actualRes1 = HttpResponse.streaming();
+        final HttpResponseWriter actualRes2 = HttpResponse.streaming();
+
+        @SuppressWarnings("unchecked")
+        final Client<HttpRequest, HttpResponse> delegate = mock(Client.class);
+        when(delegate.execute(ctx1, req1)).thenReturn(actualRes1);
+        when(delegate.execute(ctx2, req2)).thenReturn(actualRes2);
+
+        final AdaptiveLimit limit = AdaptiveLimit.vegas().initialLimit(1).maxLimit(2).build();
+        final ConcurrencyLimitingHttpClient client = newDecorator(limit).apply(delegate);
+
+        // The second request should never be delegated until the first response is closed.
+        final HttpResponse res1 = client.execute(ctx1, req1);
+        final HttpResponse res2 = client.execute(ctx2, req2);
+        verify(delegate).execute(ctx1, req1);
+        verify(delegate, never()).execute(ctx2, req2);
+
+        // Complete res1 and feed its round-trip time to the limit.
+        closeAndDrain(actualRes1, res1);
+        completeLog(ctx1);
+
+        await().untilAsserted(() -> verify(delegate).execute(ctx2, req2));
+        closeAndDrain(actualRes2, res2);
+        await().untilAsserted(() -> assertThat(client.numActiveRequests()).isZero());
+    }
+
+    /**
+     * Tests if the {@link Client}s sharing an {@link AdaptiveLimit} are limited together.
+     */
+    @Test
+    public void testSharedAdaptiveLimit() throws Exception {
+        final ClientRequestContext ctx1 = newContextWithLog();
+        final ClientRequestContext ctx2 = newContextWithLog();
+        final HttpRequest req1 = mock(HttpRequest.class);
+        final HttpRequest req2 = mock(HttpRequest.class);
+        final HttpResponseWriter actualRes1 = HttpResponse.streaming();
+        final HttpResponseWriter actualRes2 = HttpResponse.streaming();
+
+        @SuppressWarnings("unchecked")
+        final Client<HttpRequest, HttpResponse> delegate1 = mock(Client.class);
+        @SuppressWarnings("unchecked")
+        final Client<HttpRequest, HttpResponse> delegate2 = mock(Client.class);
+        when(delegate1.execute(ctx1, req1)).thenReturn(actualRes1);
+        when(delegate2.execute(ctx2, req2)).thenReturn(actualRes2);
+
+        final AdaptiveLimit limit = AdaptiveLimit.vegas().initialLimit(1).maxLimit(1).build();
+        final ConcurrencyLimitingHttpClient client1 = newDecorator(limit).apply(delegate1);
+        final ConcurrencyLimitingHttpClient client2 = newDecorator(limit).apply(delegate2);
+
+        // The request to the second client should wait for the permit taken by the first client.
+        final HttpResponse res1 = client1.execute(ctx1, req1);
+        final HttpResponse res2 = client2.execute(ctx2, req2);
+        verify(delegate1).execute(ctx1, req1);
+        verify(delegate2, never()).execute(ctx2, req2);
+        assertThat(limit.inflight()).isEqualTo(1);
+        assertThat(client2.numActiveRequests()).isZero();
+
+        // Once res1 is complete, the permit should be taken by req2.
+        closeAndDrain(actualRes1, res1);
+        await().untilAsserted(() -> verify(delegate2).execute(ctx2, req2));
+        assertThat(limit.inflight()).isEqualTo(1);
+        assertThat(client1.numActiveRequests()).isZero();
+        assertThat(client2.numActiveRequests()).isEqualTo(1);
+
+        closeAndDrain(actualRes2, res2);
+        await().untilAsserted(() -> assertThat(limit.inflight()).isZero());
+    }
+
     @Test
     public void testUnlimitedRequest() throws Exception {
         final ClientRequestContext ctx = newContext();
@@ -235,6 +319,23 @@ public class ConcurrencyLimitingHttpClientTest {
         return ctx;
     }
 
+    private static ClientRequestContext newContextWithLog() {
+        final ClientRequestContext ctx = newContext();
+        when(ctx.meterRegistry()).thenReturn(NoopMeterRegistry.get());
+        final RequestLog log = mock(RequestLog.class);
+        when(ctx.log()).thenReturn(log);
+        return ctx;
+    }
+
+    private static void completeLog(ClientRequestContext ctx) throws Exception {
+        final RequestLog log = ctx.log();
+        final ArgumentCaptor<RequestLogListener> captor = ArgumentCaptor.forClass(RequestLogListener.class);
+        verify(log).addListener(captor.capture(), eq(RequestLogAvailability.COMPLETE));
+        when(log.requestStartTimeNanos()).thenReturn(1L);
+        when(log.responseEndTimeNanos()).thenReturn(TimeUnit.MILLISECONDS.toNanos(10));
+        captor.getValue().onRequestLog(log);
+    }
+
     /**
      * Closes the response returned by the delegate and consumes everything from it, so that its close future
      * is completed.
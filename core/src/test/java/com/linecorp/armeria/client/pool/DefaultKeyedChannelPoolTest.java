@@ -0,0 +1,163 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.pool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.function.Function;
+
+import org.junit.Test;
+
+import com.linecorp.armeria.common.ClosedSessionException;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.concurrent.Future;
+
+public class DefaultKeyedChannelPoolTest {
+
+    @Test
+    public void acquisitionsBeyondLimitWait() {
+        final EmbeddedChannel loop = new EmbeddedChannel();
+        final DefaultKeyedChannelPool<String> pool = newPool(loop, new KeyedChannelLimiter<>(1, 16));
+
+        final Future<Channel> f1 = pool.acquire("foo");
+        assertThat(f1.isSuccess()).isTrue();
+
+        // The second acquisition has to wait because only one channel can be opened for a key.
+        final Future<Channel> f2 = pool.acquire("foo");
+        assertThat(f2.isDone()).isFalse();
+
+        // Other keys are not affected.
+        assertThat(pool.acquire("bar").isSuccess()).isTrue();
+
+        // The waiting acquisition gets the released channel.
+        pool.release("foo", f1.getNow());
+        assertThat(f2.isSuccess()).isTrue();
+        assertThat(f2.getNow()).isSameAs(f1.getNow());
+
+        // The waiting acquisition opens a new channel when the acquired one is closed.
+        final Future<Channel> f3 = pool.acquire("foo");
+        assertThat(f3.isDone()).isFalse();
+        f2.getNow().close();
+        loop.runPendingTasks();
+        assertThat(f3.isSuccess()).isTrue();
+        assertThat(f3.getNow()).isNotSameAs(f2.getNow());
+
+        pool.close();
+    }
+
+    @Test
+    public void limitIsSharedByPools() {
+        final KeyedChannelLimiter<String> limiter = new KeyedChannelLimiter<>(1, 16);
+        final EmbeddedChannel loopA = new EmbeddedChannel();
+        final EmbeddedChannel loopB = new EmbeddedChannel();
+        final DefaultKeyedChannelPool<String> poolA = newPool(loopA, limiter);
+        final DefaultKeyedChannelPool<String> poolB = newPool(loopB, limiter);
+
+        final Future<Channel> f1 = poolA.acquire("foo");
+        assertThat(f1.isSuccess()).isTrue();
+
+        final Future<Channel> f2 = poolB.acquire("foo");
+        assertThat(f2.isDone()).isFalse();
+
+        // Closing the channel of the pool A lets the pool B open a new channel.
+        f1.getNow().close();
+        loopB.runPendingTasks();
+        assertThat(f2.isSuccess()).isTrue();
+
+        poolA.close();
+        poolB.close();
+    }
+
+    @Test
+    public void releasedChannelIsClosedForOtherPools() {
+        final KeyedChannelLimiter<String> limiter = new KeyedChannelLimiter<>(1, 16);
+        final EmbeddedChannel loopA = new EmbeddedChannel();
+        final EmbeddedChannel loopB = new EmbeddedChannel();
+        final DefaultKeyedChannelPool<String> poolA = newPool(loopA, limiter);
+        final DefaultKeyedChannelPool<String> poolB = newPool(loopB, limiter);
+
+        final Future<Channel> f1 = poolA.acquire("foo");
+        assertThat(f1.isSuccess()).isTrue();
+
+        final Future<Channel> f2 = poolB.acquire("foo");
+        assertThat(f2.isDone()).isFalse();
+
+        // Releasing the channel of the pool A closes it because only the pool B waits for a channel,
+        // which lets the pool B open a new channel.
+        poolA.release("foo", f1.getNow());
+        assertThat(f1.getNow().isOpen()).isFalse();
+        loopB.runPendingTasks();
+        assertThat(f2.isSuccess()).isTrue();
+        assertThat(f2.getNow()).isNotSameAs(f1.getNow());
+
+        // A channel released without any waiters stays in the pool.
+        poolB.release("foo", f2.getNow());
+        assertThat(f2.getNow().isOpen()).isTrue();
+
+        poolA.close();
+        poolB.close();
+    }
+
+    @Test
+    public void pendingAcquisitionsAreBounded() {
+        final EmbeddedChannel loop = new EmbeddedChannel();
+        final DefaultKeyedChannelPool<String> pool = newPool(loop, new KeyedChannelLimiter<>(1, 1));
+
+        assertThat(pool.acquire("foo").isSuccess()).isTrue();
+        final Future<Channel> f2 = pool.acquire("foo");
+        assertThat(f2.isDone()).isFalse();
+
+        // The queue is full.
+        final Future<Channel> f3 = pool.acquire("foo");
+        assertThat(f3.isDone()).isTrue();
+        assertThat(f3.cause()).isInstanceOf(IllegalStateException.class);
+
+        // A cancelled acquisition leaves the queue.
+        assertThat(f2.cancel(false)).isTrue();
+        loop.runPendingTasks();
+        final Future<Channel> f4 = pool.acquire("foo");
+        assertThat(f4.isDone()).isFalse();
+
+        pool.close();
+    }
+
+    @Test
+    public void pendingAcquisitionsFailOnClose() {
+        final EmbeddedChannel loop = new EmbeddedChannel();
+        final DefaultKeyedChannelPool<String> pool = newPool(loop, new KeyedChannelLimiter<>(1, 16));
+
+        final Future<Channel> f1 = pool.acquire("foo");
+        final Future<Channel> f2 = pool.acquire("foo");
+        assertThat(f2.isDone()).isFalse();
+
+        pool.close();
+        assertThat(f2.cause()).isInstanceOf(ClosedSessionException.class);
+        assertThat(f1.getNow().isOpen()).isFalse();
+    }
+
+    private static DefaultKeyedChannelPool<String> newPool(EmbeddedChannel loop,
+                                                           KeyedChannelLimiter<String> limiter) {
+        final EventLoop eventLoop = loop.eventLoop();
+        final Function<String, Future<Channel>> channelFactory =
+                key -> eventLoop.newSucceededFuture(new EmbeddedChannel());
+        return new DefaultKeyedChannelPool<>(eventLoop, channelFactory, Channel::isActive,
+                                             KeyedChannelPoolHandler.noop(), true, limiter);
+    }
+}
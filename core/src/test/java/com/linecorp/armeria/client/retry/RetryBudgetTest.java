@@ -0,0 +1,55 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.client.retry;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.Test;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void depositAndWithdraw() {
+        final RetryBudget budget = RetryBudget.of(0.2, 2);
+        assertThat(budget.availableTokens()).isEqualTo(2.0);
+
+        // Full initially.
+        budget.deposit();
+        assertThat(budget.availableTokens()).isEqualTo(2.0);
+
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+
+        // 5 requests allow 1 retry.
+        for (int i = 0; i < 4; i++) {
+            budget.deposit();
+        }
+        assertThat(budget.tryWithdraw()).isFalse();
+        budget.deposit();
+        assertThat(budget.tryWithdraw()).isTrue();
+        assertThat(budget.tryWithdraw()).isFalse();
+    }
+
+    @Test
+    public void invalidArguments() {
+        assertThatThrownBy(() -> RetryBudget.of(-0.1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RetryBudget.of(1.1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> RetryBudget.of(0.1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -81,6 +81,10 @@ public class RetryingHttpClientTest {
 
     private final AtomicInteger subscriberCancelServiceCallCounter = new AtomicInteger();
 
+    private final AtomicInteger budgetServiceCallCounter = new AtomicInteger();
+
+    private final AtomicInteger hedgingServiceCallCounter = new AtomicInteger();
+
     @AfterClass
     public static void destroy() {
         clientFactory.close();
@@ -245,6 +249,30 @@ public class RetryingHttpClientTest {
                 }
             });
 
+            sb.service("/budget", new AbstractHttpService() {
+                @Override
+                protected HttpResponse doGet(ServiceRequestContext ctx, HttpRequest req)
+                        throws Exception {
+                    budgetServiceCallCounter.incrementAndGet();
+                    return HttpResponse.of(HttpStatus.SERVICE_UNAVAILABLE);
+                }
+            });
+
+            sb.service("/slow-then-fast", new AbstractHttpService() {
+                @Override
+                protected HttpResponse doGet(ServiceRequestContext ctx, HttpRequest req)
+                        throws Exception {
+                    if (hedgingServiceCallCounter.getAndIncrement() < 1) {
+                        final CompletableFuture<HttpResponse> future = new CompletableFuture<>();
+                        ctx.eventLoop().schedule(() -> future.complete(HttpResponse.of("slow")),
+                                                 3, TimeUnit.SECONDS);
+                        return HttpResponse.from(future);
+                    } else {
+                        return HttpResponse.of("hedged");
+                    }
+                }
+            });
+
             sb.service("/subscriber-cancel", new AbstractHttpService() {
                 @Override
                 protected HttpResponse doGet(ServiceRequestContext ctx, HttpRequest req)
@@ -456,6 +484,46 @@ public class RetryingHttpClientTest {
         assertThat(responseAbortServiceCallCounter.get()).isZero();
     }
 
+    @Test
+    public void retryBudgetLimitsRetries() {
+        final RetryBudget budget = RetryBudget.of(0, 2);
+        final HttpClient client = new HttpClientBuilder(server.uri("/"))
+                .factory(clientFactory)
+                .decorator(new RetryingHttpClientBuilder(RetryStrategy.onServerErrorStatus(Backoff.fixed(1)))
+                                   .maxTotalAttempts(100)
+                                   .retryBudget(budget)
+                                   .newDecorator())
+                .build();
+
+        AggregatedHttpMessage res = client.get("/budget").aggregate().join();
+        assertThat(res.headers().status()).isSameAs(HttpStatus.SERVICE_UNAVAILABLE);
+        // The first attempt and the two retries allowed by the budget.
+        assertThat(budgetServiceCallCounter.get()).isEqualTo(3);
+
+        res = client.get("/budget").aggregate().join();
+        assertThat(res.headers().status()).isSameAs(HttpStatus.SERVICE_UNAVAILABLE);
+        // No retries because the budget is exhausted.
+        assertThat(budgetServiceCallCounter.get()).isEqualTo(4);
+        assertThat(budget.availableTokens()).isZero();
+    }
+
+    @Test
+    public void hedgeSlowRequest() {
+        final HttpClient client = new HttpClientBuilder(server.uri("/"))
+                .factory(clientFactory)
+                .decorator(new RetryingHttpClientBuilder(RetryStrategy.onServerErrorStatus())
+                                   .hedgingQuantile(0.95)
+                                   .minHedgingDelayMillis(100)
+                                   .newDecorator())
+                .build();
+
+        final Stopwatch stopwatch = Stopwatch.createStarted();
+        final AggregatedHttpMessage res = client.get("/slow-then-fast").aggregate().join();
+        assertThat(res.content().toStringUtf8()).isEqualTo("hedged");
+        assertThat(stopwatch.elapsed(TimeUnit.SECONDS)).isLessThan(3);
+        assertThat(hedgingServiceCallCounter.get()).isEqualTo(2);
+    }
+
     private HttpClient client(RetryStrategy<HttpRequest, HttpResponse> strategy) {
         return client(strategy, 10000, 0, 100, 0);
     }
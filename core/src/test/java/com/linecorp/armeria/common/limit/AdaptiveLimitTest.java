@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.common.limit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class AdaptiveLimitTest {
+
+    private static final long RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    @Test
+    public void vegasIncreasesWithoutQueueing() {
+        final AdaptiveLimit limit = AdaptiveLimit.vegas().initialLimit(10).build();
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(RTT_NANOS, limit.limit(), false);
+        }
+        assertThat(limit.limit()).isGreaterThan(10);
+    }
+
+    @Test
+    public void vegasDecreasesWhenQueueing() {
+        final AdaptiveLimit limit = AdaptiveLimit.vegas().initialLimit(50).build();
+        limit.onSample(RTT_NANOS, 50, false);
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(RTT_NANOS * 10, limit.limit(), false);
+        }
+        assertThat(limit.limit()).isLessThan(50);
+    }
+
+    @Test
+    public void vegasIgnoresSamplesWhenAppLimited() {
+        final AdaptiveLimit limit = AdaptiveLimit.vegas().initialLimit(50).build();
+        limit.onSample(RTT_NANOS, 1, false);
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(RTT_NANOS, 1, false);
+        }
+        assertThat(limit.limit()).isEqualTo(50);
+    }
+
+    @Test
+    public void vegasBacksOffOnDrop() {
+        final AdaptiveLimit limit = AdaptiveLimit.vegas().initialLimit(100).backoffRatio(0.5).build();
+        limit.onSample(0, 100, true);
+        assertThat(limit.limit()).isEqualTo(50);
+    }
+
+    @Test
+    public void gradientIncreasesWhenStable() {
+        final AdaptiveLimit limit = AdaptiveLimit.gradient().initialLimit(20).build();
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(RTT_NANOS, limit.limit(), false);
+        }
+        assertThat(limit.limit()).isGreaterThan(20);
+    }
+
+    @Test
+    public void gradientDecreasesWhenLatencyGrows() {
+        final AdaptiveLimit limit = AdaptiveLimit.gradient().initialLimit(100).build();
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(RTT_NANOS, 100, false);
+        }
+        final int stableLimit = limit.limit();
+        for (int i = 0; i < 5; i++) {
+            limit.onSample(RTT_NANOS * 5, limit.limit(), false);
+        }
+        assertThat(limit.limit()).isLessThan(stableLimit);
+    }
+
+    @Test
+    public void clampedByMinAndMax() {
+        final AdaptiveLimit limit = AdaptiveLimit.vegas().initialLimit(2).minLimit(2).maxLimit(3).build();
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(RTT_NANOS, limit.limit(), false);
+        }
+        assertThat(limit.limit()).isEqualTo(3);
+
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(0, limit.limit(), true);
+        }
+        assertThat(limit.limit()).isEqualTo(2);
+    }
+
+    @Test
+    public void permits() {
+        final AdaptiveLimit limit = AdaptiveLimit.vegas().initialLimit(1).maxLimit(1).build();
+        assertThat(limit.tryAcquire()).isTrue();
+        assertThat(limit.tryAcquire()).isFalse();
+        assertThat(limit.inflight()).isOne();
+
+        // A waiter is notified once when a permit is released.
+        final AtomicInteger numNotified = new AtomicInteger();
+        limit.awaitPermit(numNotified::incrementAndGet);
+        assertThat(numNotified).hasValue(0);
+        limit.release();
+        assertThat(numNotified).hasValue(1);
+        assertThat(limit.inflight()).isZero();
+
+        // A waiter is notified immediately if a permit is available.
+        limit.awaitPermit(numNotified::incrementAndGet);
+        assertThat(numNotified).hasValue(2);
+    }
+
+    @Test
+    public void invalidLimits() {
+        assertThatThrownBy(() -> AdaptiveLimit.vegas().minLimit(10).maxLimit(5).build())
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> AdaptiveLimit.gradient().initialLimit(2000).build())
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -20,6 +20,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.when;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
@@ -168,4 +172,45 @@ public class DefaultRequestLogTest {
         assertThat(log.responseDurationNanos()).isEqualTo(child.responseDurationNanos());
         assertThat(log.totalDurationNanos()).isEqualTo(child.totalDurationNanos());
     }
+
+    @Test
+    public void listenersAreNotifiedInOrder() {
+        when(ctx.sessionProtocol()).thenReturn(SessionProtocol.H2C);
+        final List<String> notified = new ArrayList<>();
+        log.addListener(unused -> notified.add("complete1"), RequestLogAvailability.COMPLETE);
+        log.addListener(unused -> notified.add("requestEnd"), RequestLogAvailability.REQUEST_END);
+        log.addListener(unused -> notified.add("complete2"), RequestLogAvailability.COMPLETE);
+        log.addListener(unused -> notified.add("responseHeaders+requestHeaders"),
+                        RequestLogAvailability.RESPONSE_HEADERS, RequestLogAvailability.REQUEST_HEADERS);
+
+        log.endRequest();
+        assertThat(notified).containsExactly("requestEnd");
+        log.addListener(unused -> notified.add("requestHeaders"), RequestLogAvailability.REQUEST_HEADERS);
+        assertThat(notified).containsExactly("requestEnd", "requestHeaders");
+
+        // The listeners satisfied by the same update are notified in the order of registration.
+        log.endResponse();
+        assertThat(notified).containsExactly("requestEnd", "requestHeaders",
+                                             "complete1", "complete2", "responseHeaders+requestHeaders");
+    }
+
+    @Test
+    public void listenersAddedConcurrentlyAreNotifiedOnce() throws Exception {
+        when(ctx.sessionProtocol()).thenReturn(SessionProtocol.H2C);
+        final int numListeners = 1000;
+        final AtomicInteger numNotified = new AtomicInteger();
+        final Thread adder = new Thread(() -> {
+            for (int i = 0; i < numListeners; i++) {
+                log.addListener(unused -> numNotified.incrementAndGet(),
+                                i % 2 == 0 ? RequestLogAvailability.COMPLETE
+                                           : RequestLogAvailability.RESPONSE_HEADERS);
+            }
+        });
+        adder.start();
+        log.endRequest();
+        log.endResponse();
+        adder.join();
+
+        assertThat(numNotified).hasValue(numListeners);
+    }
 }
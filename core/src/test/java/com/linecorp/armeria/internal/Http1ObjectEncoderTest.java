@@ -0,0 +1,150 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.MediaType;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+public class Http1ObjectEncoderTest {
+
+    private EmbeddedChannel ch;
+    private ChannelHandlerContext ctx;
+    private Http1ObjectEncoder encoder;
+
+    @Before
+    public void setUp() {
+        ch = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
+        ctx = ch.pipeline().firstContext();
+        encoder = new Http1ObjectEncoder(true, false);
+    }
+
+    @After
+    public void tearDown() {
+        encoder.close();
+        ch.finishAndReleaseAll();
+    }
+
+    @Test
+    public void headersAndSmallContentAreWrittenAtOnce() {
+        final HttpHeaders headers = HttpHeaders.of(200)
+                                               .contentType(MediaType.JSON_UTF_8)
+                                               .setInt(HttpHeaderNames.CONTENT_LENGTH, 2)
+                                               .add(HttpHeaderNames.CONNECTION, "keep-alive");
+        final ChannelFuture future =
+                encoder.writeHeadersAndData(ctx, 1, 1, headers, HttpData.ofUtf8("{}"), true);
+        assertThat(future.isSuccess()).isTrue();
+
+        final ByteBuf buf = ch.readOutbound();
+        try {
+            assertThat(buf.toString(StandardCharsets.US_ASCII)).isEqualTo(
+                    "HTTP/1.1 200 OK\r\n" +
+                    "content-type: application/json; charset=utf-8\r\n" +
+                    "content-length: 2\r\n" +
+                    "\r\n" +
+                    "{}");
+        } finally {
+            buf.release();
+        }
+        assertThat((Object) ch.readOutbound()).isNull();
+    }
+
+    @Test
+    public void chunkedContentWithTrailers() {
+        encoder.writeHeaders(ctx, 1, 1, HttpHeaders.of(200), false);
+        encoder.writeData(ctx, 1, 1, HttpData.ofUtf8("foo"), false);
+        encoder.writeHeaders(ctx, 1, 1, HttpHeaders.of(HttpHeaderNames.of("grpc-status"), "0"), true);
+
+        assertThat(readOutbound()).isEqualTo("HTTP/1.1 200 OK\r\n" +
+                                             "transfer-encoding: chunked\r\n" +
+                                             "\r\n" +
+                                             "3\r\nfoo\r\n" +
+                                             "0\r\n" +
+                                             "grpc-status: 0\r\n" +
+                                             "\r\n");
+    }
+
+    @Test
+    public void chunkedContentEndedWithData() {
+        encoder.writeHeadersAndData(ctx, 1, 1, HttpHeaders.of(200), HttpData.ofUtf8("foo"), false);
+        encoder.writeData(ctx, 1, 1, HttpData.ofUtf8("bar"), true);
+
+        assertThat(readOutbound()).isEqualTo("HTTP/1.1 200 OK\r\n" +
+                                             "transfer-encoding: chunked\r\n" +
+                                             "\r\n" +
+                                             "3\r\nfoo\r\n" +
+                                             "3\r\nbar\r\n" +
+                                             "0\r\n\r\n");
+    }
+
+    @Test
+    public void emptyResponse() {
+        encoder.writeHeaders(ctx, 1, 1, HttpHeaders.of(200), true);
+        encoder.writeHeaders(ctx, 2, 1, HttpHeaders.of(204).setInt(HttpHeaderNames.CONTENT_LENGTH, 0), true);
+
+        assertThat(readOutbound()).isEqualTo("HTTP/1.1 200 OK\r\n" +
+                                             "content-length: 0\r\n" +
+                                             "\r\n" +
+                                             "HTTP/1.1 204 No Content\r\n" +
+                                             "\r\n");
+    }
+
+    @Test
+    public void pipelinedResponsesAreWrittenInOrder() {
+        encoder.writeHeadersAndData(ctx, 2, 1, HttpHeaders.of(200).setInt(HttpHeaderNames.CONTENT_LENGTH, 1),
+                                    HttpData.ofUtf8("b"), true);
+        assertThat((Object) ch.readOutbound()).isNull();
+
+        encoder.writeHeadersAndData(ctx, 1, 1, HttpHeaders.of(200).setInt(HttpHeaderNames.CONTENT_LENGTH, 1),
+                                    HttpData.ofUtf8("a"), true);
+        assertThat(readOutbound()).isEqualTo("HTTP/1.1 200 OK\r\n" +
+                                             "content-length: 1\r\n" +
+                                             "\r\n" +
+                                             "a" +
+                                             "HTTP/1.1 200 OK\r\n" +
+                                             "content-length: 1\r\n" +
+                                             "\r\n" +
+                                             "b");
+    }
+
+    private String readOutbound() {
+        final StringBuilder buf = new StringBuilder();
+        for (;;) {
+            final ByteBuf out = ch.readOutbound();
+            if (out == null) {
+                return buf.toString();
+            }
+            buf.append(out.toString(StandardCharsets.US_ASCII));
+            out.release();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.server.Http1RequestParser.BadRequest;
+import com.linecorp.armeria.server.Http1RequestParser.Head;
+import com.linecorp.armeria.server.Http1RequestParser.Tail;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.AsciiString;
+
+public class Http1RequestParserTest {
+
+    private EmbeddedChannel ch;
+
+    @Before
+    public void setUp() {
+        ch = new EmbeddedChannel(new Http1RequestParser(4096, 8192, 8192, AsciiString.of("http")));
+    }
+
+    @After
+    public void tearDown() {
+        ch.finishAndReleaseAll();
+    }
+
+    @Test
+    public void requestWithoutContent() {
+        write("GET /foo?bar=baz HTTP/1.1\r\n" +
+              "Host: example.com\r\n" +
+              "Accept: text/plain\r\n" +
+              "X-Custom-Header: a\r\n" +
+              "Connection: keep-alive\r\n" +
+              "\r\n");
+
+        final Head head = ch.readInbound();
+        assertThat(head.isKeepAlive()).isTrue();
+        assertThat(head.isHttp11()).isTrue();
+        assertThat(head.hasContent()).isFalse();
+
+        final HttpHeaders headers = head.headers();
+        assertThat(headers.method()).isSameAs(HttpMethod.GET);
+        assertThat(headers.path()).isEqualTo("/foo?bar=baz");
+        assertThat(headers.scheme()).isEqualTo("http");
+        assertThat(headers.authority()).isEqualTo("example.com");
+        assertThat(headers.get(HttpHeaderNames.ACCEPT)).isEqualTo("text/plain");
+        assertThat(headers.get(AsciiString.of("x-custom-header"))).isEqualTo("a");
+        assertThat(headers.contains(HttpHeaderNames.HOST)).isFalse();
+        assertThat(headers.contains(HttpHeaderNames.CONNECTION)).isFalse();
+
+        // The well-known header names are interned.
+        headers.forEach(e -> {
+            if (e.getKey().contentEquals("accept")) {
+                assertThat(e.getKey()).isSameAs(HttpHeaderNames.ACCEPT);
+            }
+        });
+
+        assertThat((Object) ch.readInbound()).isNull();
+    }
+
+    @Test
+    public void fixedLengthContent() {
+        write("POST / HTTP/1.0\r\n" +
+              "Content-Length: 5\r\n" +
+              "\r\n" +
+              "hel");
+        final Head head = ch.readInbound();
+        assertThat(head.isKeepAlive()).isFalse();
+        assertThat(head.isHttp11()).isFalse();
+        assertThat(head.hasContent()).isTrue();
+        assertThat(head.headers().get(HttpHeaderNames.CONTENT_LENGTH)).isEqualTo("5");
+        assertContent("hel");
+        assertThat((Object) ch.readInbound()).isNull();
+
+        write("loGET / HTTP/1.1\r\n\r\n");
+        assertContent("lo");
+        assertThat((Object) ch.readInbound()).isSameAs(Tail.EMPTY);
+
+        // The next request in the same buffer.
+        final Head nextHead = ch.readInbound();
+        assertThat(nextHead.headers().method()).isSameAs(HttpMethod.GET);
+        assertThat(nextHead.hasContent()).isFalse();
+    }
+
+    @Test
+    public void chunkedContentWithTrailers() {
+        write("POST /upload HTTP/1.1\r\n" +
+              "Transfer-Encoding: chunked\r\n" +
+              "Content-Length: 100\r\n" +
+              "\r\n" +
+              "3;ext=1\r\nfoo\r\n" +
+              "4\r\nbar!\r\n" +
+              "0\r\n" +
+              "X-Checksum: abc\r\n" +
+              "\r\n");
+
+        final Head head = ch.readInbound();
+        assertThat(head.hasContent()).isTrue();
+        assertThat(head.headers().contains(HttpHeaderNames.CONTENT_LENGTH)).isFalse();
+        assertThat(head.headers().contains(HttpHeaderNames.TRANSFER_ENCODING)).isFalse();
+        assertContent("foo");
+        assertContent("bar!");
+
+        final Tail tail = ch.readInbound();
+        assertThat(tail.trailers().get(AsciiString.of("x-checksum"))).isEqualTo("abc");
+    }
+
+    @Test
+    public void absoluteFormAndCookies() {
+        write("GET https://foo.com:8443//a/b#frag HTTP/1.1\r\n" +
+              "Cookie: a=b;c=d\r\n" +
+              "Cookie: e=f\r\n" +
+              "TE: gzip, trailers\r\n" +
+              "Connection: x-hop\r\n" +
+              "X-Hop: 1\r\n" +
+              "\r\n");
+
+        final HttpHeaders headers = ((Head) ch.readInbound()).headers();
+        assertThat(headers.scheme()).isEqualTo("https");
+        assertThat(headers.authority()).isEqualTo("foo.com:8443");
+        assertThat(headers.path()).isEqualTo("//a/b#frag");
+        assertThat(headers.get(HttpHeaderNames.COOKIE)).isEqualTo("a=b; c=d; e=f");
+        assertThat(headers.get(HttpHeaderNames.TE)).isEqualTo("trailers");
+        assertThat(headers.contains(AsciiString.of("x-hop"))).isFalse();
+    }
+
+    @Test
+    public void normalizeLeadingSlashes() {
+        write("GET //foo HTTP/1.1\r\n\r\n");
+        assertThat(((Head) ch.readInbound()).headers().path()).isEqualTo("/foo");
+    }
+
+    @Test
+    public void badRequests() {
+        assertBadRequest("GET /foo|bar HTTP/1.1\r\n\r\n", BadRequest.BAD_REQUEST);
+        assertBadRequest("GET /foo HTTP/2.0\r\n\r\n", BadRequest.BAD_REQUEST);
+        assertBadRequest("GET /foo\r\n\r\n", BadRequest.BAD_REQUEST);
+        assertBadRequest("BREW /pot HTTP/1.1\r\n\r\n", BadRequest.METHOD_NOT_ALLOWED);
+        assertBadRequest("GET / HTTP/1.1\r\nFoo : bar\r\n\r\n", BadRequest.BAD_REQUEST);
+        assertBadRequest("GET / HTTP/1.1\r\nFoo: bar\r\n  baz\r\n\r\n", BadRequest.BAD_REQUEST);
+        assertBadRequest("POST / HTTP/1.1\r\nContent-Length: -1\r\n\r\n", BadRequest.BAD_REQUEST);
+        assertBadRequest("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n\r\nxyz\r\n",
+                         BadRequest.BAD_REQUEST);
+    }
+
+    @Test
+    public void badHeaderFields() {
+        // Invalid header names and a bare CR in a header value.
+        assertBadRequest("GET / HTTP/1.1\r\nFoo(bar): baz\r\n\r\n", BadRequest.BAD_REQUEST);
+        assertBadRequest("GET / HTTP/1.1\r\nFoo\"bar: baz\r\n\r\n", BadRequest.BAD_REQUEST);
+        assertBadRequest("GET / HTTP/1.1\r\nFoo: bar\rX-Smuggled: baz\r\n\r\n", BadRequest.BAD_REQUEST);
+
+        // Conflicting content lengths.
+        assertBadRequest("POST / HTTP/1.1\r\nContent-Length: 3\r\nContent-Length: 4\r\n\r\nabcd",
+                         BadRequest.BAD_REQUEST);
+
+        // 'chunked' must be the final transfer coding and must not be applied twice.
+        assertBadRequest("POST / HTTP/1.1\r\nTransfer-Encoding: chunked, gzip\r\n\r\n",
+                         BadRequest.BAD_REQUEST);
+        assertBadRequest("POST / HTTP/1.1\r\nTransfer-Encoding: gzip\r\n\r\n", BadRequest.BAD_REQUEST);
+        assertBadRequest("POST / HTTP/1.1\r\nTransfer-Encoding: chunked\r\n" +
+                         "Transfer-Encoding: chunked\r\n\r\n", BadRequest.BAD_REQUEST);
+    }
+
+    @Test
+    public void sameContentLengths() {
+        write("POST / HTTP/1.1\r\nContent-Length: 3\r\nContent-Length: 3\r\n\r\nabc");
+        final Head head = ch.readInbound();
+        assertThat(head.headers().getAll(HttpHeaderNames.CONTENT_LENGTH)).containsExactly("3");
+        assertContent("abc");
+        assertThat((Object) ch.readInbound()).isSameAs(Tail.EMPTY);
+    }
+
+    @Test
+    public void tooLongHeaders() {
+        ch.finishAndReleaseAll();
+        ch = new EmbeddedChannel(new Http1RequestParser(64, 64, 8192, AsciiString.of("http")));
+        final StringBuilder buf = new StringBuilder("GET / HTTP/1.1\r\n");
+        for (int i = 0; i < 10; i++) {
+            buf.append("X-Header-").append(i).append(": value\r\n");
+        }
+        write(buf.toString());
+        assertThat((Object) ch.readInbound()).isSameAs(BadRequest.BAD_REQUEST);
+
+        // Discard everything after a bad request.
+        write("GET / HTTP/1.1\r\n\r\n");
+        assertThat((Object) ch.readInbound()).isNull();
+    }
+
+    @Test
+    public void isUpgradeRequest() {
+        assertThat(Http1RequestParser.isUpgradeRequest(buf("GET / HTTP/1.1\r\nHost: foo"), 1024)).isNull();
+        assertThat(Http1RequestParser.isUpgradeRequest(
+                buf("GET / HTTP/1.1\r\nHost: foo\r\n\r\n"), 1024)).isFalse();
+        assertThat(Http1RequestParser.isUpgradeRequest(
+                buf("OPTIONS * HTTP/1.1\r\nUpgrade: h2c\r\nHTTP2-Settings: AAA\r\n\r\n"), 1024)).isTrue();
+    }
+
+    private void assertBadRequest(String request, BadRequest expected) {
+        ch.finishAndReleaseAll();
+        ch = new EmbeddedChannel(new Http1RequestParser(4096, 8192, 8192, AsciiString.of("http")));
+        write(request);
+        Object msg;
+        while ((msg = ch.readInbound()) instanceof Head) {
+            continue;
+        }
+        assertThat(msg).as(request).isSameAs(expected);
+    }
+
+    private void assertContent(String expected) {
+        final ByteBufHttpData data = ch.readInbound();
+        try {
+            assertThat(data.toStringUtf8()).isEqualTo(expected);
+        } finally {
+            data.release();
+        }
+    }
+
+    private void write(String data) {
+        ch.writeInbound(buf(data));
+    }
+
+    private static io.netty.buffer.ByteBuf buf(String data) {
+        return Unpooled.copiedBuffer(data, StandardCharsets.US_ASCII);
+    }
+}
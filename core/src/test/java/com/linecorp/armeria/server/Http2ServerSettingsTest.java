@@ -0,0 +1,199 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import static io.netty.handler.codec.http2.Http2CodecUtil.connectionPrefaceBuf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import com.google.common.io.ByteStreams;
+
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http2.DefaultHttp2FrameReader;
+import io.netty.handler.codec.http2.Http2EventAdapter;
+import io.netty.handler.codec.http2.Http2Exception;
+import io.netty.handler.codec.http2.Http2Settings;
+
+public class Http2ServerSettingsTest {
+
+    private static final byte[] EMPTY_SETTINGS = { 0x00, 0x00, 0x00, 0x04, 0x00, 0x00, 0x00, 0x00, 0x00 };
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.initialHttp2ConnectionWindowSize(128 * 1024)
+              .initialHttp2StreamWindowSize(96 * 1024)
+              .http2MaxStreamsPerConnection(100)
+              .http2MaxFrameSize(32 * 1024)
+              .http2HeaderTableSize(8192);
+            sb.service("/", (HttpService) (ctx, req) -> HttpResponse.of(HttpStatus.OK));
+        }
+    };
+
+    @ClassRule
+    public static final ServerRule adaptiveServer = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.adaptiveHttp2FlowControl(true);
+            sb.service("/", (HttpService) (ctx, req) -> HttpResponse.from(
+                    req.aggregate().thenApply(unused -> HttpResponse.of(HttpStatus.OK))));
+        }
+    };
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(new Timeout(10, TimeUnit.SECONDS));
+
+    @Test
+    public void initialSettings() throws Exception {
+        try (Socket s = new Socket("127.0.0.1", server.httpPort())) {
+            final InputStream in = s.getInputStream();
+            final OutputStream out = s.getOutputStream();
+            out.write(ByteBufUtil.getBytes(connectionPrefaceBuf()));
+            out.write(EMPTY_SETTINGS);
+            out.flush();
+
+            final FrameCollector frames = new FrameCollector();
+            while (frames.settings == null || frames.connectionWindowIncrement == 0) {
+                readFrame(in, frames);
+            }
+
+            assertThat(frames.settings.initialWindowSize()).isEqualTo(96 * 1024);
+            assertThat(frames.settings.maxConcurrentStreams()).isEqualTo(100);
+            assertThat(frames.settings.maxFrameSize()).isEqualTo(32 * 1024);
+            assertThat(frames.settings.headerTableSize()).isEqualTo(8192);
+            // 128 KiB - 65535 bytes, the default connection window size.
+            assertThat(frames.connectionWindowIncrement).isEqualTo(128 * 1024 - 65535);
+        }
+    }
+
+    @Test
+    public void adaptiveFlowControl() throws Exception {
+        try (Socket s = new Socket("127.0.0.1", adaptiveServer.httpPort())) {
+            final InputStream in = s.getInputStream();
+            final OutputStream out = s.getOutputStream();
+            out.write(ByteBufUtil.getBytes(connectionPrefaceBuf()));
+            out.write(EMPTY_SETTINGS);
+            // Send a HEADERS frame with END_HEADERS for stream 1: ':method: POST', ':scheme: http', ':path: /'
+            out.write(new byte[] {
+                    0x00, 0x00, 0x03, 0x01, 0x04, 0x00, 0x00, 0x00, 0x01,
+                    (byte) 0x83, (byte) 0x86, (byte) 0x84
+            });
+            // Send 3 DATA frames of 16384 bytes, i.e. 48 KiB in total, before acknowledging the probe.
+            final byte[] data = new byte[16384];
+            for (int i = 0; i < 3; i++) {
+                out.write(new byte[] { 0x00, 0x40, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x01 });
+                out.write(data);
+            }
+            out.flush();
+
+            final FrameCollector frames = new FrameCollector();
+            while (frames.pingData == null) {
+                readFrame(in, frames);
+            }
+
+            // Acknowledge the probe.
+            out.write(new byte[] { 0x00, 0x00, 0x08, 0x06, 0x01, 0x00, 0x00, 0x00, 0x00 });
+            out.write(frames.pingData);
+            out.flush();
+
+            // The server should raise the initial stream window to twice the data received during the probe.
+            while (frames.updatedInitialWindowSize == null) {
+                readFrame(in, frames);
+            }
+            assertThat(frames.updatedInitialWindowSize).isEqualTo(2 * 3 * 16384);
+        }
+    }
+
+    @Test
+    public void invalidSettings() {
+        final ServerBuilder sb = new ServerBuilder();
+        assertThatThrownBy(() -> sb.initialHttp2ConnectionWindowSize(65534))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sb.initialHttp2StreamWindowSize(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sb.http2MaxStreamsPerConnection(0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sb.http2MaxFrameSize(16383))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> sb.http2HeaderTableSize(-1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void readFrame(InputStream in, FrameCollector collector) throws Exception {
+        final byte[] header = new byte[9];
+        ByteStreams.readFully(in, header);
+        final int payloadLength = (header[0] & 0xff) << 16 | (header[1] & 0xff) << 8 | (header[2] & 0xff);
+        final ByteBuf buf = Unpooled.buffer(9 + payloadLength);
+        buf.writeBytes(header);
+        buf.writeBytes(in, payloadLength);
+        try {
+            new DefaultHttp2FrameReader().readFrame(null, buf, collector);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static final class FrameCollector extends Http2EventAdapter {
+        Http2Settings settings;
+        Integer updatedInitialWindowSize;
+        int connectionWindowIncrement;
+        byte[] pingData;
+
+        @Override
+        public void onSettingsRead(ChannelHandlerContext ctx, Http2Settings settings) {
+            if (this.settings == null) {
+                this.settings = settings;
+            } else if (settings.initialWindowSize() != null) {
+                updatedInitialWindowSize = settings.initialWindowSize();
+            }
+        }
+
+        @Override
+        public void onWindowUpdateRead(ChannelHandlerContext ctx, int streamId, int windowSizeIncrement)
+                throws Http2Exception {
+            if (streamId == 0 && connectionWindowIncrement == 0) {
+                connectionWindowIncrement = windowSizeIncrement;
+            }
+        }
+
+        @Override
+        public void onPingRead(ChannelHandlerContext ctx, long data) {
+            pingData = Unpooled.buffer(8).writeLong(data).array();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import static com.linecorp.armeria.server.MultiPatternRouter.globLiteral;
+import static com.linecorp.armeria.server.MultiPatternRouter.regexLiteral;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import com.linecorp.armeria.common.HttpMethod;
+
+public class MultiPatternRouterTest {
+
+    @Test
+    public void testGlobLiteral() {
+        assertThat(globLiteral("/foo/*/bar")).isEqualTo("/foo/");
+        assertThat(globLiteral("/a/**/foobar")).isEqualTo("/foobar");
+        assertThat(globLiteral("*.txt")).isEqualTo(".txt");
+        assertThat(globLiteral("/**")).isEqualTo("/");
+        assertThat(globLiteral("**")).isNull();
+    }
+
+    @Test
+    public void testRegexLiteral() {
+        assertThat(regexLiteral(Pattern.compile("^/files/(?<filePath>.*)$"))).isEqualTo("/files/");
+        assertThat(regexLiteral(Pattern.compile("/users/\\d+/profile"))).isEqualTo("/profile");
+        assertThat(regexLiteral(Pattern.compile("/foo\\.json"))).isEqualTo("/foo.json");
+
+        // Optional characters are not included.
+        assertThat(regexLiteral(Pattern.compile("/items?/ab"))).isEqualTo("/item");
+        assertThat(regexLiteral(Pattern.compile("/abcdx*"))).isEqualTo("/abcd");
+        assertThat(regexLiteral(Pattern.compile("/abcdx{0,3}"))).isEqualTo("/abcd");
+        assertThat(regexLiteral(Pattern.compile("/abcdx{1,3}"))).isEqualTo("/abcdx");
+        assertThat(regexLiteral(Pattern.compile("/abcdx+?y"))).isEqualTo("/abcdx");
+
+        // Groups and character classes end a run.
+        assertThat(regexLiteral(Pattern.compile("/ab(cdef|ghij)kl"))).isEqualTo("/ab");
+        assertThat(regexLiteral(Pattern.compile("/a[b-z)]+/cd"))).isEqualTo("/cd");
+
+        // Not simple enough.
+        assertThat(regexLiteral(Pattern.compile("/foo|/bar"))).isNull();
+        assertThat(regexLiteral(Pattern.compile("(?i)/foo"))).isNull();
+        assertThat(regexLiteral(Pattern.compile("/foo", Pattern.CASE_INSENSITIVE))).isNull();
+        assertThat(regexLiteral(Pattern.compile("/\\x41bc"))).isNull();
+        assertThat(regexLiteral(Pattern.compile(".*"))).isNull();
+    }
+
+    @Test
+    public void findSameAsSequentialLookup() {
+        final List<PathMapping> mappings = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            mappings.add(PathMapping.of("glob:/glob" + i + "/**/*.json"));
+            mappings.add(PathMapping.ofRegex("^/regex" + i + "/(?<id>\\d+)$"));
+        }
+        mappings.add(PathMapping.ofRegex("/items?/abc"));
+        mappings.add(PathMapping.ofRegex("(?i)/case/insensitive"));
+        mappings.add(PathMapping.of("glob:*.txt"));
+        mappings.add(new HttpHeaderPathMapping(PathMapping.ofRegex("/headers/.*"),
+                                               ImmutableSet.of(HttpMethod.GET),
+                                               ImmutableList.of(), ImmutableList.of()));
+        mappings.sort(Comparator.comparingInt(m -> -m.complexity()));
+
+        final MultiPatternRouter<PathMapping> router =
+                new MultiPatternRouter<>(mappings, Function.identity());
+
+        final List<String> paths = ImmutableList.of(
+                "/glob3/a/b/c.json", "/glob19/c.json", "/glob3/c.xml", "/regex7/123", "/regex7/abc",
+                "/regex17/1", "/foo/regex7/1", "/item/abc", "/items/abc", "/CASE/Insensitive", "/a/b/c.txt",
+                "/headers/foo", "/", "/unknown");
+
+        final PathMappingContext mappingCtx = mock(PathMappingContext.class);
+        when(mappingCtx.method()).thenReturn(HttpMethod.GET);
+        for (String path : paths) {
+            when(mappingCtx.path()).thenReturn(path);
+            final PathMapped<PathMapping> expected =
+                    Routers.findsBest(mappingCtx, mappings, Function.identity());
+            final PathMapped<PathMapping> actual = router.find(mappingCtx);
+            assertThat(actual.isPresent()).as(path).isEqualTo(expected.isPresent());
+            if (expected.isPresent()) {
+                assertThat(actual.mapping()).as(path).isSameAs(expected.mapping());
+                assertThat(actual.mappingResult().pathParams())
+                        .isEqualTo(expected.mappingResult().pathParams());
+            }
+        }
+    }
+}
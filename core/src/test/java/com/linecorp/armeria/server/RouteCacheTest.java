@@ -0,0 +1,166 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+import com.linecorp.armeria.common.metric.MoreMeters;
+import com.linecorp.armeria.common.metric.PrometheusMeterRegistries;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class RouteCacheTest {
+
+    private static final VirtualHost virtualHost = PathMappingContextTest.virtualHost();
+
+    private final AtomicInteger numDelegateCalls = new AtomicInteger();
+
+    @Test
+    public void parameterlessOnlyCachesExactMappings() {
+        final Router<PathMapping> router = newRouter(true);
+
+        final PathMapped<PathMapping> first = router.find(ctx(HttpMethod.GET, "/exact", null));
+        final PathMapped<PathMapping> second = router.find(ctx(HttpMethod.GET, "/exact", null));
+        assertThat(first.isPresent()).isTrue();
+        // The precomputed result must be reused.
+        assertThat(second).isSameAs(first);
+        assertThat(numDelegateCalls).hasValue(1);
+
+        // A different query must not reuse the precomputed result.
+        final PathMapped<PathMapping> third = router.find(ctx(HttpMethod.GET, "/exact", "a=1"));
+        assertThat(third).isNotSameAs(first);
+        assertThat(third.mappingResult().query()).isEqualTo("a=1");
+        assertThat(numDelegateCalls).hasValue(1);
+
+        // The paths with path variables must not be cached.
+        for (int i = 0; i < 3; i++) {
+            final PathMapped<PathMapping> result = router.find(ctx(HttpMethod.GET, "/users/" + i, null));
+            assertThat(result.mappingResult().pathParams()).containsEntry("id", String.valueOf(i));
+        }
+        router.find(ctx(HttpMethod.GET, "/users/0", null));
+        assertThat(numDelegateCalls).hasValue(5);
+    }
+
+    @Test
+    public void parameterlessOnlyCachesMisses() {
+        final Router<PathMapping> router = newRouter(true);
+
+        assertThat(router.find(ctx(HttpMethod.GET, "/missing", null)).isPresent()).isFalse();
+        assertThat(router.find(ctx(HttpMethod.GET, "/missing", null)).isPresent()).isFalse();
+        assertThat(numDelegateCalls).hasValue(1);
+
+        // The delayed '405 Method Not Allowed' must be recorded on a cache hit as well.
+        for (int i = 0; i < 2; i++) {
+            final PathMappingContext mappingCtx = ctx(HttpMethod.DELETE, "/post-only", null);
+            assertThat(router.find(mappingCtx).isPresent()).isFalse();
+            assertThat(mappingCtx.delayedThrowable()).hasValueSatisfying(
+                    cause -> assertThat(((HttpStatusException) cause).httpStatus())
+                            .isEqualTo(HttpStatus.METHOD_NOT_ALLOWED));
+        }
+        assertThat(numDelegateCalls).hasValue(2);
+    }
+
+    @Test
+    public void missesDoNotEvictRoutes() {
+        final Router<PathMapping> router = newRouter(true);
+
+        final PathMapped<PathMapping> first = router.find(ctx(HttpMethod.GET, "/exact", null));
+        // Much more misses than the maximum size of the route cache.
+        for (int i = 0; i < 100; i++) {
+            assertThat(router.find(ctx(HttpMethod.GET, "/missing/" + i, null)).isPresent()).isFalse();
+        }
+        assertThat(router.find(ctx(HttpMethod.GET, "/exact", null))).isSameAs(first);
+        assertThat(numDelegateCalls).hasValue(101);
+    }
+
+    @Test
+    public void defaultModeCachesAllMatches() {
+        final Router<PathMapping> router = newRouter(false);
+
+        router.find(ctx(HttpMethod.GET, "/users/1", null));
+        final PathMapped<PathMapping> result = router.find(ctx(HttpMethod.GET, "/users/1", null));
+        assertThat(result.mappingResult().pathParams()).containsEntry("id", "1");
+        assertThat(numDelegateCalls).hasValue(1);
+
+        router.find(ctx(HttpMethod.GET, "/missing", null));
+        router.find(ctx(HttpMethod.GET, "/missing", null));
+        assertThat(numDelegateCalls).hasValue(3);
+    }
+
+    @Test
+    public void metrics() {
+        final Router<PathMapping> router = newRouter(true);
+        final MeterRegistry registry = PrometheusMeterRegistries.newRegistry();
+        assertThat(router.registerMetrics(registry, new MeterIdPrefix("foo", "hostnamePattern", "a"))).isTrue();
+
+        router.find(ctx(HttpMethod.GET, "/exact", null));
+        router.find(ctx(HttpMethod.GET, "/exact", null));
+        router.find(ctx(HttpMethod.GET, "/missing", null));
+        router.find(ctx(HttpMethod.GET, "/missing", null));
+
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("foo.lookups#count{hostnamePattern=a,result=hit}", 1.0)
+                .containsEntry("foo.lookups#count{hostnamePattern=a,result=negativeHit}", 1.0)
+                .containsEntry("foo.lookups#count{hostnamePattern=a,result=miss}", 2.0)
+                .containsEntry("foo.hitRatio#value{hostnamePattern=a}", 0.5);
+    }
+
+    private Router<PathMapping> newRouter(boolean parameterlessOnly) {
+        final List<PathMapping> mappings = ImmutableList.of(
+                PathMapping.of("/exact"),
+                PathMapping.of("/users/{id}"),
+                new HttpHeaderPathMapping(PathMapping.of("/post-only"), ImmutableSet.of(HttpMethod.POST),
+                                          ImmutableList.of(), ImmutableList.of()));
+        final List<Router<PathMapping>> routers = Routers.routers(mappings, Function.identity());
+        final Router<PathMapping> delegate = new Router<PathMapping>() {
+            @Override
+            public PathMapped<PathMapping> find(PathMappingContext mappingCtx) {
+                numDelegateCalls.incrementAndGet();
+                for (Router<PathMapping> router : routers) {
+                    final PathMapped<PathMapping> result = router.find(mappingCtx);
+                    if (result.isPresent()) {
+                        return result;
+                    }
+                }
+                return PathMapped.empty();
+            }
+
+            @Override
+            public void dump(OutputStream output) {}
+        };
+        return RouteCache.wrapRouter(delegate, "maximumSize=16", Function.identity(), parameterlessOnly);
+    }
+
+    private static PathMappingContext ctx(HttpMethod method, String path, @Nullable String query) {
+        return new DefaultPathMappingContext(virtualHost, "example.com", method, path, query, null, null);
+    }
+}
@@ -80,6 +80,37 @@ public class RouterTest {
         });
     }
 
+    @Test
+    public void exactMappingFastPath() {
+        final PathMapping exact = PathMapping.of("exact:/foo");
+        final PathMapping colon = PathMapping.of("exact:/bar/:baz");
+        final List<Router<PathMapping>> routers =
+                Routers.routers(ImmutableList.of(exact, colon, PathMapping.of("prefix:/")),
+                                Function.identity());
+        assertThat(routers).hasSize(1);
+        final Router<PathMapping> router = routers.get(0);
+
+        final PathMappingContext mappingCtx = mock(PathMappingContext.class);
+        when(mappingCtx.path()).thenReturn("/foo");
+        final PathMapped<PathMapping> result = router.find(mappingCtx);
+        assertThat(result.mapping()).isSameAs(exact);
+        assertThat(result.mappingResult().path()).isEqualTo("/foo");
+        assertThat(result.mappingResult().query()).isNull();
+        // The same result is reused.
+        assertThat(router.find(mappingCtx)).isSameAs(result);
+
+        // Not reused when there is a query string.
+        when(mappingCtx.query()).thenReturn("a=b");
+        final PathMapped<PathMapping> resultWithQuery = router.find(mappingCtx);
+        assertThat(resultWithQuery.mapping()).isSameAs(exact);
+        assertThat(resultWithQuery.mappingResult().query()).isEqualTo("a=b");
+
+        // ':' in an exact path is not a path variable.
+        when(mappingCtx.query()).thenReturn(null);
+        when(mappingCtx.path()).thenReturn("/bar/qux");
+        assertThat(router.find(mappingCtx).isPresent()).isFalse();
+    }
+
     @Test
     public void duplicateMappings() {
         // Simple cases
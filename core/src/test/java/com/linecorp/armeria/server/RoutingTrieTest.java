@@ -127,6 +127,29 @@ public class RoutingTrieTest {
         testNodeWithCheckingParentPath(trie, "/", "/", value9);
     }
 
+    @Test
+    public void testManyChildren() {
+        final RoutingTrie.Builder<Object> builder = new RoutingTrie.Builder<>();
+
+        // More children than the threshold of the linear search.
+        final Object[] values = new Object[20];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = new Object();
+            builder.add("/" + (char) ('t' - i) + "/foo", values[i]);
+        }
+        final Object catchAll = new Object();
+        builder.add("/*", catchAll);
+
+        final RoutingTrie<Object> trie = builder.build();
+        for (int i = 0; i < values.length; i++) {
+            assertThat(trie.find("/" + (char) ('t' - i) + "/foo")).containsExactly(values[i]);
+        }
+
+        // Falls back to the catch-all of an ancestor.
+        assertThat(trie.find("/k/bar")).containsExactly(catchAll);
+        assertThat(trie.find("/z/foo")).containsExactly(catchAll);
+    }
+
     @Test
     public void testExceptionalCases() {
         assertThatThrownBy(() -> new RoutingTrie.Builder<>().build())
@@ -17,11 +17,21 @@ package com.linecorp.armeria.server.encoding;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.io.ByteArrayInputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
 
 import org.junit.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.google.common.io.ByteStreams;
 
 import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.HttpData;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpObject;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.MediaType;
@@ -29,7 +39,9 @@ import com.linecorp.armeria.common.stream.NoopSubscriber;
 import com.linecorp.armeria.unsafe.ByteBufHttpData;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.util.concurrent.ImmediateEventExecutor;
 
 public class HttpEncodedResponseTest {
@@ -44,7 +56,8 @@ public class HttpEncodedResponseTest {
                                          MediaType.PLAIN_TEXT_UTF_8,
                                          new ByteBufHttpData(buf, true)));
         final HttpEncodedResponse encoded = new HttpEncodedResponse(
-                orig, HttpEncodingType.DEFLATE, mediaType -> true, 1);
+                orig, new DeflateStreamEncoderFactory(), UnpooledByteBufAllocator.DEFAULT,
+                mediaType -> true, 1);
 
         // Drain the stream.
         encoded.subscribe(NoopSubscriber.get(), ImmediateEventExecutor.INSTANCE);
@@ -52,4 +65,97 @@ public class HttpEncodedResponseTest {
         // 'buf' should be released.
         assertThat(buf.refCnt()).isZero();
     }
+
+    @Test
+    public void testGzipStreaming() throws Exception {
+        final ByteBuf buf = Unpooled.buffer();
+        buf.writeCharSequence("bar", StandardCharsets.UTF_8);
+
+        final HttpResponse orig = HttpResponse.of(
+                HttpHeaders.of(HttpStatus.OK).contentType(MediaType.PLAIN_TEXT_UTF_8),
+                HttpData.ofUtf8("foo"),
+                new ByteBufHttpData(buf, true));
+        final HttpEncodedResponse encoded = new HttpEncodedResponse(
+                orig, new GzipStreamEncoderFactory(1, false), UnpooledByteBufAllocator.DEFAULT,
+                mediaType -> true, 1);
+
+        final AggregatedHttpMessage res = encoded.aggregate().join();
+        assertThat(res.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(res.headers().get(HttpHeaderNames.VARY)).isEqualTo("accept-encoding");
+        final byte[] decoded = ByteStreams.toByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(res.content().array())));
+        assertThat(new String(decoded, StandardCharsets.UTF_8)).isEqualTo("foobar");
+        assertThat(buf.refCnt()).isZero();
+    }
+
+    @Test
+    public void testEncoderClosedOnCancellation() {
+        final HttpResponse orig = HttpResponse.of(
+                HttpHeaders.of(HttpStatus.OK).contentType(MediaType.PLAIN_TEXT_UTF_8),
+                HttpData.ofUtf8("foo"),
+                HttpData.ofUtf8("bar"));
+        final ClosureTrackingEncoderFactory encoderFactory = new ClosureTrackingEncoderFactory();
+        final HttpEncodedResponse encoded = new HttpEncodedResponse(
+                orig, encoderFactory, UnpooledByteBufAllocator.DEFAULT, mediaType -> true, 1);
+
+        // Cancel the subscription after receiving the first content.
+        encoded.subscribe(new Subscriber<HttpObject>() {
+            private Subscription subscription;
+
+            @Override
+            public void onSubscribe(Subscription s) {
+                subscription = s;
+                s.request(1);
+            }
+
+            @Override
+            public void onNext(HttpObject obj) {
+                if (obj instanceof HttpData) {
+                    subscription.cancel();
+                } else {
+                    subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {}
+
+            @Override
+            public void onComplete() {}
+        }, ImmediateEventExecutor.INSTANCE);
+
+        assertThat(encoded.completionFuture()).isCompletedExceptionally();
+        assertThat(encoderFactory.closed).isTrue();
+    }
+
+    private static final class ClosureTrackingEncoderFactory implements StreamEncoderFactory {
+
+        boolean closed;
+
+        @Override
+        public String encodingHeaderValue() {
+            return "identity";
+        }
+
+        @Override
+        public StreamEncoder newEncoder(ByteBufAllocator alloc) {
+            return new StreamEncoder() {
+                @Override
+                public HttpData encode(HttpData obj) {
+                    return HttpData.of(obj.array(), obj.offset(), obj.length());
+                }
+
+                @Override
+                public HttpData finish() {
+                    closed = true;
+                    return HttpData.EMPTY_DATA;
+                }
+
+                @Override
+                public void close() {
+                    closed = true;
+                }
+            };
+        }
+    }
 }
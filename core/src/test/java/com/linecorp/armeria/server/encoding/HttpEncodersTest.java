@@ -19,18 +19,28 @@ package com.linecorp.armeria.server.encoding;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.mockito.Mockito.when;
 
+import java.util.List;
+
+import javax.annotation.Nullable;
+
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnit;
 import org.mockito.junit.MockitoRule;
 
+import com.google.common.collect.ImmutableList;
+
 import com.linecorp.armeria.common.HttpHeaderNames;
 import com.linecorp.armeria.common.HttpHeaders;
 import com.linecorp.armeria.common.HttpRequest;
 
+import io.netty.buffer.ByteBufAllocator;
+
 public class HttpEncodersTest {
 
+    private static final List<StreamEncoderFactory> FACTORIES = HttpEncodingService.DEFAULT_ENCODER_FACTORIES;
+
     @Rule public MockitoRule mocks = MockitoJUnit.rule();
 
     @Mock private HttpRequest request;
@@ -38,30 +48,82 @@ public class HttpEncodersTest {
     @Test
     public void noAcceptEncoding() {
         when(request.headers()).thenReturn(HttpHeaders.EMPTY_HEADERS);
-        assertThat(HttpEncoders.getWrapperForRequest(request)).isNull();
+        assertThat(HttpEncoders.getEncoderFactory(request, FACTORIES)).isNull();
     }
 
     @Test
     public void acceptEncodingGzip() {
         when(request.headers()).thenReturn(HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "gzip"));
-        assertThat(HttpEncoders.getWrapperForRequest(request)).isEqualTo(HttpEncodingType.GZIP);
+        assertThat(encodingOf(request)).isEqualTo("gzip");
     }
 
     @Test
     public void acceptEncodingDeflate() {
         when(request.headers()).thenReturn(HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "deflate"));
-        assertThat(HttpEncoders.getWrapperForRequest(request)).isEqualTo(HttpEncodingType.DEFLATE);
+        assertThat(encodingOf(request)).isEqualTo("deflate");
     }
 
     @Test
     public void acceptEncodingBoth() {
         when(request.headers()).thenReturn(HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate"));
-        assertThat(HttpEncoders.getWrapperForRequest(request)).isEqualTo(HttpEncodingType.GZIP);
+        assertThat(encodingOf(request)).isEqualTo("gzip");
     }
 
     @Test
     public void acceptEncodingUnknown() {
         when(request.headers()).thenReturn(HttpHeaders.of(HttpHeaderNames.ACCEPT_ENCODING, "piedpiper"));
-        assertThat(HttpEncoders.getWrapperForRequest(request)).isNull();
+        assertThat(HttpEncoders.getEncoderFactory(request, FACTORIES)).isNull();
+    }
+
+    @Test
+    public void acceptEncodingWithQvalues() {
+        assertThat(encodingOf("gzip;q=0.5, deflate")).isEqualTo("deflate");
+        assertThat(encodingOf("gzip; q=1.0, deflate;q=0.999")).isEqualTo("gzip");
+        assertThat(encodingOf("deflate;q=0.8, gzip;q=0.8")).isEqualTo("gzip");
+        assertThat(encodingOf("GZIP;Q=0.1")).isEqualTo("gzip");
+        assertThat(encodingOf("gzip;q=0, deflate;q=0")).isNull();
+        assertThat(encodingOf("gzip;q=2, deflate;q=0.001")).isEqualTo("deflate");
+        assertThat(encodingOf("gzip;q=abc")).isNull();
+    }
+
+    @Test
+    public void acceptEncodingWildcard() {
+        assertThat(encodingOf("*")).isEqualTo("gzip");
+        assertThat(encodingOf("gzip;q=0, *")).isEqualTo("deflate");
+        assertThat(encodingOf("gzip;q=0.5, *;q=0.1")).isEqualTo("gzip");
+        assertThat(encodingOf("gzip;q=0, deflate;q=0, *")).isNull();
+        assertThat(encodingOf("*;q=0")).isNull();
+    }
+
+    @Test
+    public void acceptEncodingCustom() {
+        final StreamEncoderFactory brotli = new StreamEncoderFactory() {
+            @Override
+            public String encodingHeaderValue() {
+                return "br";
+            }
+
+            @Override
+            public StreamEncoder newEncoder(ByteBufAllocator alloc) {
+                throw new UnsupportedOperationException();
+            }
+        };
+        final List<StreamEncoderFactory> factories = ImmutableList.<StreamEncoderFactory>builder()
+                .add(brotli).addAll(FACTORIES).build();
+        assertThat(HttpEncoders.determineEncoding("gzip, deflate, br", factories)).isSameAs(brotli);
+        assertThat(HttpEncoders.determineEncoding("gzip, br;q=0.9", factories)).isSameAs(FACTORIES.get(0));
+        assertThat(HttpEncoders.determineEncoding("gzip, br", FACTORIES)).isSameAs(FACTORIES.get(0));
+    }
+
+    @Nullable
+    private static String encodingOf(HttpRequest request) {
+        final StreamEncoderFactory factory = HttpEncoders.getEncoderFactory(request, FACTORIES);
+        return factory != null ? factory.encodingHeaderValue() : null;
+    }
+
+    @Nullable
+    private static String encodingOf(String acceptEncoding) {
+        final StreamEncoderFactory factory = HttpEncoders.determineEncoding(acceptEncoding, FACTORIES);
+        return factory != null ? factory.encodingHeaderValue() : null;
     }
 }
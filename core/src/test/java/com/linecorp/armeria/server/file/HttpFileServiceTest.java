@@ -16,6 +16,7 @@
 package com.linecorp.armeria.server.file;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
 
 import java.io.File;
 import java.io.IOException;
@@ -29,6 +30,11 @@ import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
 
@@ -46,16 +52,22 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import com.google.common.base.Strings;
 import com.google.common.io.ByteStreams;
 import com.google.common.io.Resources;
 
+import com.linecorp.armeria.common.HttpData;
 import com.linecorp.armeria.internal.PathAndQuery;
 import com.linecorp.armeria.server.Server;
 import com.linecorp.armeria.server.ServerBuilder;
 import com.linecorp.armeria.server.ServerPort;
+import com.linecorp.armeria.server.file.HttpFileService.CachedContent;
 import com.linecorp.armeria.server.logging.LoggingService;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.handler.codec.DateFormatter;
+import io.netty.util.ReferenceCountUtil;
 
 public class HttpFileServiceTest {
 
@@ -82,6 +94,31 @@ public class HttpFileServiceTest {
                     "/fs/",
                     HttpFileService.forFileSystem(tmpDir.toPath()).decorate(LoggingService.newDecorator()));
 
+            sb.serviceUnder(
+                    "/fs-streaming/",
+                    HttpFileServiceBuilder.forFileSystem(tmpDir.toPath())
+                                          .maxCacheEntrySizeBytes(4)
+                                          .build());
+
+            sb.serviceUnder(
+                    "/fs-weighted/",
+                    HttpFileServiceBuilder.forFileSystem(tmpDir.toPath())
+                                          .maxCacheSizeBytes(1024)
+                                          .build());
+
+            // Only one of the two files used by testEvictionWhileReading() fits into this cache.
+            sb.serviceUnder(
+                    "/fs-evicting/",
+                    HttpFileServiceBuilder.forFileSystem(tmpDir.toPath())
+                                          .maxCacheSizeBytes(1024)
+                                          .build());
+
+            sb.serviceUnder(
+                    "/fs-compressing/",
+                    HttpFileServiceBuilder.forFileSystem(tmpDir.toPath())
+                                          .compressCachedFiles(true)
+                                          .build());
+
             sb.serviceUnder(
                     "/compressed/",
                     HttpFileServiceBuilder.forClassPath(baseResourceDir + "foo")
@@ -315,6 +352,304 @@ public class HttpFileServiceTest {
         }
     }
 
+    @Test
+    public void testSingleRange() throws Exception {
+        writeRangeFile();
+        for (String prefix : new String[] { "/fs/", "/fs-streaming/" }) {
+            try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+                final HttpUriRequest req = new HttpGet(newUri(prefix + "range.txt"));
+                req.setHeader(HttpHeaders.RANGE, "bytes=2-5");
+                try (CloseableHttpResponse res = hc.execute(req)) {
+                    assertStatusLine(res, "HTTP/1.1 206 Partial Content");
+                    assertThat(res.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue())
+                            .isEqualTo("bytes 2-5/16");
+                    assertThat(EntityUtils.toString(res.getEntity())).isEqualTo("2345");
+                }
+
+                final HttpUriRequest suffixReq = new HttpGet(newUri(prefix + "range.txt"));
+                suffixReq.setHeader(HttpHeaders.RANGE, "bytes=-3");
+                try (CloseableHttpResponse res = hc.execute(suffixReq)) {
+                    assertStatusLine(res, "HTTP/1.1 206 Partial Content");
+                    assertThat(res.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue())
+                            .isEqualTo("bytes 13-15/16");
+                    assertThat(EntityUtils.toString(res.getEntity())).isEqualTo("def");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMultipleRanges() throws Exception {
+        writeRangeFile();
+        for (String prefix : new String[] { "/fs/", "/fs-streaming/" }) {
+            try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+                final HttpUriRequest req = new HttpGet(newUri(prefix + "range.txt"));
+                req.setHeader(HttpHeaders.RANGE, "bytes=0-1, 10-, 1-2");
+                try (CloseableHttpResponse res = hc.execute(req)) {
+                    assertStatusLine(res, "HTTP/1.1 206 Partial Content");
+                    final String contentType = res.getFirstHeader(HttpHeaders.CONTENT_TYPE).getValue();
+                    assertThat(contentType).startsWith("multipart/byteranges; boundary=");
+                    final String boundary = contentType.substring(contentType.indexOf('=') + 1);
+                    assertThat(EntityUtils.toString(res.getEntity())).isEqualTo(
+                            "--" + boundary + "\r\n" +
+                            "content-type: text/plain; charset=utf-8\r\n" +
+                            "content-range: bytes 0-2/16\r\n\r\n" +
+                            "012\r\n" +
+                            "--" + boundary + "\r\n" +
+                            "content-type: text/plain; charset=utf-8\r\n" +
+                            "content-range: bytes 10-15/16\r\n\r\n" +
+                            "abcdef\r\n" +
+                            "--" + boundary + "--\r\n");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testUnsatisfiableRange() throws Exception {
+        writeRangeFile();
+        for (String prefix : new String[] { "/fs/", "/fs-streaming/" }) {
+            try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+                final HttpUriRequest req = new HttpGet(newUri(prefix + "range.txt"));
+                req.setHeader(HttpHeaders.RANGE, "bytes=16-");
+                try (CloseableHttpResponse res = hc.execute(req)) {
+                    assertStatusLine(res, "HTTP/1.1 416 Requested Range Not Satisfiable");
+                    assertThat(res.getFirstHeader(HttpHeaders.CONTENT_RANGE).getValue())
+                            .isEqualTo("bytes */16");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMalformedRange() throws Exception {
+        writeRangeFile();
+        for (String prefix : new String[] { "/fs/", "/fs-streaming/" }) {
+            try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+                // A malformed 'Range' header must be ignored; the whole content must be sent.
+                for (String range : new String[] { "bytes=", "bytes= , ", "bytes=+1-2", "bytes=1-+2" }) {
+                    final HttpUriRequest req = new HttpGet(newUri(prefix + "range.txt"));
+                    req.setHeader(HttpHeaders.RANGE, range);
+                    try (CloseableHttpResponse res = hc.execute(req)) {
+                        assert200Ok(res, "text/plain", "0123456789abcdef");
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIfRange() throws Exception {
+        writeRangeFile();
+        for (String prefix : new String[] { "/fs/", "/fs-streaming/" }) {
+            try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+                final String lastModified;
+                try (CloseableHttpResponse res = hc.execute(new HttpGet(newUri(prefix + "range.txt")))) {
+                    lastModified = assert200Ok(res, "text/plain", "0123456789abcdef");
+                    assertThat(res.getFirstHeader(HttpHeaders.ACCEPT_RANGES).getValue()).isEqualTo("bytes");
+                }
+
+                // Matching 'If-Range' header.
+                HttpUriRequest req = new HttpGet(newUri(prefix + "range.txt"));
+                req.setHeader(HttpHeaders.RANGE, "bytes=0-0");
+                req.setHeader(HttpHeaders.IF_RANGE, lastModified);
+                try (CloseableHttpResponse res = hc.execute(req)) {
+                    assertStatusLine(res, "HTTP/1.1 206 Partial Content");
+                    assertThat(EntityUtils.toString(res.getEntity())).isEqualTo("0");
+                }
+
+                // Mismatching 'If-Range' header; the whole content must be sent.
+                req = new HttpGet(newUri(prefix + "range.txt"));
+                req.setHeader(HttpHeaders.RANGE, "bytes=0-0");
+                req.setHeader(HttpHeaders.IF_RANGE, "Thu, 01 Jan 1970 00:00:00 GMT");
+                try (CloseableHttpResponse res = hc.execute(req)) {
+                    assert200Ok(res, "text/plain", "0123456789abcdef");
+                }
+
+                // '*' is not a valid 'If-Range' header; the whole content must be sent.
+                req = new HttpGet(newUri(prefix + "range.txt"));
+                req.setHeader(HttpHeaders.RANGE, "bytes=0-0");
+                req.setHeader(HttpHeaders.IF_RANGE, "*");
+                try (CloseableHttpResponse res = hc.execute(req)) {
+                    assert200Ok(res, "text/plain", "0123456789abcdef");
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWeightedCache() throws Exception {
+        final File bazFile = new File(tmpDir, "baz.txt");
+        Files.write(bazFile.toPath(), "baz".getBytes(StandardCharsets.UTF_8));
+
+        try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+            try (CloseableHttpResponse res = hc.execute(new HttpGet(newUri("/fs-weighted/baz.txt")))) {
+                assert200Ok(res, "text/plain", "baz");
+            }
+
+            // The cached content must be served repeatedly and sliced for a range request.
+            final HttpUriRequest req = new HttpGet(newUri("/fs-weighted/baz.txt"));
+            req.setHeader(HttpHeaders.RANGE, "bytes=1-");
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assertStatusLine(res, "HTTP/1.1 206 Partial Content");
+                assertThat(EntityUtils.toString(res.getEntity())).isEqualTo("az");
+            }
+
+            // The modified file must replace the cached entry.
+            Files.write(bazFile.toPath(), "qux".getBytes(StandardCharsets.UTF_8));
+            assertThat(bazFile.setLastModified(System.currentTimeMillis() +
+                                               TimeUnit.SECONDS.toMillis(5))).isTrue();
+            try (CloseableHttpResponse res = hc.execute(new HttpGet(newUri("/fs-weighted/baz.txt")))) {
+                assert200Ok(res, "text/plain", "qux");
+            }
+        }
+    }
+
+    @Test
+    public void testCachedContentReleasedWhileReading() {
+        final ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(3, 3);
+        buf.writeBytes("foo".getBytes(StandardCharsets.UTF_8));
+        final CachedContent content = new CachedContent(buf, null);
+        final HttpData data = content.retainedData();
+        assertThat(data).isNotNull();
+
+        // Evict while the retained data is being written.
+        content.release();
+        assertThat(buf.refCnt()).isOne();
+        assertThat(data.toStringUtf8()).isEqualTo("foo");
+        ReferenceCountUtil.release(data);
+        assertThat(buf.refCnt()).isZero();
+
+        // The released buffer may be recycled for another allocation, which must not be exposed.
+        final ByteBuf recycled = PooledByteBufAllocator.DEFAULT.directBuffer(3, 3);
+        recycled.writeBytes("bar".getBytes(StandardCharsets.UTF_8));
+        try {
+            assertThat(content.retainedData()).isNull();
+        } finally {
+            recycled.release();
+        }
+    }
+
+    @Test
+    public void testEvictionWhileReading() throws Exception {
+        // Each entry weighs more than a half of the maximum cache size, so that reading one of them evicts
+        // the other one while it is being read by another thread.
+        final String fooContent = Strings.repeat("f", 512);
+        final String barContent = Strings.repeat("b", 512);
+        Files.write(new File(tmpDir, "evicting-foo.txt").toPath(),
+                    fooContent.getBytes(StandardCharsets.UTF_8));
+        Files.write(new File(tmpDir, "evicting-bar.txt").toPath(),
+                    barContent.getBytes(StandardCharsets.UTF_8));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (CloseableHttpClient hc = HttpClients.custom().setMaxConnPerRoute(4).build()) {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                final boolean fooFirst = i % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 100; j++) {
+                        final boolean foo = fooFirst == (j % 2 == 0);
+                        final String path = foo ? "/fs-evicting/evicting-foo.txt"
+                                                : "/fs-evicting/evicting-bar.txt";
+                        try (CloseableHttpResponse res = hc.execute(new HttpGet(newUri(path)))) {
+                            assertThat(res.getStatusLine().getStatusCode()).isEqualTo(200);
+                            assertThat(EntityUtils.toString(res.getEntity()))
+                                    .isEqualTo(foo ? fooContent : barContent);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCompressCachedFiles() throws Exception {
+        final String expectedContent = Strings.repeat("armeria ", 256);
+        Files.write(new File(tmpDir, "compressible.txt").toPath(),
+                    expectedContent.getBytes(StandardCharsets.UTF_8));
+
+        try (CloseableHttpClient hc = HttpClients.createMinimal()) {
+            final String identityETag;
+            try (CloseableHttpResponse res = hc.execute(
+                    new HttpGet(newUri("/fs-compressing/compressible.txt")))) {
+                assert200Ok(res, "text/plain", expectedContent.trim());
+                assertThat(res.getFirstHeader("Content-Encoding")).isNull();
+                identityETag = res.getFirstHeader(HttpHeaders.ETAG).getValue();
+            }
+
+            // The content is compressed in the background after it is cached.
+            await().until(() -> {
+                final HttpUriRequest req = new HttpGet(newUri("/fs-compressing/compressible.txt"));
+                req.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+                try (CloseableHttpResponse res = hc.execute(req)) {
+                    EntityUtils.consume(res.getEntity());
+                    return res.getFirstHeader("Content-Encoding") != null;
+                }
+            });
+
+            final String gzipETag;
+            HttpUriRequest req = new HttpGet(newUri("/fs-compressing/compressible.txt"));
+            req.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assertStatusLine(res, "HTTP/1.1 200 OK");
+                assertThat(res.getFirstHeader("Content-Encoding").getValue()).isEqualTo("gzip");
+                assertThat(res.getFirstHeader(HttpHeaders.VARY).getValue()).isEqualTo("accept-encoding");
+                gzipETag = res.getFirstHeader(HttpHeaders.ETAG).getValue();
+                final byte[] content;
+                try (GZIPInputStream unzipper = new GZIPInputStream(res.getEntity().getContent())) {
+                    content = ByteStreams.toByteArray(unzipper);
+                }
+                assertThat(new String(content, StandardCharsets.UTF_8)).isEqualTo(expectedContent);
+            }
+            assertThat(gzipETag).isNotEqualTo(identityETag);
+
+            // An encoding with zero weight must not be chosen.
+            req = new HttpGet(newUri("/fs-compressing/compressible.txt"));
+            req.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0, deflate;q=0");
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assert200Ok(res, "text/plain", expectedContent.trim());
+                assertThat(res.getFirstHeader("Content-Encoding")).isNull();
+                assertThat(res.getFirstHeader(HttpHeaders.ETAG).getValue()).isEqualTo(identityETag);
+            }
+
+            // The preferred encoding must be chosen.
+            req = new HttpGet(newUri("/fs-compressing/compressible.txt"));
+            req.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0.5, deflate");
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assertStatusLine(res, "HTTP/1.1 200 OK");
+                assertThat(res.getFirstHeader("Content-Encoding").getValue()).isEqualTo("deflate");
+            }
+
+            // Test if the 'If-None-Match' header works as expected.
+            req = new HttpGet(newUri("/fs-compressing/compressible.txt"));
+            req.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            req.setHeader(HttpHeaders.IF_NONE_MATCH, "\"unknown\", " + gzipETag);
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assertStatusLine(res, "HTTP/1.1 304 Not Modified");
+                assertThat(res.getFirstHeader(HttpHeaders.ETAG).getValue()).isEqualTo(gzipETag);
+            }
+
+            // 'If-None-Match' takes precedence over 'If-Modified-Since'.
+            req = new HttpGet(newUri("/fs-compressing/compressible.txt"));
+            req.setHeader(HttpHeaders.IF_NONE_MATCH, gzipETag);
+            req.setHeader(HttpHeaders.IF_MODIFIED_SINCE, currentHttpDate());
+            try (CloseableHttpResponse res = hc.execute(req)) {
+                assert200Ok(res, "text/plain", expectedContent.trim());
+            }
+        }
+    }
+
+    private static void writeRangeFile() throws IOException {
+        Files.write(new File(tmpDir, "range.txt").toPath(),
+                    "0123456789abcdef".getBytes(StandardCharsets.US_ASCII));
+    }
+
     private static String assert200Ok(
             CloseableHttpResponse res, @Nullable String expectedContentType, String expectedContent)
             throws Exception {
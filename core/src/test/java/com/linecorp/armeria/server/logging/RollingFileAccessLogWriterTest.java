@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.linecorp.armeria.common.logging.RequestLog;
+
+public class RollingFileAccessLogWriterTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void writeAndClose() throws Exception {
+        final Path file = folder.getRoot().toPath().resolve("access.log");
+        final RollingFileAccessLogWriter writer = AccessLogWriters.rollingFile(file, "%{path}L %s");
+
+        writer.accept(newLog("/foo", 200));
+        writer.accept(newLog("/bar", 404));
+        writer.accept(newLog("/baz", 500));
+        writer.close();
+
+        assertThat(Files.readAllLines(file, StandardCharsets.UTF_8))
+                .containsExactly("/foo 200", "/bar 404", "/baz 500");
+        assertThat(writer.writtenCount()).isEqualTo(3);
+        assertThat(writer.droppedCount()).isZero();
+
+        // Dropped after closed.
+        writer.accept(newLog("/qux", 200));
+        assertThat(writer.droppedCount()).isOne();
+    }
+
+    @Test
+    public void rotateBySize() throws Exception {
+        final Path file = folder.getRoot().toPath().resolve("access.log");
+        final RollingFileAccessLogWriter writer = new RollingFileAccessLogWriterBuilder(file)
+                .format("%{path}L %s")
+                .maxFileSizeBytes(1)
+                .rotationInterval(Duration.ZERO)
+                .build();
+
+        for (int i = 0; i < 5; i++) {
+            writer.accept(newLog("/" + i, 200));
+            final int expected = i + 1;
+            await().until(() -> writer.writtenCount() == expected);
+        }
+        writer.close();
+
+        // The file is rotated whenever the pending access logs are flushed.
+        final File[] files = folder.getRoot().listFiles();
+        assertThat(files.length).isGreaterThan(1);
+
+        final List<String> lines = new ArrayList<>();
+        for (File f : files) {
+            lines.addAll(Files.readAllLines(f.toPath(), StandardCharsets.UTF_8));
+        }
+        assertThat(lines).containsExactlyInAnyOrder("/0 200", "/1 200", "/2 200", "/3 200", "/4 200");
+    }
+
+    @Test
+    public void countFailedWritesAsDropped() throws Exception {
+        // A directory cannot be opened for writing.
+        final Path file = folder.newFolder("access.log").toPath();
+        final RollingFileAccessLogWriter writer = new RollingFileAccessLogWriterBuilder(file)
+                .format("%{path}L %s")
+                .rotationInterval(Duration.ZERO)
+                .build();
+
+        writer.accept(newLog("/foo", 200));
+        writer.accept(newLog("/bar", 200));
+        writer.close();
+
+        assertThat(writer.writtenCount()).isZero();
+        assertThat(writer.droppedCount()).isEqualTo(2);
+    }
+
+    private static RequestLog newLog(String path, int statusCode) {
+        final RequestLog log = mock(RequestLog.class);
+        when(log.path()).thenReturn(path);
+        when(log.statusCode()).thenReturn(statusCode);
+        return log;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.metric;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+import com.google.common.io.ByteStreams;
+
+import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpMethod;
+import com.linecorp.armeria.common.HttpStatus;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.prometheus.client.CollectorRegistry;
+import io.prometheus.client.Counter;
+
+public class PrometheusExpositionServiceTest {
+
+    private static final int NUM_SERIES = 2000;
+
+    private static final CollectorRegistry registry = new CollectorRegistry();
+
+    private static final Counter counter = Counter.build("test_counter", "A test counter.")
+                                                  .labelNames("index")
+                                                  .register(registry);
+
+    private static final Counter cachedCounter = Counter.build("cached_counter", "A cached counter.")
+                                                        .register(registry);
+
+    static {
+        for (int i = 0; i < NUM_SERIES; i++) {
+            counter.labels(String.valueOf(i)).inc();
+        }
+    }
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.service("/metrics", new PrometheusExpositionService(registry));
+            sb.service("/cached", new PrometheusExpositionService(registry, Duration.ofMinutes(1)));
+        }
+    };
+
+    @Test
+    public void streamed() {
+        final AggregatedHttpMessage res = client().get("/metrics").aggregate().join();
+        assertThat(res.headers().status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isNull();
+        assertContent(res.content().toStringUtf8());
+    }
+
+    @Test
+    public void gzip() throws Exception {
+        final AggregatedHttpMessage res = client().execute(
+                HttpHeaders.of(HttpMethod.GET, "/metrics")
+                           .set(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate")).aggregate().join();
+        assertThat(res.headers().status()).isEqualTo(HttpStatus.OK);
+        assertThat(res.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertContent(gunzip(res.content().array()));
+    }
+
+    @Test
+    public void gzipWithZeroWeight() {
+        for (String acceptEncoding : new String[] { "gzip;q=0", "gzip; q=0.000", "deflate, *;q=0" }) {
+            final AggregatedHttpMessage res = client().execute(
+                    HttpHeaders.of(HttpMethod.GET, "/metrics")
+                               .set(HttpHeaderNames.ACCEPT_ENCODING, acceptEncoding)).aggregate().join();
+            assertThat(res.headers().status()).isEqualTo(HttpStatus.OK);
+            assertThat(res.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isNull();
+            assertContent(res.content().toStringUtf8());
+        }
+    }
+
+    @Test
+    public void cached() throws Exception {
+        final AggregatedHttpMessage res1 = client().get("/cached").aggregate().join();
+        assertContent(res1.content().toStringUtf8());
+        assertThat(res1.headers().getInt(HttpHeaderNames.CONTENT_LENGTH))
+                .isEqualTo(res1.content().length());
+
+        cachedCounter.inc();
+
+        // The cached render must be reused.
+        final AggregatedHttpMessage res2 = client().get("/cached").aggregate().join();
+        assertThat(res2.content().toStringUtf8()).isEqualTo(res1.content().toStringUtf8());
+
+        // The gzip-encoded render is cached separately.
+        final AggregatedHttpMessage res3 = client().execute(
+                HttpHeaders.of(HttpMethod.GET, "/cached")
+                           .set(HttpHeaderNames.ACCEPT_ENCODING, "gzip")).aggregate().join();
+        assertThat(res3.headers().get(HttpHeaderNames.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertContent(gunzip(res3.content().array()));
+    }
+
+    private static HttpClient client() {
+        return HttpClient.of(server.uri("/"));
+    }
+
+    private static void assertContent(String content) {
+        // Larger than a single chunk.
+        assertThat(content.length()).isGreaterThan(16384);
+        assertThat(content).contains("# TYPE test_counter counter");
+        assertThat(content).contains("test_counter{index=\"0\",} 1.0");
+        assertThat(content).contains("test_counter{index=\"" + (NUM_SERIES - 1) + "\",} 1.0");
+        assertThat(content).contains("# TYPE cached_counter counter");
+    }
+
+    private static String gunzip(byte[] content) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            return new String(ByteStreams.toByteArray(in), StandardCharsets.UTF_8);
+        }
+    }
+}
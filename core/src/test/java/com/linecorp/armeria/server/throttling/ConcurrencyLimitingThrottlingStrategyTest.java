@@ -0,0 +1,176 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.linecorp.armeria.common.HttpRequest;
+import com.linecorp.armeria.common.limit.AdaptiveLimit;
+import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.common.logging.RequestLogAvailability;
+import com.linecorp.armeria.common.logging.RequestLogListener;
+import com.linecorp.armeria.common.metric.MoreMeters;
+import com.linecorp.armeria.common.metric.PrometheusMeterRegistries;
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.channel.DefaultEventLoop;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.ScheduledFuture;
+
+public class ConcurrencyLimitingThrottlingStrategyTest {
+
+    private static final EventLoop eventLoop = new DefaultEventLoop();
+    private static final MeterRegistry registry = PrometheusMeterRegistries.newRegistry();
+
+    @AfterClass
+    public static void destroy() {
+        eventLoop.shutdownGracefully();
+    }
+
+    @Test
+    public void pendingUntilCompletion() throws Exception {
+        final ConcurrencyLimitingThrottlingStrategy<HttpRequest> strategy =
+                new ConcurrencyLimitingThrottlingStrategyBuilder<HttpRequest>(fixedLimit("foo"))
+                        .maxPendingRequests(1)
+                        .build();
+
+        final ServiceRequestContext ctx1 = newContext();
+        final ServiceRequestContext ctx2 = newContext();
+        final ServiceRequestContext ctx3 = newContext();
+        final HttpRequest req = mock(HttpRequest.class);
+
+        assertThat(strategy.accept(ctx1, req).toCompletableFuture().join()).isTrue();
+        assertThat(strategy.numActiveRequests()).isEqualTo(1);
+
+        // The second request waits and the third one is rejected because the pending queue is full.
+        final CompletableFuture<Boolean> accepted2 = strategy.accept(ctx2, req).toCompletableFuture();
+        assertThat(accepted2).isNotDone();
+        assertThat(strategy.accept(ctx3, req).toCompletableFuture().join()).isFalse();
+
+        // The second request is accepted when the first one completes.
+        complete(ctx1);
+        assertThat(accepted2.join()).isTrue();
+        assertThat(strategy.numActiveRequests()).isEqualTo(1);
+
+        assertThat(MoreMeters.measureAll(registry))
+                .containsEntry("armeria.server.throttling.concurrencyLimit.limit#value{name=foo}", 1.0)
+                .containsEntry("armeria.server.throttling.concurrencyLimit.inflight#value{name=foo}", 1.0)
+                .containsEntry("armeria.server.throttling.concurrencyLimit.queueWaitDuration#count{name=foo}",
+                               1.0);
+
+        complete(ctx2);
+        assertThat(strategy.numActiveRequests()).isZero();
+    }
+
+    @Test
+    public void pendingTimeout() throws Exception {
+        final ConcurrencyLimitingThrottlingStrategy<HttpRequest> strategy =
+                new ConcurrencyLimitingThrottlingStrategyBuilder<HttpRequest>(fixedLimit("bar"))
+                        .maxPendingRequests(1)
+                        .pendingTimeoutMillis(100)
+                        .build();
+
+        final ServiceRequestContext ctx1 = newContext();
+        final ServiceRequestContext ctx2 = newContext();
+        final HttpRequest req = mock(HttpRequest.class);
+
+        assertThat(strategy.accept(ctx1, req).toCompletableFuture().join()).isTrue();
+        final CompletableFuture<Boolean> accepted2 = strategy.accept(ctx2, req).toCompletableFuture();
+        await().untilAsserted(() -> assertThat(accepted2).isCompletedWithValue(false));
+
+        // The timed out request must not take the slot released by the first request.
+        complete(ctx1);
+        assertThat(strategy.numActiveRequests()).isZero();
+    }
+
+    @Test
+    public void cancelTimeoutWhenAccepted() throws Exception {
+        final ConcurrencyLimitingThrottlingStrategy<HttpRequest> strategy =
+                new ConcurrencyLimitingThrottlingStrategyBuilder<HttpRequest>(fixedLimit("qux"))
+                        .maxPendingRequests(1)
+                        .build();
+
+        final ServiceRequestContext ctx1 = newContext();
+        final ServiceRequestContext ctx2 = newContext();
+        final EventLoop eventLoop2 = mock(EventLoop.class);
+        final ScheduledFuture<?> timeoutFuture = mock(ScheduledFuture.class);
+        doReturn(timeoutFuture).when(eventLoop2).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        when(ctx2.eventLoop()).thenReturn(eventLoop2);
+        final HttpRequest req = mock(HttpRequest.class);
+
+        assertThat(strategy.accept(ctx1, req).toCompletableFuture().join()).isTrue();
+        final CompletableFuture<Boolean> accepted2 = strategy.accept(ctx2, req).toCompletableFuture();
+        verify(timeoutFuture, never()).cancel(anyBoolean());
+
+        // The timeout task must be cancelled as soon as the pending request is accepted.
+        complete(ctx1);
+        assertThat(accepted2.join()).isTrue();
+        verify(timeoutFuture).cancel(false);
+
+        complete(ctx2);
+        assertThat(strategy.numActiveRequests()).isZero();
+    }
+
+    @Test
+    public void rejectImmediatelyByDefault() throws Exception {
+        final ConcurrencyLimitingThrottlingStrategy<HttpRequest> strategy =
+                new ConcurrencyLimitingThrottlingStrategyBuilder<HttpRequest>(fixedLimit("baz")).build();
+        final HttpRequest req = mock(HttpRequest.class);
+
+        assertThat(strategy.accept(newContext(), req).toCompletableFuture().join()).isTrue();
+        assertThat(strategy.accept(newContext(), req).toCompletableFuture().join()).isFalse();
+    }
+
+    private static AdaptiveLimit fixedLimit(String name) {
+        return AdaptiveLimit.vegas().name(name).initialLimit(1).maxLimit(1).build();
+    }
+
+    private static ServiceRequestContext newContext() {
+        final ServiceRequestContext ctx = mock(ServiceRequestContext.class);
+        when(ctx.eventLoop()).thenReturn(eventLoop);
+        when(ctx.meterRegistry()).thenReturn(registry);
+        final RequestLog log = mock(RequestLog.class);
+        when(ctx.log()).thenReturn(log);
+        return ctx;
+    }
+
+    private static void complete(ServiceRequestContext ctx) throws Exception {
+        final RequestLog log = ctx.log();
+        final ArgumentCaptor<RequestLogListener> captor = ArgumentCaptor.forClass(RequestLogListener.class);
+        verify(log).addListener(captor.capture(), eq(RequestLogAvailability.COMPLETE));
+        when(log.responseEndTimeNanos()).thenReturn(System.nanoTime());
+        captor.getValue().onRequestLog(log);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.common.testing.FakeTicker;
+
+import com.linecorp.armeria.common.Request;
+
+public class SlidingWindowThrottlingStrategyTest {
+
+    @Test
+    public void slidingWindow() {
+        final FakeTicker ticker = new FakeTicker();
+        final SlidingWindowThrottlingStrategy<Request> strategy =
+                new SlidingWindowThrottlingStrategyBuilder<>(3, Duration.ofSeconds(1)).ticker(ticker).build();
+
+        assertThat(strategy.tryAcquire("a")).isNull();
+        ticker.advance(400, TimeUnit.MILLISECONDS);
+        assertThat(strategy.tryAcquire("a")).isNull();
+        assertThat(strategy.tryAcquire("a")).isNull();
+
+        final RateLimit rejected = strategy.tryAcquire("a");
+        assertThat(rejected).isNotNull();
+        assertThat(rejected.limit()).isEqualTo(3);
+        assertThat(rejected.retryAfterNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(600));
+        assertThat(rejected.resetNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(1000));
+
+        // The first request falls out of the window, but the other two do not.
+        ticker.advance(600, TimeUnit.MILLISECONDS);
+        assertThat(strategy.tryAcquire("a")).isNull();
+        assertThat(strategy.tryAcquire("a")).isNotNull();
+
+        // Other keys have their own windows.
+        assertThat(strategy.tryAcquire("b")).isNull();
+    }
+
+    @Test
+    public void concurrentAcquisition() throws Exception {
+        final FakeTicker ticker = new FakeTicker();
+        final SlidingWindowThrottlingStrategy<Request> strategy =
+                new SlidingWindowThrottlingStrategyBuilder<>(100, Duration.ofSeconds(1)).ticker(ticker).build();
+
+        final int numThreads = 8;
+        final AtomicInteger accepted = new AtomicInteger();
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < numThreads; i++) {
+                futures.add(executor.submit(() -> {
+                    startLatch.await();
+                    for (int j = 0; j < 100; j++) {
+                        if (strategy.tryAcquire("a") == null) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            startLatch.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(accepted.get()).isEqualTo(100);
+        final RateLimit rejected = strategy.tryAcquire("a");
+        assertThat(rejected).isNotNull();
+        assertThat(rejected.retryAfterNanos()).isEqualTo(TimeUnit.SECONDS.toNanos(1));
+    }
+}
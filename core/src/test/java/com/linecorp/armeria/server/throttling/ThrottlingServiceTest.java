@@ -23,6 +23,10 @@ import org.junit.Rule;
 import org.junit.Test;
 
 import com.linecorp.armeria.client.HttpClient;
+import com.linecorp.armeria.common.AggregatedHttpMessage;
+import com.linecorp.armeria.common.HttpHeaderNames;
+import com.linecorp.armeria.common.HttpHeaders;
+import com.linecorp.armeria.common.HttpMethod;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
 import com.linecorp.armeria.common.HttpStatus;
@@ -48,6 +52,10 @@ public class ThrottlingServiceTest {
         protected void configure(ServerBuilder sb) throws Exception {
             sb.service("/http-never", SERVICE.decorate(ThrottlingHttpService.newDecorator(never())));
             sb.service("/http-always", SERVICE.decorate(ThrottlingHttpService.newDecorator(always())));
+            sb.service("/http-token-bucket", SERVICE.decorate(ThrottlingHttpService.newDecorator(
+                    new TokenBucketThrottlingStrategyBuilder<HttpRequest>(0.1)
+                            .keyFunction(ThrottlingKeys.header("x-tenant-id"))
+                            .build())));
         }
     };
 
@@ -63,4 +71,24 @@ public class ThrottlingServiceTest {
         assertThat(client.get("/http-never").aggregate().get().status())
                 .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
     }
+
+    @Test
+    public void rateLimit() throws Exception {
+        final HttpClient client = HttpClient.of(serverRule.uri("/"));
+        assertThat(client.execute(tenantHeaders("foo")).aggregate().get().status()).isEqualTo(HttpStatus.OK);
+
+        final AggregatedHttpMessage res = client.execute(tenantHeaders("foo")).aggregate().get();
+        assertThat(res.status()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(res.headers().getLong(HttpHeaderNames.RETRY_AFTER)).isBetween(1L, 10L);
+        assertThat(res.headers().getLong(RateLimit.RATELIMIT_LIMIT)).isEqualTo(1L);
+        assertThat(res.headers().getLong(RateLimit.RATELIMIT_REMAINING)).isZero();
+
+        // Another tenant is not throttled.
+        assertThat(client.execute(tenantHeaders("bar")).aggregate().get().status()).isEqualTo(HttpStatus.OK);
+    }
+
+    private static HttpHeaders tenantHeaders(String tenantId) {
+        return HttpHeaders.of(HttpMethod.GET, "/http-token-bucket")
+                          .set(HttpHeaderNames.of("x-tenant-id"), tenantId);
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.throttling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.google.common.testing.FakeTicker;
+
+import com.linecorp.armeria.common.Request;
+
+public class TokenBucketThrottlingStrategyTest {
+
+    @Test
+    public void burstAndRefill() {
+        final FakeTicker ticker = new FakeTicker();
+        final TokenBucketThrottlingStrategy<Request> strategy =
+                new TokenBucketThrottlingStrategyBuilder<>(10).burst(3).ticker(ticker).build();
+
+        // A full bucket accepts a burst.
+        for (int i = 0; i < 3; i++) {
+            assertThat(strategy.tryAcquire("a")).isNull();
+        }
+
+        final RateLimit rejected = strategy.tryAcquire("a");
+        assertThat(rejected).isNotNull();
+        assertThat(rejected.limit()).isEqualTo(3);
+        assertThat(rejected.remaining()).isZero();
+        assertThat(rejected.retryAfterNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(rejected.resetNanos()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(300));
+
+        // One token is refilled every 100 milliseconds.
+        ticker.advance(99, TimeUnit.MILLISECONDS);
+        assertThat(strategy.tryAcquire("a")).isNotNull();
+        ticker.advance(1, TimeUnit.MILLISECONDS);
+        assertThat(strategy.tryAcquire("a")).isNull();
+        assertThat(strategy.tryAcquire("a")).isNotNull();
+
+        // The bucket does not hold more than the burst.
+        ticker.advance(1, TimeUnit.SECONDS);
+        for (int i = 0; i < 3; i++) {
+            assertThat(strategy.tryAcquire("a")).isNull();
+        }
+        assertThat(strategy.tryAcquire("a")).isNotNull();
+    }
+
+    @Test
+    public void partitionedByKey() {
+        final FakeTicker ticker = new FakeTicker();
+        final TokenBucketThrottlingStrategy<Request> strategy =
+                new TokenBucketThrottlingStrategyBuilder<>(1).ticker(ticker).build();
+
+        assertThat(strategy.tryAcquire("a")).isNull();
+        assertThat(strategy.tryAcquire("a")).isNotNull();
+        assertThat(strategy.tryAcquire("b")).isNull();
+        assertThat(strategy.tryAcquire(null)).isNull();
+        assertThat(strategy.tryAcquire(null)).isNotNull();
+    }
+
+    @Test
+    public void idleKeysEvicted() {
+        final FakeTicker ticker = new FakeTicker();
+        final TokenBucketThrottlingStrategy<Request> strategy =
+                new TokenBucketThrottlingStrategyBuilder<>(1).idleTimeoutMillis(5000).ticker(ticker).build();
+
+        strategy.tryAcquire("a");
+        strategy.tryAcquire("b");
+        assertThat(strategy.numKeys()).isEqualTo(2);
+
+        ticker.advance(5001, TimeUnit.MILLISECONDS);
+        assertThat(strategy.numKeys()).isZero();
+    }
+}
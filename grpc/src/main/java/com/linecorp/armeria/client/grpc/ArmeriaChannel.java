@@ -41,6 +41,7 @@ import com.linecorp.armeria.common.logging.RequestLogAvailability;
 import com.linecorp.armeria.common.util.ReleasableHolder;
 import com.linecorp.armeria.internal.grpc.ArmeriaMessageFramer;
 import com.linecorp.armeria.internal.grpc.GrpcLogUtil;
+import com.linecorp.armeria.internal.grpc.WatermarkFlowController;
 
 import io.grpc.CallOptions;
 import io.grpc.Channel;
@@ -73,6 +74,8 @@ class ArmeriaChannel extends Channel implements ClientBuilderParams {
     @Nullable
     private final MessageMarshaller jsonMarshaller;
     private final String advertisedEncodingsHeader;
+    private final int lowWatermarkBytes;
+    private final int highWatermarkBytes;
 
     ArmeriaChannel(ClientBuilderParams params,
                    Client<HttpRequest, HttpResponse> httpClient,
@@ -91,6 +94,11 @@ class ArmeriaChannel extends Channel implements ClientBuilderParams {
 
         advertisedEncodingsHeader = String.join(
                 ",", DecompressorRegistry.getDefaultInstance().getAdvertisedMessageEncodings());
+        lowWatermarkBytes = options().getOrElse(GrpcClientOptions.WRITE_LOW_WATERMARK_BYTES,
+                                                WatermarkFlowController.DEFAULT_LOW_WATERMARK_BYTES);
+        highWatermarkBytes = options().getOrElse(GrpcClientOptions.WRITE_HIGH_WATERMARK_BYTES,
+                                                 WatermarkFlowController.DEFAULT_HIGH_WATERMARK_BYTES);
+        WatermarkFlowController.validateWatermarks(lowWatermarkBytes, highWatermarkBytes);
     }
 
     @Override
@@ -121,7 +129,9 @@ class ArmeriaChannel extends Channel implements ClientBuilderParams {
                 serializationFormat,
                 jsonMarshaller,
                 options().getOrElse(GrpcClientOptions.UNSAFE_WRAP_RESPONSE_BUFFERS, false),
-                advertisedEncodingsHeader);
+                advertisedEncodingsHeader,
+                lowWatermarkBytes,
+                highWatermarkBytes);
     }
 
     @Override
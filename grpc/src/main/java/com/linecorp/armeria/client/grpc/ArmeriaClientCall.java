@@ -22,7 +22,6 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import javax.annotation.Nullable;
 
@@ -47,6 +46,7 @@ import com.linecorp.armeria.internal.grpc.GrpcMessageMarshaller;
 import com.linecorp.armeria.internal.grpc.HttpStreamReader;
 import com.linecorp.armeria.internal.grpc.TimeoutHeaderUtil;
 import com.linecorp.armeria.internal.grpc.TransportStatusListener;
+import com.linecorp.armeria.internal.grpc.WatermarkFlowController;
 import com.linecorp.armeria.unsafe.grpc.GrpcUnsafeBufferUtil;
 
 import io.grpc.CallOptions;
@@ -74,10 +74,6 @@ class ArmeriaClientCall<I, O> extends ClientCall<I, O>
 
     private static final Logger logger = LoggerFactory.getLogger(ArmeriaClientCall.class);
 
-    @SuppressWarnings("rawtypes")
-    private static final AtomicIntegerFieldUpdater<ArmeriaClientCall> pendingMessagesUpdater =
-            AtomicIntegerFieldUpdater.newUpdater(ArmeriaClientCall.class, "pendingMessages");
-
     private final ClientRequestContext ctx;
     private final Client<HttpRequest, HttpResponse> httpClient;
     private final HttpRequestWriter req;
@@ -91,6 +87,7 @@ class ArmeriaClientCall<I, O> extends ClientCall<I, O>
     @Nullable
     private final Executor executor;
     private final String advertisedEncodingsHeader;
+    private final WatermarkFlowController flowController;
 
     // Effectively final, only set once during start()
     @Nullable
@@ -98,8 +95,6 @@ class ArmeriaClientCall<I, O> extends ClientCall<I, O>
 
     private boolean cancelCalled;
 
-    private volatile int pendingMessages;
-
     ArmeriaClientCall(
             ClientRequestContext ctx,
             Client<HttpRequest, HttpResponse> httpClient,
@@ -113,7 +108,9 @@ class ArmeriaClientCall<I, O> extends ClientCall<I, O>
             SerializationFormat serializationFormat,
             @Nullable MessageMarshaller jsonMarshaller,
             boolean unsafeWrapResponseBuffers,
-            String advertisedEncodingsHeader) {
+            String advertisedEncodingsHeader,
+            int lowWatermarkBytes,
+            int highWatermarkBytes) {
         this.ctx = ctx;
         this.httpClient = httpClient;
         this.req = req;
@@ -131,6 +128,7 @@ class ArmeriaClientCall<I, O> extends ClientCall<I, O>
                 new ArmeriaMessageDeframer(this, maxInboundMessageSizeBytes, ctx.alloc()),
                 this);
         executor = callOptions.getExecutor();
+        flowController = new WatermarkFlowController(lowWatermarkBytes, highWatermarkBytes, this::onWritable);
     }
 
     @Override
@@ -211,37 +209,45 @@ class ArmeriaClientCall<I, O> extends ClientCall<I, O>
 
     @Override
     public void sendMessage(I message) {
-        pendingMessagesUpdater.incrementAndGet(this);
+        final int size = flowController.beforeWrite(message);
         if (ctx.eventLoop().inEventLoop()) {
-            doSendMessage(message);
+            doSendMessage(message, size);
         } else {
-            ctx.eventLoop().submit(() -> doSendMessage(message));
+            ctx.eventLoop().submit(() -> doSendMessage(message, size));
         }
     }
 
     @Override
     public boolean isReady() {
-        return pendingMessages == 0;
+        return flowController.isWritable();
     }
 
-    private void doSendMessage(I message) {
+    private void doSendMessage(I message, int size) {
         try {
             final ByteBuf serialized = marshaller.serializeRequest(message);
             req.write(messageFramer.writePayload(serialized));
-            req.onDemand(() -> {
-                if (pendingMessagesUpdater.decrementAndGet(this) == 0) {
-                    try {
-                        listener.onReady();
-                    } catch (Throwable t) {
-                        close(Status.fromThrowable(t));
-                    }
-                }
-            });
+            req.onDemand(() -> flowController.afterWrite(size));
         } catch (Throwable t) {
             cancel(null, t);
         }
     }
 
+    private void onWritable() {
+        if (ctx.eventLoop().inEventLoop()) {
+            invokeOnReady();
+        } else {
+            ctx.eventLoop().execute(this::invokeOnReady);
+        }
+    }
+
+    private void invokeOnReady() {
+        try {
+            listener.onReady();
+        } catch (Throwable t) {
+            close(Status.fromThrowable(t));
+        }
+    }
+
     @Override
     public synchronized void setMessageCompression(boolean enabled) {
         messageFramer.setMessageCompression(enabled);
@@ -22,6 +22,8 @@ import com.linecorp.armeria.client.ClientOption;
 import com.linecorp.armeria.common.RequestContext;
 import com.linecorp.armeria.unsafe.grpc.GrpcUnsafeBufferUtil;
 
+import io.grpc.ClientCall;
+
 /**
  * {@link ClientOption}s to control gRPC-specific behavior.
  */
@@ -39,6 +41,24 @@ public final class GrpcClientOptions {
     public static final ClientOption<Integer> MAX_OUTBOUND_MESSAGE_SIZE_BYTES = ClientOption.valueOf(
             "MAX_OUTBOUND_MESSAGE_SIZE_BYTES");
 
+    /**
+     * The low watermark, in bytes, of the messages sent in a request. A call which is not ready because of
+     * {@link #WRITE_HIGH_WATERMARK_BYTES} becomes ready again when the size of the messages which have been
+     * sent but not yet written to the connection drops to or below this value. If not set, 32 KiB is used.
+     */
+    public static final ClientOption<Integer> WRITE_LOW_WATERMARK_BYTES = ClientOption.valueOf(
+            "WRITE_LOW_WATERMARK_BYTES");
+
+    /**
+     * The high watermark, in bytes, of the messages sent in a request. A call is not ready, i.e.
+     * {@link ClientCall#isReady()} returns {@code false}, while the size of the messages which have been
+     * sent but not yet written to the connection exceeds this value. A message is written to the
+     * connection only when both the flow control window of the HTTP/2 stream and the outbound buffer of
+     * the connection allow it. If not set, 64 KiB is used.
+     */
+    public static final ClientOption<Integer> WRITE_HIGH_WATERMARK_BYTES = ClientOption.valueOf(
+            "WRITE_HIGH_WATERMARK_BYTES");
+
     /**
      * Enables unsafe retention of response buffers. Can improve performance when working with very large
      * (i.e., several megabytes) payloads.
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal.grpc;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+import com.google.protobuf.MessageLite;
+
+/**
+ * Decides whether a gRPC call is ready to send more messages, based on the number of bytes which have been
+ * sent by the call but not yet taken by the transport. The transport takes the next message only after
+ * the previous one has been written, i.e. when both the HTTP/2 stream window and the outbound buffer of
+ * the channel allow it, so the pending bytes reflect both of them.
+ *
+ * <p>A call becomes not ready when the pending bytes exceed the high watermark, and becomes ready again
+ * when they drop to or below the low watermark, which is when the {@code onWritable} callback is invoked.
+ */
+public final class WatermarkFlowController {
+
+    /**
+     * The default low watermark in bytes.
+     */
+    public static final int DEFAULT_LOW_WATERMARK_BYTES = 32 * 1024;
+
+    /**
+     * The default high watermark in bytes.
+     */
+    public static final int DEFAULT_HIGH_WATERMARK_BYTES = 64 * 1024;
+
+    // The length of the header of a gRPC message frame.
+    private static final int HEADER_LENGTH = 5;
+
+    private static final AtomicLongFieldUpdater<WatermarkFlowController> pendingBytesUpdater =
+            AtomicLongFieldUpdater.newUpdater(WatermarkFlowController.class, "pendingBytes");
+
+    private static final AtomicIntegerFieldUpdater<WatermarkFlowController> unwritableUpdater =
+            AtomicIntegerFieldUpdater.newUpdater(WatermarkFlowController.class, "unwritable");
+
+    /**
+     * Validates the specified watermarks.
+     *
+     * @throws IllegalArgumentException if the watermarks are negative or {@code low} is greater than
+     *                                  {@code high}
+     */
+    public static void validateWatermarks(int lowWatermarkBytes, int highWatermarkBytes) {
+        checkArgument(lowWatermarkBytes >= 0,
+                      "lowWatermarkBytes: %s (expected: >= 0)", lowWatermarkBytes);
+        checkArgument(highWatermarkBytes >= lowWatermarkBytes,
+                      "highWatermarkBytes: %s (expected: >= lowWatermarkBytes(%s))",
+                      highWatermarkBytes, lowWatermarkBytes);
+    }
+
+    private final int lowWatermarkBytes;
+    private final int highWatermarkBytes;
+    private final Runnable onWritable;
+
+    private volatile long pendingBytes;
+    private volatile int unwritable;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param onWritable the callback invoked when the call becomes ready again after it was not ready.
+     *                   It may be invoked from any thread which calls {@link #beforeWrite(Object)} or
+     *                   {@link #afterWrite(int)}.
+     */
+    public WatermarkFlowController(int lowWatermarkBytes, int highWatermarkBytes, Runnable onWritable) {
+        validateWatermarks(lowWatermarkBytes, highWatermarkBytes);
+        this.lowWatermarkBytes = lowWatermarkBytes;
+        this.highWatermarkBytes = highWatermarkBytes;
+        this.onWritable = requireNonNull(onWritable, "onWritable");
+    }
+
+    /**
+     * Returns whether the pending bytes have not exceeded the high watermark since they dropped to or below
+     * the low watermark.
+     */
+    public boolean isWritable() {
+        return unwritable == 0;
+    }
+
+    /**
+     * Returns the number of bytes which have been sent but not yet taken by the transport.
+     */
+    public long pendingBytes() {
+        return pendingBytes;
+    }
+
+    /**
+     * Adds the estimated size of the specified message to the pending bytes. This must be called when
+     * a message is sent, before it is serialized, so that a sender which sends messages while
+     * {@link #isWritable()} returns {@code true} stops promptly.
+     *
+     * @return the estimated size, which must be given to {@link #afterWrite(int)} later
+     */
+    public int beforeWrite(Object message) {
+        final int size = estimateSize(message);
+        final long newPendingBytes = pendingBytesUpdater.addAndGet(this, size);
+        if (newPendingBytes > highWatermarkBytes && unwritableUpdater.compareAndSet(this, 0, 1)) {
+            // The transport might have taken all the pending messages before the flag is set.
+            if (pendingBytes <= lowWatermarkBytes) {
+                setWritable();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Removes the size of a message taken by the transport from the pending bytes.
+     *
+     * @param size the value returned by {@link #beforeWrite(Object)}
+     */
+    public void afterWrite(int size) {
+        final long newPendingBytes = pendingBytesUpdater.addAndGet(this, -size);
+        if (newPendingBytes <= lowWatermarkBytes && unwritable != 0) {
+            setWritable();
+        }
+    }
+
+    private void setWritable() {
+        if (unwritableUpdater.compareAndSet(this, 1, 0)) {
+            onWritable.run();
+        }
+    }
+
+    private int estimateSize(Object message) {
+        if (message instanceof MessageLite) {
+            // The size is memoized by the message, so it is not computed again when serializing.
+            return HEADER_LENGTH + ((MessageLite) message).getSerializedSize();
+        }
+        // Cannot estimate without serializing; let the message alone exceed the high watermark.
+        return (int) Math.min(highWatermarkBytes + 1L, Integer.MAX_VALUE);
+    }
+}
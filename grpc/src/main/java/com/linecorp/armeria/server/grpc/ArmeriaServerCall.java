@@ -27,7 +27,8 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import javax.annotation.Nullable;
 
@@ -58,6 +59,7 @@ import com.linecorp.armeria.internal.grpc.GrpcMessageMarshaller;
 import com.linecorp.armeria.internal.grpc.HttpStreamReader;
 import com.linecorp.armeria.internal.grpc.StatusMessageEscaper;
 import com.linecorp.armeria.internal.grpc.TransportStatusListener;
+import com.linecorp.armeria.internal.grpc.WatermarkFlowController;
 import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.unsafe.ByteBufHttpData;
 import com.linecorp.armeria.unsafe.grpc.GrpcUnsafeBufferUtil;
@@ -86,10 +88,6 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
 
     private static final Logger logger = LoggerFactory.getLogger(ArmeriaServerCall.class);
 
-    @SuppressWarnings("rawtypes")
-    private static final AtomicIntegerFieldUpdater<ArmeriaServerCall> pendingMessagesUpdater =
-            AtomicIntegerFieldUpdater.newUpdater(ArmeriaServerCall.class, "pendingMessages");
-
     // Only most significant bit of a byte is set.
     @VisibleForTesting
     static final byte TRAILERS_FRAME_HEADER = (byte) (1 << 7);
@@ -111,6 +109,10 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
     private final GrpcMessageMarshaller<I, O> marshaller;
     private final boolean unsafeWrapRequestBuffers;
     private final String advertisedEncodingsHeader;
+    // A sequential executor which invokes the listener, or null to invoke it from the event loop.
+    @Nullable
+    private final Executor listenerExecutor;
+    private final WatermarkFlowController flowController;
 
     // Only set once.
     @Nullable
@@ -131,8 +133,6 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
     private boolean sendHeadersCalled;
     private boolean closeCalled;
 
-    private volatile int pendingMessages;
-
     ArmeriaServerCall(HttpHeaders clientHeaders,
                       MethodDescriptor<I, O> method,
                       CompressorRegistry compressorRegistry,
@@ -144,7 +144,10 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
                       SerializationFormat serializationFormat,
                       MessageMarshaller jsonMarshaller,
                       boolean unsafeWrapRequestBuffers,
-                      String advertisedEncodingsHeader) {
+                      String advertisedEncodingsHeader,
+                      @Nullable Executor listenerExecutor,
+                      int lowWatermarkBytes,
+                      int highWatermarkBytes) {
         requireNonNull(clientHeaders, "clientHeaders");
         this.method = requireNonNull(method, "method");
         this.ctx = requireNonNull(ctx, "ctx");
@@ -167,6 +170,8 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
                                                  unsafeWrapRequestBuffers);
         this.unsafeWrapRequestBuffers = unsafeWrapRequestBuffers;
         this.advertisedEncodingsHeader = advertisedEncodingsHeader;
+        this.listenerExecutor = listenerExecutor;
+        flowController = new WatermarkFlowController(lowWatermarkBytes, highWatermarkBytes, this::onWritable);
 
         res.completionFuture().handleAsync(voidFunction((unused, t) -> {
             if (!closeCalled) {
@@ -228,29 +233,21 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
 
     @Override
     public void sendMessage(O message) {
-        pendingMessagesUpdater.incrementAndGet(this);
+        final int size = flowController.beforeWrite(message);
         if (ctx.eventLoop().inEventLoop()) {
-            doSendMessage(message);
+            doSendMessage(message, size);
         } else {
-            ctx.eventLoop().submit(() -> doSendMessage(message));
+            ctx.eventLoop().submit(() -> doSendMessage(message, size));
         }
     }
 
-    private void doSendMessage(O message) {
+    private void doSendMessage(O message, int size) {
         checkState(sendHeadersCalled, "sendHeaders has not been called");
         checkState(!closeCalled, "call is closed");
 
         try {
             res.write(messageFramer.writePayload(marshaller.serializeResponse(message)));
-            res.onDemand(() -> {
-                if (pendingMessagesUpdater.decrementAndGet(this) == 0) {
-                    try {
-                        listener.onReady();
-                    } catch (Throwable t) {
-                        close(Status.fromThrowable(t), EMPTY_METADATA);
-                    }
-                }
-            });
+            res.onDemand(() -> flowController.afterWrite(size));
         } catch (RuntimeException e) {
             close(Status.fromThrowable(e), EMPTY_METADATA);
             throw e;
@@ -262,7 +259,15 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
 
     @Override
     public boolean isReady() {
-        return !closeCalled && pendingMessages == 0;
+        return !closeCalled && flowController.isWritable();
+    }
+
+    private void onWritable() {
+        if (ctx.eventLoop().inEventLoop()) {
+            invokeListener(this::invokeOnReady);
+        } else {
+            ctx.eventLoop().execute(() -> invokeListener(this::invokeOnReady));
+        }
     }
 
     @Override
@@ -361,22 +366,14 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
             GrpcUnsafeBufferUtil.storeBuffer(message.buf(), request, ctx);
         }
 
-        try (SafeCloseable ignored = ctx.push()) {
-            listener.onMessage(request);
-        } catch (Throwable t) {
-            close(Status.fromThrowable(t), EMPTY_METADATA);
-        }
+        invokeListener(() -> invokeOnMessage(request));
     }
 
     @Override
     public void endOfStream() {
         clientStreamClosed = true;
         if (!closeCalled) {
-            try (SafeCloseable ignored = ctx.push()) {
-                listener.onHalfClose();
-            } catch (Throwable t) {
-                close(Status.fromThrowable(t), EMPTY_METADATA);
-            }
+            invokeListener(this::invokeOnHalfClose);
         }
     }
 
@@ -402,25 +399,10 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
             messageFramer.close();
             ctx.logBuilder().responseContent(GrpcLogUtil.rpcResponse(newStatus), null);
             if (newStatus.isOk()) {
-                try (SafeCloseable ignored = ctx.push()) {
-                    listener.onComplete();
-                } catch (Throwable t) {
-                    // This should not be possible with normal generated stubs which do not implement
-                    // onComplete, but is conceivable for a completely manually constructed stub.
-                    logger.warn("Error in gRPC onComplete handler.", t);
-                }
+                invokeListener(this::invokeOnComplete);
             } else {
                 cancelled = true;
-                try (SafeCloseable ignored = ctx.push()) {
-                    listener.onCancel();
-                } catch (Throwable t) {
-                    if (!closeCalled) {
-                        // A custom error when dealing with client cancel or transport issues should be
-                        // returned. We have already closed the listener, so it will not receive any more
-                        // callbacks as designed.
-                        close(Status.fromThrowable(t), EMPTY_METADATA);
-                    }
-                }
+                invokeListener(this::invokeOnCancel);
                 // Transport error, not business logic error, so reset the stream.
                 if (!closeCalled) {
                     res.close(newStatus.asException());
@@ -429,6 +411,70 @@ class ArmeriaServerCall<I, O> extends ServerCall<I, O>
         }
     }
 
+    /**
+     * Runs the specified task which invokes the {@link ServerCall.Listener} from the event loop or
+     * the {@link #listenerExecutor}.
+     */
+    private void invokeListener(Runnable task) {
+        if (listenerExecutor == null) {
+            task.run();
+            return;
+        }
+
+        try {
+            listenerExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            close(Status.UNAVAILABLE.withCause(e), EMPTY_METADATA);
+        }
+    }
+
+    private void invokeOnMessage(I request) {
+        try (SafeCloseable ignored = ctx.push()) {
+            listener.onMessage(request);
+        } catch (Throwable t) {
+            close(Status.fromThrowable(t), EMPTY_METADATA);
+        }
+    }
+
+    private void invokeOnHalfClose() {
+        try (SafeCloseable ignored = ctx.push()) {
+            listener.onHalfClose();
+        } catch (Throwable t) {
+            close(Status.fromThrowable(t), EMPTY_METADATA);
+        }
+    }
+
+    private void invokeOnReady() {
+        try (SafeCloseable ignored = ctx.push()) {
+            listener.onReady();
+        } catch (Throwable t) {
+            close(Status.fromThrowable(t), EMPTY_METADATA);
+        }
+    }
+
+    private void invokeOnComplete() {
+        try (SafeCloseable ignored = ctx.push()) {
+            listener.onComplete();
+        } catch (Throwable t) {
+            // This should not be possible with normal generated stubs which do not implement
+            // onComplete, but is conceivable for a completely manually constructed stub.
+            logger.warn("Error in gRPC onComplete handler.", t);
+        }
+    }
+
+    private void invokeOnCancel() {
+        try (SafeCloseable ignored = ctx.push()) {
+            listener.onCancel();
+        } catch (Throwable t) {
+            if (!closeCalled) {
+                // A custom error when dealing with client cancel or transport issues should be
+                // returned. We have already closed the listener, so it will not receive any more
+                // callbacks as designed.
+                close(Status.fromThrowable(t), EMPTY_METADATA);
+            }
+        }
+    }
+
     static HttpHeaders statusToTrailers(Status status, boolean headersSent) {
         final HttpHeaders trailers;
         if (headersSent) {
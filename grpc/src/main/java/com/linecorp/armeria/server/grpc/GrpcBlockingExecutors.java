@@ -0,0 +1,97 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.grpc;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.linecorp.armeria.server.ServiceRequestContext;
+
+/**
+ * Provides the factories of the {@link Executor} which invokes the gRPC handlers of the methods
+ * configured via {@link GrpcServiceBuilder#useBlockingTaskExecutor(boolean)}.
+ *
+ * @see GrpcServiceBuilder#blockingTaskExecutorFactory(Function)
+ */
+public final class GrpcBlockingExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrpcBlockingExecutors.class);
+
+    private static final Function<ServiceRequestContext, Executor> BLOCKING_TASK_EXECUTOR =
+            ServiceRequestContext::blockingTaskExecutor;
+
+    @Nullable
+    private static final ExecutorService virtualThreadExecutor = newVirtualThreadExecutor();
+
+    /**
+     * Returns the factory which returns {@link ServiceRequestContext#blockingTaskExecutor()}.
+     * This is the default factory.
+     */
+    public static Function<ServiceRequestContext, Executor> blockingTaskExecutor() {
+        return BLOCKING_TASK_EXECUTOR;
+    }
+
+    /**
+     * Returns the factory which returns an {@link Executor} that starts a new virtual thread per task
+     * if the current JVM supports virtual threads. Otherwise, the returned factory behaves the same with
+     * {@link #blockingTaskExecutor()}.
+     *
+     * @see #isVirtualThreadAvailable()
+     */
+    public static Function<ServiceRequestContext, Executor> virtualThreadsIfAvailable() {
+        final ExecutorService virtualThreadExecutor = GrpcBlockingExecutors.virtualThreadExecutor;
+        if (virtualThreadExecutor == null) {
+            return BLOCKING_TASK_EXECUTOR;
+        }
+        return unused -> virtualThreadExecutor;
+    }
+
+    /**
+     * Returns whether the current JVM supports virtual threads.
+     */
+    public static boolean isVirtualThreadAvailable() {
+        return virtualThreadExecutor != null;
+    }
+
+    @Nullable
+    private static ExecutorService newVirtualThreadExecutor() {
+        final Method factoryMethod;
+        try {
+            factoryMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            // Virtual threads are not available in this JVM.
+            return null;
+        }
+
+        try {
+            return (ExecutorService) factoryMethod.invoke(null);
+        } catch (Throwable t) {
+            logger.debug("Failed to create a virtual thread executor; using the blocking task executor", t);
+            return null;
+        }
+    }
+
+    private GrpcBlockingExecutors() {}
+}
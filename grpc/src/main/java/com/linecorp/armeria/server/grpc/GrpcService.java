@@ -21,7 +21,12 @@ import static java.util.Objects.requireNonNull;
 
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import javax.annotation.Nullable;
 
@@ -29,6 +34,9 @@ import org.curioswitch.common.protobuf.json.MessageMarshaller;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.MoreExecutors;
+
 import com.linecorp.armeria.common.HttpHeaders;
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
@@ -36,6 +44,8 @@ import com.linecorp.armeria.common.HttpResponseWriter;
 import com.linecorp.armeria.common.HttpStatus;
 import com.linecorp.armeria.common.MediaType;
 import com.linecorp.armeria.common.SerializationFormat;
+import com.linecorp.armeria.common.metric.MeterIdPrefix;
+import com.linecorp.armeria.common.metric.MoreMeters;
 import com.linecorp.armeria.common.util.SafeCloseable;
 import com.linecorp.armeria.internal.grpc.GrpcHeaderNames;
 import com.linecorp.armeria.internal.grpc.GrpcJsonUtil;
@@ -52,9 +62,12 @@ import io.grpc.DecompressorRegistry;
 import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
 import io.grpc.ServerMethodDefinition;
 import io.grpc.ServerServiceDefinition;
 import io.grpc.Status;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 /**
  * A {@link AbstractHttpService} that implements the gRPC wire protocol. Interfaces and binding logic of gRPC
@@ -91,8 +104,13 @@ public final class GrpcService extends AbstractHttpService
     private final int maxOutboundMessageSizeBytes;
     private final boolean unsafeWrapRequestBuffers;
     private final String advertisedEncodingsHeader;
+    private final Set<String> blockingMethods;
+    private final Function<? super ServiceRequestContext, ? extends Executor> blockingTaskExecutorFactory;
+    private final int lowWatermarkBytes;
+    private final int highWatermarkBytes;
 
     private int maxInboundMessageSizeBytes;
+    private Map<String, Timer> queueLatencyTimers = ImmutableMap.of();
 
     GrpcService(HandlerRegistry registry,
                 Set<PathMapping> pathMappings,
@@ -101,7 +119,11 @@ public final class GrpcService extends AbstractHttpService
                 Set<SerializationFormat> supportedSerializationFormats,
                 int maxOutboundMessageSizeBytes,
                 boolean unsafeWrapRequestBuffers,
-                int maxInboundMessageSizeBytes) {
+                int maxInboundMessageSizeBytes,
+                Set<String> blockingMethods,
+                Function<? super ServiceRequestContext, ? extends Executor> blockingTaskExecutorFactory,
+                int lowWatermarkBytes,
+                int highWatermarkBytes) {
         this.registry = requireNonNull(registry, "registry");
         this.pathMappings = requireNonNull(pathMappings, "pathMappings");
         this.decompressorRegistry = requireNonNull(decompressorRegistry, "decompressorRegistry");
@@ -111,6 +133,11 @@ public final class GrpcService extends AbstractHttpService
         this.maxOutboundMessageSizeBytes = maxOutboundMessageSizeBytes;
         this.unsafeWrapRequestBuffers = unsafeWrapRequestBuffers;
         this.maxInboundMessageSizeBytes = maxInboundMessageSizeBytes;
+        this.blockingMethods = requireNonNull(blockingMethods, "blockingMethods");
+        this.blockingTaskExecutorFactory =
+                requireNonNull(blockingTaskExecutorFactory, "blockingTaskExecutorFactory");
+        this.lowWatermarkBytes = lowWatermarkBytes;
+        this.highWatermarkBytes = highWatermarkBytes;
 
         advertisedEncodingsHeader = String.join(",", decompressorRegistry.getAdvertisedMessageEncodings());
     }
@@ -155,7 +182,7 @@ public final class GrpcService extends AbstractHttpService
         }
 
         final HttpResponseWriter res = HttpResponse.streaming();
-        final ArmeriaServerCall<?, ?> call = startCall(
+        final ArmeriaServerCall<?, ?> call = newCall(
                 methodName, method, ctx, req.headers(), res, serializationFormat);
         if (call != null) {
             ctx.setRequestTimeoutHandler(() -> call.close(Status.DEADLINE_EXCEEDED, EMPTY_METADATA));
@@ -164,14 +191,28 @@ public final class GrpcService extends AbstractHttpService
         return res;
     }
 
+    /**
+     * Creates a new {@link ArmeriaServerCall} and starts it. The call is started from the event loop,
+     * or from the listener executor if the method is configured to use the blocking task executor,
+     * in which case the returned call may fail to start later.
+     *
+     * @return the new {@link ArmeriaServerCall}, or {@code null} if the call failed to start
+     */
     @Nullable
-    private <I, O> ArmeriaServerCall<I, O> startCall(
+    private <I, O> ArmeriaServerCall<I, O> newCall(
             String fullMethodName,
             ServerMethodDefinition<I, O> methodDef,
             ServiceRequestContext ctx,
             HttpHeaders headers,
             HttpResponseWriter res,
             SerializationFormat serializationFormat) {
+        final Executor listenerExecutor;
+        if (blockingMethods.contains(fullMethodName)) {
+            listenerExecutor = newListenerExecutor(fullMethodName, ctx);
+        } else {
+            listenerExecutor = null;
+        }
+
         final ArmeriaServerCall<I, O> call = new ArmeriaServerCall<>(
                 headers,
                 methodDef.getMethodDescriptor(),
@@ -184,7 +225,53 @@ public final class GrpcService extends AbstractHttpService
                 serializationFormat,
                 jsonMarshaller,
                 unsafeWrapRequestBuffers,
-                advertisedEncodingsHeader);
+                advertisedEncodingsHeader,
+                listenerExecutor,
+                lowWatermarkBytes,
+                highWatermarkBytes);
+
+        if (listenerExecutor == null) {
+            return startCall(fullMethodName, methodDef, ctx, call) ? call : null;
+        }
+
+        try {
+            // The listener executor runs the tasks one by one, so the tasks which invoke the listener
+            // are always run after the listener is set.
+            listenerExecutor.execute(() -> startCall(fullMethodName, methodDef, ctx, call));
+        } catch (RejectedExecutionException e) {
+            call.setListener(new EmptyListener<>());
+            call.close(Status.UNAVAILABLE.withCause(e), EMPTY_METADATA);
+            return null;
+        }
+        return call;
+    }
+
+    private Executor newListenerExecutor(String fullMethodName, ServiceRequestContext ctx) {
+        final Executor executor = MoreExecutors.newSequentialExecutor(
+                requireNonNull(blockingTaskExecutorFactory.apply(ctx),
+                               "blockingTaskExecutorFactory.apply() returned null"));
+        final Timer queueLatencyTimer = queueLatencyTimers.get(fullMethodName);
+        if (queueLatencyTimer == null) {
+            return executor;
+        }
+
+        return task -> {
+            final long scheduledNanos = System.nanoTime();
+            executor.execute(() -> {
+                queueLatencyTimer.record(System.nanoTime() - scheduledNanos, TimeUnit.NANOSECONDS);
+                task.run();
+            });
+        };
+    }
+
+    /**
+     * Invokes the {@link ServerCallHandler} of the specified method and sets the returned listener to the
+     * specified {@link ArmeriaServerCall}.
+     *
+     * @return {@code true} if the call has been started successfully
+     */
+    private static <I, O> boolean startCall(String fullMethodName, ServerMethodDefinition<I, O> methodDef,
+                                            ServiceRequestContext ctx, ArmeriaServerCall<I, O> call) {
         final ServerCall.Listener<I> listener;
         try (SafeCloseable ignored = ctx.push()) {
             listener = methodDef.getServerCallHandler().startCall(call, EMPTY_METADATA);
@@ -194,7 +281,7 @@ public final class GrpcService extends AbstractHttpService
             logger.warn(
                     "Exception thrown from streaming request stub method before processing any request data" +
                     " - this is likely a bug in the stub implementation.");
-            return null;
+            return false;
         }
         if (listener == null) {
             // This will never happen for normal generated stubs but could conceivably happen for manually
@@ -203,7 +290,7 @@ public final class GrpcService extends AbstractHttpService
                     "startCall() returned a null listener for method " + fullMethodName);
         }
         call.setListener(listener);
-        return call;
+        return true;
     }
 
     @Override
@@ -211,6 +298,17 @@ public final class GrpcService extends AbstractHttpService
         if (maxInboundMessageSizeBytes == NO_MAX_INBOUND_MESSAGE_SIZE) {
             maxInboundMessageSizeBytes = (int) cfg.server().config().defaultMaxRequestLength();
         }
+
+        if (!blockingMethods.isEmpty()) {
+            final MeterRegistry meterRegistry = cfg.server().meterRegistry();
+            final MeterIdPrefix idPrefix = new MeterIdPrefix("armeria.server.grpc.blockingTaskExecutor");
+            final ImmutableMap.Builder<String, Timer> timers = ImmutableMap.builder();
+            for (String methodName : blockingMethods) {
+                timers.put(methodName, MoreMeters.newTimer(meterRegistry, idPrefix.name("queueLatency"),
+                                                           idPrefix.tags("method", methodName)));
+            }
+            queueLatencyTimers = timers.build();
+        }
     }
 
     @Override
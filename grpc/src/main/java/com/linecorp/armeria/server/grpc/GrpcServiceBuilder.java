@@ -20,7 +20,11 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
 
 import javax.annotation.Nullable;
 
@@ -33,9 +37,11 @@ import com.linecorp.armeria.common.RequestContext;
 import com.linecorp.armeria.common.SerializationFormat;
 import com.linecorp.armeria.common.grpc.GrpcSerializationFormats;
 import com.linecorp.armeria.internal.grpc.ArmeriaMessageFramer;
+import com.linecorp.armeria.internal.grpc.WatermarkFlowController;
 import com.linecorp.armeria.server.PathMapping;
 import com.linecorp.armeria.server.ServerBuilder;
 import com.linecorp.armeria.server.ServerConfig;
+import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.server.ServiceWithPathMappings;
 import com.linecorp.armeria.server.encoding.HttpEncodingService;
 import com.linecorp.armeria.unsafe.grpc.GrpcUnsafeBufferUtil;
@@ -43,7 +49,9 @@ import com.linecorp.armeria.unsafe.grpc.GrpcUnsafeBufferUtil;
 import io.grpc.BindableService;
 import io.grpc.CompressorRegistry;
 import io.grpc.DecompressorRegistry;
+import io.grpc.MethodDescriptor;
 import io.grpc.ServerServiceDefinition;
+import io.grpc.stub.ServerCallStreamObserver;
 
 /**
  * Constructs a {@link GrpcService} to serve gRPC services from within Armeria.
@@ -71,6 +79,17 @@ public final class GrpcServiceBuilder {
 
     private boolean unsafeWrapRequestBuffers;
 
+    private int lowWatermarkBytes = WatermarkFlowController.DEFAULT_LOW_WATERMARK_BYTES;
+
+    private int highWatermarkBytes = WatermarkFlowController.DEFAULT_HIGH_WATERMARK_BYTES;
+
+    private boolean useBlockingTaskExecutor;
+
+    private final Map<String, Boolean> blockingTaskExecutorOverrides = new HashMap<>();
+
+    private Function<? super ServiceRequestContext, ? extends Executor> blockingTaskExecutorFactory =
+            GrpcBlockingExecutors.blockingTaskExecutor();
+
     /**
      * Adds a gRPC {@link ServerServiceDefinition} to this {@link GrpcServiceBuilder}, such as
      * what's returned by {@link BindableService#bindService()}.
@@ -156,6 +175,22 @@ public final class GrpcServiceBuilder {
         return this;
     }
 
+    /**
+     * Sets the low and high watermarks of the outgoing messages of a call, in bytes. A call is not ready,
+     * i.e. {@link ServerCallStreamObserver#isReady()} returns {@code false}, while the size of the messages
+     * which have been sent but not yet written to the connection exceeds the high watermark. It becomes
+     * ready again and {@link ServerCallStreamObserver#setOnReadyHandler(Runnable) the on-ready handler} is
+     * invoked when the size drops to or below the low watermark. A message is written to the connection
+     * only when both the flow control window of the HTTP/2 stream and the outbound buffer of the connection
+     * allow it. If not set, the low and high watermarks are 32 KiB and 64 KiB respectively.
+     */
+    public GrpcServiceBuilder setWriteWatermarkBytes(int lowWatermarkBytes, int highWatermarkBytes) {
+        WatermarkFlowController.validateWatermarks(lowWatermarkBytes, highWatermarkBytes);
+        this.lowWatermarkBytes = lowWatermarkBytes;
+        this.highWatermarkBytes = highWatermarkBytes;
+        return this;
+    }
+
     /**
      * Sets whether the service handles requests not framed using the gRPC wire protocol. Such requests should
      * only have the serialized message as the request content, and the response content will only have the
@@ -200,6 +235,61 @@ public final class GrpcServiceBuilder {
         return this;
     }
 
+    /**
+     * Sets whether the gRPC handlers are invoked from the {@link Executor} returned by
+     * {@link #blockingTaskExecutorFactory(Function)} instead of the event loop, which is
+     * {@link ServiceRequestContext#blockingTaskExecutor()} by default. Enable this if the service
+     * implementation performs blocking operations such as JDBC calls. The invocations of the handler of
+     * a single call are never run concurrently and always run in order. If not set, the handlers are invoked
+     * from the event loop.
+     *
+     * <p>The delay between when an invocation is scheduled and when it starts is recorded in the
+     * {@code armeria.server.grpc.blockingTaskExecutor.queueLatency} timer of the server's meter registry.
+     *
+     * @see #useBlockingTaskExecutor(String, boolean)
+     */
+    public GrpcServiceBuilder useBlockingTaskExecutor(boolean useBlockingTaskExecutor) {
+        this.useBlockingTaskExecutor = useBlockingTaskExecutor;
+        return this;
+    }
+
+    /**
+     * Sets whether the handler of the method with the specified full name, e.g.
+     * {@code "armeria.grpc.testing.TestService/UnaryCall"}, is invoked from the {@link Executor} returned by
+     * {@link #blockingTaskExecutorFactory(Function)}. This overrides
+     * {@link #useBlockingTaskExecutor(boolean)} for the method.
+     */
+    public GrpcServiceBuilder useBlockingTaskExecutor(String fullMethodName, boolean useBlockingTaskExecutor) {
+        requireNonNull(fullMethodName, "fullMethodName");
+        blockingTaskExecutorOverrides.put(fullMethodName, useBlockingTaskExecutor);
+        return this;
+    }
+
+    /**
+     * Sets whether the handler of the specified method is invoked from the {@link Executor} returned by
+     * {@link #blockingTaskExecutorFactory(Function)}. This overrides
+     * {@link #useBlockingTaskExecutor(boolean)} for the method.
+     */
+    public GrpcServiceBuilder useBlockingTaskExecutor(MethodDescriptor<?, ?> method,
+                                                      boolean useBlockingTaskExecutor) {
+        requireNonNull(method, "method");
+        return useBlockingTaskExecutor(method.getFullMethodName(), useBlockingTaskExecutor);
+    }
+
+    /**
+     * Sets the factory of the {@link Executor} which invokes the gRPC handlers of the methods configured via
+     * {@link #useBlockingTaskExecutor(boolean)}. The factory is invoked once per call. If not set,
+     * {@link GrpcBlockingExecutors#blockingTaskExecutor()} is used.
+     *
+     * @see GrpcBlockingExecutors#virtualThreadsIfAvailable()
+     */
+    public GrpcServiceBuilder blockingTaskExecutorFactory(
+            Function<? super ServiceRequestContext, ? extends Executor> blockingTaskExecutorFactory) {
+        this.blockingTaskExecutorFactory =
+                requireNonNull(blockingTaskExecutorFactory, "blockingTaskExecutorFactory");
+        return this;
+    }
+
     /**
      * Constructs a new {@link GrpcService} that can be bound to
      * {@link ServerBuilder}. It is recommended to bind the service to a server
@@ -208,6 +298,18 @@ public final class GrpcServiceBuilder {
      */
     public ServiceWithPathMappings<HttpRequest, HttpResponse> build() {
         final HandlerRegistry handlerRegistry = registryBuilder.build();
+        final ImmutableSet.Builder<String> blockingMethods = ImmutableSet.builder();
+        for (Map.Entry<String, Boolean> e : blockingTaskExecutorOverrides.entrySet()) {
+            checkArgument(handlerRegistry.lookupMethod(e.getKey()) != null,
+                          "unknown method: %s (expected: one of %s)",
+                          e.getKey(), handlerRegistry.methods().keySet());
+        }
+        for (String methodName : handlerRegistry.methods().keySet()) {
+            if (blockingTaskExecutorOverrides.getOrDefault(methodName, useBlockingTaskExecutor)) {
+                blockingMethods.add(methodName);
+            }
+        }
+
         final GrpcService grpcService = new GrpcService(
                 handlerRegistry,
                 handlerRegistry
@@ -221,7 +323,11 @@ public final class GrpcServiceBuilder {
                 supportedSerializationFormats,
                 maxOutboundMessageSizeBytes,
                 unsafeWrapRequestBuffers,
-                maxInboundMessageSizeBytes);
+                maxInboundMessageSizeBytes,
+                blockingMethods.build(),
+                blockingTaskExecutorFactory,
+                lowWatermarkBytes,
+                highWatermarkBytes);
         return enableUnframedRequests ? grpcService.decorate(UnframedGrpcService::new) : grpcService;
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.internal.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.google.protobuf.ByteString;
+
+import com.linecorp.armeria.grpc.testing.Messages.Payload;
+import com.linecorp.armeria.grpc.testing.Messages.SimpleRequest;
+
+public class WatermarkFlowControllerTest {
+
+    @Test
+    public void becomesWritableBelowLowWatermark() {
+        final AtomicInteger onWritableCount = new AtomicInteger();
+        final WatermarkFlowController controller =
+                new WatermarkFlowController(100, 200, onWritableCount::incrementAndGet);
+        final SimpleRequest message = message(45); // 50 bytes including the frame header
+
+        final int size = controller.beforeWrite(message);
+        assertThat(size).isEqualTo(message.getSerializedSize() + 5);
+        controller.beforeWrite(message);
+        controller.beforeWrite(message);
+        controller.beforeWrite(message);
+        assertThat(controller.isWritable()).isTrue();
+
+        // Exceeds the high watermark.
+        controller.beforeWrite(message);
+        assertThat(controller.isWritable()).isFalse();
+
+        // Still above the low watermark.
+        controller.afterWrite(size);
+        controller.afterWrite(size);
+        assertThat(controller.isWritable()).isFalse();
+        assertThat(onWritableCount).hasValue(0);
+
+        // Drops to or below the low watermark.
+        controller.afterWrite(size);
+        assertThat(controller.isWritable()).isTrue();
+        assertThat(onWritableCount).hasValue(1);
+
+        // Does not notify again until it becomes unwritable.
+        controller.afterWrite(size);
+        controller.afterWrite(size);
+        assertThat(controller.pendingBytes()).isZero();
+        assertThat(onWritableCount).hasValue(1);
+    }
+
+    @Test
+    public void zeroWatermarksAllowOneMessageInFlight() {
+        final AtomicInteger onWritableCount = new AtomicInteger();
+        final WatermarkFlowController controller =
+                new WatermarkFlowController(0, 0, onWritableCount::incrementAndGet);
+
+        final int size = controller.beforeWrite(message(10));
+        assertThat(controller.isWritable()).isFalse();
+        controller.afterWrite(size);
+        assertThat(controller.isWritable()).isTrue();
+        assertThat(onWritableCount).hasValue(1);
+    }
+
+    @Test
+    public void unknownMessageExceedsHighWatermark() {
+        final WatermarkFlowController controller = new WatermarkFlowController(100, 200, () -> {});
+        final int size = controller.beforeWrite("not a protobuf message");
+        assertThat(size).isGreaterThan(200);
+        assertThat(controller.isWritable()).isFalse();
+        controller.afterWrite(size);
+        assertThat(controller.isWritable()).isTrue();
+    }
+
+    @Test
+    public void invalidWatermarks() {
+        assertThatThrownBy(() -> new WatermarkFlowController(-1, 100, () -> {}))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new WatermarkFlowController(200, 100, () -> {}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static SimpleRequest message(int serializedSize) {
+        // A SimpleRequest with a payload body of n bytes is serialized into (n + 4) bytes.
+        final SimpleRequest message = SimpleRequest.newBuilder().setPayload(
+                Payload.newBuilder().setBody(ByteString.copyFrom(new byte[serializedSize - 4]))).build();
+        assertThat(message.getSerializedSize()).isEqualTo(serializedSize);
+        return message;
+    }
+}
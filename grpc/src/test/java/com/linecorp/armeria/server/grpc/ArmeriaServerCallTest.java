@@ -50,6 +50,7 @@ import com.linecorp.armeria.grpc.testing.Messages.SimpleResponse;
 import com.linecorp.armeria.grpc.testing.TestServiceGrpc;
 import com.linecorp.armeria.internal.grpc.ArmeriaMessageDeframer.ByteBufOrStream;
 import com.linecorp.armeria.internal.grpc.GrpcTestUtil;
+import com.linecorp.armeria.internal.grpc.WatermarkFlowController;
 import com.linecorp.armeria.server.ServiceRequestContext;
 import com.linecorp.armeria.unsafe.grpc.GrpcUnsafeBufferUtil;
 
@@ -126,7 +127,10 @@ public class ArmeriaServerCallTest {
                 GrpcSerializationFormats.PROTO,
                 MessageMarshaller.builder().build(),
                 false,
-                "gzip");
+                "gzip",
+                null,
+                WatermarkFlowController.DEFAULT_LOW_WATERMARK_BYTES,
+                WatermarkFlowController.DEFAULT_HIGH_WATERMARK_BYTES);
         call.setListener(listener);
         call.messageReader().onSubscribe(subscription);
         when(ctx.logBuilder()).thenReturn(new DefaultRequestLog(ctx));
@@ -168,7 +172,10 @@ public class ArmeriaServerCallTest {
                 GrpcSerializationFormats.PROTO,
                 MessageMarshaller.builder().build(),
                 true,
-                "gzip");
+                "gzip",
+                null,
+                WatermarkFlowController.DEFAULT_LOW_WATERMARK_BYTES,
+                WatermarkFlowController.DEFAULT_HIGH_WATERMARK_BYTES);
 
         final ByteBuf buf = GrpcTestUtil.requestByteBuf();
         call.messageRead(new ByteBufOrStream(buf));
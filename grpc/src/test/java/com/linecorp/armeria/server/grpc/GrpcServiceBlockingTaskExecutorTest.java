@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.grpc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.DisableOnDebug;
+import org.junit.rules.TestRule;
+import org.junit.rules.Timeout;
+
+import com.linecorp.armeria.common.RequestContext;
+import com.linecorp.armeria.common.metric.MoreMeters;
+import com.linecorp.armeria.common.metric.PrometheusMeterRegistries;
+import com.linecorp.armeria.grpc.testing.Messages.SimpleRequest;
+import com.linecorp.armeria.grpc.testing.Messages.SimpleResponse;
+import com.linecorp.armeria.grpc.testing.TestServiceGrpc;
+import com.linecorp.armeria.grpc.testing.TestServiceGrpc.TestServiceBlockingStub;
+import com.linecorp.armeria.grpc.testing.TestServiceGrpc.TestServiceImplBase;
+import com.linecorp.armeria.server.ServerBuilder;
+import com.linecorp.armeria.server.ServiceRequestContext;
+import com.linecorp.armeria.testing.server.ServerRule;
+
+import io.grpc.ManagedChannel;
+import io.grpc.ManagedChannelBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+
+public class GrpcServiceBlockingTaskExecutorTest {
+
+    private static final MeterRegistry registry = PrometheusMeterRegistries.newRegistry();
+
+    // Whether the last handler invocation was made from the event loop.
+    private static final AtomicReference<Boolean> IN_EVENT_LOOP = new AtomicReference<>();
+
+    private static final AtomicInteger executorFactoryInvocations = new AtomicInteger();
+
+    private static class TestServiceImpl extends TestServiceImplBase {
+        @Override
+        public void unaryCall(SimpleRequest request, StreamObserver<SimpleResponse> responseObserver) {
+            respond(responseObserver);
+        }
+
+        @Override
+        public void unaryCall2(SimpleRequest request, StreamObserver<SimpleResponse> responseObserver) {
+            respond(responseObserver);
+        }
+
+        private static void respond(StreamObserver<SimpleResponse> responseObserver) {
+            final ServiceRequestContext ctx = RequestContext.current();
+            IN_EVENT_LOOP.set(ctx.eventLoop().inEventLoop());
+            responseObserver.onNext(SimpleResponse.getDefaultInstance());
+            responseObserver.onCompleted();
+        }
+    }
+
+    @ClassRule
+    public static final ServerRule server = new ServerRule() {
+        @Override
+        protected void configure(ServerBuilder sb) throws Exception {
+            sb.meterRegistry(registry);
+            sb.service(new GrpcServiceBuilder()
+                               .addService(new TestServiceImpl())
+                               .useBlockingTaskExecutor(true)
+                               .useBlockingTaskExecutor(TestServiceGrpc.getUnaryCall2Method(), false)
+                               .blockingTaskExecutorFactory(ctx -> {
+                                   executorFactoryInvocations.incrementAndGet();
+                                   return ctx.blockingTaskExecutor();
+                               })
+                               .build());
+        }
+    };
+
+    @Rule
+    public TestRule globalTimeout = new DisableOnDebug(new Timeout(10, TimeUnit.SECONDS));
+
+    private static ManagedChannel channel;
+
+    private TestServiceBlockingStub client;
+
+    @BeforeClass
+    public static void setUpChannel() {
+        channel = ManagedChannelBuilder.forAddress("127.0.0.1", server.httpPort())
+                                       .usePlaintext()
+                                       .build();
+    }
+
+    @AfterClass
+    public static void tearDownChannel() {
+        channel.shutdownNow();
+    }
+
+    @Before
+    public void setUp() {
+        IN_EVENT_LOOP.set(null);
+        executorFactoryInvocations.set(0);
+        client = TestServiceGrpc.newBlockingStub(channel);
+    }
+
+    @Test
+    public void blockingMethod() {
+        assertThat(client.unaryCall(SimpleRequest.getDefaultInstance()))
+                .isEqualTo(SimpleResponse.getDefaultInstance());
+        assertThat(IN_EVENT_LOOP.get()).isFalse();
+        assertThat(executorFactoryInvocations).hasValue(1);
+
+        await().untilAsserted(() -> assertThat(MoreMeters.measureAll(registry))
+                .containsKey("armeria.server.grpc.blockingTaskExecutor.queueLatency#count" +
+                             "{method=armeria.grpc.testing.TestService/UnaryCall}"));
+        assertThat(MoreMeters.measureAll(registry))
+                .doesNotContainKey("armeria.server.grpc.blockingTaskExecutor.queueLatency#count" +
+                                   "{method=armeria.grpc.testing.TestService/UnaryCall2}");
+    }
+
+    @Test
+    public void nonBlockingMethod() {
+        assertThat(client.unaryCall2(SimpleRequest.getDefaultInstance()))
+                .isEqualTo(SimpleResponse.getDefaultInstance());
+        assertThat(IN_EVENT_LOOP.get()).isTrue();
+        assertThat(executorFactoryInvocations).hasValue(0);
+    }
+
+    @Test
+    public void unknownMethod() {
+        assertThatThrownBy(() -> new GrpcServiceBuilder()
+                .addService(new TestServiceImpl())
+                .useBlockingTaskExecutor("armeria.grpc.testing.TestService/NoSuchCall", true)
+                .build())
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("NoSuchCall");
+    }
+}
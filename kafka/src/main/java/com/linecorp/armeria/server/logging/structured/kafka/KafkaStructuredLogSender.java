@@ -0,0 +1,230 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.logging.structured.kafka;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.annotation.Nullable;
+
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+/**
+ * Sends the logs of the {@link KafkaStructuredLoggingService}s created by the same decorator to Kafka from
+ * a single dedicated thread, which is started when the first log is queued. The sender is closed when all
+ * the {@link KafkaStructuredLoggingService}s which share it are closed.
+ */
+final class KafkaStructuredLogSender<L> {
+
+    private static final Logger logger = LoggerFactory.getLogger(KafkaStructuredLogSender.class);
+
+    private static final AtomicInteger nextId = new AtomicInteger();
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final Producer<byte[], L> producer;
+    private final String topic;
+    private final boolean needToCloseProducer;
+    private final long closeTimeoutMillis;
+    private final String name = "armeria-kafka-structured-logging-" + nextId.getAndIncrement();
+    private final BlockingQueue<ProducerRecord<byte[], L>> queue;
+    private final LongAdder sentLogs = new LongAdder();
+    private final LongAdder failedLogs = new LongAdder();
+    private final LongAdder droppedLogs = new LongAdder();
+    private final Set<MeterRegistry> registries = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // Written while holding 'this'.
+    @Nullable
+    private volatile Thread sender;
+    // Guarded by 'this'.
+    private int refCnt;
+
+    private volatile boolean closed;
+    private volatile boolean aborted;
+
+    KafkaStructuredLogSender(Producer<byte[], L> producer, String topic, boolean needToCloseProducer,
+                             int queueCapacity, long closeTimeoutMillis) {
+        this.producer = requireNonNull(producer, "producer");
+        this.topic = requireNonNull(topic, "topic");
+        this.needToCloseProducer = needToCloseProducer;
+        this.closeTimeoutMillis = closeTimeoutMillis;
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    /**
+     * Increases the number of the {@link KafkaStructuredLoggingService}s which share this sender.
+     */
+    synchronized void retain() {
+        refCnt++;
+    }
+
+    /**
+     * Registers the meters of this sender into the specified {@link MeterRegistry} unless registered
+     * already. The meters are tagged with the name of this sender as well as the topic, so that the meters
+     * of the senders of the same topic are not merged into one.
+     */
+    synchronized void registerMetrics(MeterRegistry registry) {
+        if (!registries.add(registry)) {
+            return;
+        }
+
+        final String prefix = "armeria.server.structuredLog.kafka.";
+        Gauge.builder(prefix + "queued", queue, BlockingQueue::size)
+             .tag("topic", topic).tag("sender", name)
+             .register(registry);
+        FunctionCounter.builder(prefix + "sent", sentLogs, LongAdder::sum)
+                       .tag("topic", topic).tag("sender", name)
+                       .register(registry);
+        FunctionCounter.builder(prefix + "failed", failedLogs, LongAdder::sum)
+                       .tag("topic", topic).tag("sender", name)
+                       .register(registry);
+        FunctionCounter.builder(prefix + "dropped", droppedLogs, LongAdder::sum)
+                       .tag("topic", topic).tag("sender", name)
+                       .register(registry);
+    }
+
+    /**
+     * Queues the specified {@link ProducerRecord}, or drops it if the queue is full or this sender has
+     * been closed.
+     */
+    void offer(ProducerRecord<byte[], L> producerRecord) {
+        if (closed || !queue.offer(producerRecord)) {
+            droppedLogs.increment();
+            return;
+        }
+
+        if (closed) {
+            // Closed while queueing; the record may have missed the final drain.
+            if (queue.remove(producerRecord)) {
+                droppedLogs.increment();
+            }
+            return;
+        }
+
+        if (sender == null) {
+            startSender();
+        }
+    }
+
+    private synchronized void startSender() {
+        if (sender == null && !closed) {
+            final Thread sender = new DefaultThreadFactory(name, true).newThread(this::sendLogs);
+            sender.start();
+            this.sender = sender;
+        }
+    }
+
+    private void sendLogs() {
+        try {
+            while (!aborted) {
+                final ProducerRecord<byte[], L> producerRecord =
+                        queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (producerRecord != null) {
+                    send(producerRecord);
+                } else if (closed) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            // Stop sending.
+        }
+    }
+
+    private void send(ProducerRecord<byte[], L> producerRecord) {
+        try {
+            producer.send(producerRecord, (metadata, exception) -> {
+                if (exception != null) {
+                    failedLogs.increment();
+                    logger.warn("failed to send service log to Kafka {}", producerRecord, exception);
+                } else {
+                    sentLogs.increment();
+                }
+            });
+        } catch (Exception e) {
+            failedLogs.increment();
+            logger.warn("failed to send service log to Kafka {}", producerRecord, e);
+        }
+    }
+
+    /**
+     * Decreases the number of the {@link KafkaStructuredLoggingService}s which share this sender, and closes
+     * this sender when it reaches zero. The queued logs are sent for up to {@code closeTimeoutMillis}, because
+     * {@link Producer#send(ProducerRecord)} may block for {@code max.block.ms} when Kafka is unavailable.
+     * The logs which were not sent in time are counted as dropped.
+     */
+    void release() {
+        final Thread sender;
+        synchronized (this) {
+            if (--refCnt > 0 || closed) {
+                return;
+            }
+            closed = true;
+            sender = this.sender;
+        }
+
+        final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(closeTimeoutMillis);
+        if (sender != null) {
+            Uninterruptibles.joinUninterruptibly(sender, closeTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (sender.isAlive()) {
+                aborted = true;
+                sender.interrupt();
+            }
+        }
+
+        int numUnsentLogs = 0;
+        while (queue.poll() != null) {
+            numUnsentLogs++;
+        }
+        if (numUnsentLogs > 0) {
+            droppedLogs.add(numUnsentLogs);
+            logger.warn("Dropped {} service log(s) which were not sent to Kafka within {} ms: {}",
+                        numUnsentLogs, closeTimeoutMillis, topic);
+        }
+
+        if (needToCloseProducer) {
+            producer.close(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @VisibleForTesting
+    synchronized boolean isStarted() {
+        return sender != null;
+    }
+
+    @VisibleForTesting
+    long droppedLogs() {
+        return droppedLogs.sum();
+    }
+}
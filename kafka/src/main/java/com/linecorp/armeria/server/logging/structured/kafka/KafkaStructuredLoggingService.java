@@ -25,34 +25,45 @@ import java.util.function.Function;
 import javax.annotation.Nullable;
 
 import org.apache.kafka.clients.producer.Callback;
-import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.clients.producer.ProducerRecord;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
 
 import com.linecorp.armeria.common.Request;
 import com.linecorp.armeria.common.Response;
 import com.linecorp.armeria.common.logging.RequestLog;
+import com.linecorp.armeria.internal.logging.Sampler;
 import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.ServiceConfig;
 import com.linecorp.armeria.server.logging.structured.StructuredLogBuilder;
 import com.linecorp.armeria.server.logging.structured.StructuredLoggingService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Kafka backend for service log logging.
  * This class enable Kafka as a service log logging backend.
  *
- * <p>This method returns immediately after the {@link Producer#send(ProducerRecord, Callback)} returns rather
- * than waiting for returned {@link Future} completes so logs which are written and are not yet flushed can
- * be lost if an application crashes in unclean way.
+ * <p>The logs are put into a bounded queue and sent by a dedicated thread, so that
+ * {@link Producer#send(ProducerRecord, Callback)}, which may block when Kafka slows down, never blocks
+ * the thread which serves a request. The services created by the same decorator share the queue and
+ * the thread, which is started when the first log is queued. A log is dropped when the queue is full.
+ * The number of queued, sent, failed and dropped logs are recorded into the {@link MeterRegistry} of the
+ * {@link com.linecorp.armeria.server.Server}.
+ *
+ * <p>The dedicated thread does not wait for the {@link Future} returned by
+ * {@link Producer#send(ProducerRecord, Callback)} to complete, so logs which are written and are not yet
+ * flushed can be lost if an application crashes in unclean way. When the
+ * {@link com.linecorp.armeria.server.Server} stops, the queued logs are sent for a limited time and
+ * the rest of them are dropped.
  *
- * <p>Refer variety of {@link #newDecorator} methods to see how to enable Kafka based structured logging.
+ * <p>Refer variety of {@link #newDecorator} methods to see how to enable Kafka based structured logging,
+ * or {@link KafkaStructuredLoggingServiceBuilder} to configure the queue and the sampling rate.
  */
 public class KafkaStructuredLoggingService<I extends Request, O extends Response, L>
         extends StructuredLoggingService<I, O, L> {
-    private static final Logger logger = LoggerFactory.getLogger(KafkaStructuredLoggingService.class);
-
     /**
      * Implements "key" selector of Kafka based service log writer.
      * Kafka as a notion of the "key" which is used as a criteria to guarantee message ordering and
@@ -88,8 +99,8 @@ public class KafkaStructuredLoggingService<I extends Request, O extends Response
     Function<Service<I, O>, StructuredLoggingService<I, O, L>> newDecorator(
             Producer<byte[], L> producer, String topic,
             StructuredLogBuilder<L> logBuilder, @Nullable KeySelector<L> keySelector) {
-        return service -> new KafkaStructuredLoggingService<>(
-                service, logBuilder, producer, topic, keySelector, false);
+        return new KafkaStructuredLoggingServiceBuilder().newDecorator(producer, topic, logBuilder,
+                                                                      keySelector);
     }
 
     /**
@@ -128,9 +139,8 @@ public class KafkaStructuredLoggingService<I extends Request, O extends Response
     Function<Service<I, O>, StructuredLoggingService<I, O, L>> newDecorator(
             String bootstrapServers, String topic,
             StructuredLogBuilder<L> logBuilder, @Nullable KeySelector<L> keySelector) {
-        final Producer<byte[], L> producer = new KafkaProducer<>(newDefaultConfig(bootstrapServers));
-        return service -> new KafkaStructuredLoggingService<>(
-                service, logBuilder, producer, topic, keySelector, true);
+        return new KafkaStructuredLoggingServiceBuilder().newDecorator(bootstrapServers, topic, logBuilder,
+                                                                      keySelector);
     }
 
     /**
@@ -152,7 +162,7 @@ public class KafkaStructuredLoggingService<I extends Request, O extends Response
         return newDecorator(bootstrapServers, topic, logBuilder, null);
     }
 
-    private static Properties newDefaultConfig(String bootstrapServers) {
+    static Properties newDefaultConfig(String bootstrapServers) {
         final Properties producerConfig = new Properties();
 
         producerConfig.setProperty(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
@@ -160,16 +170,21 @@ public class KafkaStructuredLoggingService<I extends Request, O extends Response
         // Configure some values to make it likely fit majority of usages.
         producerConfig.setProperty(ProducerConfig.CLIENT_ID_CONFIG,
                                    KafkaStructuredLoggingService.class.getSimpleName());
-        producerConfig.setProperty(ProducerConfig.ACKS_CONFIG, "all");
+        // Logs are dropped anyway when the queue is full, so favor the throughput over the durability.
+        producerConfig.setProperty(ProducerConfig.ACKS_CONFIG, "1");
         producerConfig.setProperty(ProducerConfig.RETRIES_CONFIG, "3");
+        // Let the producer accumulate the logs into larger batches rather than sending them one by one.
+        producerConfig.setProperty(ProducerConfig.LINGER_MS_CONFIG, "50");
+        producerConfig.setProperty(ProducerConfig.BATCH_SIZE_CONFIG, "65536");
 
         return producerConfig;
     }
 
-    private final Producer<byte[], L> producer;
     private final String topic;
     private final KeySelector<L> keySelector;
-    private final boolean needToCloseProducer;
+    private final Sampler sampler;
+    private final KafkaStructuredLogSender<L> sender;
+    private boolean closed;
 
     KafkaStructuredLoggingService(Service<I, O> delegate,
                                   StructuredLogBuilder<L> logBuilder,
@@ -177,30 +192,66 @@ public class KafkaStructuredLoggingService<I extends Request, O extends Response
                                   String topic,
                                   @Nullable KeySelector<L> keySelector,
                                   boolean needToCloseProducer) {
+        this(delegate, logBuilder, producer, topic, keySelector, needToCloseProducer,
+             KafkaStructuredLoggingServiceBuilder.DEFAULT_QUEUE_CAPACITY, Sampler.create(1.0f));
+    }
+
+    KafkaStructuredLoggingService(Service<I, O> delegate,
+                                  StructuredLogBuilder<L> logBuilder,
+                                  Producer<byte[], L> producer,
+                                  String topic,
+                                  @Nullable KeySelector<L> keySelector,
+                                  boolean needToCloseProducer,
+                                  int queueCapacity,
+                                  Sampler sampler) {
+        this(delegate, logBuilder, topic, keySelector, sampler,
+             new KafkaStructuredLogSender<>(producer, topic, needToCloseProducer, queueCapacity,
+                                            KafkaStructuredLoggingServiceBuilder.DEFAULT_CLOSE_TIMEOUT_MILLIS));
+    }
+
+    KafkaStructuredLoggingService(Service<I, O> delegate,
+                                  StructuredLogBuilder<L> logBuilder,
+                                  String topic,
+                                  @Nullable KeySelector<L> keySelector,
+                                  Sampler sampler,
+                                  KafkaStructuredLogSender<L> sender) {
         super(delegate, logBuilder);
 
-        this.producer = requireNonNull(producer, "producer");
         this.topic = requireNonNull(topic, "topic");
         this.keySelector = keySelector == null ? (res, log) -> null : keySelector;
-        this.needToCloseProducer = needToCloseProducer;
+        this.sampler = requireNonNull(sampler, "sampler");
+        this.sender = requireNonNull(sender, "sender");
+        sender.retain();
+    }
+
+    @Override
+    public void serviceAdded(ServiceConfig cfg) throws Exception {
+        super.serviceAdded(cfg);
+        sender.registerMetrics(cfg.server().meterRegistry());
     }
 
     @Override
     protected void writeLog(RequestLog log, L structuredLog) {
+        if (!sampler.isSampled()) {
+            return;
+        }
+
         final byte[] key = keySelector.selectKey(log, structuredLog);
+        sender.offer(new ProducerRecord<>(topic, key, structuredLog));
+    }
 
-        final ProducerRecord<byte[], L> producerRecord = new ProducerRecord<>(topic, key, structuredLog);
-        producer.send(producerRecord, (metadata, exception) -> {
-            if (exception != null) {
-                logger.warn("failed to send service log to Kafka {}", producerRecord, exception);
-            }
-        });
+    @VisibleForTesting
+    KafkaStructuredLogSender<L> sender() {
+        return sender;
     }
 
     @Override
-    protected void close() {
-        if (needToCloseProducer) {
-            producer.close();
+    protected synchronized void close() {
+        // The logs in the queue are sent before closing the producer when the last service which shares
+        // the sender is closed.
+        if (!closed) {
+            closed = true;
+            sender.release();
         }
     }
 }
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018 LINE Corporation
+ *
+ * LINE Corporation licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package com.linecorp.armeria.server.logging.structured.kafka;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import java.util.function.Function;
+
+import javax.annotation.Nullable;
+
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.Producer;
+
+import com.linecorp.armeria.common.Request;
+import com.linecorp.armeria.common.Response;
+import com.linecorp.armeria.internal.logging.Sampler;
+import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.logging.structured.StructuredLogBuilder;
+import com.linecorp.armeria.server.logging.structured.StructuredLoggingService;
+import com.linecorp.armeria.server.logging.structured.kafka.KafkaStructuredLoggingService.KeySelector;
+
+/**
+ * Builds a new {@link KafkaStructuredLoggingService} decorator.
+ */
+public final class KafkaStructuredLoggingServiceBuilder {
+
+    static final int DEFAULT_QUEUE_CAPACITY = 8192;
+    static final long DEFAULT_CLOSE_TIMEOUT_MILLIS = 10000;
+
+    private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+    private float samplingRate = 1.0f;
+    private long closeTimeoutMillis = DEFAULT_CLOSE_TIMEOUT_MILLIS;
+
+    /**
+     * Sets the maximum number of logs which wait for being sent to Kafka. A log is dropped rather than
+     * blocking the thread which serves a request when the queue is full.
+     * If unset, {@value #DEFAULT_QUEUE_CAPACITY} is used.
+     */
+    public KafkaStructuredLoggingServiceBuilder queueCapacity(int queueCapacity) {
+        checkArgument(queueCapacity > 0, "queueCapacity: %s (expected: > 0)", queueCapacity);
+        this.queueCapacity = queueCapacity;
+        return this;
+    }
+
+    /**
+     * Sets the rate at which to sample the logs to send. Any number between {@code 0.0} and {@code 1.0}
+     * will cause a random sample of the logs to be sent. If unset, all logs will be sent.
+     */
+    public KafkaStructuredLoggingServiceBuilder samplingRate(float samplingRate) {
+        checkArgument(0.0 <= samplingRate && samplingRate <= 1.0,
+                      "samplingRate: %s (expected: >= 0.0 and <= 1.0)", samplingRate);
+        this.samplingRate = samplingRate;
+        return this;
+    }
+
+    /**
+     * Sets the maximum amount of time in milliseconds to spend on sending the queued logs when
+     * the {@link com.linecorp.armeria.server.Server} stops. The logs which were not sent in time are
+     * dropped. If unset, {@value #DEFAULT_CLOSE_TIMEOUT_MILLIS} milliseconds is used.
+     */
+    public KafkaStructuredLoggingServiceBuilder closeTimeoutMillis(long closeTimeoutMillis) {
+        checkArgument(closeTimeoutMillis >= 0, "closeTimeoutMillis: %s (expected: >= 0)", closeTimeoutMillis);
+        this.closeTimeoutMillis = closeTimeoutMillis;
+        return this;
+    }
+
+    /**
+     * Returns a newly-created decorator which sends the logs to the specified {@code topic} with
+     * the specified {@link Producer}. The {@link Producer} is not closed when the
+     * {@link com.linecorp.armeria.server.Server} stops.
+     *
+     * @param producer a kafka {@link Producer} producer which is used to send logs to Kafka
+     * @param topic a name of topic which is used to send logs
+     * @param logBuilder an instance of {@link StructuredLogBuilder} which is used to construct a log entry
+     * @param keySelector a {@link KeySelector} which is used to decide what key to use for the log
+     */
+    public <I extends Request, O extends Response, L>
+    Function<Service<I, O>, StructuredLoggingService<I, O, L>> newDecorator(
+            Producer<byte[], L> producer, String topic,
+            StructuredLogBuilder<L> logBuilder, @Nullable KeySelector<L> keySelector) {
+        return newDecorator(producer, topic, logBuilder, keySelector, false);
+    }
+
+    /**
+     * Returns a newly-created decorator which sends the logs to the specified {@code topic} with
+     * a default {@link Producer}, which is configured to batch the logs. The {@link Producer} is closed
+     * when the {@link com.linecorp.armeria.server.Server} stops.
+     *
+     * @param bootstrapServers a {@code bootstrap.servers} config to specify destination Kafka cluster
+     * @param topic a name of topic which is used to send logs
+     * @param logBuilder an instance of {@link StructuredLogBuilder} which is used to construct a log entry
+     * @param keySelector a {@link KeySelector} which is used to decide what key to use for the log
+     */
+    public <I extends Request, O extends Response, L>
+    Function<Service<I, O>, StructuredLoggingService<I, O, L>> newDecorator(
+            String bootstrapServers, String topic,
+            StructuredLogBuilder<L> logBuilder, @Nullable KeySelector<L> keySelector) {
+        final Producer<byte[], L> producer =
+                new KafkaProducer<>(KafkaStructuredLoggingService.newDefaultConfig(bootstrapServers));
+        return newDecorator(producer, topic, logBuilder, keySelector, true);
+    }
+
+    private <I extends Request, O extends Response, L>
+    Function<Service<I, O>, StructuredLoggingService<I, O, L>> newDecorator(
+            Producer<byte[], L> producer, String topic, StructuredLogBuilder<L> logBuilder,
+            @Nullable KeySelector<L> keySelector, boolean needToCloseProducer) {
+        final Sampler sampler = Sampler.create(samplingRate);
+        // The services created by this decorator share one sender thread.
+        final KafkaStructuredLogSender<L> sender = new KafkaStructuredLogSender<>(
+                producer, topic, needToCloseProducer, queueCapacity, closeTimeoutMillis);
+        return service -> new KafkaStructuredLoggingService<>(
+                service, logBuilder, topic, keySelector, sampler, sender);
+    }
+}
@@ -21,7 +21,6 @@ import java.util.Map;
 import javax.annotation.Nullable;
 
 import org.apache.kafka.common.serialization.Serializer;
-import org.apache.kafka.common.serialization.StringSerializer;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -31,7 +30,6 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  * @param <L> the type of structured log which is being serialized
  */
 public class StructuredLogJsonKafkaSerializer<L> implements Serializer<L> {
-    private final Serializer<String> stringSerializer = new StringSerializer();
     private final ObjectMapper objectMapper;
 
     /**
@@ -53,8 +51,9 @@ public class StructuredLogJsonKafkaSerializer<L> implements Serializer<L> {
         }
 
         try {
-            final String json = objectMapper.writeValueAsString(value);
-            return stringSerializer.serialize(topic, json);
+            // Encode into UTF-8 bytes directly rather than creating a String first. The buffers used for
+            // the encoding are recycled by Jackson.
+            return objectMapper.writeValueAsBytes(value);
         } catch (JsonProcessingException ex) {
             throw new IllegalArgumentException(ex);
         }
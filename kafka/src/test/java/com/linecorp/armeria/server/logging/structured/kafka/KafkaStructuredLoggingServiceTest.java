@@ -18,9 +18,16 @@ package com.linecorp.armeria.server.logging.structured.kafka;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.internal.verification.VerificationModeFactory.times;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
 import javax.annotation.Nullable;
 
 import org.apache.kafka.clients.producer.Callback;
@@ -36,7 +43,9 @@ import org.mockito.junit.MockitoRule;
 
 import com.linecorp.armeria.common.HttpRequest;
 import com.linecorp.armeria.common.HttpResponse;
+import com.linecorp.armeria.internal.logging.Sampler;
 import com.linecorp.armeria.server.Service;
+import com.linecorp.armeria.server.logging.structured.StructuredLoggingService;
 
 public class KafkaStructuredLoggingServiceTest {
     @Rule
@@ -79,7 +88,7 @@ public class KafkaStructuredLoggingServiceTest {
         final SimpleStructuredLog log = new SimpleStructuredLog("kawamuray");
         service.writeLog(null, log);
 
-        verify(producer, times(1)).send(captor.capture(), any(Callback.class));
+        verify(producer, timeout(10000).times(1)).send(captor.capture(), any(Callback.class));
 
         final ProducerRecord<byte[], SimpleStructuredLog> record = captor.getValue();
         assertThat(record.key()).isNull();
@@ -94,7 +103,7 @@ public class KafkaStructuredLoggingServiceTest {
         final SimpleStructuredLog log = new SimpleStructuredLog("kawamuray");
         service.writeLog(null, log);
 
-        verify(producer, times(1)).send(captor.capture(), any(Callback.class));
+        verify(producer, timeout(10000).times(1)).send(captor.capture(), any(Callback.class));
 
         final ProducerRecord<byte[], SimpleStructuredLog> record = captor.getValue();
         assertThat(record.key()).isNotNull();
@@ -102,13 +111,43 @@ public class KafkaStructuredLoggingServiceTest {
         assertThat(record.value()).isEqualTo(log);
     }
 
+    @Test
+    public void testDropWhenQueueIsFull() throws Exception {
+        final CountDownLatch sendLatch = new CountDownLatch(1);
+        final CountDownLatch blockLatch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sendLatch.countDown();
+            blockLatch.await();
+            return null;
+        }).when(producer).send(any(), any(Callback.class));
+
+        final KafkaStructuredLoggingService<HttpRequest, HttpResponse, SimpleStructuredLog> service =
+                new KafkaStructuredLoggingService<>(KafkaStructuredLoggingServiceTest.service, log -> null,
+                                                    producer, TOPIC_NAME, null, false, 1,
+                                                    Sampler.create(1.0f));
+
+        // The first log is taken by the sender thread, which is blocked by the producer.
+        service.writeLog(null, new SimpleStructuredLog("first"));
+        sendLatch.await();
+
+        // The second log fills the queue, and the third one is dropped.
+        service.writeLog(null, new SimpleStructuredLog("second"));
+        service.writeLog(null, new SimpleStructuredLog("third"));
+        assertThat(service.sender().droppedLogs()).isOne();
+
+        blockLatch.countDown();
+        service.close();
+        verify(producer, times(2)).send(captor.capture(), any(Callback.class));
+        assertThat(captor.getAllValues()).extracting(r -> r.value().name).containsExactly("first", "second");
+    }
+
     @Test
     public void testCloseProducerWhenRequested() {
         final KafkaStructuredLoggingServiceExposed service =
                 new KafkaStructuredLoggingServiceExposed(producer, null, true);
 
         service.close();
-        verify(producer, times(1)).close();
+        verify(producer, times(1)).close(anyLong(), any(TimeUnit.class));
     }
 
     @Test
@@ -118,5 +157,68 @@ public class KafkaStructuredLoggingServiceTest {
 
         service.close();
         verify(producer, times(0)).close();
+        verify(producer, times(0)).close(anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void testDecoratorSharesSender() {
+        final Function<Service<HttpRequest, HttpResponse>,
+                StructuredLoggingService<HttpRequest, HttpResponse, SimpleStructuredLog>> decorator =
+                new KafkaStructuredLoggingServiceBuilder().newDecorator(producer, TOPIC_NAME,
+                                                                        log -> null, null);
+        final KafkaStructuredLoggingService<HttpRequest, HttpResponse, SimpleStructuredLog> fooService =
+                (KafkaStructuredLoggingService<HttpRequest, HttpResponse, SimpleStructuredLog>)
+                        decorator.apply(service);
+        final KafkaStructuredLoggingService<HttpRequest, HttpResponse, SimpleStructuredLog> barService =
+                (KafkaStructuredLoggingService<HttpRequest, HttpResponse, SimpleStructuredLog>)
+                        decorator.apply(service);
+
+        // The sender thread is not started until the first log is written.
+        assertThat(fooService.sender()).isSameAs(barService.sender());
+        assertThat(fooService.sender().isStarted()).isFalse();
+
+        fooService.writeLog(null, new SimpleStructuredLog("foo"));
+        assertThat(fooService.sender().isStarted()).isTrue();
+        verify(producer, timeout(10000).times(1)).send(any(), any(Callback.class));
+
+        // The sender keeps running until all the services which share it are closed.
+        fooService.close();
+        barService.writeLog(null, new SimpleStructuredLog("bar"));
+        verify(producer, timeout(10000).times(2)).send(any(), any(Callback.class));
+
+        barService.close();
+        barService.writeLog(null, new SimpleStructuredLog("baz"));
+        assertThat(barService.sender().droppedLogs()).isOne();
+    }
+
+    @Test
+    public void testCloseTimeout() throws Exception {
+        final CountDownLatch sendLatch = new CountDownLatch(1);
+        final CountDownLatch blockLatch = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sendLatch.countDown();
+            blockLatch.await();
+            return null;
+        }).when(producer).send(any(), any(Callback.class));
+
+        final KafkaStructuredLogSender<SimpleStructuredLog> sender =
+                new KafkaStructuredLogSender<>(producer, TOPIC_NAME, true, 2, 100);
+        sender.retain();
+
+        // The first log blocks the sender thread, and the others are left in the queue.
+        sender.offer(new ProducerRecord<>(TOPIC_NAME, new SimpleStructuredLog("first")));
+        sendLatch.await();
+        sender.offer(new ProducerRecord<>(TOPIC_NAME, new SimpleStructuredLog("second")));
+        sender.offer(new ProducerRecord<>(TOPIC_NAME, new SimpleStructuredLog("third")));
+
+        try {
+            final long startTimeNanos = System.nanoTime();
+            sender.release();
+            assertThat(System.nanoTime() - startTimeNanos).isLessThan(TimeUnit.SECONDS.toNanos(10));
+            assertThat(sender.droppedLogs()).isEqualTo(2);
+            verify(producer, times(1)).close(anyLong(), any(TimeUnit.class));
+        } finally {
+            blockLatch.countDown();
+        }
     }
 }
@@ -35,8 +35,6 @@ import org.apache.thrift.protocol.TMessage;
 import org.apache.thrift.protocol.TMessageType;
 import org.apache.thrift.protocol.TProtocol;
 import org.apache.thrift.protocol.TProtocolFactory;
-import org.apache.thrift.transport.TMemoryBuffer;
-import org.apache.thrift.transport.TMemoryInputTransport;
 import org.apache.thrift.transport.TTransportException;
 
 import com.google.common.base.Strings;
@@ -62,9 +60,16 @@ import com.linecorp.armeria.common.thrift.ThriftReply;
 import com.linecorp.armeria.common.util.CompletionActions;
 import com.linecorp.armeria.common.util.Exceptions;
 import com.linecorp.armeria.internal.thrift.TApplicationExceptions;
+import com.linecorp.armeria.internal.thrift.TByteBufTransport;
 import com.linecorp.armeria.internal.thrift.ThriftFieldAccess;
 import com.linecorp.armeria.internal.thrift.ThriftFunction;
 import com.linecorp.armeria.internal.thrift.ThriftServiceMetadata;
+import com.linecorp.armeria.unsafe.ByteBufHttpData;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufHolder;
+import io.netty.buffer.Unpooled;
+import io.netty.util.ReferenceCountUtil;
 
 final class THttpClientDelegate implements Client<RpcRequest, RpcResponse> {
 
@@ -104,8 +109,10 @@ final class THttpClientDelegate implements Client<RpcRequest, RpcResponse> {
             return reply;
         }
 
+        final ByteBuf buf = ctx.alloc().buffer(128);
+        boolean success = false;
         try {
-            final TMemoryBuffer outTransport = new TMemoryBuffer(128);
+            final TByteBufTransport outTransport = new TByteBufTransport(buf);
             final TProtocol tProtocol = protocolFactory.getProtocol(outTransport);
             final TMessage header = new TMessage(fullMethod(ctx, method), func.messageType(), seqId);
 
@@ -120,12 +127,13 @@ final class THttpClientDelegate implements Client<RpcRequest, RpcResponse> {
             final HttpRequest httpReq = HttpRequest.of(
                     HttpHeaders.of(HttpMethod.POST, ctx.path())
                                .contentType(mediaType),
-                    HttpData.of(outTransport.getArray(), 0, outTransport.length()));
+                    new ByteBufHttpData(buf, false));
+            success = true;
 
             ctx.logBuilder().deferResponseContent();
 
             final CompletableFuture<AggregatedHttpMessage> future =
-                    httpClient.execute(ctx, httpReq).aggregate();
+                    httpClient.execute(ctx, httpReq).aggregateWithPooledObjects(ctx.eventLoop(), ctx.alloc());
 
             future.handle(voidFunction((res, cause) -> {
                 if (cause != null) {
@@ -133,20 +141,28 @@ final class THttpClientDelegate implements Client<RpcRequest, RpcResponse> {
                     return;
                 }
 
-                final HttpStatus status = res.headers().status();
-                if (status.code() != HttpStatus.OK.code()) {
-                    handlePreDecodeException(ctx, reply, func, new InvalidResponseException(status.toString()));
-                    return;
-                }
-
+                final HttpData content = res.content();
                 try {
-                    handle(ctx, seqId, reply, func, res.content());
+                    final HttpStatus status = res.headers().status();
+                    if (status.code() != HttpStatus.OK.code()) {
+                        handlePreDecodeException(ctx, reply, func,
+                                                 new InvalidResponseException(status.toString()));
+                        return;
+                    }
+
+                    handle(ctx, seqId, reply, func, content);
                 } catch (Throwable t) {
                     handlePreDecodeException(ctx, reply, func, t);
+                } finally {
+                    ReferenceCountUtil.safeRelease(content);
                 }
             })).exceptionally(CompletionActions::log);
         } catch (Throwable cause) {
             handlePreDecodeException(ctx, reply, func, cause);
+        } finally {
+            if (!success) {
+                buf.release();
+            }
         }
 
         return reply;
@@ -182,8 +198,17 @@ final class THttpClientDelegate implements Client<RpcRequest, RpcResponse> {
             throw new TApplicationException(TApplicationException.MISSING_RESULT);
         }
 
-        final TMemoryInputTransport inputTransport =
-                new TMemoryInputTransport(content.array(), content.offset(), content.length());
+        final ByteBuf buf;
+        if (content instanceof ByteBufHolder) {
+            final ByteBuf pooled = ((ByteBufHolder) content).content();
+            // A protocol may decode a binary field into a view of the array of a heap buffer, which must
+            // not outlive the pooled buffer released after decoding.
+            buf = pooled.hasArray() ? Unpooled.copiedBuffer(pooled) : pooled;
+        } else {
+            buf = Unpooled.wrappedBuffer(content.array(), content.offset(), content.length());
+        }
+
+        final TByteBufTransport inputTransport = new TByteBufTransport(buf);
         final TProtocol inputProtocol = protocolFactory.getProtocol(inputTransport);
 
         final TMessage header = inputProtocol.readMessageBegin();
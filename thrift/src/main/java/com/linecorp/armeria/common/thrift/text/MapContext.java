@@ -30,10 +30,6 @@
 // =================================================================================================
 package com.linecorp.armeria.common.thrift.text;
 
-import javax.annotation.Nullable;
-
-import com.fasterxml.jackson.databind.JsonNode;
-
 /**
  * A map parsing context. Just a PairContext that responds to isMapKey
  * depending on whether or not we're parsing the left hand side of a
@@ -43,11 +39,6 @@ import com.fasterxml.jackson.databind.JsonNode;
  */
 class MapContext extends PairContext {
 
-    // SUPPRESS CHECKSTYLE JavadocMethod
-    protected MapContext(@Nullable JsonNode json) {
-        super(json);
-    }
-
     @Override
     protected boolean isMapKey() {
         return isLhs();
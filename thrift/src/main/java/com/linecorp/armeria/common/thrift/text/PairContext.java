@@ -30,14 +30,6 @@
 // =================================================================================================
 package com.linecorp.armeria.common.thrift.text;
 
-import java.util.Iterator;
-import java.util.Map;
-
-import javax.annotation.Nullable;
-
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.node.TextNode;
-
 /**
  * A map parsing context that tracks if we are parsing a key, which
  * is on the left hand side of the ":" operator, or a value.
@@ -48,25 +40,14 @@ import com.fasterxml.jackson.databind.node.TextNode;
  * "2" : 2,
  * }
  * Note the required quotes on the lhs.
- * We maintain an iterator over all of our child name/value pairs, and
- * a pointer to the current one being parsed.
+ * The name and the value of a pair are read as separate tokens, so we
+ * only need to keep track of which side of the pair comes next.
  *
  * @author Alex Roetter
  */
 class PairContext extends BaseContext {
 
-    @Nullable
-    private final Iterator<Map.Entry<String, JsonNode>> children;
     private boolean lhs;
-    @Nullable
-    private Map.Entry<String, JsonNode> currentChild;
-
-    /**
-     * Creates an iterator over this object's children.
-     */
-    protected PairContext(@Nullable JsonNode json) {
-        children = null != json ? json.fields() : null;
-    }
 
     @Override
     protected void write() {
@@ -76,31 +57,6 @@ class PairContext extends BaseContext {
     @Override
     protected void read() {
         lhs = !lhs;
-        // every other time, do a read, since the read gets the name & value
-        // at once.
-        if (isLhs()) {
-            assert children != null;
-            if (!children.hasNext()) {
-                throw new RuntimeException(
-                        "Called PairContext.read() too many times!");
-            }
-            currentChild = children.next();
-        }
-    }
-
-    @Override
-    protected JsonNode getCurrentChild() {
-        assert currentChild != null;
-        if (lhs) {
-            return new TextNode(currentChild.getKey());
-        }
-        return currentChild.getValue();
-    }
-
-    @Override
-    protected boolean hasMoreChildren() {
-        assert children != null;
-        return children.hasNext();
     }
 
     protected boolean isLhs() {
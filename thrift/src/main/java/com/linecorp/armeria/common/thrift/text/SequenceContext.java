@@ -30,52 +30,10 @@
 // =================================================================================================
 package com.linecorp.armeria.common.thrift.text;
 
-import java.util.Iterator;
-
-import javax.annotation.Nullable;
-
-import com.fasterxml.jackson.databind.JsonNode;
-
 /**
- * A parsing context used for Sequences (lists & sets). Maintains its
- * child elements, and a pointer to the current one being parsed.
+ * A parsing context used for Sequences (lists & sets). The elements are
+ * read one token at a time, so there is no state to keep here.
  *
  * @author Alex Roetter
  */
-class SequenceContext extends BaseContext {
-
-    @Nullable
-    private final Iterator<JsonNode> children;
-    @Nullable
-    private JsonNode currentChild;
-
-    /**
-     * Create an iterator over the children. May be constructed with a null
-     * JsonArray if we only use it for writing.
-     */
-    protected SequenceContext(@Nullable JsonNode json) {
-        children = null != json ? json.elements() : null;
-    }
-
-    @Override
-    protected void read() {
-        assert children != null;
-        if (!children.hasNext()) {
-            throw new RuntimeException(
-                    "Called SequenceContext.read() too many times!");
-        }
-        currentChild = children.next();
-    }
-
-    @Override
-    protected JsonNode getCurrentChild() {
-        assert currentChild != null;
-        return currentChild;
-    }
-
-    @Override
-    protected boolean hasMoreChildren() {
-        assert children != null;
-        return children.hasNext();
-    }
-}
+class SequenceContext extends BaseContext {}
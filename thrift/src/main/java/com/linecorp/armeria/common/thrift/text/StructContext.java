@@ -54,8 +54,6 @@ import org.apache.thrift.protocol.TType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.fasterxml.jackson.databind.JsonNode;
-
 import com.linecorp.armeria.internal.thrift.TApplicationExceptions;
 
 /**
@@ -77,12 +75,11 @@ class StructContext extends PairContext {
     /**
      * Build the name -> TField map.
      */
-    StructContext(@Nullable JsonNode json) {
-        this(json, getCurrentThriftMessageClass());
+    StructContext() {
+        this(getCurrentThriftMessageClass());
     }
 
-    StructContext(@Nullable JsonNode json, Class<?> clazz) {
-        super(json);
+    StructContext(Class<?> clazz) {
         classMap = new HashMap<>();
         fieldNameMap = computeFieldNameMap(clazz);
     }
@@ -32,7 +32,10 @@ package com.linecorp.armeria.common.thrift.text;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Stack;
 
 import javax.annotation.Nullable;
@@ -56,10 +59,17 @@ import org.apache.thrift.transport.TTransport;
 import org.apache.thrift.transport.TTransportException;
 
 import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonParser.Feature;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonToken;
+
+import com.linecorp.armeria.internal.thrift.TByteBufTransport;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
 
 /**
  * A simple text format for serializing/deserializing thrift
@@ -76,6 +86,10 @@ import com.fasterxml.jackson.databind.ObjectMapper;
  *
  * <p>No comments are allowed in the json.
  *
+ * <p>The input is read with a streaming {@link JsonParser} rather than into a tree, and the output is
+ * written by a {@link JsonGenerator} which flushes its buffer straight into the {@link TTransport}, so
+ * that the memory footprint does not grow with the size of a message.
+ *
  * <p>Messages must be formatted as a JSON object with a field 'method' containing
  * the message name, 'type' containing the message type as an uppercase string
  * corresponding to {@link TMessageType}, 'args' containing a JSON object with
@@ -116,7 +130,7 @@ public class TTextProtocol extends TProtocol {
     private static final String SEQUENCE_AS_KEY_ILLEGAL =
             "Can't have a sequence (list or set) as a key in a map!";
 
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+    private static final JsonFactory JSON_FACTORY = new JsonFactory()
             .configure(Feature.ALLOW_UNQUOTED_FIELD_NAMES, true);
 
     private static final TStruct ANONYMOUS_STRUCT = new TStruct();
@@ -125,11 +139,10 @@ public class TTextProtocol extends TProtocol {
     private static final int READ_BUFFER_SIZE = 1024;
 
     private static final byte UNUSED_TYPE = TType.STOP;
-    private final Stack<WriterByteArrayOutputStream> writers;
+    private final Stack<WriterAndOutputStream> writers;
     private final Stack<BaseContext> contextStack;
     private final Stack<Class<?>> currentFieldClass;
-    @Nullable
-    private JsonNode root;
+    private final Stack<ParserAndInput> parsers;
 
     /**
      * Create a parser which can read from trans, and create the output writer
@@ -141,6 +154,7 @@ public class TTextProtocol extends TProtocol {
         writers = new Stack<>();
         contextStack = new Stack<>();
         currentFieldClass = new Stack<>();
+        parsers = new Stack<>();
         reset();
     }
 
@@ -152,7 +166,7 @@ public class TTextProtocol extends TProtocol {
 
     @Override
     public final void reset() {
-        root = null;
+        closeParsers();
 
         writers.clear();
         pushWriter(new TTransportOutputStream());
@@ -195,7 +209,7 @@ public class TTextProtocol extends TProtocol {
 
     @Override
     public void writeStructBegin(TStruct struct) throws TException {
-        writeJsonObjectBegin(new StructContext(null));
+        writeJsonObjectBegin(new StructContext());
     }
 
     @Override
@@ -222,7 +236,7 @@ public class TTextProtocol extends TProtocol {
 
     @Override
     public void writeMapBegin(TMap map) throws TException {
-        writeJsonObjectBegin(new MapContext(null));
+        writeJsonObjectBegin(new MapContext());
     }
 
     @Override
@@ -298,7 +312,7 @@ public class TTextProtocol extends TProtocol {
         if (getCurrentContext().isMapKey()) {
             throw new TException(SEQUENCE_AS_KEY_ILLEGAL);
         }
-        pushContext(new SequenceContext(null));
+        pushContext(new SequenceContext());
 
         try {
             getCurrentWriter().writeStartArray();
@@ -383,85 +397,102 @@ public class TTextProtocol extends TProtocol {
     /////////////////////////////////////////
     @Override
     public TMessage readMessageBegin() throws TException {
-        root = null;
+        closeParsers();
+        final ParserAndInput root = openRootParser();
+        final JsonParser parser = root.parser;
+
+        String methodName = null;
+        Byte messageType = null;
+        int sequenceId = 0;
+        long argsOffset = -1;
         try {
-            readRoot();
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new TException(
+                        "The top level of the input must be a json object with method and args!");
+            }
+
+            // Scan the top level fields only, remembering where 'args' starts without parsing it, because
+            // the fields may come in any order.
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                final String fieldName = parser.getCurrentName();
+                final JsonToken valueToken = parser.nextToken();
+                switch (fieldName) {
+                    case "method":
+                        methodName = parser.getText();
+                        break;
+                    case "type":
+                        messageType = TypedParser.TMESSAGE_TYPE.readFromParser(parser);
+                        break;
+                    case "seqid":
+                        sequenceId = parser.getValueAsInt();
+                        break;
+                    case "args":
+                        argsOffset = valueToken == JsonToken.START_OBJECT ?
+                                     parser.getTokenLocation().getByteOffset() : -1;
+                        break;
+                }
+                parser.skipChildren();
+            }
         } catch (IOException e) {
             throw new TException("Could not parse input, is it valid json?", e);
         }
-        if (!root.isObject()) {
-            throw new TException("The top level of the input must be a json object with method and args!");
-        }
 
-        if (!root.has("method")) {
+        if (methodName == null) {
             throw new TException("Object must have field 'method' with the rpc method name!");
         }
-        final String methodName = root.get("method").asText();
-
-        if (!root.has("type")) {
+        if (messageType == null) {
             throw new TException(
                     "Object must have field 'type' with the message type (CALL, REPLY, EXCEPTION, ONEWAY)!");
         }
-        final Byte messageType = TypedParser.TMESSAGE_TYPE.readFromJsonElement(root.get("type"));
-
-        if (!root.has("args") || !root.get("args").isObject()) {
+        if (argsOffset < 0) {
             throw new TException("Object must have field 'args' with the rpc method args!");
         }
 
-        final int sequenceId = root.has("seqid") ? root.get("seqid").asInt() : 0;
-
-        // Override the root with the content of args - thrift's rpc reading will
+        // Replace the root parser with the one which starts from 'args' - thrift's rpc reading will
         // proceed to read it as a message object.
-        root = root.get("args");
+        closeParsers();
+        pushParser(root.input.slice(root.input.readerIndex() + (int) argsOffset,
+                                    root.input.readableBytes() - (int) argsOffset));
 
         return new TMessage(methodName, messageType, sequenceId);
     }
 
     @Override
     public void readMessageEnd() throws TException {
-        // We've already finished parsing the top level struct in
-        // readMessageBegin, so nothing to do here.
-        root = null;
+        // We've already finished parsing the top level struct, so
+        // nothing to do here but releasing the parsers.
+        closeParsers();
     }
 
     @Override
     public TStruct readStructBegin() throws TException {
         getCurrentContext().read();
 
-        JsonNode structElem;
         // Reading a new top level struct if the only item on the stack
         // is the BaseContext
-        if (1 == contextStack.size()) {
-            try {
-                readRoot();
-            } catch (IOException e) {
-                throw new TException("Could not parse input, is it valid json?", e);
-            }
-            if (root == null) {
-                throw new TException("parser.next() has nothing to parse!");
-            }
-            structElem = root;
-        } else {
-            structElem = getCurrentContext().getCurrentChild();
+        if (1 == contextStack.size() && parsers.isEmpty()) {
+            openRootParser();
         }
 
-        if (getCurrentContext().isMapKey()) {
-            try {
-                structElem = OBJECT_MAPPER.readTree(structElem.asText());
-            } catch (IOException e) {
-                throw new TException("Could not parse map key, is it valid json?", e);
-            }
+        final boolean mapKey = getCurrentContext().isMapKey();
+        JsonToken token = nextToken();
+        if (token == null) {
+            throw new TException("parser.next() has nothing to parse!");
+        }
+        if (mapKey) {
+            token = pushMapKeyParser();
         }
 
-        if (!structElem.isObject()) {
+        if (token != JsonToken.START_OBJECT) {
             throw new TException("Expected Json Object!");
         }
 
         final Class<?> fieldClass = getCurrentFieldClassIfIs(TBase.class);
-        if (fieldClass != null) {
-            pushContext(new StructContext(structElem, fieldClass));
-        } else {
-            pushContext(new StructContext(structElem));
+        final StructContext context = fieldClass != null ? new StructContext(fieldClass)
+                                                         : new StructContext();
+        pushContext(context);
+        if (mapKey) {
+            parsers.peek().owner = context;
         }
         return ANONYMOUS_STRUCT;
     }
@@ -469,23 +500,27 @@ public class TTextProtocol extends TProtocol {
     @Override
     public void readStructEnd() throws TException {
         popContext();
+        if (1 == contextStack.size()) {
+            // Finished reading a top level struct.
+            closeParsers();
+        }
     }
 
     @Override
     public TField readFieldBegin() throws TException {
-        if (!getCurrentContext().hasMoreChildren()) {
+        final JsonToken token = nextToken();
+        if (token == JsonToken.END_OBJECT) {
+            popMapKeyParser();
             return new TField("", UNUSED_TYPE, (short) 0);
         }
 
-        getCurrentContext().read();
-
-        final JsonNode jsonName = getCurrentContext().getCurrentChild();
-
-        if (!jsonName.isTextual()) {
-            throw new RuntimeException("Expected String for a field name");
+        if (token != JsonToken.FIELD_NAME) {
+            throw new TException("Expected String for a field name");
         }
 
-        final String fieldName = jsonName.asText();
+        getCurrentContext().read();
+
+        final String fieldName = getCurrentName();
         currentFieldClass.push(getCurrentContext().getClassByFieldName(fieldName));
 
         return getCurrentContext().getTFieldByName(fieldName);
@@ -500,27 +535,31 @@ public class TTextProtocol extends TProtocol {
     public TMap readMapBegin() throws TException {
         getCurrentContext().read();
 
-        JsonNode curElem = getCurrentContext().getCurrentChild();
-
-        if (getCurrentContext().isMapKey()) {
-            try {
-                curElem = OBJECT_MAPPER.readTree(curElem.asText());
-            } catch (IOException e) {
-                throw new TException("Could not parse map key, is it valid json?", e);
-            }
+        final boolean mapKey = getCurrentContext().isMapKey();
+        JsonToken token = nextToken();
+        if (mapKey) {
+            token = pushMapKeyParser();
         }
 
-        if (!curElem.isObject()) {
+        if (token != JsonToken.START_OBJECT) {
             throw new TException("Expected JSON Object!");
         }
 
-        pushContext(new MapContext(curElem));
-
-        return new TMap(UNUSED_TYPE, UNUSED_TYPE, curElem.size());
+        final int size = countChildren();
+        final MapContext context = new MapContext();
+        pushContext(context);
+        if (mapKey) {
+            parsers.peek().owner = context;
+        }
+        return new TMap(UNUSED_TYPE, UNUSED_TYPE, size);
     }
 
     @Override
     public void readMapEnd() throws TException {
+        if (nextToken() != JsonToken.END_OBJECT) {
+            throw new TException("Expected the end of JSON Object!");
+        }
+        popMapKeyParser();
         popContext();
     }
 
@@ -555,19 +594,22 @@ public class TTextProtocol extends TProtocol {
             throw new TException(SEQUENCE_AS_KEY_ILLEGAL);
         }
 
-        final JsonNode curElem = getCurrentContext().getCurrentChild();
-        if (!curElem.isArray()) {
+        if (nextToken() != JsonToken.START_ARRAY) {
             throw new TException("Expected JSON Array!");
         }
 
-        pushContext(new SequenceContext(curElem));
-        return curElem.size();
+        final int size = countChildren();
+        pushContext(new SequenceContext());
+        return size;
     }
 
     /**
      * Helper shared by read{List/Set}End.
      */
-    private void readSequenceEnd() {
+    private void readSequenceEnd() throws TException {
+        if (nextToken() != JsonToken.END_ARRAY) {
+            throw new TException("Expected the end of JSON Array!");
+        }
         popContext();
     }
 
@@ -592,18 +634,24 @@ public class TTextProtocol extends TProtocol {
         if (fieldClass != null) {
             // Enum fields may be set by string, even though they represent integers.
             getCurrentContext().read();
-            final JsonNode elem = getCurrentContext().getCurrentChild();
-            if (elem.isInt()) {
-                return TypedParser.INTEGER.readFromJsonElement(elem);
-            } else if (elem.isTextual()) {
-                // All TEnum are enums
-                @SuppressWarnings({ "unchecked", "rawtypes" })
-                final TEnum tEnum = (TEnum) Enum.valueOf((Class<Enum>) fieldClass,
-                                                   TypedParser.STRING.readFromJsonElement(elem));
-                return tEnum.getValue();
-            } else {
-                throw new TTransportException("invalid value type for enum field: " + elem.getNodeType() +
-                                              " (" + elem + ')');
+            final JsonToken token = nextToken();
+            final JsonParser parser = parsers.peek().parser;
+            try {
+                if (token == JsonToken.VALUE_NUMBER_INT) {
+                    return parser.getIntValue();
+                } else if (token == JsonToken.VALUE_STRING || token == JsonToken.FIELD_NAME) {
+                    // All TEnum are enums
+                    @SuppressWarnings({ "unchecked", "rawtypes" })
+                    final TEnum tEnum = (TEnum) Enum.valueOf((Class<Enum>) fieldClass,
+                                                       token == JsonToken.FIELD_NAME ? parser.getCurrentName()
+                                                                                     : parser.getText());
+                    return tEnum.getValue();
+                } else {
+                    throw new TTransportException("invalid value type for enum field: " + token +
+                                                  " (" + parser.getText() + ')');
+                }
+            } catch (IOException e) {
+                throw new TException("Could not parse input, is it valid json?", e);
             }
         } else {
             return readNameOrValue(TypedParser.INTEGER);
@@ -632,8 +680,8 @@ public class TTextProtocol extends TProtocol {
 
     /**
      * Read in a value of the given type, either as a name (meaning the
-     * JSONElement is a string and we convert it), or as a value
-     * (meaning the JSONElement has the type we expect).
+     * current token is a field name and we convert it), or as a value
+     * (meaning the current token has the type we expect).
      * Uses a TypedParser to do the real work.
      *
      * <p>TODO(Alex Roetter): not sure TypedParser is a win for the number of
@@ -641,37 +689,173 @@ public class TTextProtocol extends TProtocol {
      * do what readNameOrValue does, calling the relevant methods from
      * the TypedParser directly.
      */
-    private <T> T readNameOrValue(TypedParser<T> ch) {
+    private <T> T readNameOrValue(TypedParser<T> ch) throws TException {
         getCurrentContext().read();
 
-        final JsonNode elem = getCurrentContext().getCurrentChild();
+        final JsonToken token = nextToken();
         if (getCurrentContext().isMapKey()) {
-            // Will throw a ClassCastException if this is not a JsonPrimitive string
-            return ch.readFromString(elem.asText());
-        } else {
-            return ch.readFromJsonElement(elem);
+            return ch.readFromString(getCurrentName());
+        }
+
+        if (token == null || !token.isScalarValue()) {
+            throw new TException("Expected a JSON scalar value: " + token);
+        }
+        try {
+            return ch.readFromParser(parsers.peek().parser);
+        } catch (IOException e) {
+            throw new TException("Could not parse input, is it valid json?", e);
         }
     }
 
     /**
-     * Read in the root node if it has not yet been read.
+     * Creates the parser which reads the whole input of the transport. The buffer of the transport is used
+     * as is if it exposes one, even if it is not backed by an array, so that the input is not copied.
      */
-    private void readRoot() throws IOException {
-        if (root != null) {
-            return;
+    private ParserAndInput openRootParser() throws TException {
+        if (trans_ instanceof TByteBufTransport) {
+            final ByteBuf buf = ((TByteBufTransport) trans_).buf();
+            final ByteBuf input = buf.slice();
+            buf.skipBytes(buf.readableBytes());
+            return pushParser(input);
+        }
+
+        final byte[] buf = trans_.getBuffer();
+        final int remaining = trans_.getBytesRemainingInBuffer();
+        if (buf != null && remaining >= 0) {
+            final int offset = trans_.getBufferPosition();
+            trans_.consumeBuffer(remaining);
+            return pushParser(Unpooled.wrappedBuffer(buf, offset, remaining));
         }
+
         final ByteArrayOutputStream content = new ByteArrayOutputStream();
         final byte[] buffer = new byte[READ_BUFFER_SIZE];
         try {
-            while (trans_.read(buffer, 0, READ_BUFFER_SIZE) > 0) {
-                content.write(buffer);
+            int read;
+            while ((read = trans_.read(buffer, 0, READ_BUFFER_SIZE)) > 0) {
+                content.write(buffer, 0, read);
             }
         } catch (TTransportException e) {
             if (TTransportException.END_OF_FILE != e.getType()) {
-                throw new IOException(e);
+                throw new TException("Could not parse input, is it valid json?", e);
+            }
+        }
+        return pushParser(Unpooled.wrappedBuffer(content.toByteArray()));
+    }
+
+    /**
+     * Creates a parser for the JSON text in the current map key, e.g. a struct or a map used as a key,
+     * and returns its first token. The parser is popped when the object it reads ends.
+     */
+    @Nullable
+    private JsonToken pushMapKeyParser() throws TException {
+        pushParser(Unpooled.wrappedBuffer(getCurrentName().getBytes(StandardCharsets.UTF_8)));
+        return nextToken();
+    }
+
+    private void popMapKeyParser() {
+        final ParserAndInput current = parsers.peek();
+        if (current.owner != null && current.owner == getCurrentContext()) {
+            closeQuietly(parsers.pop());
+        }
+    }
+
+    private ParserAndInput pushParser(ByteBuf input) throws TException {
+        return parsers.push(new ParserAndInput(createParser(input), input));
+    }
+
+    /**
+     * Creates a parser which reads the readable bytes of the specified {@link ByteBuf} without changing
+     * its reader index.
+     */
+    private static JsonParser createParser(ByteBuf input) throws TException {
+        try {
+            if (input.hasArray()) {
+                return JSON_FACTORY.createParser(input.array(), input.arrayOffset() + input.readerIndex(),
+                                                 input.readableBytes());
             }
+            return JSON_FACTORY.createParser((InputStream) new ByteBufInputStream(input.duplicate()));
+        } catch (IOException e) {
+            // Can't happen, reading from a buffer.
+            throw new TException(e);
+        }
+    }
+
+    private void closeParsers() {
+        while (!parsers.isEmpty()) {
+            closeQuietly(parsers.pop());
+        }
+    }
+
+    private static void closeQuietly(ParserAndInput parserAndInput) {
+        try {
+            parserAndInput.parser.close();
+        } catch (IOException ignored) {
+            // Can't happen, reading from a buffer.
+        }
+    }
+
+    @Nullable
+    private JsonToken nextToken() throws TException {
+        if (parsers.isEmpty()) {
+            throw new TException("parser.next() has nothing to parse!");
+        }
+        try {
+            return parsers.peek().parser.nextToken();
+        } catch (IOException e) {
+            throw new TException("Could not parse input, is it valid json?", e);
         }
-        root = OBJECT_MAPPER.readTree(content.toByteArray());
+    }
+
+    private String getCurrentName() throws TException {
+        final JsonParser parser = parsers.peek().parser;
+        if (parser.currentToken() != JsonToken.FIELD_NAME) {
+            throw new TException("Expected String for a map key: " + parser.currentToken());
+        }
+        try {
+            return parser.getCurrentName();
+        } catch (IOException e) {
+            throw new TException("Could not parse input, is it valid json?", e);
+        }
+    }
+
+    /**
+     * Returns the number of the children of the JSON object or array which starts at the current token,
+     * so that thrift knows how many elements to read. The object or array is scanned from its start with
+     * a separate parser which skips the grandchildren, so that nothing is kept after the scan and the
+     * memory footprint does not grow with the number of objects and arrays in the input.
+     */
+    private int countChildren() throws TException {
+        final ParserAndInput current = parsers.peek();
+        final ByteBuf input = current.input;
+        final long offset = current.parser.getTokenLocation().getByteOffset();
+        if (offset < 0 || offset >= input.readableBytes()) {
+            throw new TException("Could not parse input, is it valid json?");
+        }
+
+        final ByteBuf container = input.slice(input.readerIndex() + (int) offset,
+                                              input.readableBytes() - (int) offset);
+        int numChildren = 0;
+        try (JsonParser scanner = createParser(container)) {
+            final JsonToken startToken = scanner.nextToken();
+            if (startToken == null || !startToken.isStructStart()) {
+                throw new TException("Could not parse input, is it valid json?");
+            }
+
+            JsonToken token;
+            while ((token = scanner.nextToken()) != null && !token.isStructEnd()) {
+                if (token == JsonToken.FIELD_NAME) {
+                    continue;
+                }
+                numChildren++;
+                scanner.skipChildren();
+            }
+            if (token == null) {
+                throw new TException("Could not parse input, is it valid json?");
+            }
+        } catch (IOException e) {
+            throw new TException("Could not parse input, is it valid json?", e);
+        }
+        return numChildren;
     }
 
     /**
@@ -703,12 +887,12 @@ public class TTextProtocol extends TProtocol {
     }
 
     private String getWriterString() throws TException {
-        final WriterByteArrayOutputStream wbaos = writers.peek();
+        final WriterAndOutputStream wos = writers.peek();
         final String ret;
         try {
-            wbaos.writer.flush();
-            ret = new String(wbaos.baos.toByteArray());
-            wbaos.writer.close();
+            wos.writer.flush();
+            ret = new String(((ByteArrayOutputStream) wos.out).toByteArray());
+            wos.writer.close();
         } catch (IOException e) {
             throw new TException(e);
         }
@@ -727,31 +911,47 @@ public class TTextProtocol extends TProtocol {
         return null;
     }
 
-    private void pushWriter(ByteArrayOutputStream baos) {
+    private void pushWriter(OutputStream out) {
         final JsonGenerator generator;
         try {
-            generator = OBJECT_MAPPER.getFactory().createGenerator(baos, JsonEncoding.UTF8)
-                    .useDefaultPrettyPrinter();
+            generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)
+                                    .useDefaultPrettyPrinter();
         } catch (IOException e) {
             // Can't happen, using a byte stream.
             throw new IllegalStateException(e);
         }
 
-        final WriterByteArrayOutputStream wbaos = new WriterByteArrayOutputStream(generator, baos);
-        writers.push(wbaos);
+        writers.push(new WriterAndOutputStream(generator, out));
     }
 
     private void popWriter() {
         writers.pop();
     }
 
-    private static final class WriterByteArrayOutputStream {
+    private static final class WriterAndOutputStream {
         final JsonGenerator writer;
-        final ByteArrayOutputStream baos;
+        final OutputStream out;
 
-        private WriterByteArrayOutputStream(JsonGenerator writer, ByteArrayOutputStream baos) {
+        private WriterAndOutputStream(JsonGenerator writer, OutputStream out) {
             this.writer = writer;
-            this.baos = baos;
+            this.out = out;
+        }
+    }
+
+    private static final class ParserAndInput {
+        final JsonParser parser;
+        final ByteBuf input;
+
+        /**
+         * The context of the struct or map which is read from a map key by this parser,
+         * or {@code null} if this parser reads the input of the transport.
+         */
+        @Nullable
+        BaseContext owner;
+
+        private ParserAndInput(JsonParser parser, ByteBuf input) {
+            this.parser = parser;
+            this.input = input;
         }
     }
 
@@ -768,32 +968,39 @@ public class TTextProtocol extends TProtocol {
     }
 
     /**
-     * Just a byte array output stream that forwards all data to
-     * a TTransport when it is flushed or closed.
+     * An output stream that forwards all data to a TTransport as soon as
+     * the {@link JsonGenerator} flushes its internal buffer, so that the
+     * whole message is never buffered in memory.
      */
-    private class TTransportOutputStream extends ByteArrayOutputStream {
+    private class TTransportOutputStream extends OutputStream {
         // This isn't necessary, but a good idea to close the transport
         @Override
         public void close() throws IOException {
             flush();
-
-            super.close();
             trans_.close();
         }
 
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            try {
+                trans_.write(b, off, len);
+            } catch (TTransportException ex) {
+                throw new IOException(ex);
+            }
+        }
+
         @Override
         public void flush() throws IOException {
             try {
-                super.flush();
-                final byte[] bytes = toByteArray();
-                trans_.write(bytes);
                 trans_.flush();
             } catch (TTransportException ex) {
                 throw new IOException(ex);
             }
-            // Clears the internal memory buffer, since we've already
-            // written it out.
-            reset();
         }
     }
 }
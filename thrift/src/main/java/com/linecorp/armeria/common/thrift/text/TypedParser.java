@@ -37,11 +37,11 @@ import org.apache.thrift.protocol.TMessageType;
 
 import com.fasterxml.jackson.core.Base64Variants;
 import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
 
 /**
  * A type parsing helper, knows how to parse a given type either from a string
- * or from a JsonElement, and knows how to emit a given type to a JsonGenerator.
+ * or from the current token of a JsonParser, and knows how to emit a given type to a JsonGenerator.
  *
  * <p>Clients should use the static members defined here for common types.
  * Should be implemented for each integral type we need to read/write.
@@ -60,8 +60,8 @@ abstract class TypedParser<T> {
         }
 
         @Override
-        public Boolean readFromJsonElement(JsonNode elem) {
-            return elem.asBoolean();
+        public Boolean readFromParser(JsonParser parser) throws IOException {
+            return parser.getValueAsBoolean();
         }
 
         @Override
@@ -78,8 +78,8 @@ abstract class TypedParser<T> {
         }
 
         @Override
-        public Byte readFromJsonElement(JsonNode elem) {
-            return (byte) elem.asInt();
+        public Byte readFromParser(JsonParser parser) throws IOException {
+            return (byte) parser.getValueAsInt();
         }
 
         @Override
@@ -96,8 +96,8 @@ abstract class TypedParser<T> {
         }
 
         @Override
-        public Short readFromJsonElement(JsonNode elem) {
-            return (short) elem.asInt();
+        public Short readFromParser(JsonParser parser) throws IOException {
+            return (short) parser.getValueAsInt();
         }
 
         @Override
@@ -114,8 +114,8 @@ abstract class TypedParser<T> {
         }
 
         @Override
-        public Integer readFromJsonElement(JsonNode elem) {
-            return elem.asInt();
+        public Integer readFromParser(JsonParser parser) throws IOException {
+            return parser.getValueAsInt();
         }
 
         @Override
@@ -131,8 +131,8 @@ abstract class TypedParser<T> {
         }
 
         @Override
-        public Long readFromJsonElement(JsonNode elem) {
-            return elem.asLong();
+        public Long readFromParser(JsonParser parser) throws IOException {
+            return parser.getValueAsLong();
         }
 
         @Override
@@ -148,8 +148,8 @@ abstract class TypedParser<T> {
         }
 
         @Override
-        public Double readFromJsonElement(JsonNode elem) {
-            return elem.asDouble();
+        public Double readFromParser(JsonParser parser) throws IOException {
+            return parser.getValueAsDouble();
         }
 
         @Override
@@ -165,8 +165,8 @@ abstract class TypedParser<T> {
         }
 
         @Override
-        public String readFromJsonElement(JsonNode elem) {
-            return elem.asText();
+        public String readFromParser(JsonParser parser) throws IOException {
+            return parser.getText();
         }
 
         @Override
@@ -182,9 +182,9 @@ abstract class TypedParser<T> {
         }
 
         @Override
-        public ByteBuffer readFromJsonElement(JsonNode elem) {
+        public ByteBuffer readFromParser(JsonParser parser) {
             try {
-                return ByteBuffer.wrap(elem.binaryValue());
+                return ByteBuffer.wrap(parser.getBinaryValue());
             } catch (IOException e) {
                 throw new IllegalArgumentException("Error decoding binary value, is it valid base64?", e);
             }
@@ -214,8 +214,8 @@ abstract class TypedParser<T> {
         }
 
         @Override
-        Byte readFromJsonElement(JsonNode elem) {
-            return readFromString(elem.asText());
+        Byte readFromParser(JsonParser parser) throws IOException {
+            return readFromString(parser.getText());
         }
 
         @Override
@@ -247,9 +247,9 @@ abstract class TypedParser<T> {
     abstract T readFromString(String s);
 
     /**
-     * Read the given type from a JsonElement.
+     * Read the given type from the current token of a JsonParser.
      */
-    abstract T readFromJsonElement(JsonNode elem);
+    abstract T readFromParser(JsonParser parser) throws IOException;
 
     /**
      * Write the given type out using a JsonGenerator.
@@ -14,7 +14,7 @@
  * under the License.
  */
 
-package com.linecorp.armeria.server.thrift;
+package com.linecorp.armeria.internal.thrift;
 
 import static java.util.Objects.requireNonNull;
 
@@ -25,14 +25,27 @@ import org.apache.thrift.transport.TTransportException;
 
 import io.netty.buffer.ByteBuf;
 
-final class TByteBufTransport extends TTransport {
+/**
+ * A {@link TTransport} which reads from and writes to a {@link ByteBuf} without copying it.
+ */
+public final class TByteBufTransport extends TTransport {
 
     private final ByteBuf buf;
 
-    TByteBufTransport(ByteBuf buf) {
+    /**
+     * Creates a new instance. The specified {@link ByteBuf} is not released by this transport.
+     */
+    public TByteBufTransport(ByteBuf buf) {
         this.buf = requireNonNull(buf, "buf");
     }
 
+    /**
+     * Returns the {@link ByteBuf} which this transport reads from and writes to.
+     */
+    public ByteBuf buf() {
+        return buf;
+    }
+
     @Override
     public void close() {}
 
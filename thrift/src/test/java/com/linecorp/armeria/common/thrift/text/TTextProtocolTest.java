@@ -45,6 +45,7 @@ import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TMessage;
 import org.apache.thrift.protocol.TMessageType;
 import org.apache.thrift.transport.TIOStreamTransport;
+import org.apache.thrift.transport.TMemoryInputTransport;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -57,6 +58,10 @@ import com.google.common.io.Resources;
 import com.linecorp.armeria.common.thrift.text.RpcDebugService.doDebug_args;
 import com.linecorp.armeria.common.thrift.text.RpcDebugService.doDebug_result;
 import com.linecorp.armeria.internal.thrift.TApplicationExceptions;
+import com.linecorp.armeria.internal.thrift.TByteBufTransport;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 /**
  * Tests the TTextProtocol.
@@ -115,6 +120,26 @@ public class TTextProtocolTest {
         assertThat(msg2).isEqualTo(msg1);
     }
 
+    /**
+     * Reads a thrift message from a direct buffer, which does not expose its content as an array.
+     */
+    @Test
+    public void tTextProtocolReadFromDirectBuffer() throws Exception {
+        final ByteBuf buf = Unpooled.directBuffer();
+        try {
+            buf.writeCharSequence(fileContents, StandardCharsets.UTF_8);
+            final TByteBufTransport transport = new TByteBufTransport(buf);
+            assertThat(transport.getBuffer()).isNull();
+
+            final TTextProtocolTestMsg msg = new TTextProtocolTestMsg();
+            msg.read(new TTextProtocol(transport));
+            assertThat(msg).isEqualTo(testMsg());
+            assertThat(buf.isReadable()).isFalse();
+        } finally {
+            buf.release();
+        }
+    }
+
     private TTextProtocolTestMsg testMsg() {
 
         return new TTextProtocolTestMsg()
@@ -233,6 +258,77 @@ public class TTextProtocolTest {
         assertThat(header.seqid).isZero();
     }
 
+    @Test
+    public void rpcCall_argsFirst() throws Exception {
+        final String request =
+                "{\n" +
+                "  \"args\" : {\n" +
+                "    \"details\" : {\n" +
+                "      \"detailsArg2\" : 100,\n" +
+                "      \"detailsArg1\" : \"foo2\"\n" +
+                "    },\n" +
+                "    \"methodArg2\" : 200,\n" +
+                "    \"methodArg1\" : \"foo1\"\n" +
+                "  },\n" +
+                "  \"seqid\" : 2,\n" +
+                "  \"type\" : \"CALL\",\n" +
+                "  \"method\" : \"doDebug\"\n" +
+                '}';
+
+        // Read from an array-backed transport, which the parser reads without copying.
+        final TTextProtocol prot = new TTextProtocol(new TMemoryInputTransport(request.getBytes()));
+        final TMessage header = prot.readMessageBegin();
+        final doDebug_args args = new RpcDebugService.Processor.doDebug().getEmptyArgsInstance();
+        args.read(prot);
+        prot.readMessageEnd();
+
+        assertThat(header.name).isEqualTo("doDebug");
+        assertThat(header.type).isEqualTo(TMessageType.CALL);
+        assertThat(header.seqid).isEqualTo(2);
+
+        assertThat(args.getMethodArg1()).isEqualTo("foo1");
+        assertThat(args.getMethodArg2()).isEqualTo(200);
+        assertThat(args.getDetails().getDetailsArg1()).isEqualTo("foo2");
+        assertThat(args.getDetails().getDetailsArg2()).isEqualTo(100);
+    }
+
+    @Test
+    public void rpcCall_directBuffer() throws Exception {
+        final String request =
+                "{\n" +
+                "  \"method\" : \"doDebug\",\n" +
+                "  \"type\" : \"CALL\",\n" +
+                "  \"args\" : {\n" +
+                "    \"methodArg1\" : \"foo1\",\n" +
+                "    \"methodArg2\" : 200,\n" +
+                "    \"details\" : {\n" +
+                "      \"detailsArg1\" : \"foo2\",\n" +
+                "      \"detailsArg2\" : 100\n" +
+                "    }\n" +
+                "  },\n" +
+                "  \"seqid\" : 3\n" +
+                '}';
+
+        final ByteBuf buf = Unpooled.directBuffer();
+        try {
+            buf.writeCharSequence(request, StandardCharsets.UTF_8);
+            final TTextProtocol prot = new TTextProtocol(new TByteBufTransport(buf));
+            final TMessage header = prot.readMessageBegin();
+            final doDebug_args args = new RpcDebugService.Processor.doDebug().getEmptyArgsInstance();
+            args.read(prot);
+            prot.readMessageEnd();
+
+            assertThat(header.name).isEqualTo("doDebug");
+            assertThat(header.seqid).isEqualTo(3);
+            assertThat(args.getMethodArg1()).isEqualTo("foo1");
+            assertThat(args.getMethodArg2()).isEqualTo(200);
+            assertThat(args.getDetails().getDetailsArg1()).isEqualTo("foo2");
+            assertThat(args.getDetails().getDetailsArg2()).isEqualTo(100);
+        } finally {
+            buf.release();
+        }
+    }
+
     @Test
     public void rpcCall_oneWay() throws Exception {
         final String request =